@@ -103,6 +103,13 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
 	private static final Log logger = LogFactory.getLog(AspectJExpressionPointcut.class);
 
+	/**
+	 * Name of the internal singleton which holds the shadow match caches shared
+	 * between equivalent pointcut instances of the same BeanFactory
+	 */
+	private static final String SHARED_SHADOW_MATCH_CACHES_BEAN_NAME =
+			AspectJExpressionPointcut.class.getName() + ".sharedShadowMatchCaches";
+
 	@Nullable
 	private Class<?> pointcutDeclarationScope;
 
@@ -195,11 +202,42 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		}
 		if (this.pointcutExpression == null) {
 			this.pointcutClassLoader = determinePointcutClassLoader();
+			this.shadowMatchCache = obtainSharedShadowMatchCache(this.pointcutClassLoader);
 			this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
 		}
 		return this.pointcutExpression;
 	}
 
+	/**
+	 * Obtain the shadow match cache for this pointcut, shared with all other
+	 * pointcuts that declare the same expression, declaration scope and parameters
+	 * and that are evaluated against the same BeanFactory and ClassLoader.
+	 * <p>The same expression is commonly declared by several advisors, e.g. for
+	 * before and after advice on the same pointcut; all of those need to match it
+	 * against the same methods of every bean, which is therefore done only once.
+	 * <p>The shared caches are held by an internal singleton of the BeanFactory,
+	 * so they do not outlive it and are dropped when its singletons are destroyed.
+	 * Without a {@link ConfigurableBeanFactory}, this pointcut uses a cache of its own.
+	 */
+	private Map<Method, ShadowMatch> obtainSharedShadowMatchCache(@Nullable ClassLoader classLoader) {
+		if (!(this.beanFactory instanceof ConfigurableBeanFactory)) {
+			return new ConcurrentHashMap<>(32);
+		}
+		ConfigurableBeanFactory cbf = (ConfigurableBeanFactory) this.beanFactory;
+		Object caches;
+		synchronized (cbf.getSingletonMutex()) {
+			caches = cbf.getSingleton(SHARED_SHADOW_MATCH_CACHES_BEAN_NAME);
+			if (caches == null) {
+				caches = new SharedShadowMatchCaches();
+				cbf.registerSingleton(SHARED_SHADOW_MATCH_CACHES_BEAN_NAME, caches);
+			}
+		}
+		if (!(caches instanceof SharedShadowMatchCaches)) {
+			return new ConcurrentHashMap<>(32);
+		}
+		return ((SharedShadowMatchCaches) caches).getCache(new ShadowMatchCacheKey(this, classLoader));
+	}
+
 	/**
 	 * Determine the ClassLoader to use for pointcut evaluation.
 	 */
@@ -672,6 +710,77 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	}
 
 
+	/**
+	 * Shadow match caches shared between the pointcuts of a BeanFactory,
+	 * registered as an internal singleton in that BeanFactory.
+	 */
+	private static final class SharedShadowMatchCaches {
+
+		private final Map<ShadowMatchCacheKey, Map<Method, ShadowMatch>> caches = new ConcurrentHashMap<>(64);
+
+		public Map<Method, ShadowMatch> getCache(ShadowMatchCacheKey key) {
+			return this.caches.computeIfAbsent(key, k -> new ConcurrentHashMap<>(32));
+		}
+	}
+
+
+	/**
+	 * Key for a shared shadow match cache within a BeanFactory, covering all other
+	 * state that the outcome of matching a pointcut against a given method depends on.
+	 */
+	private static final class ShadowMatchCacheKey {
+
+		private final Class<?> pointcutClass;
+
+		@Nullable
+		private final String expression;
+
+		@Nullable
+		private final Class<?> pointcutDeclarationScope;
+
+		private final String[] pointcutParameterNames;
+
+		private final Class<?>[] pointcutParameterTypes;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		public ShadowMatchCacheKey(AspectJExpressionPointcut pointcut, @Nullable ClassLoader classLoader) {
+			this.pointcutClass = pointcut.getClass();
+			this.expression = pointcut.getExpression();
+			this.pointcutDeclarationScope = pointcut.pointcutDeclarationScope;
+			this.pointcutParameterNames = pointcut.pointcutParameterNames.clone();
+			this.pointcutParameterTypes = pointcut.pointcutParameterTypes.clone();
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ShadowMatchCacheKey)) {
+				return false;
+			}
+			ShadowMatchCacheKey otherKey = (ShadowMatchCacheKey) other;
+			return (this.pointcutClass == otherKey.pointcutClass &&
+					ObjectUtils.nullSafeEquals(this.expression, otherKey.expression) &&
+					this.pointcutDeclarationScope == otherKey.pointcutDeclarationScope &&
+					Arrays.equals(this.pointcutParameterNames, otherKey.pointcutParameterNames) &&
+					Arrays.equals(this.pointcutParameterTypes, otherKey.pointcutParameterTypes) &&
+					this.classLoader == otherKey.classLoader);
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode = ObjectUtils.nullSafeHashCode(this.expression);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.pointcutDeclarationScope);
+			hashCode = 31 * hashCode + Arrays.hashCode(this.pointcutParameterNames);
+			return hashCode;
+		}
+	}
+
+
 	private static class DefensiveShadowMatch implements ShadowMatch {
 
 		private final ShadowMatch primary;
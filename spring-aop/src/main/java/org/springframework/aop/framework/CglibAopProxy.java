@@ -20,6 +20,8 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -27,14 +29,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 
-import org.aopalliance.aop.Advice;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.aop.Advisor;
 import org.springframework.aop.AopInvocationException;
-import org.springframework.aop.PointcutAdvisor;
 import org.springframework.aop.RawTargetAccess;
 import org.springframework.aop.TargetSource;
 import org.springframework.aop.support.AopUtils;
@@ -54,7 +54,7 @@ import org.springframework.core.SmartClassLoader;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * CGLIB-based {@link AopProxy} implementation for the Spring AOP framework.
@@ -70,6 +70,10 @@ import org.springframework.util.ObjectUtils;
  * <p>Proxies created using this class are thread-safe if the underlying
  * (target) class is thread-safe.
  *
+ * <p>Generated proxy classes are cached per ClassLoader and shared between
+ * all proxies whose configuration dispatches each method to the same kind of
+ * callback, independent of the actual advisor instances.
+ *
  * @author Rod Johnson
  * @author Rob Harrop
  * @author Juergen Hoeller
@@ -186,8 +190,9 @@ class CglibAopProxy implements AopProxy, Serializable {
 					enhancer.setUseCache(false);
 				}
 			}
+			Class<?>[] proxyInterfaces = AopProxyUtils.completeProxiedInterfaces(this.advised);
 			enhancer.setSuperclass(proxySuperClass);
-			enhancer.setInterfaces(AopProxyUtils.completeProxiedInterfaces(this.advised));
+			enhancer.setInterfaces(proxyInterfaces);
 			enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
 			enhancer.setStrategy(new ClassLoaderAwareUndeclaredThrowableStrategy(classLoader));
 
@@ -197,8 +202,8 @@ class CglibAopProxy implements AopProxy, Serializable {
 				types[x] = callbacks[x].getClass();
 			}
 			// fixedInterceptorMap only populated at this point, after getCallbacks call above
-			enhancer.setCallbackFilter(new ProxyCallbackFilter(
-					this.advised.getConfigurationOnlyCopy(), this.fixedInterceptorMap, this.fixedInterceptorOffset));
+			enhancer.setCallbackFilter(new ProxyCallbackFilter(this.advised.getConfigurationOnlyCopy(),
+					this.fixedInterceptorMap, this.fixedInterceptorOffset, proxySuperClass, proxyInterfaces));
 			enhancer.setCallbackTypes(types);
 
 			// Generate the proxy class and create a proxy instance.
@@ -394,6 +399,22 @@ class CglibAopProxy implements AopProxy, Serializable {
 		return returnValue;
 	}
 
+	/**
+	 * Invoke the given method on the target, through the given {@link MethodProxy}
+	 * for public methods and through reflection otherwise.
+	 */
+	@Nullable
+	private static Object invokeJoinpoint(@Nullable Object target, Method method, Object[] args,
+			MethodProxy methodProxy) throws Throwable {
+
+		if (Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class) {
+			return methodProxy.invoke(target, args);
+		}
+		else {
+			return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+		}
+	}
+
 
 	/**
 	 * Serializable replacement for CGLIB's NoOp interface.
@@ -622,17 +643,29 @@ class CglibAopProxy implements AopProxy, Serializable {
 		@Nullable
 		private final Class<?> targetClass;
 
+		@Nullable
+		private final FusedAdviceChain fusedChain;
+
 		public FixedChainStaticTargetInterceptor(
 				List<Object> adviceChain, @Nullable Object target, @Nullable Class<?> targetClass) {
 
 			this.adviceChain = adviceChain;
 			this.target = target;
 			this.targetClass = targetClass;
+			this.fusedChain = FusedAdviceChain.forChain(adviceChain);
 		}
 
 		@Override
 		@Nullable
 		public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+			if (this.fusedChain != null) {
+				// Before and after returning advice only: no need for a MethodInvocation.
+				Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
+				this.fusedChain.before(method, argsToUse, this.target);
+				Object retVal = invokeJoinpoint(this.target, method, argsToUse, methodProxy);
+				this.fusedChain.afterReturning(retVal, method, argsToUse, this.target);
+				return processReturnType(proxy, this.target, method, retVal);
+			}
 			MethodInvocation invocation = new CglibMethodInvocation(proxy, this.target, method, args,
 					this.targetClass, this.adviceChain, methodProxy);
 			// If we get here, we need to create a MethodInvocation.
@@ -763,12 +796,21 @@ class CglibAopProxy implements AopProxy, Serializable {
 
 		private final int fixedInterceptorOffset;
 
-		public ProxyCallbackFilter(
-				AdvisedSupport advised, Map<String, Integer> fixedInterceptorMap, int fixedInterceptorOffset) {
+		private final Class<?> proxySuperClass;
+
+		private final Class<?>[] proxyInterfaces;
+
+		@Nullable
+		private volatile int[] callbackIndexes;
+
+		public ProxyCallbackFilter(AdvisedSupport advised, Map<String, Integer> fixedInterceptorMap,
+				int fixedInterceptorOffset, Class<?> proxySuperClass, Class<?>[] proxyInterfaces) {
 
 			this.advised = advised;
 			this.fixedInterceptorMap = fixedInterceptorMap;
 			this.fixedInterceptorOffset = fixedInterceptorOffset;
+			this.proxySuperClass = proxySuperClass;
+			this.proxyInterfaces = proxyInterfaces;
 		}
 
 		/**
@@ -890,6 +932,34 @@ class CglibAopProxy implements AopProxy, Serializable {
 			}
 		}
 
+		/**
+		 * Return the callback index for every method that may be overridden in the
+		 * proxy class, in a stable order. This is what determines the structure of
+		 * the generated class (along with superclass, interfaces and callback types,
+		 * which are part of the Enhancer's cache key anyway), so it serves as a
+		 * structural signature for proxy class caching: configurations with different
+		 * but equivalent advisors, e.g. in different application contexts, are able
+		 * to share the same proxy class.
+		 * <p>Computed once per filter, and only where {@link #hasSameAdvisors} cannot
+		 * tell two filters apart already.
+		 */
+		private int[] getCallbackIndexes() {
+			int[] callbackIndexes = this.callbackIndexes;
+			if (callbackIndexes == null) {
+				List<Method> methods = new ArrayList<>(
+						Arrays.asList(ReflectionUtils.getAllDeclaredMethods(this.proxySuperClass)));
+				for (Class<?> proxyInterface : this.proxyInterfaces) {
+					methods.addAll(Arrays.asList(proxyInterface.getMethods()));
+				}
+				callbackIndexes = new int[methods.size()];
+				for (int i = 0; i < callbackIndexes.length; i++) {
+					callbackIndexes[i] = accept(methods.get(i));
+				}
+				this.callbackIndexes = callbackIndexes;
+			}
+			return callbackIndexes;
+		}
+
 		@Override
 		public boolean equals(Object other) {
 			if (this == other) {
@@ -909,53 +979,51 @@ class CglibAopProxy implements AopProxy, Serializable {
 			if (this.advised.getTargetSource().isStatic() != otherAdvised.getTargetSource().isStatic()) {
 				return false;
 			}
-			if (!AopProxyUtils.equalsProxiedInterfaces(this.advised, otherAdvised)) {
+			if (this.proxySuperClass != otherCallbackFilter.proxySuperClass ||
+					!Arrays.equals(this.proxyInterfaces, otherCallbackFilter.proxyInterfaces)) {
+				return false;
+			}
+			// The same advisors for the same target class dispatch every method the same way,
+			// which is the common case for prototype proxies: no need to go through the methods.
+			if (hasSameAdvisors(otherCallbackFilter)) {
+				return true;
+			}
+			// Advisor identity and equality are unimportant to the proxy class:
+			// All that matters is which callback each method is dispatched to.
+			return Arrays.equals(getCallbackIndexes(), otherCallbackFilter.getCallbackIndexes());
+		}
+
+		/**
+		 * Determine whether the given filter is based on the very same advisor
+		 * instances, in the same order, for the same target class.
+		 */
+		private boolean hasSameAdvisors(ProxyCallbackFilter other) {
+			if (this.advised.isOpaque() != other.advised.isOpaque() ||
+					this.advised.getTargetClass() != other.advised.getTargetClass()) {
 				return false;
 			}
-			// Advice instance identity is unimportant to the proxy class:
-			// All that matters is type and ordering.
 			Advisor[] thisAdvisors = this.advised.getAdvisors();
-			Advisor[] thatAdvisors = otherAdvised.getAdvisors();
+			Advisor[] thatAdvisors = other.advised.getAdvisors();
 			if (thisAdvisors.length != thatAdvisors.length) {
 				return false;
 			}
 			for (int i = 0; i < thisAdvisors.length; i++) {
-				Advisor thisAdvisor = thisAdvisors[i];
-				Advisor thatAdvisor = thatAdvisors[i];
-				if (!equalsAdviceClasses(thisAdvisor, thatAdvisor)) {
-					return false;
-				}
-				if (!equalsPointcuts(thisAdvisor, thatAdvisor)) {
+				if (thisAdvisors[i] != thatAdvisors[i]) {
 					return false;
 				}
 			}
 			return true;
 		}
 
-		private boolean equalsAdviceClasses(Advisor a, Advisor b) {
-			return (a.getAdvice().getClass() == b.getAdvice().getClass());
-		}
-
-		private boolean equalsPointcuts(Advisor a, Advisor b) {
-			// If only one of the advisor (but not both) is PointcutAdvisor, then it is a mismatch.
-			// Takes care of the situations where an IntroductionAdvisor is used (see SPR-3959).
-			return (!(a instanceof PointcutAdvisor) ||
-					(b instanceof PointcutAdvisor &&
-							ObjectUtils.nullSafeEquals(((PointcutAdvisor) a).getPointcut(), ((PointcutAdvisor) b).getPointcut())));
-		}
-
 		@Override
 		public int hashCode() {
-			int hashCode = 0;
-			Advisor[] advisors = this.advised.getAdvisors();
-			for (Advisor advisor : advisors) {
-				Advice advice = advisor.getAdvice();
-				hashCode = 13 * hashCode + advice.getClass().hashCode();
-			}
+			// Not based on the callback indexes, so that equals() is able to take its
+			// shortcut without computing them for every proxy created.
+			int hashCode = this.proxySuperClass.hashCode();
+			hashCode = 13 * hashCode + Arrays.hashCode(this.proxyInterfaces);
 			hashCode = 13 * hashCode + (this.advised.isFrozen() ? 1 : 0);
 			hashCode = 13 * hashCode + (this.advised.isExposeProxy() ? 1 : 0);
-			hashCode = 13 * hashCode + (this.advised.isOptimize() ? 1 : 0);
-			hashCode = 13 * hashCode + (this.advised.isOpaque() ? 1 : 0);
+			hashCode = 13 * hashCode + (this.advised.getTargetSource().isStatic() ? 1 : 0);
 			return hashCode;
 		}
 	}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.aop.MethodBeforeAdvice;
+import org.springframework.aop.framework.adapter.AfterReturningAdviceInterceptor;
+import org.springframework.aop.framework.adapter.MethodBeforeAdviceInterceptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Interceptor chain that consists of {@link MethodBeforeAdvice} and
+ * {@link AfterReturningAdvice} only. Since neither of those needs access to a
+ * {@link org.aopalliance.intercept.MethodInvocation}, such a chain can be applied
+ * by AOP proxies around a direct invocation of the target, without creating a
+ * {@code MethodInvocation} and without walking the chain recursively.
+ *
+ * <p>All before advice runs before the target method in chain order, and all
+ * after returning advice runs after the target method returned normally in
+ * reverse chain order, exactly as with the equivalent interceptor chain.
+ *
+ * @since 5.1
+ * @see JdkDynamicAopProxy
+ * @see CglibAopProxy
+ */
+@SuppressWarnings("serial")
+final class FusedAdviceChain implements Serializable {
+
+	private final MethodBeforeAdvice[] beforeAdvice;
+
+	private final AfterReturningAdvice[] afterReturningAdvice;
+
+
+	private FusedAdviceChain(List<MethodBeforeAdvice> beforeAdvice, List<AfterReturningAdvice> afterReturningAdvice) {
+		this.beforeAdvice = beforeAdvice.toArray(new MethodBeforeAdvice[0]);
+		this.afterReturningAdvice = afterReturningAdvice.toArray(new AfterReturningAdvice[0]);
+	}
+
+
+	/**
+	 * Invoke all before advice, in chain order.
+	 */
+	public void before(Method method, Object[] args, @Nullable Object target) throws Throwable {
+		for (MethodBeforeAdvice advice : this.beforeAdvice) {
+			advice.before(method, args, target);
+		}
+	}
+
+	/**
+	 * Invoke all after returning advice, in reverse chain order.
+	 */
+	public void afterReturning(@Nullable Object returnValue, Method method, Object[] args, @Nullable Object target)
+			throws Throwable {
+
+		for (int i = this.afterReturningAdvice.length - 1; i >= 0; i--) {
+			this.afterReturningAdvice[i].afterReturning(returnValue, method, args, target);
+		}
+	}
+
+
+	/**
+	 * Create a fused chain for the given interceptor chain, if possible.
+	 * @param chain the interceptor chain, as returned by
+	 * {@link AdvisedSupport#getInterceptorsAndDynamicInterceptionAdvice}
+	 * @return the fused chain, or {@code null} if the chain is empty or contains
+	 * any element other than a plain before or after returning advice interceptor
+	 */
+	@Nullable
+	public static FusedAdviceChain forChain(List<Object> chain) {
+		if (chain.isEmpty()) {
+			return null;
+		}
+		List<MethodBeforeAdvice> beforeAdvice = new ArrayList<>(chain.size());
+		List<AfterReturningAdvice> afterReturningAdvice = new ArrayList<>(chain.size());
+		for (Object interceptor : chain) {
+			// Exact type checks: subclasses may customize the invocation
+			if (interceptor.getClass() == MethodBeforeAdviceInterceptor.class) {
+				beforeAdvice.add(((MethodBeforeAdviceInterceptor) interceptor).getAdvice());
+			}
+			else if (interceptor.getClass() == AfterReturningAdviceInterceptor.class) {
+				afterReturningAdvice.add(((AfterReturningAdviceInterceptor) interceptor).getAdvice());
+			}
+			else {
+				return null;
+			}
+		}
+		return new FusedAdviceChain(beforeAdvice, afterReturningAdvice);
+	}
+
+}
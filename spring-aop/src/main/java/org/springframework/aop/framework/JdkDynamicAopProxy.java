@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -50,6 +52,11 @@ import org.springframework.util.ClassUtils;
  * <p>Proxies created using this class will be thread-safe if the
  * underlying (target) class is thread-safe.
  *
+ * <p>For a frozen configuration with a static target, the interceptor chain
+ * of each method is resolved once per proxy. Chains that consist of before and
+ * after returning advice only are applied around a direct invocation of the
+ * target, without creating a {@link MethodInvocation}.
+ *
  * <p>Proxies are serializable so long as all Advisors (including Advices
  * and Pointcuts) and the TargetSource are serializable.
  *
@@ -93,6 +100,12 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 	 */
 	private boolean hashCodeDefined;
 
+	/**
+	 * Interceptor chains per method, if the configuration is frozen and the target is static
+	 */
+	@Nullable
+	private transient Map<Method, FixedChain> fixedChains;
+
 
 	/**
 	 * Construct a new JdkDynamicAopProxy for the given AOP configuration.
@@ -106,6 +119,9 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 			throw new AopConfigException("No advisors and no TargetSource specified");
 		}
 		this.advised = config;
+		if (config.isFrozen() && config.getTargetSource().isStatic()) {
+			this.fixedChains = new ConcurrentHashMap<>(16);
+		}
 	}
 
 
@@ -205,7 +221,16 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 
 			// Get the interception chain for this method.
 			// 获取从匹配当前bean的当前方法的advisor解析而来的各种Interceptor，如MethodBeforeAdviceInterceptor
-			List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+			List<Object> chain;
+			FusedAdviceChain fusedChain = null;
+			if (this.fixedChains != null) {
+				FixedChain fixedChain = getFixedChain(this.fixedChains, method, targetClass);
+				chain = fixedChain.chain;
+				fusedChain = fixedChain.fusedChain;
+			}
+			else {
+				chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+			}
 
 			// Check whether we have any advice. If we don't, we can fallback on direct
 			// reflective invocation of the target, and avoid creating a MethodInvocation.
@@ -217,6 +242,13 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 				Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
 				retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
 			}
+			else if (fusedChain != null) {
+				// Before and after returning advice only: no need for a MethodInvocation either.
+				Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
+				fusedChain.before(method, argsToUse, target);
+				retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+				fusedChain.afterReturning(retVal, method, argsToUse, target);
+			}
 			else {
 				// We need to create a method invocation...
 				// 否则创建ReflectiveMethodInvocation代理方法的执行，ReflectiveMethodInvocation类是AOP的关键之一，ReflectiveMethodInvocation利用递归实现
@@ -257,6 +289,22 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 	}
 
 
+	/**
+	 * Return the fixed interceptor chain for the given method, resolving it
+	 * on first access (or if the target class changed in the meantime).
+	 */
+	private FixedChain getFixedChain(Map<Method, FixedChain> fixedChains, Method method,
+			@Nullable Class<?> targetClass) {
+
+		FixedChain fixedChain = fixedChains.get(method);
+		if (fixedChain == null || fixedChain.targetClass != targetClass) {
+			List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+			fixedChain = new FixedChain(targetClass, chain, FusedAdviceChain.forChain(chain));
+			fixedChains.put(method, fixedChain);
+		}
+		return fixedChain;
+	}
+
 	/**
 	 * Equality means interfaces, advisors and TargetSource are equal.
 	 * <p>The compared object may be a JdkDynamicAopProxy instance itself
@@ -299,4 +347,25 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 		return JdkDynamicAopProxy.class.hashCode() * 13 + this.advised.getTargetSource().hashCode();
 	}
 
+
+	/**
+	 * Interceptor chain of a specific method, resolved for a specific target class.
+	 */
+	private static final class FixedChain {
+
+		@Nullable
+		final Class<?> targetClass;
+
+		final List<Object> chain;
+
+		@Nullable
+		final FusedAdviceChain fusedChain;
+
+		FixedChain(@Nullable Class<?> targetClass, List<Object> chain, @Nullable FusedAdviceChain fusedChain) {
+			this.targetClass = targetClass;
+			this.chain = chain;
+			this.fusedChain = fusedChain;
+		}
+	}
+
 }
@@ -20,9 +20,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.aop.Advisor;
@@ -39,6 +43,7 @@ import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -57,6 +62,17 @@ import org.springframework.util.ReflectionUtils;
  */
 public abstract class AopUtils {
 
+	/**
+	 * Cache for the methods to match pointcuts against, keyed by target class
+	 */
+	private static final Map<Class<?>, Method[]> candidateMethodsCache = new ConcurrentReferenceHashMap<>(256);
+
+	/**
+	 * Cache for the names of the methods to match pointcuts against, keyed by target class
+	 */
+	private static final Map<Class<?>, Set<String>> candidateMethodNamesCache = new ConcurrentReferenceHashMap<>(256);
+
+
 	/**
 	 * Check whether the given object is a JDK dynamic proxy or a CGLIB proxy.
 	 * <p>This method additionally checks if the given object is an instance
@@ -235,32 +251,102 @@ public abstract class AopUtils {
 			return true;
 		}
 
+		Collection<String> methodNames = getMatchedMethodNames(pc);
+		if (methodNames != null) {
+			// No need to iterate the methods either if we know the names they need to have...
+			return !Collections.disjoint(getCandidateMethodNames(targetClass), methodNames);
+		}
+
 		IntroductionAwareMethodMatcher introductionAwareMethodMatcher = null;
 		if (methodMatcher instanceof IntroductionAwareMethodMatcher) {
 			introductionAwareMethodMatcher = (IntroductionAwareMethodMatcher) methodMatcher;
 		}
 
-		Set<Class<?>> classes = new LinkedHashSet<>();
-		if (!Proxy.isProxyClass(targetClass)) {
-			classes.add(ClassUtils.getUserClass(targetClass));
-		}
-		classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
-
 		// 遍历bean实现的接口，再遍历接口的方法，判断是否存在能够匹配当前Pointcut的方法
-		for (Class<?> clazz : classes) {
-			Method[] methods = ReflectionUtils.getAllDeclaredMethods(clazz);
-			for (Method method : methods) {
-				if (introductionAwareMethodMatcher != null ?
-						introductionAwareMethodMatcher.matches(method, targetClass, hasIntroductions) :
-						methodMatcher.matches(method, targetClass)) {
-					return true;
-				}
+		for (Method method : getCandidateMethods(targetClass)) {
+			if (introductionAwareMethodMatcher != null ?
+					introductionAwareMethodMatcher.matches(method, targetClass, hasIntroductions) :
+					methodMatcher.matches(method, targetClass)) {
+				return true;
 			}
 		}
 
 		return false;
 	}
 
+	/**
+	 * Determine the methods that a pointcut needs to be matched against in order to
+	 * find out whether it can apply to the given class: all methods declared on the
+	 * user class and its superclasses as well as on all of its interfaces, with
+	 * duplicates from overlapping interface hierarchies removed.
+	 * <p>The result is cached per class, so that it can be reused for every candidate
+	 * advisor that is evaluated against the same class.
+	 * @param targetClass the class to introspect
+	 * @return the cached array of methods (not to be modified)
+	 */
+	private static Method[] getCandidateMethods(Class<?> targetClass) {
+		Method[] result = candidateMethodsCache.get(targetClass);
+		if (result == null) {
+			Set<Method> methods = new LinkedHashSet<>();
+			if (!Proxy.isProxyClass(targetClass)) {
+				Collections.addAll(methods, ReflectionUtils.getAllDeclaredMethods(ClassUtils.getUserClass(targetClass)));
+			}
+			for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+				Collections.addAll(methods, ReflectionUtils.getAllDeclaredMethods(ifc));
+			}
+			result = methods.toArray(new Method[0]);
+			candidateMethodsCache.put(targetClass, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Determine the names of the candidate methods for the given class.
+	 * @param targetClass the class to introspect
+	 * @return the cached set of method names (not to be modified)
+	 * @see #getCandidateMethods
+	 */
+	private static Set<String> getCandidateMethodNames(Class<?> targetClass) {
+		Set<String> result = candidateMethodNamesCache.get(targetClass);
+		if (result == null) {
+			result = new HashSet<>();
+			for (Method method : getCandidateMethods(targetClass)) {
+				result.add(method.getName());
+			}
+			candidateMethodNamesCache.put(targetClass, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Determine the complete set of method names that the given pointcut may
+	 * match, if known up front: that is, for a plain {@link NameMatchMethodPointcut}
+	 * without wildcard patterns. Such a pointcut applies to a class if and only if
+	 * the class passes its ClassFilter and has a method of one of those names.
+	 * <p>Other pointcuts are opaque {@link MethodMatcher}s in that respect; in
+	 * particular, AspectJ expressions may combine designators arbitrarily, so the
+	 * names they match cannot be derived without the AspectJ weaver's internal
+	 * pattern model. Discriminating by declaring type, on the other hand, is what
+	 * each pointcut's {@link org.springframework.aop.ClassFilter} does already
+	 * (for AspectJ, through the weaver's fast match), before any method is matched.
+	 * @param pc the pointcut to check
+	 * @return the method names, or {@code null} if methods of any name may match
+	 */
+	@Nullable
+	private static Collection<String> getMatchedMethodNames(Pointcut pc) {
+		if (pc.getClass() != NameMatchMethodPointcut.class) {
+			// Subclasses may override the matching algorithm
+			return null;
+		}
+		List<String> mappedNames = ((NameMatchMethodPointcut) pc).getMappedNames();
+		for (String mappedName : mappedNames) {
+			if (mappedName.indexOf('*') != -1) {
+				return null;
+			}
+		}
+		return mappedNames;
+	}
+
 	/**
 	 * Can the given advisor apply at all on the given class?
 	 * This is an important test as it can be used to optimize
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -76,6 +76,14 @@ public class NameMatchMethodPointcut extends StaticMethodMatcherPointcut impleme
 		return this;
 	}
 
+	/**
+	 * Return the method names defining methods to match, including patterns.
+	 * @since 5.1
+	 */
+	List<String> getMappedNames() {
+		return this.mappedNames;
+	}
+
 
 	@Override
 	public boolean matches(Method method, @Nullable Class<?> targetClass) {
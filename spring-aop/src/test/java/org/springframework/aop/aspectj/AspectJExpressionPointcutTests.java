@@ -31,6 +31,7 @@ import org.springframework.aop.MethodMatcher;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.tests.sample.beans.IOther;
 import org.springframework.tests.sample.beans.ITestBean;
 import org.springframework.tests.sample.beans.TestBean;
@@ -306,6 +307,23 @@ public class AspectJExpressionPointcutTests {
 		assertEquals("execution(* *(..)) && args(String) && this(Object)",expr.getPointcutExpression());
 	}
 
+	@Test
+	public void testShadowMatchCacheIsHeldByBeanFactory() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		AspectJExpressionPointcut pc1 = new AspectJExpressionPointcut();
+		pc1.setExpression(MATCH_ALL_METHODS);
+		pc1.setBeanFactory(beanFactory);
+		AspectJExpressionPointcut pc2 = new AspectJExpressionPointcut();
+		pc2.setExpression(MATCH_ALL_METHODS);
+		pc2.setBeanFactory(beanFactory);
+
+		assertTrue(pc1.matches(getAge, TestBean.class));
+		assertTrue(pc2.matches(getAge, TestBean.class));
+		assertEquals(1, beanFactory.getSingletonCount());
+		beanFactory.destroySingletons();
+		assertEquals(0, beanFactory.getSingletonCount());
+	}
+
 	private Pointcut getPointcut(String expression) {
 		AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
 		pointcut.setExpression(expression);
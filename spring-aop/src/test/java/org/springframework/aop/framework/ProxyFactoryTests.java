@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.aop.framework;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.accessibility.Accessible;
 import javax.swing.JFrame;
@@ -28,6 +29,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.aop.MethodBeforeAdvice;
 import org.springframework.aop.interceptor.DebugInterceptor;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.support.DefaultIntroductionAdvisor;
@@ -380,6 +383,35 @@ public class ProxyFactoryTests {
 		assertEquals("tb", proxy.getName());
 	}
 
+	@Test
+	public void testBeforeAndAfterReturningAdviceOrderWithFrozenConfig() throws Throwable {
+		for (boolean frozen : new boolean[] {false, true}) {
+			List<String> calls = new ArrayList<>();
+			ProxyFactory pf = new ProxyFactory(new TestBean("tb"));
+			pf.addAdvice((MethodBeforeAdvice) (method, args, target) -> calls.add("before1:" + method.getName()));
+			pf.addAdvice((AfterReturningAdvice) (returnValue, method, args, target) -> calls.add("afterReturning1:" + returnValue));
+			pf.addAdvice((MethodBeforeAdvice) (method, args, target) -> calls.add("before2:" + method.getName()));
+			pf.addAdvice((AfterReturningAdvice) (returnValue, method, args, target) -> calls.add("afterReturning2:" + returnValue));
+			pf.setFrozen(frozen);
+			ITestBean proxy = (ITestBean) pf.getProxy();
+
+			assertEquals("tb", proxy.getName());
+			assertEquals("tb", proxy.getName());
+			assertEquals(Arrays.asList("before1:getName", "before2:getName", "afterReturning2:tb", "afterReturning1:tb",
+					"before1:getName", "before2:getName", "afterReturning2:tb", "afterReturning1:tb"), calls);
+
+			calls.clear();
+			try {
+				proxy.exceptional(new IllegalStateException());
+				fail("Should have thrown IllegalStateException");
+			}
+			catch (IllegalStateException ex) {
+				// expected
+			}
+			assertEquals(Arrays.asList("before1:exceptional", "before2:exceptional"), calls);
+		}
+	}
+
 
 	@SuppressWarnings("serial")
 	private static class TimestampIntroductionInterceptor extends DelegatingIntroductionInterceptor
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,13 @@
 package org.springframework.aop.support;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
+import org.springframework.aop.Advisor;
 import org.springframework.aop.ClassFilter;
 import org.springframework.aop.MethodMatcher;
 import org.springframework.aop.Pointcut;
@@ -27,6 +31,7 @@ import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
 import org.springframework.aop.target.EmptyTargetSource;
 import org.springframework.lang.Nullable;
 import org.springframework.tests.aop.interceptor.NopInterceptor;
+import org.springframework.tests.sample.beans.ITestBean;
 import org.springframework.tests.sample.beans.TestBean;
 import org.springframework.util.SerializationTestUtils;
 
@@ -72,6 +77,73 @@ public class AopUtilsTests {
 		assertTrue(AopUtils.canApply(pc, Object.class));
 	}
 
+	@Test
+	public void testPointcutAppliesToInterfaceMethodOfProxyClass() {
+		class TestPointcut extends StaticMethodMatcherPointcut {
+			@Override
+			public boolean matches(Method method, @Nullable Class<?> clazz) {
+				return method.getName().equals("getSpouse");
+			}
+		}
+
+		Pointcut pc = new TestPointcut();
+		Class<?> proxyClass = Proxy.getProxyClass(getClass().getClassLoader(), ITestBean.class);
+		assertTrue(AopUtils.canApply(pc, proxyClass));
+		assertTrue(AopUtils.canApply(pc, TestBean.class));
+		assertFalse(AopUtils.canApply(pc, Object.class));
+	}
+
+	@Test
+	public void testFindAdvisorsThatCanApply() {
+		class TestPointcut extends StaticMethodMatcherPointcut {
+			private final String methodName;
+			public TestPointcut(String methodName) {
+				this.methodName = methodName;
+			}
+			@Override
+			public boolean matches(Method method, @Nullable Class<?> clazz) {
+				return method.getName().equals(this.methodName);
+			}
+		}
+
+		Advisor getAge = new DefaultPointcutAdvisor(new TestPointcut("getAge"), new NopInterceptor());
+		Advisor length = new DefaultPointcutAdvisor(new TestPointcut("length"), new NopInterceptor());
+		Advisor any = new DefaultPointcutAdvisor(new NopInterceptor());
+		List<Advisor> candidates = Arrays.asList(getAge, length, any);
+		assertEquals(Arrays.asList(getAge, any), AopUtils.findAdvisorsThatCanApply(candidates, TestBean.class));
+		assertEquals(Arrays.asList(length, any), AopUtils.findAdvisorsThatCanApply(candidates, String.class));
+		assertEquals(Arrays.asList(getAge, any), AopUtils.findAdvisorsThatCanApply(candidates, TestBean.class));
+	}
+
+	@Test
+	public void testNameMatchPointcutAppliesByMethodName() {
+		NameMatchMethodPointcut pc = new NameMatchMethodPointcut();
+		pc.setMappedNames("getAge", "length");
+		assertTrue(AopUtils.canApply(pc, TestBean.class));
+		assertTrue(AopUtils.canApply(pc, String.class));
+		assertFalse(AopUtils.canApply(pc, Object.class));
+
+		pc.setMappedNames("getSp*");
+		assertTrue(AopUtils.canApply(pc, TestBean.class));
+		assertFalse(AopUtils.canApply(pc, String.class));
+
+		pc.setMappedNames("getAge");
+		pc.setClassFilter(clazz -> clazz != TestBean.class);
+		assertFalse(AopUtils.canApply(pc, TestBean.class));
+	}
+
+	@Test
+	public void testNameMatchPointcutSubclassIsMatchedByMethod() {
+		NameMatchMethodPointcut pc = new NameMatchMethodPointcut() {
+			@Override
+			protected boolean isMatch(String methodName, String mappedName) {
+				return methodName.equalsIgnoreCase(mappedName);
+			}
+		};
+		pc.setMappedName("GETAGE");
+		assertTrue(AopUtils.canApply(pc, TestBean.class));
+	}
+
 	/**
 	 * Test that when we serialize and deserialize various canonical instances
 	 * of AOP classes, they return the same instance, not a new instance
@@ -75,6 +75,12 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	/**
+	 * Custom strategy for invoking property write methods, if any
+	 */
+	@Nullable
+	private WriteMethodInvoker writeMethodInvoker;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +138,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setWriteMethodInvoker(parent.writeMethodInvoker);
 	}
 
 
@@ -193,6 +200,25 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		return this.acc;
 	}
 
+	/**
+	 * Set a custom strategy for invoking the write methods of the wrapped instance,
+	 * e.g. through generated accessors. Default is plain reflection.
+	 * <p>Not applied when running with a security context.
+	 * @since 5.1
+	 */
+	public void setWriteMethodInvoker(@Nullable WriteMethodInvoker writeMethodInvoker) {
+		this.writeMethodInvoker = writeMethodInvoker;
+	}
+
+	/**
+	 * Return the custom strategy for invoking write methods, if any.
+	 * @since 5.1
+	 */
+	@Nullable
+	public WriteMethodInvoker getWriteMethodInvoker() {
+		return this.writeMethodInvoker;
+	}
+
 
 	/**
 	 * Convert the given value for the specified property to the latter's type.
@@ -327,6 +353,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 					throw ex.getException();
 				}
 			}
+			else if (writeMethodInvoker != null) {
+				writeMethodInvoker.invoke(writeMethod, getWrappedInstance(), value);
+			}
 			else {
 				ReflectionUtils.makeAccessible(writeMethod);
 				writeMethod.invoke(getWrappedInstance(), value);
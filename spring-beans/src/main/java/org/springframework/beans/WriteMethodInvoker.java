@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy interface for invoking the write method of a bean property,
+ * e.g. through a generated accessor instead of through reflection.
+ *
+ * @since 5.1
+ * @see BeanWrapperImpl#setWriteMethodInvoker
+ */
+@FunctionalInterface
+public interface WriteMethodInvoker {
+
+	/**
+	 * Invoke the given write method on the given target instance.
+	 * <p>Implementations need to follow the exception contract of
+	 * {@link Method#invoke}: an exception thrown by the write method itself
+	 * needs to be wrapped in an {@link InvocationTargetException}, whereas
+	 * an unsuitable value leads to an {@link IllegalArgumentException}.
+	 * @param writeMethod the write method to invoke
+	 * @param target the target instance
+	 * @param value the value to set
+	 * @throws Exception in case of invocation failure
+	 */
+	void invoke(Method writeMethod, Object target, @Nullable Object value) throws Exception;
+
+}
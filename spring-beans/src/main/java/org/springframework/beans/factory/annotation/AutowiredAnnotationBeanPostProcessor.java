@@ -19,20 +19,25 @@ package org.springframework.beans.factory.annotation;
 import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -138,6 +143,12 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 
 	private final Map<String, InjectionMetadata> injectionMetadataCache = new ConcurrentHashMap<>(256);
 
+	private final Map<Class<?>, List<AutowiredMember>> injectionPlanCache = new ConcurrentHashMap<>(256);
+
+	private final AtomicLong injectionPlanHits = new AtomicLong();
+
+	private final AtomicLong injectionPlanMisses = new AtomicLong();
+
 
 	/**
 	 * Create a new AutowiredAnnotationBeanPostProcessor
@@ -218,6 +229,28 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		return this.order;
 	}
 
+	/**
+	 * Return the number of autowired dependencies that have been served from a
+	 * pre-resolved injection plan, i.e. without any type matching in the factory.
+	 * @since 5.1
+	 * @see #getInjectionPlanMissCount()
+	 */
+	public long getInjectionPlanHitCount() {
+		return this.injectionPlanHits.get();
+	}
+
+	/**
+	 * Return the number of autowired dependencies that had to go through a full
+	 * {@code resolveDependency} call, including type matching in the factory.
+	 * <p>Each injected bean instance adds one miss per injection point that could
+	 * not be pre-resolved, e.g. because of non-singleton candidates.
+	 * @since 5.1
+	 * @see #getInjectionPlanHitCount()
+	 */
+	public long getInjectionPlanMissCount() {
+		return this.injectionPlanMisses.get();
+	}
+
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		if (!(beanFactory instanceof ConfigurableListableBeanFactory)) {
@@ -424,11 +457,27 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 	}
 
 	private InjectionMetadata buildAutowiringMetadata(final Class<?> clazz) {
-		LinkedList<InjectionMetadata.InjectedElement> elements = new LinkedList<>();
+		// Fresh elements per bean name, since those keep the resolved shortcuts for their bean.
+		List<AutowiredMember> plan = this.injectionPlanCache.computeIfAbsent(clazz, this::buildInjectionPlan);
+		List<InjectionMetadata.InjectedElement> elements = new ArrayList<>(plan.size());
+		for (AutowiredMember autowiredMember : plan) {
+			if (autowiredMember.member instanceof Field) {
+				elements.add(new AutowiredFieldElement((Field) autowiredMember.member, autowiredMember.required));
+			}
+			else {
+				elements.add(new AutowiredMethodElement(
+						(Method) autowiredMember.member, autowiredMember.required, autowiredMember.pd));
+			}
+		}
+		return new InjectionMetadata(clazz, elements);
+	}
+
+	private List<AutowiredMember> buildInjectionPlan(final Class<?> clazz) {
+		LinkedList<AutowiredMember> members = new LinkedList<>();
 		Class<?> targetClass = clazz;
 
 		do {
-			final LinkedList<InjectionMetadata.InjectedElement> currElements = new LinkedList<>();
+			final LinkedList<AutowiredMember> currMembers = new LinkedList<>();
 
 			ReflectionUtils.doWithLocalFields(targetClass, field -> {
 				AnnotationAttributes ann = findAutowiredAnnotation(field);
@@ -440,7 +489,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 						return;
 					}
 					boolean required = determineRequiredStatus(ann);
-					currElements.add(new AutowiredFieldElement(field, required));
+					currMembers.add(new AutowiredMember(field, required, null));
 				}
 			});
 
@@ -465,16 +514,16 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 					}
 					boolean required = determineRequiredStatus(ann);
 					PropertyDescriptor pd = BeanUtils.findPropertyForMethod(bridgedMethod, clazz);
-					currElements.add(new AutowiredMethodElement(method, required, pd));
+					currMembers.add(new AutowiredMember(method, required, pd));
 				}
 			});
 
-			elements.addAll(0, currElements);
+			members.addAll(0, currMembers);
 			targetClass = targetClass.getSuperclass();
 		}
 		while (targetClass != null && targetClass != Object.class);
 
-		return new InjectionMetadata(clazz, elements);
+		return Collections.unmodifiableList(new ArrayList<>(members));
 	}
 
 	@Nullable
@@ -541,14 +590,104 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 	private Object resolvedCachedArgument(@Nullable String beanName, @Nullable Object cachedArgument) {
 		if (cachedArgument instanceof DependencyDescriptor) {
 			DependencyDescriptor descriptor = (DependencyDescriptor) cachedArgument;
+			if (descriptor instanceof ShortcutDependencyDescriptor ||
+					descriptor instanceof MultipleShortcutDependencyDescriptor) {
+				this.injectionPlanHits.incrementAndGet();
+			}
+			else {
+				this.injectionPlanMisses.incrementAndGet();
+			}
 			Assert.state(beanFactory != null, "No BeanFactory available");
 			return this.beanFactory.resolveDependency(descriptor, beanName, null, null);
 		}
 		else {
+			this.injectionPlanHits.incrementAndGet();
 			return cachedArgument;
 		}
 	}
 
+	/**
+	 * Determine the descriptor to cache for the given freshly resolved dependency:
+	 * a shortcut with the pre-resolved target bean name(s) if possible,
+	 * or the original descriptor for a full resolution on every injection.
+	 */
+	private DependencyDescriptor createShortcut(DependencyDescriptor descriptor, @Nullable Object value,
+			Set<String> autowiredBeanNames, Class<?> requiredType) {
+
+		Assert.state(this.beanFactory != null, "No BeanFactory available");
+		if (autowiredBeanNames.size() == 1) {
+			String autowiredBeanName = autowiredBeanNames.iterator().next();
+			if (this.beanFactory.containsBean(autowiredBeanName) &&
+					this.beanFactory.isTypeMatch(autowiredBeanName, requiredType)) {
+				return new ShortcutDependencyDescriptor(descriptor, autowiredBeanName, requiredType);
+			}
+		}
+		// The set of candidates may only be fixed once no further bean definitions are expected...
+		if (value != null && !autowiredBeanNames.isEmpty() && this.beanFactory.isConfigurationFrozen()) {
+			String[] shortcuts = determineShortcuts(value, autowiredBeanNames, requiredType);
+			if (shortcuts != null) {
+				return new MultipleShortcutDependencyDescriptor(descriptor, shortcuts, requiredType);
+			}
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Determine the target bean names for the given array, collection or map
+	 * dependency, in the order of the resolved value.
+	 * @return the bean names, or {@code null} if the resolved value cannot be
+	 * reproduced from singleton beans alone
+	 */
+	@Nullable
+	private String[] determineShortcuts(Object value, Set<String> autowiredBeanNames, Class<?> requiredType) {
+		Assert.state(this.beanFactory != null, "No BeanFactory available");
+		Object[] elements;
+		if (requiredType == Map.class) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			if (!map.keySet().equals(autowiredBeanNames)) {
+				return null;
+			}
+			String[] shortcuts = new String[map.size()];
+			int i = 0;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				String shortcut = (String) entry.getKey();
+				if (!this.beanFactory.isSingleton(shortcut) || this.beanFactory.getBean(shortcut) != entry.getValue()) {
+					return null;
+				}
+				shortcuts[i++] = shortcut;
+			}
+			return shortcuts;
+		}
+		else if (requiredType.isArray() && !requiredType.getComponentType().isPrimitive()) {
+			elements = (Object[]) value;
+		}
+		else if (requiredType == Collection.class || requiredType == List.class || requiredType == Set.class) {
+			elements = ((Collection<?>) value).toArray();
+		}
+		else {
+			return null;
+		}
+		if (elements.length != autowiredBeanNames.size()) {
+			return null;
+		}
+		List<String> candidates = new LinkedList<>(autowiredBeanNames);
+		String[] shortcuts = new String[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			for (Iterator<String> it = candidates.iterator(); it.hasNext();) {
+				String candidate = it.next();
+				if (this.beanFactory.isSingleton(candidate) && this.beanFactory.getBean(candidate) == elements[i]) {
+					shortcuts[i] = candidate;
+					it.remove();
+					break;
+				}
+			}
+			if (shortcuts[i] == null) {
+				return null;
+			}
+		}
+		return shortcuts;
+	}
+
 
 	/**
 	 * Class representing injection information about an annotated field.
@@ -580,6 +719,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 				Set<String> autowiredBeanNames = new LinkedHashSet<>(1);
 				Assert.state(beanFactory != null, "No BeanFactory available");
 				TypeConverter typeConverter = beanFactory.getTypeConverter();
+				injectionPlanMisses.incrementAndGet();
 				try {
 					value = beanFactory.resolveDependency(desc, beanName, autowiredBeanNames, typeConverter);
 				}
@@ -589,16 +729,8 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 				synchronized (this) {
 					if (!this.cached) {
 						if (value != null || this.required) {
-							this.cachedFieldValue = desc;
 							registerDependentBeans(beanName, autowiredBeanNames);
-							if (autowiredBeanNames.size() == 1) {
-								String autowiredBeanName = autowiredBeanNames.iterator().next();
-								if (beanFactory.containsBean(autowiredBeanName) &&
-										beanFactory.isTypeMatch(autowiredBeanName, field.getType())) {
-									this.cachedFieldValue = new ShortcutDependencyDescriptor(
-											desc, autowiredBeanName, field.getType());
-								}
-							}
+							this.cachedFieldValue = createShortcut(desc, value, autowiredBeanNames, field.getType());
 						}
 						else {
 							this.cachedFieldValue = null;
@@ -647,6 +779,7 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 				Class<?>[] paramTypes = method.getParameterTypes();
 				arguments = new Object[paramTypes.length];
 				DependencyDescriptor[] descriptors = new DependencyDescriptor[paramTypes.length];
+				List<Set<String>> autowiredBeansPerParam = new ArrayList<>(paramTypes.length);
 				Set<String> autowiredBeans = new LinkedHashSet<>(paramTypes.length);
 				Assert.state(beanFactory != null, "No BeanFactory available");
 				TypeConverter typeConverter = beanFactory.getTypeConverter();
@@ -655,8 +788,12 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 					DependencyDescriptor currDesc = new DependencyDescriptor(methodParam, this.required);
 					currDesc.setContainingClass(bean.getClass());
 					descriptors[i] = currDesc;
+					Set<String> currBeans = new LinkedHashSet<>(1);
+					injectionPlanMisses.incrementAndGet();
 					try {
-						Object arg = beanFactory.resolveDependency(currDesc, beanName, autowiredBeans, typeConverter);
+						Object arg = beanFactory.resolveDependency(currDesc, beanName, currBeans, typeConverter);
+						autowiredBeansPerParam.add(currBeans);
+						autowiredBeans.addAll(currBeans);
 						if (arg == null && !this.required) {
 							arguments = null;
 							break;
@@ -671,18 +808,10 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 					if (!this.cached) {
 						if (arguments != null) {
 							Object[] cachedMethodArguments = new Object[paramTypes.length];
-							System.arraycopy(descriptors, 0, cachedMethodArguments, 0, arguments.length);
 							registerDependentBeans(beanName, autowiredBeans);
-							if (autowiredBeans.size() == paramTypes.length) {
-								Iterator<String> it = autowiredBeans.iterator();
-								for (int i = 0; i < paramTypes.length; i++) {
-									String autowiredBeanName = it.next();
-									if (beanFactory.containsBean(autowiredBeanName) &&
-											beanFactory.isTypeMatch(autowiredBeanName, paramTypes[i])) {
-										cachedMethodArguments[i] = new ShortcutDependencyDescriptor(
-												descriptors[i], autowiredBeanName, paramTypes[i]);
-									}
-								}
+							for (int i = 0; i < paramTypes.length; i++) {
+								cachedMethodArguments[i] = createShortcut(
+										descriptors[i], arguments[i], autowiredBeansPerParam.get(i), paramTypes[i]);
 							}
 							this.cachedMethodArguments = cachedMethodArguments;
 						}
@@ -741,4 +870,72 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		}
 	}
 
+
+	/**
+	 * DependencyDescriptor variant with pre-resolved target bean names
+	 * for an array, collection or map of singleton beans.
+	 */
+	@SuppressWarnings("serial")
+	private static class MultipleShortcutDependencyDescriptor extends DependencyDescriptor {
+
+		private final String[] shortcuts;
+
+		private final Class<?> requiredType;
+
+		public MultipleShortcutDependencyDescriptor(DependencyDescriptor original, String[] shortcuts,
+				Class<?> requiredType) {
+
+			super(original);
+			this.shortcuts = shortcuts;
+			this.requiredType = requiredType;
+		}
+
+		@Override
+		public Object resolveShortcut(BeanFactory beanFactory) {
+			if (this.requiredType.isArray()) {
+				Object[] result = (Object[]) Array.newInstance(this.requiredType.getComponentType(), this.shortcuts.length);
+				for (int i = 0; i < this.shortcuts.length; i++) {
+					result[i] = beanFactory.getBean(this.shortcuts[i]);
+				}
+				return result;
+			}
+			else if (this.requiredType == Map.class) {
+				Map<String, Object> result = new LinkedHashMap<>(this.shortcuts.length * 2);
+				for (String shortcut : this.shortcuts) {
+					result.put(shortcut, beanFactory.getBean(shortcut));
+				}
+				return result;
+			}
+			else {
+				Collection<Object> result = (this.requiredType == Set.class ?
+						new LinkedHashSet<>(this.shortcuts.length * 2) : new ArrayList<>(this.shortcuts.length));
+				for (String shortcut : this.shortcuts) {
+					result.add(beanFactory.getBean(shortcut));
+				}
+				return result;
+			}
+		}
+	}
+
+
+	/**
+	 * Immutable entry in the per-class injection plan: an autowired member
+	 * together with its required status, as detected once per bean class.
+	 */
+	private static class AutowiredMember {
+
+		final Member member;
+
+		final boolean required;
+
+		@Nullable
+		final PropertyDescriptor pd;
+
+		AutowiredMember(Member member, boolean required, @Nullable PropertyDescriptor pd) {
+			this.member = member;
+			this.required = required;
+			this.pd = pd;
+		}
+	}
+
 }
@@ -48,6 +48,7 @@ import org.springframework.beans.PropertyAccessorUtils;
 import org.springframework.beans.PropertyValue;
 import org.springframework.beans.PropertyValues;
 import org.springframework.beans.TypeConverter;
+import org.springframework.beans.WriteMethodInvoker;
 import org.springframework.beans.factory.Aware;
 import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.BeanCreationException;
@@ -75,6 +76,7 @@ import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -195,7 +197,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	/**
 	 * Set the instantiation strategy to use for creating bean instances.
 	 * Default is CglibSubclassingInstantiationStrategy.
+	 * <p>If the given strategy also implements {@link WriteMethodInvoker},
+	 * it will be used for setter injection as well.
 	 * @see CglibSubclassingInstantiationStrategy
+	 * @see GeneratedInstantiationStrategy
 	 */
 	public void setInstantiationStrategy(InstantiationStrategy instantiationStrategy) {
 		this.instantiationStrategy = instantiationStrategy;
@@ -519,6 +524,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					"BeanPostProcessor before instantiation of bean failed", ex);
 		}
 
+		StartupStep beanCreation = getApplicationStartup().start("spring.beans.instantiate")
+				.tag("beanName", beanName);
+		if (resolvedClass != null) {
+			beanCreation.tag("beanType", resolvedClass::getName);
+		}
 		try {
 			// 创建bean
 			Object beanInstance = doCreateBean(beanName, mbdToUse, args);
@@ -536,6 +546,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throw new BeanCreationException(
 					mbdToUse.getResourceDescription(), beanName, "Unexpected exception during bean creation", ex);
 		}
+		finally {
+			beanCreation.end();
+		}
 	}
 
 	/**
@@ -1264,6 +1277,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return null;
 	}
 
+	/**
+	 * This implementation additionally applies the instantiation strategy
+	 * as {@link WriteMethodInvoker}, if it implements that interface.
+	 * @see #setInstantiationStrategy
+	 */
+	@Override
+	protected void initBeanWrapper(BeanWrapper bw) {
+		super.initBeanWrapper(bw);
+		if (this.instantiationStrategy instanceof WriteMethodInvoker && bw instanceof BeanWrapperImpl) {
+			((BeanWrapperImpl) bw).setWriteMethodInvoker((WriteMethodInvoker) this.instantiationStrategy);
+		}
+	}
+
 	/**
 	 * Instantiate the given bean using its default constructor.
 	 * @param beanName the name of the bean
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Index from types to the positions of bean definitions whose (predicted) type
+ * is assignable to them, covering the full class and interface hierarchy.
+ * Used by {@link DefaultListableBeanFactory} for frozen configurations,
+ * in order to only run full type matching against promising candidates.
+ *
+ * <p>This index is a pre-filter: each lookup returns a superset of the actual
+ * matches, in registration order. Bean definitions without a predictable type
+ * as well as beans whose type may have changed since indexing (e.g. through
+ * singleton creation and proxying) are always returned as candidates.
+ *
+ * <p>Also serves as a cache for annotation lookups: the bean definitions
+ * carrying a given annotation type are determined once, with just stale
+ * beans being checked again on every lookup.
+ *
+ * @since 5.1
+ * @see DefaultListableBeanFactory#getBeanNamesForType
+ * @see DefaultListableBeanFactory#getBeanNamesForAnnotation
+ */
+final class BeanTypeIndex {
+
+	private static final int[] NO_POSITIONS = new int[0];
+
+
+	private final String[] beanNames;
+
+	private final Map<String, Integer> positions;
+
+	private final Map<Class<?>, List<Integer>> positionsByTypeInProgress = new HashMap<>();
+
+	private Map<Class<?>, int[]> positionsByType = Collections.emptyMap();
+
+	private final BitSet unresolved = new BitSet();
+
+	private final Map<Class<? extends Annotation>, BitSet> positionsByAnnotationType = new ConcurrentHashMap<>(16);
+
+	private final Set<String> staleBeanNames = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean complete;
+
+
+	/**
+	 * Create a new (empty) index for the given bean definition names.
+	 * @param beanNames the frozen bean definition names, in registration order
+	 */
+	BeanTypeIndex(String[] beanNames) {
+		this.beanNames = beanNames;
+		this.positions = new HashMap<>(beanNames.length * 2);
+		for (int i = 0; i < beanNames.length; i++) {
+			this.positions.put(beanNames[i], i);
+		}
+	}
+
+
+	/**
+	 * Register the given type for the bean definition at the given position,
+	 * along with all of its superclasses and interfaces.
+	 */
+	void addType(int position, Class<?> type) {
+		if (type.isArray()) {
+			// Covariant array types: not worth indexing...
+			addUnresolved(position);
+			return;
+		}
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		Set<Class<?>> visited = new HashSet<>();
+		queue.add(ClassUtils.resolvePrimitiveIfNecessary(type));
+		queue.add(Object.class);
+		while (!queue.isEmpty()) {
+			Class<?> current = queue.poll();
+			if (visited.add(current)) {
+				List<Integer> indexed = this.positionsByTypeInProgress.computeIfAbsent(current, key -> new ArrayList<>());
+				if (indexed.isEmpty() || indexed.get(indexed.size() - 1) != position) {
+					indexed.add(position);
+				}
+				Class<?> superclass = current.getSuperclass();
+				if (superclass != null) {
+					queue.add(superclass);
+				}
+				Collections.addAll(queue, current.getInterfaces());
+			}
+		}
+	}
+
+	/**
+	 * Mark the bean definition at the given position as a candidate for any type.
+	 */
+	void addUnresolved(int position) {
+		this.unresolved.set(position);
+	}
+
+	/**
+	 * Mark the index as complete, i.e. as ready for lookups.
+	 */
+	void complete() {
+		Map<Class<?>, int[]> positionsByType = new HashMap<>(this.positionsByTypeInProgress.size() * 2);
+		this.positionsByTypeInProgress.forEach((type, indexed) ->
+				positionsByType.put(type, indexed.stream().mapToInt(Integer::intValue).toArray()));
+		this.positionsByTypeInProgress.clear();
+		this.positionsByType = positionsByType;
+		this.complete = true;
+	}
+
+	/**
+	 * Return whether this index is complete, i.e. ready for lookups.
+	 */
+	boolean isComplete() {
+		return this.complete;
+	}
+
+	/**
+	 * Return whether so many beans have been marked as stale in the meantime
+	 * that the index should rather be rebuilt.
+	 */
+	boolean isOutdated() {
+		return (this.staleBeanNames.size() > Math.max(32, this.beanNames.length / 8));
+	}
+
+	/**
+	 * Mark the given bean as stale, turning it into a candidate for any type.
+	 * @param beanName the name of a bean whose type might differ from the
+	 * indexed type from now on (e.g. since its singleton instance is being created)
+	 */
+	void markStale(String beanName) {
+		if (this.positions.containsKey(beanName)) {
+			this.staleBeanNames.add(beanName);
+		}
+	}
+
+	/**
+	 * Return the names of all bean definitions that might match the given type,
+	 * in registration order.
+	 * @param type the raw type to match
+	 */
+	List<String> getCandidateNames(Class<?> type) {
+		int[] indexed = this.positionsByType.getOrDefault(ClassUtils.resolvePrimitiveIfNecessary(type), NO_POSITIONS);
+		BitSet candidates = (BitSet) this.unresolved.clone();
+		for (int position : indexed) {
+			candidates.set(position);
+		}
+		for (String staleBeanName : this.staleBeanNames) {
+			candidates.set(this.positions.get(staleBeanName));
+		}
+		List<String> candidateNames = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			candidateNames.add(this.beanNames[i]);
+		}
+		return candidateNames;
+	}
+
+	/**
+	 * Return the names of all bean definitions that carry the given annotation,
+	 * in registration order.
+	 * @param annotationType the annotation type to look for
+	 * @param matcher the actual check for a given bean name: applied to all beans
+	 * on the first lookup for the given annotation type, and to stale beans only
+	 * on subsequent lookups
+	 */
+	List<String> getBeanNamesForAnnotation(Class<? extends Annotation> annotationType, Predicate<String> matcher) {
+		BitSet matches = this.positionsByAnnotationType.get(annotationType);
+		if (matches == null) {
+			matches = new BitSet(this.beanNames.length);
+			for (int i = 0; i < this.beanNames.length; i++) {
+				if (matcher.test(this.beanNames[i])) {
+					matches.set(i);
+				}
+			}
+			this.positionsByAnnotationType.put(annotationType, matches);
+		}
+		BitSet candidates = (BitSet) matches.clone();
+		for (String staleBeanName : this.staleBeanNames) {
+			candidates.set(this.positions.get(staleBeanName));
+		}
+		List<String> matchingNames = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			String beanName = this.beanNames[i];
+			if (!this.staleBeanNames.contains(beanName) || matcher.test(beanName)) {
+				matchingNames.add(beanName);
+			}
+		}
+		return matchingNames;
+	}
+
+}
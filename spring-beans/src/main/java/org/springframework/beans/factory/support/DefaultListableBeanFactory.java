@@ -24,26 +24,36 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -61,21 +71,27 @@ import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.SmartFactoryBean;
 import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CompositeIterator;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -174,9 +190,17 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Nullable
 	private volatile String[] frozenBeanDefinitionNames;
 
+	/** Index of bean definition names by type in case of frozen configuration, built on demand */
+	@Nullable
+	private volatile BeanTypeIndex beanTypeIndex;
+
 	/** Whether bean definition metadata may be cached for all beans */
 	private volatile boolean configurationFrozen = false;
 
+	/** Optional Executor for pre-instantiating singletons in parallel */
+	@Nullable
+	private Executor bootstrapExecutor;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -308,6 +332,34 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Set an {@link Executor} for pre-instantiating non-lazy singletons in parallel,
+	 * e.g. a {@link java.util.concurrent.ForkJoinPool} sized to the number of cores.
+	 * <p>Default is none, instantiating singletons one after the other in registration
+	 * order. With an Executor specified, each singleton gets submitted as soon as the
+	 * singletons that it is known to depend on (through "depends-on" declarations,
+	 * bean references, constructor and factory method parameters) are available;
+	 * other dependencies are resolved on demand, waiting for a concurrent creation
+	 * attempt if necessary. {@link SmartInitializingSingleton} callbacks are still
+	 * invoked on the calling thread once all singletons have been instantiated.
+	 * <p>Note that singleton beans must be safe to initialize concurrently with
+	 * unrelated singletons when using this option.
+	 * @since 5.1
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setBootstrapExecutor(@Nullable Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} for pre-instantiating singletons in parallel, if any.
+	 * @since 5.1
+	 */
+	@Nullable
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -317,6 +369,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
 			// Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -405,12 +458,28 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions, or just the indexed candidates in case of frozen configuration.
+		Collection<String> beanDefinitionNames = this.beanDefinitionNames;
+		Class<?> rawType = type.resolve();
+		if (allowEagerInit && rawType != null) {
+			BeanTypeIndex beanTypeIndex = obtainBeanTypeIndex();
+			if (beanTypeIndex != null) {
+				beanDefinitionNames = beanTypeIndex.getCandidateNames(rawType);
+			}
+		}
+		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
 				try {
+					// Try to match a deferred bean definition without resolving its full content.
+					Boolean deferredMatch = matchUnresolvedDefinition(beanName, type, includeNonSingletons, allowEagerInit);
+					if (deferredMatch != null) {
+						if (deferredMatch) {
+							result.add(beanName);
+						}
+						continue;
+					}
 					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
 					// Only check bean definition if it is complete.
 					if (!mbd.isAbstract() && (allowEagerInit ||
@@ -487,6 +556,133 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Obtain the type index for the current set of bean definitions,
+	 * building it if necessary.
+	 * @return the type index, or {@code null} if the configuration is not
+	 * frozen yet or if the index is currently being built
+	 * @see #freezeConfiguration()
+	 */
+	@Nullable
+	private BeanTypeIndex obtainBeanTypeIndex() {
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			if (!beanTypeIndex.isComplete()) {
+				// Currently being built, possibly with a nested lookup from a FactoryBean...
+				return null;
+			}
+			if (!beanTypeIndex.isOutdated()) {
+				return beanTypeIndex;
+			}
+		}
+		String[] frozenNames = this.frozenBeanDefinitionNames;
+		if (frozenNames == null || getTempClassLoader() != null) {
+			return null;
+		}
+
+		// Publish the new index before determining the bean types, so that any
+		// singleton creation from here on marks the affected beans as stale.
+		beanTypeIndex = new BeanTypeIndex(frozenNames);
+		this.beanTypeIndex = beanTypeIndex;
+		try {
+			populateBeanTypeIndex(beanTypeIndex, frozenNames);
+		}
+		finally {
+			if (!beanTypeIndex.isComplete() && this.beanTypeIndex == beanTypeIndex) {
+				this.beanTypeIndex = null;
+			}
+		}
+		return (this.beanTypeIndex == beanTypeIndex ? beanTypeIndex : null);
+	}
+
+	private void populateBeanTypeIndex(BeanTypeIndex beanTypeIndex, String[] beanNames) {
+		for (int i = 0; i < beanNames.length; i++) {
+			String beanName = beanNames[i];
+			try {
+				RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+				if (mbd.isAbstract()) {
+					continue;
+				}
+				Class<?> beanType = (!isSingletonCurrentlyInCreation(beanName) ? getType(beanName) : null);
+				Class<?> factoryBeanType = null;
+				if (beanType != null && isFactoryBean(beanName, mbd)) {
+					factoryBeanType = getType(FACTORY_BEAN_PREFIX + beanName);
+					if (factoryBeanType == null) {
+						beanType = null;
+					}
+				}
+				if (beanType != null) {
+					beanTypeIndex.addType(i, beanType);
+					if (factoryBeanType != null) {
+						beanTypeIndex.addType(i, factoryBeanType);
+					}
+				}
+				else {
+					beanTypeIndex.addUnresolved(i);
+				}
+			}
+			catch (BeansException ex) {
+				// Leave it up to the actual type matching algorithm...
+				beanTypeIndex.addUnresolved(i);
+			}
+		}
+		beanTypeIndex.complete();
+	}
+
+	/**
+	 * Match an unresolved {@link DeferredBeanDefinition} against the given type,
+	 * based on its basic metadata only. Only applies to plain class-based beans
+	 * which do not turn out to be a {@code FactoryBean}: otherwise, the bean
+	 * definition gets resolved and matched through the regular algorithm.
+	 * @param beanName the name of the bean
+	 * @param type the type to match
+	 * @param includeNonSingletons whether to include prototype or scoped beans too
+	 * @param allowEagerInit whether to load the bean class of a lazy-init bean
+	 * @return whether the bean matches, or {@code null} if not determinable
+	 * without resolving the bean definition
+	 */
+	@Nullable
+	private Boolean matchUnresolvedDefinition(String beanName, ResolvableType type,
+			boolean includeNonSingletons, boolean allowEagerInit) {
+
+		BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+		if (!(bd instanceof DeferredBeanDefinition) || ((DeferredBeanDefinition) bd).isResolved() ||
+				bd.getBeanClassName() == null || bd.getParentName() != null ||
+				bd.getFactoryBeanName() != null || bd.getFactoryMethodName() != null || containsSingleton(beanName)) {
+			return null;
+		}
+		if (bd.isAbstract() || (!includeNonSingletons && !bd.isSingleton()) ||
+				(!allowEagerInit && bd.isLazyInit() && !isAllowEagerClassLoading())) {
+			return false;
+		}
+		try {
+			// Temporary merged bean definition, just for predicting the bean type...
+			RootBeanDefinition mbd = new RootBeanDefinition(bd);
+			Class<?> classToMatch = type.resolve();
+			Class<?>[] typesToMatch = (classToMatch == null || FactoryBean.class == classToMatch ?
+					new Class<?>[] {FactoryBean.class} : new Class<?>[] {FactoryBean.class, classToMatch});
+			Class<?> beanType = predictBeanType(beanName, mbd, typesToMatch);
+			if (beanType == null || FactoryBean.class.isAssignableFrom(beanType)) {
+				return null;
+			}
+			return type.isAssignableFrom(beanType);
+		}
+		catch (BeansException ex) {
+			// Let the regular algorithm handle it...
+			return null;
+		}
+	}
+
+	/**
+	 * Check whether the given bean is backed by an unresolved {@link DeferredBeanDefinition}
+	 * which is known to be lazy-init or abstract, i.e. not eligible for pre-instantiation.
+	 */
+	private boolean isUnresolvedLazyDefinition(String beanName) {
+		BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+		return (bd instanceof DeferredBeanDefinition && !((DeferredBeanDefinition) bd).isResolved() &&
+				(bd.isLazyInit() || bd.isAbstract()));
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -540,10 +736,17 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public String[] getBeanNamesForAnnotation(Class<? extends Annotation> annotationType) {
 		List<String> results = new ArrayList<>();
-		for (String beanName : this.beanDefinitionNames) {
-			BeanDefinition beanDefinition = getBeanDefinition(beanName);
-			if (!beanDefinition.isAbstract() && findAnnotationOnBean(beanName, annotationType) != null) {
-				results.add(beanName);
+		BeanTypeIndex beanTypeIndex = obtainBeanTypeIndex();
+		if (beanTypeIndex != null) {
+			results.addAll(beanTypeIndex.getBeanNamesForAnnotation(annotationType, beanName ->
+					!getBeanDefinition(beanName).isAbstract() && hasAnnotationOnBean(beanName, annotationType)));
+		}
+		else {
+			for (String beanName : this.beanDefinitionNames) {
+				BeanDefinition beanDefinition = getBeanDefinition(beanName);
+				if (!beanDefinition.isAbstract() && hasAnnotationOnBean(beanName, annotationType)) {
+					results.add(beanName);
+				}
 			}
 		}
 		for (String beanName : this.manualSingletonNames) {
@@ -575,6 +778,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public <A extends Annotation> A findAnnotationOnBean(String beanName, Class<A> annotationType)
 			throws NoSuchBeanDefinitionException{
 
+		if (Boolean.FALSE.equals(hasAnnotationInMetadata(beanName, annotationType))) {
+			return null;
+		}
 		A ann = null;
 		Class<?> beanType = getType(beanName);
 		if (beanType != null) {
@@ -592,6 +798,53 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return ann;
 	}
 
+	/**
+	 * Determine whether the specified bean carries an annotation of the given type,
+	 * preferably based on the annotation metadata of its bean definition.
+	 * @see #findAnnotationOnBean
+	 */
+	private boolean hasAnnotationOnBean(String beanName, Class<? extends Annotation> annotationType) {
+		Boolean hasAnnotation = hasAnnotationInMetadata(beanName, annotationType);
+		return (hasAnnotation != null ? hasAnnotation : findAnnotationOnBean(beanName, annotationType) != null);
+	}
+
+	/**
+	 * Check the annotation metadata of the specified bean's definition, if available
+	 * (e.g. as read through ASM during component scanning), for an annotation of
+	 * the given type, avoiding reflective introspection of the bean class.
+	 * @return {@code true} or {@code false} if the metadata is conclusive,
+	 * or {@code null} if the bean class needs to be introspected
+	 */
+	@Nullable
+	private Boolean hasAnnotationInMetadata(String beanName, Class<? extends Annotation> annotationType) {
+		BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+		if (!(bd instanceof AnnotatedBeanDefinition) || bd.getFactoryMethodName() != null ||
+				AnnotationUtils.isInJavaLangAnnotationPackage(annotationType.getName())) {
+			return null;
+		}
+		AnnotatedBeanDefinition abd = (AnnotatedBeanDefinition) bd;
+		AnnotationMetadata metadata = abd.getMetadata();
+		if (abd.getFactoryMethodMetadata() != null || !metadata.getClassName().equals(bd.getBeanClassName())) {
+			return null;
+		}
+		Object beanInstance = getSingleton(beanName, false);
+		if (beanInstance != null && !ClassUtils.getUserClass(beanInstance).getName().equals(metadata.getClassName())) {
+			// Exposed object of a different type, e.g. a JDK proxy
+			return null;
+		}
+		String annotationName = annotationType.getName();
+		if (metadata.hasAnnotation(annotationName) || metadata.hasMetaAnnotation(annotationName)) {
+			return Boolean.TRUE;
+		}
+		// Annotations on superclasses and interfaces are not covered by the metadata...
+		String superClassName = metadata.getSuperClassName();
+		if ((superClassName == null || Object.class.getName().equals(superClassName)) &&
+				metadata.getInterfaceNames().length == 0) {
+			return Boolean.FALSE;
+		}
+		return null;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of ConfigurableListableBeanFactory interface
@@ -685,6 +938,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			throw new NoSuchBeanDefinitionException(beanName);
 		}
+		if (bd instanceof DeferredBeanDefinition) {
+			((DeferredBeanDefinition) bd).resolve();
+		}
 		return bd;
 	}
 
@@ -734,36 +990,18 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				// 如果是bean是FactoryBean则先获取FactoryBean
-				if (isFactoryBean(beanName)) {
-					// 传入的beanName是FACTORY_BEAN_PREFIX + beanName，则返回的bean是FactoryBean而不是FactoryBean创建的bean
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							// 判断是否需要提前初始化FactoryBean创建的bean
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							// 如果需要则直接创建bean，这里传入的是beanName而不是上面的FACTORY_BEAN_PREFIX + beanName，这将会
-							// 通过FactoryBean的getObject方法获取bean
-							getBean(beanName);
-						}
-					}
+		Executor executor = getBootstrapExecutor();
+		if (executor != null) {
+			preInstantiateSingletonsInParallel(beanNames, executor);
+		}
+		else {
+			for (String beanName : beanNames) {
+				if (isUnresolvedLazyDefinition(beanName)) {
+					continue;
 				}
-				else {
-					// 如果是普通bean则直接初始化
-					getBean(beanName);
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
@@ -773,18 +1011,322 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		for (String beanName : beanNames) {
 			Object singletonInstance = getSingleton(beanName);
 			if (singletonInstance instanceof SmartInitializingSingleton) {
+				StartupStep smartInitialize = getApplicationStartup().start("spring.beans.smart-initialize")
+						.tag("beanName", beanName);
 				final SmartInitializingSingleton smartSingleton = (SmartInitializingSingleton) singletonInstance;
-				if (System.getSecurityManager() != null) {
-					AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+				try {
+					if (System.getSecurityManager() != null) {
+						AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+							smartSingleton.afterSingletonsInstantiated();
+							return null;
+						}, getAccessControlContext());
+					}
+					else {
 						smartSingleton.afterSingletonsInstantiated();
-						return null;
-					}, getAccessControlContext());
+					}
+				}
+				finally {
+					smartInitialize.end();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Instantiate the given non-lazy singleton, including the object exposed by
+	 * a {@link SmartFactoryBean} that asks for eager initialization.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		// 如果是bean是FactoryBean则先获取FactoryBean
+		if (isFactoryBean(beanName)) {
+			// 传入的beanName是FACTORY_BEAN_PREFIX + beanName，则返回的bean是FactoryBean而不是FactoryBean创建的bean
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				final FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+									((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
 				}
 				else {
-					smartSingleton.afterSingletonsInstantiated();
+					// 判断是否需要提前初始化FactoryBean创建的bean
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					// 如果需要则直接创建bean，这里传入的是beanName而不是上面的FACTORY_BEAN_PREFIX + beanName，这将会
+					// 通过FactoryBean的getObject方法获取bean
+					getBean(beanName);
 				}
 			}
 		}
+		else {
+			// 如果是普通bean则直接初始化
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Instantiate all non-lazy singletons on the given bootstrap executor, following
+	 * the dependencies between them that can be derived from their bean definitions.
+	 * <p>A singleton gets submitted once all of its known dependencies have been
+	 * instantiated; dependencies that cannot be determined upfront (e.g. autowired
+	 * fields) are resolved on demand, waiting for any other bootstrap thread that is
+	 * creating the requested singleton at the same time.
+	 * @param beanNames the names of all beans in registration order
+	 * @param executor the executor to submit the singletons to
+	 * @see #setBootstrapExecutor
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames, Executor executor) {
+		Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			if (isUnresolvedLazyDefinition(beanName)) {
+				continue;
+			}
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				dependencies.put(beanName, new LinkedHashSet<>());
+			}
+		}
+		Map<Class<?>, String[]> beanNamesByType = new HashMap<>();
+		for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+			Set<String> dependenciesForBean = entry.getValue();
+			collectBootstrapDependencies(entry.getKey(), dependenciesForBean, beanNamesByType);
+			dependenciesForBean.retainAll(dependencies.keySet());
+			dependenciesForBean.remove(entry.getKey());
+		}
+
+		long startTime = System.nanoTime();
+		Map<String, long[]> timings = new ConcurrentHashMap<>(dependencies.size());
+		Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>(dependencies.size());
+		Set<String> beansInProgress = new HashSet<>();
+		for (String beanName : dependencies.keySet()) {
+			scheduleSingleton(beanName, dependencies, futures, beansInProgress, timings, executor);
+		}
+		try {
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+		}
+		catch (CompletionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof BeansException) {
+				throw (BeansException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new BeanCreationException("Parallel singleton pre-instantiation failed", cause);
+		}
+
+		if (logger.isDebugEnabled()) {
+			logBootstrapTimings(dependencies, timings, System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Submit the given singleton once its dependencies (submitted first) have completed.
+	 * Dependencies that lead back to a singleton currently being scheduled are
+	 * skipped, leaving such circular references up to regular early-reference handling.
+	 */
+	private CompletableFuture<Void> scheduleSingleton(String beanName, Map<String, Set<String>> dependencies,
+			Map<String, CompletableFuture<Void>> futures, Set<String> beansInProgress,
+			Map<String, long[]> timings, Executor executor) {
+
+		CompletableFuture<Void> future = futures.get(beanName);
+		if (future != null) {
+			return future;
+		}
+		beansInProgress.add(beanName);
+		List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+		for (String dependency : dependencies.get(beanName)) {
+			if (!beansInProgress.contains(dependency)) {
+				dependencyFutures.add(
+						scheduleSingleton(dependency, dependencies, futures, beansInProgress, timings, executor));
+			}
+		}
+		beansInProgress.remove(beanName);
+		future = CompletableFuture.allOf(dependencyFutures.toArray(new CompletableFuture<?>[0])).thenRunAsync(() -> {
+			long beanStartTime = System.nanoTime();
+			try {
+				preInstantiateSingleton(beanName);
+			}
+			finally {
+				long beanEndTime = System.nanoTime();
+				timings.put(beanName, new long[] {beanStartTime, beanEndTime});
+				if (logger.isTraceEnabled()) {
+					logger.trace("Pre-instantiated singleton '" + beanName + "' on thread [" +
+							Thread.currentThread().getName() + "] in " +
+							TimeUnit.NANOSECONDS.toMillis(beanEndTime - beanStartTime) + " ms");
+				}
+			}
+		}, executor);
+		futures.put(beanName, future);
+		return future;
+	}
+
+	/**
+	 * Collect the names of the beans that the given bean is known to depend on:
+	 * explicit "depends-on" declarations, its factory bean, bean references in
+	 * constructor arguments and property values, as well as the parameter types
+	 * of an unambiguous constructor or factory method.
+	 */
+	private void collectBootstrapDependencies(
+			String beanName, Set<String> result, Map<Class<?>, String[]> beanNamesByType) {
+
+		RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+		String[] dependsOn = mbd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				result.add(canonicalName(dependency));
+			}
+		}
+		String factoryBeanName = mbd.getFactoryBeanName();
+		if (factoryBeanName != null) {
+			result.add(canonicalName(factoryBeanName));
+		}
+		if (mbd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cargs = mbd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+				collectBeanReferences(valueHolder.getValue(), result);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				collectBeanReferences(valueHolder.getValue(), result);
+			}
+		}
+		if (mbd.hasPropertyValues()) {
+			for (PropertyValue pv : mbd.getPropertyValues().getPropertyValues()) {
+				collectBeanReferences(pv.getValue(), result);
+			}
+		}
+
+		Class<?>[] parameterTypes = null;
+		try {
+			if (mbd.getFactoryMethodName() != null) {
+				Class<?> factoryClass = (factoryBeanName != null ?
+						resolveBeanClass(getMergedLocalBeanDefinition(canonicalName(factoryBeanName)), factoryBeanName) :
+						resolveBeanClass(mbd, beanName));
+				if (factoryClass != null) {
+					Method uniqueCandidate = null;
+					for (Method candidate : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(factoryClass))) {
+						if (mbd.isFactoryMethod(candidate)) {
+							if (uniqueCandidate != null) {
+								uniqueCandidate = null;
+								break;
+							}
+							uniqueCandidate = candidate;
+						}
+					}
+					if (uniqueCandidate != null) {
+						parameterTypes = uniqueCandidate.getParameterTypes();
+					}
+				}
+			}
+			else {
+				Class<?> beanClass = resolveBeanClass(mbd, beanName);
+				if (beanClass != null) {
+					Constructor<?>[] ctors = beanClass.getDeclaredConstructors();
+					if (ctors.length == 1) {
+						parameterTypes = ctors[0].getParameterTypes();
+					}
+				}
+			}
+		}
+		catch (BeansException | LinkageError ex) {
+			// Not resolvable upfront - leave it up to the actual creation attempt.
+			if (logger.isTraceEnabled()) {
+				logger.trace("Could not determine dependencies of bean '" + beanName + "' upfront", ex);
+			}
+		}
+		if (parameterTypes != null) {
+			for (Class<?> parameterType : parameterTypes) {
+				if (!BeanUtils.isSimpleProperty(parameterType)) {
+					String[] candidateNames = beanNamesByType.computeIfAbsent(parameterType,
+							type -> getBeanNamesForType(type, true, false));
+					Collections.addAll(result, candidateNames);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collect the names of all beans referenced by the given bean definition value,
+	 * descending into inner bean definitions and managed collections.
+	 */
+	private void collectBeanReferences(@Nullable Object value, Set<String> result) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				result.add(canonicalName(ref.getBeanName()));
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectInnerBeanReferences(((BeanDefinitionHolder) value).getBeanDefinition(), result);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectInnerBeanReferences((BeanDefinition) value, result);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectBeanReferences(element, result);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectBeanReferences(entry.getKey(), result);
+				collectBeanReferences(entry.getValue(), result);
+			}
+		}
+	}
+
+	private void collectInnerBeanReferences(BeanDefinition innerBd, Set<String> result) {
+		for (ConstructorArgumentValues.ValueHolder valueHolder :
+				innerBd.getConstructorArgumentValues().getIndexedArgumentValues().values()) {
+			collectBeanReferences(valueHolder.getValue(), result);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder :
+				innerBd.getConstructorArgumentValues().getGenericArgumentValues()) {
+			collectBeanReferences(valueHolder.getValue(), result);
+		}
+		for (PropertyValue pv : innerBd.getPropertyValues().getPropertyValues()) {
+			collectBeanReferences(pv.getValue(), result);
+		}
+	}
+
+	/**
+	 * Log the overall timing of a parallel pre-instantiation phase, along with
+	 * its critical path: the chain of dependencies that finished last.
+	 */
+	private void logBootstrapTimings(
+			Map<String, Set<String>> dependencies, Map<String, long[]> timings, long elapsedTime) {
+
+		long totalBeanTime = 0;
+		String lastBean = null;
+		for (Map.Entry<String, long[]> entry : timings.entrySet()) {
+			long[] timing = entry.getValue();
+			totalBeanTime += timing[1] - timing[0];
+			if (lastBean == null || timing[1] > timings.get(lastBean)[1]) {
+				lastBean = entry.getKey();
+			}
+		}
+		List<String> criticalPath = new LinkedList<>();
+		Set<String> visited = new HashSet<>();
+		while (lastBean != null && visited.add(lastBean)) {
+			criticalPath.add(0, lastBean);
+			String latestDependency = null;
+			for (String dependency : dependencies.get(lastBean)) {
+				long[] timing = timings.get(dependency);
+				if (timing != null && (latestDependency == null || timing[1] > timings.get(latestDependency)[1])) {
+					latestDependency = dependency;
+				}
+			}
+			lastBean = latestDependency;
+		}
+		logger.debug("Pre-instantiated " + timings.size() + " singletons in parallel in " +
+				TimeUnit.NANOSECONDS.toMillis(elapsedTime) + " ms (" +
+				TimeUnit.NANOSECONDS.toMillis(totalBeanTime) + " ms of accumulated bean creation time); " +
+				"critical path: " + StringUtils.collectionToDelimitedString(criticalPath, " -> "));
 	}
 
 
@@ -869,6 +1411,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				this.manualSingletonNames.remove(beanName);
 			}
 			this.frozenBeanDefinitionNames = null;
+			this.beanTypeIndex = null;
 		}
 
 		if (oldBeanDefinition != null || containsSingleton(beanName)) {
@@ -902,6 +1445,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex = null;
 
 		resetBeanDefinition(beanName);
 	}
@@ -971,6 +1515,19 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	/**
+	 * Marks the given bean as stale in the type index, if any,
+	 * since its singleton instance may expose a different type than predicted.
+	 */
+	@Override
+	protected void beforeSingletonCreation(String beanName) {
+		super.beforeSingletonCreation(beanName);
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.markStale(beanName);
+		}
+	}
+
 	@Override
 	public void destroySingletons() {
 		super.destroySingletons();
@@ -984,6 +1541,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private void clearByTypeCache() {
 		this.allBeanNamesByType.clear();
 		this.singletonBeanNamesByType.clear();
+		this.beanTypeIndex = null;
 	}
 
 
@@ -35,6 +35,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -64,6 +65,14 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>As of 5.1, singleton creation does not hold the {@link #getSingletonMutex()
+ * singleton mutex}: The mutex only guards short updates of the singleton caches,
+ * while a singleton is owned by its creating thread until it is fully initialized.
+ * Other threads requesting the same singleton wait for it, whereas unrelated
+ * singletons can be created concurrently. A circular reference between the
+ * singletons that several threads are creating gets resolved through an early
+ * reference, just like a circular reference within a single thread.
+ *
  * <p>实现了SingletonBeanRegistry接口，即实现了基本的单例的注册功能，相当于是一个单例bean的BeanFactory，并为单例bean的循环引用提供了支持</p>
  *
  * @author Juergen Hoeller
@@ -85,11 +94,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Cache of singleton factories: bean name --> ObjectFactory */
 	// ObjectFactory用于实现单例bean之间的循环引用，具体实现逻辑需要结合AbstractBeanFactory的doGetBean方法来看
 	// doGetBean方法中也有相应的注释解析单例bean之间的循环引用
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
 
 	/** Cache of early singleton objects: bean name --> bean instance */
 	// 同上
-	private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
 
 	/** Set of registered singletons, containing the bean names in registration order */
 	// 保存已注册的单例bean的beanName
@@ -100,16 +109,22 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> singletonsCurrentlyInCreation =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
+	/** Threads that are currently creating singletons: bean name --> creating thread */
+	private final Map<String, Thread> singletonCreationThreads = new ConcurrentHashMap<>(16);
+
+	/** Singletons that threads are currently waiting for: waiting thread --> bean name */
+	private final Map<Thread, String> singletonCreationWaits = new HashMap<>(16);
+
 	/** Names of beans currently excluded from in creation checks */
 	private final Set<String> inCreationCheckExclusions =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** List of suppressed Exceptions, available for associating related causes */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	/** List of suppressed Exceptions per creating thread, available for associating related causes */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons */
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name --> disposable instance */
 	// 保存销毁所有单例bean时需要调用destroy回调方法的bean
@@ -119,7 +134,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	// 以外部bean为key、内部bean为value
 	private final Map<String, Set<String>> containedBeanMap = new ConcurrentHashMap<>(16);
 
-	/** Map between dependent bean names: bean name --> Set of dependent bean names */
+	/**
+	 * Map between dependent bean names: bean name --> Set of dependent bean names.
+	 * The Sets are synchronized for lookups outside of the Map's lock.
+	 */
 	// 以beanName为key保存，依赖该bean的beanName集合为value
 	private final Map<String, Set<String>> dependentBeanMap = new ConcurrentHashMap<>(64);
 
@@ -198,20 +216,24 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		// 如果bean还没保存到单例bean缓存中并且该bean正在被创建
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
-				// 尝试获取earlySingletonObjects中的bean，earlySingletonObjects保存的是之前已经从ObjectFactory获取过的bean
+			Thread creatingThread = this.singletonCreationThreads.get(beanName);
+			if (creatingThread == Thread.currentThread()) {
+				// Circular reference within the current thread: early reference exposed already?
 				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					// 如果allowEarlyReference为true则从singletonFactories获取ObjectFactory用于创建bean
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						// 保存到earlySingletonObjects防止重复调用singletonFactory.getObject()，下次再获取的时候直接从earlySingletonObjects返回
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
-					}
+				if (singletonObject != null || !allowEarlyReference) {
+					return singletonObject;
 				}
 			}
+			synchronized (this.singletonObjects) {
+				creatingThread = this.singletonCreationThreads.get(beanName);
+				if (allowEarlyReference && creatingThread != null && creatingThread != Thread.currentThread() &&
+						!isWaitingFor(creatingThread, Thread.currentThread())) {
+					// Do not expose a singleton that another thread is still initializing,
+					// unless that thread is in turn waiting for the current thread.
+					return null;
+				}
+				singletonObject = getEarlySingleton(beanName, allowEarlyReference);
+			}
 		}
 		return singletonObject;
 	}
@@ -226,61 +248,170 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		Object singletonObject;
+		boolean creationClaimed;
 		synchronized (this.singletonObjects) {
-			// 先尝试从缓存中获取单例bean
-			Object singletonObject = this.singletonObjects.get(beanName);
+			// 先尝试从缓存中获取单例bean，如果其他线程正在创建该bean则等待其创建完成
+			singletonObject = awaitSingletonCreation(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			// 如果正在销毁所有的单例bean则报错，防止在调用bean的销毁方法时创建bean
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			// 将beanName添加到singletonsCurrentlyInCreation，表示正在创建该单例bean
+			beforeSingletonCreation(beanName);
+			// A nested call for a bean excluded from in creation checks keeps the outer claim
+			creationClaimed = (this.singletonCreationThreads.putIfAbsent(beanName, Thread.currentThread()) == null);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+		}
+		// The singleton lock is not held while creating the singleton: other threads
+		// may create unrelated singletons in the meantime, or wait for this one.
+		boolean newSingleton = false;
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		boolean recordSuppressedExceptions = (suppressedExceptions == null);
+		if (recordSuppressedExceptions) {
+			suppressedExceptions = new LinkedHashSet<>();
+			this.suppressedExceptions.set(suppressedExceptions);
+		}
+		try {
+			// 创建单例bean
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
-				// 如果正在销毁所有的单例bean则报错，防止在调用bean的销毁方法时创建bean
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				// 将beanName添加到singletonsCurrentlyInCreation，表示正在创建该单例bean
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
-				}
-				try {
-					// 创建单例bean
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
-				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
-					throw ex;
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : suppressedExceptions) {
+					ex.addRelatedCause(suppressedException);
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
-					}
-					// 从singletonsCurrentlyInCreation移除beanName
-					afterSingletonCreation(beanName);
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions.remove();
+			}
+			synchronized (this.singletonObjects) {
+				// 从singletonsCurrentlyInCreation移除beanName
+				afterSingletonCreation(beanName);
+				if (creationClaimed) {
+					this.singletonCreationThreads.remove(beanName);
 				}
 				// 将bean保存到singletonObjects中缓存下来
 				if (newSingleton) {
 					addSingleton(beanName, singletonObject);
 				}
+				this.singletonObjects.notifyAll();
 			}
-			return singletonObject;
 		}
+		return singletonObject;
+	}
+
+	/**
+	 * Wait for another thread to finish creating the given singleton.
+	 * <p>To be called with the singleton lock held.
+	 * @param beanName the name of the bean
+	 * @return the singleton object created by another thread, an early reference
+	 * in case of a circular reference between the threads involved, or {@code null}
+	 * if the current thread is supposed to create the singleton itself
+	 * @throws BeanCurrentlyInCreationException in case of a circular reference
+	 * between threads that cannot be resolved through an early reference
+	 */
+	@Nullable
+	private Object awaitSingletonCreation(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		while (true) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			Thread creatingThread = this.singletonCreationThreads.get(beanName);
+			if (creatingThread == null || creatingThread == currentThread) {
+				return null;
+			}
+			if (isWaitingFor(creatingThread, currentThread)) {
+				singletonObject = getEarlySingleton(beanName, true);
+				if (singletonObject != null) {
+					return singletonObject;
+				}
+				throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in creation " +
+						"on thread [" + creatingThread.getName() + "] which is waiting for a bean in creation " +
+						"on the current thread [" + currentThread.getName() + "]: Is there an unresolvable circular reference?");
+			}
+			this.singletonCreationWaits.put(currentThread, beanName);
+			try {
+				this.singletonObjects.wait();
+			}
+			catch (InterruptedException ex) {
+				currentThread.interrupt();
+				throw new BeanCreationException(beanName,
+						"Interrupted while waiting for singleton creation on thread [" + creatingThread.getName() + "]");
+			}
+			finally {
+				this.singletonCreationWaits.remove(currentThread);
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given thread is (transitively) waiting for a
+	 * singleton that the target thread is currently creating.
+	 * <p>To be called with the singleton lock held.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread targetThread) {
+		Set<Thread> threadsSeen = null;
+		String beanName = this.singletonCreationWaits.get(thread);
+		while (beanName != null) {
+			Thread creatingThread = this.singletonCreationThreads.get(beanName);
+			if (creatingThread == null) {
+				return false;
+			}
+			if (creatingThread == targetThread) {
+				return true;
+			}
+			if (threadsSeen == null) {
+				threadsSeen = new HashSet<>();
+			}
+			if (!threadsSeen.add(creatingThread)) {
+				return false;
+			}
+			beanName = this.singletonCreationWaits.get(creatingThread);
+		}
+		return false;
+	}
+
+	/**
+	 * Obtain an early reference to the given singleton, if exposed.
+	 * <p>To be called with the singleton lock held.
+	 */
+	@Nullable
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		// 尝试获取earlySingletonObjects中的bean，earlySingletonObjects保存的是之前已经从ObjectFactory获取过的bean
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null && allowEarlyReference) {
+			// 如果allowEarlyReference为true则从singletonFactories获取ObjectFactory用于创建bean
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				// 保存到earlySingletonObjects防止重复调用singletonFactory.getObject()，下次再获取的时候直接从earlySingletonObjects返回
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
 	}
 
 	/**
@@ -289,10 +420,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -431,10 +561,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	public void registerDependentBean(String beanName, String dependentBeanName) {
 		String canonicalName = canonicalName(beanName);
 
+		// Quick check for a dependency registered before, e.g. for every prototype instance
+		// of the same bean definition, avoiding the lock below in the common case:
+		// only contending with registrations for the same bean on the synchronized Set.
+		Set<String> dependentBeans = this.dependentBeanMap.get(canonicalName);
+		if (dependentBeans != null && dependentBeans.contains(dependentBeanName)) {
+			return;
+		}
+
 		// beanName为key保存，依赖该bean的beanName集合为value
 		synchronized (this.dependentBeanMap) {
-			Set<String> dependentBeans =
-					this.dependentBeanMap.computeIfAbsent(canonicalName, k -> new LinkedHashSet<>(8));
+			dependentBeans = this.dependentBeanMap.computeIfAbsent(canonicalName,
+					k -> Collections.synchronizedSet(new LinkedHashSet<>(8)));
 			if (!dependentBeans.add(dependentBeanName)) {
 				return;
 			}
@@ -665,6 +803,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * any sort of extended singleton creation phase. In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>Note that the mutex is not held while a singleton is being created
+	 * through {@link #getSingleton(String, ObjectFactory)}. A thread that waits
+	 * for a singleton created by another thread releases the mutex while waiting.
 	 */
 	// 返回singletonObjects用于子类操作单例时加锁，防止各种多线程问题
 	public final Object getSingletonMutex() {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+
+/**
+ * Extension of the {@link BeanDefinition} interface for bean definitions
+ * which are registered with basic metadata only (bean class name, scope,
+ * lazy-init and abstract flags, parent and factory names), deferring the
+ * parsing of their full content until they are actually needed.
+ *
+ * <p>A {@link DefaultListableBeanFactory} resolves such a bean definition
+ * when it is first obtained through {@link DefaultListableBeanFactory#getBeanDefinition},
+ * i.e. when it gets merged for bean creation or handed out to a post-processor.
+ * Type matching for a plain class-based bean as well as the lazy-init check
+ * during singleton pre-instantiation work with the basic metadata only.
+ *
+ * @since 5.1
+ * @see org.springframework.beans.factory.xml.XmlBeanDefinitionReader#setDeferredParsing
+ */
+public interface DeferredBeanDefinition extends BeanDefinition {
+
+	/**
+	 * Return whether the full content of this bean definition has been resolved already.
+	 */
+	boolean isResolved();
+
+	/**
+	 * Resolve the full content of this bean definition, if not done before.
+	 * @throws BeanDefinitionStoreException in case of an invalid bean definition
+	 */
+	void resolve() throws BeanDefinitionStoreException;
+
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.WriteMethodInvoker;
+import org.springframework.cglib.core.ReflectUtils;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Instantiation strategy that invokes constructors and factory methods through
+ * accessor classes generated at runtime instead of through reflection, avoiding
+ * the overhead of {@link Constructor#newInstance} and {@link Method#invoke} for
+ * beans that get created over and over again, e.g. prototype or scoped beans.
+ * Also serves as {@link WriteMethodInvoker} for setter injection.
+ *
+ * <p>An accessor class gets generated with ASM on first use of a constructor
+ * or method, exactly once per member, and is shared across strategy instances.
+ * It is defined in the package and class loader of the declaring class, so that
+ * non-public members can be invoked as well, and is held along with the declaring
+ * class, i.e. for the lifetime of its class loader. Reflection remains in use for private members,
+ * for members whose parameter types are not accessible from the declaring class's
+ * package, for JDK classes, for constructors of Kotlin classes (which may need to
+ * apply default parameter values), for arguments that require a widening
+ * conversion, and whenever an accessor class cannot be defined.
+ *
+ * <p>Method Injection is supported through CGLIB, as with the superclass.
+ *
+ * @since 5.1
+ * @see AbstractAutowireCapableBeanFactory#setInstantiationStrategy
+ */
+public class GeneratedInstantiationStrategy extends CglibSubclassingInstantiationStrategy
+		implements WriteMethodInvoker {
+
+	private static final String ACCESSOR_CLASS_SEPARATOR = "$$SpringAccessor$$";
+
+	private static final String ACCESSOR_METHOD_DESCRIPTOR =
+			"(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+	private static final Object[] EMPTY_ARGS = new Object[0];
+
+	/** Marker for members that need to be invoked through reflection */
+	private static final Object REFLECTIVE = new Object();
+
+	private static final AtomicInteger accessorClassCounter = new AtomicInteger();
+
+	private static final Log logger = LogFactory.getLog(GeneratedInstantiationStrategy.class);
+
+	/** Cache of accessors per declaring class: Constructor or Method --> MemberAccessor or REFLECTIVE marker */
+	private static final ClassValue<Map<Executable, Object>> accessorCache =
+			new ClassValue<Map<Executable, Object>>() {
+				@Override
+				protected Map<Executable, Object> computeValue(Class<?> declaringClass) {
+					return new ConcurrentHashMap<>(8);
+				}
+			};
+
+
+	@Override
+	protected Object instantiateClass(Constructor<?> ctor, @Nullable Object... args) {
+		Object[] argsToUse = (args != null ? args : EMPTY_ARGS);
+		MemberAccessor accessor = getAccessor(ctor);
+		if (accessor == null || !accessor.isApplicable(null, argsToUse)) {
+			return super.instantiateClass(ctor, args);
+		}
+		try {
+			return accessor.invoke(null, argsToUse);
+		}
+		catch (Throwable ex) {
+			throw new BeanInstantiationException(ctor, "Constructor threw exception", ex);
+		}
+	}
+
+	@Override
+	@Nullable
+	protected Object invokeFactoryMethod(@Nullable Object factoryBean, Method factoryMethod, @Nullable Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		Object[] argsToUse = (args != null ? args : EMPTY_ARGS);
+		MemberAccessor accessor = getAccessor(factoryMethod);
+		if (accessor == null || !accessor.isApplicable(factoryBean, argsToUse)) {
+			return super.invokeFactoryMethod(factoryBean, factoryMethod, args);
+		}
+		try {
+			return accessor.invoke(factoryBean, argsToUse);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	@Override
+	public void invoke(Method writeMethod, Object target, @Nullable Object value) throws Exception {
+		Object[] args = new Object[] {value};
+		MemberAccessor accessor = getAccessor(writeMethod);
+		if (accessor == null || !accessor.isApplicable(target, args)) {
+			ReflectionUtils.makeAccessible(writeMethod);
+			writeMethod.invoke(target, args);
+			return;
+		}
+		try {
+			accessor.invoke(target, args);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Return the generated accessor for the given constructor or method,
+	 * generating it on first access.
+	 * @return the accessor, or {@code null} if reflection needs to be used
+	 */
+	@Nullable
+	private static MemberAccessor getAccessor(Executable member) {
+		Map<Executable, Object> accessors = accessorCache.get(member.getDeclaringClass());
+		Object accessor = accessors.get(member);
+		if (accessor == null) {
+			// Atomic per member, so that concurrent misses define a single accessor class
+			accessor = accessors.computeIfAbsent(member, GeneratedInstantiationStrategy::generateAccessor);
+		}
+		return (accessor != REFLECTIVE ? (MemberAccessor) accessor : null);
+	}
+
+	private static Object generateAccessor(Executable member) {
+		if (!isAccessorSupported(member)) {
+			return REFLECTIVE;
+		}
+		Class<?> declaringClass = member.getDeclaringClass();
+		String className = declaringClass.getName() + ACCESSOR_CLASS_SEPARATOR +
+				Integer.toHexString(accessorClassCounter.incrementAndGet());
+		try {
+			byte[] bytes = generateAccessorClass(className, member);
+			Class<?> accessorClass = ReflectUtils.defineClass(className, bytes, declaringClass.getClassLoader(),
+					declaringClass.getProtectionDomain(), declaringClass);
+			Accessor accessor = (Accessor) ReflectionUtils.accessibleConstructor(accessorClass).newInstance();
+			return new MemberAccessor(accessor, member);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot generate accessor for " + member + " - falling back to reflection: " + ex);
+			}
+			return REFLECTIVE;
+		}
+	}
+
+	/**
+	 * Determine whether an accessor class for the given member can be generated
+	 * in the package of its declaring class.
+	 */
+	private static boolean isAccessorSupported(Executable member) {
+		Class<?> declaringClass = member.getDeclaringClass();
+		ClassLoader classLoader = declaringClass.getClassLoader();
+		if (Modifier.isPrivate(member.getModifiers()) || classLoader == null ||
+				declaringClass.getName().startsWith("java.") || !ClassUtils.isVisible(Accessor.class, classLoader)) {
+			return false;
+		}
+		if (member instanceof Constructor && (Modifier.isAbstract(declaringClass.getModifiers()) ||
+				KotlinDetector.isKotlinType(declaringClass))) {
+			return false;
+		}
+		if (!isAccessible(declaringClass, declaringClass)) {
+			return false;
+		}
+		for (Class<?> paramType : member.getParameterTypes()) {
+			if (!isAccessible(paramType, declaringClass)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isAccessible(Class<?> type, Class<?> declaringClass) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		for (Class<?> clazz = typeToCheck; clazz != null; clazz = clazz.getDeclaringClass()) {
+			int modifiers = clazz.getModifiers();
+			if (Modifier.isPrivate(modifiers)) {
+				return false;
+			}
+			if (!Modifier.isPublic(modifiers) &&
+					(clazz.getClassLoader() != declaringClass.getClassLoader() ||
+					!ClassUtils.getPackageName(clazz).equals(ClassUtils.getPackageName(declaringClass)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Generate an {@link Accessor} implementation that invokes the given
+	 * constructor or method with the arguments taken from the given array.
+	 */
+	private static byte[] generateAccessorClass(String className, Executable member) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC,
+				className.replace('.', '/'), null, "java/lang/Object",
+				new String[] {Type.getInternalName(Accessor.class)});
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invoke", ACCESSOR_METHOD_DESCRIPTOR, null, null);
+		mv.visitCode();
+		Class<?> declaringClass = member.getDeclaringClass();
+		String owner = Type.getInternalName(declaringClass);
+		if (member instanceof Constructor) {
+			mv.visitTypeInsn(Opcodes.NEW, owner);
+			mv.visitInsn(Opcodes.DUP);
+			loadArguments(mv, member.getParameterTypes());
+			mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, "<init>",
+					Type.getConstructorDescriptor((Constructor<?>) member), false);
+		}
+		else {
+			Method method = (Method) member;
+			boolean isInterface = declaringClass.isInterface();
+			int opcode;
+			if (Modifier.isStatic(method.getModifiers())) {
+				opcode = Opcodes.INVOKESTATIC;
+			}
+			else {
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+				opcode = (isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL);
+			}
+			loadArguments(mv, method.getParameterTypes());
+			mv.visitMethodInsn(opcode, owner, method.getName(), Type.getMethodDescriptor(method), isInterface);
+			Class<?> returnType = method.getReturnType();
+			if (returnType == void.class) {
+				mv.visitInsn(Opcodes.ACONST_NULL);
+			}
+			else if (returnType.isPrimitive()) {
+				Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+						Type.getMethodDescriptor(Type.getType(wrapperType), Type.getType(returnType)), false);
+			}
+		}
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void loadArguments(MethodVisitor mv, Class<?>[] parameterTypes) {
+		for (int i = 0; i < parameterTypes.length; i++) {
+			Class<?> paramType = parameterTypes[i];
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			if (paramType.isPrimitive()) {
+				String wrapperType = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(paramType));
+				mv.visitTypeInsn(Opcodes.CHECKCAST, wrapperType);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapperType, paramType.getName() + "Value",
+						Type.getMethodDescriptor(Type.getType(paramType)), false);
+			}
+			else if (paramType != Object.class) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(paramType));
+			}
+		}
+	}
+
+
+	/**
+	 * Callback interface implemented by the generated accessor classes.
+	 * <p>Only public since the accessor classes get defined in the packages
+	 * of the bean classes; not intended to be used directly.
+	 */
+	public interface Accessor {
+
+		/**
+		 * Invoke the accessed constructor or method.
+		 * @param target the target instance (for instance methods)
+		 * @param args the arguments, matching the parameter types
+		 * @return the new instance or the method's (boxed) return value
+		 */
+		@Nullable
+		Object invoke(@Nullable Object target, Object[] args);
+	}
+
+
+	/**
+	 * Generated accessor along with the metadata for checking whether
+	 * it can be applied to a given target and arguments.
+	 */
+	private static class MemberAccessor {
+
+		private final Accessor accessor;
+
+		private final Class<?>[] parameterTypes;
+
+		@Nullable
+		private final Class<?> targetType;
+
+		public MemberAccessor(Accessor accessor, Executable member) {
+			this.accessor = accessor;
+			this.parameterTypes = member.getParameterTypes();
+			this.targetType = (member instanceof Method && !Modifier.isStatic(member.getModifiers()) ?
+					member.getDeclaringClass() : null);
+		}
+
+		/**
+		 * Determine whether the given target and arguments can be passed to the accessor,
+		 * i.e. without a widening conversion or an {@link IllegalArgumentException} from
+		 * reflective invocation.
+		 */
+		public boolean isApplicable(@Nullable Object target, Object[] args) {
+			if (this.targetType != null && !this.targetType.isInstance(target)) {
+				return false;
+			}
+			if (args.length != this.parameterTypes.length) {
+				return false;
+			}
+			for (int i = 0; i < args.length; i++) {
+				if (!ClassUtils.isAssignableValue(this.parameterTypes[i], args[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Nullable
+		public Object invoke(@Nullable Object target, Object[] args) {
+			return this.accessor.invoke(target, args);
+		}
+	}
+
+}
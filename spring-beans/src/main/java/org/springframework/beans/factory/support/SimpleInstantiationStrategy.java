@@ -85,7 +85,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					}
 				}
 			}
-			return BeanUtils.instantiateClass(constructorToUse);
+			return instantiateClass(constructorToUse);
 		}
 		else {
 			// 调用cglib完成bean的创建并进行动态代理
@@ -116,7 +116,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 					return null;
 				});
 			}
-			return (args != null ? BeanUtils.instantiateClass(ctor, args) : BeanUtils.instantiateClass(ctor));
+			return instantiateClass(ctor, args);
 		}
 		else {
 			return instantiateWithMethodInjection(bd, beanName, owner, ctor, args);
@@ -153,7 +153,7 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 			Method priorInvokedFactoryMethod = currentlyInvokedFactoryMethod.get();
 			try {
 				currentlyInvokedFactoryMethod.set(factoryMethod);
-				Object result = factoryMethod.invoke(factoryBean, args);
+				Object result = invokeFactoryMethod(factoryBean, factoryMethod, args);
 				if (result == null) {
 					result = new NullBean();
 				}
@@ -188,4 +188,38 @@ public class SimpleInstantiationStrategy implements InstantiationStrategy {
 		}
 	}
 
+	/**
+	 * Instantiate a bean through the given constructor.
+	 * <p>The default implementation delegates to
+	 * {@link BeanUtils#instantiateClass(Constructor, Object...)}.
+	 * Subclasses may override this for a different invocation mechanism.
+	 * @param ctor the constructor to use
+	 * @param args the constructor arguments to apply
+	 * @return the new bean instance
+	 * @throws BeanInstantiationException if the bean could not be instantiated
+	 * @since 5.1
+	 */
+	protected Object instantiateClass(Constructor<?> ctor, @Nullable Object... args) {
+		return (args != null ? BeanUtils.instantiateClass(ctor, args) : BeanUtils.instantiateClass(ctor));
+	}
+
+	/**
+	 * Invoke the given factory method.
+	 * <p>The default implementation uses reflection. Subclasses may override this
+	 * for a different invocation mechanism, following the exception contract of
+	 * {@link Method#invoke}.
+	 * @param factoryBean the factory bean instance to call the factory method on,
+	 * or {@code null} in case of a static factory method
+	 * @param factoryMethod the factory method to invoke
+	 * @param args the factory method arguments to apply
+	 * @return the factory method's return value (may be {@code null})
+	 * @since 5.1
+	 */
+	@Nullable
+	protected Object invokeFactoryMethod(@Nullable Object factoryBean, Method factoryMethod, @Nullable Object... args)
+			throws IllegalAccessException, InvocationTargetException {
+
+		return factoryMethod.invoke(factoryBean, args);
+	}
+
 }
@@ -0,0 +1,609 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.parsing.BeanComponentDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.util.xml.SimpleSaxErrorHandler;
+
+/**
+ * Streaming counterpart of {@link DefaultBeanDefinitionDocumentReader}, reading an
+ * XML bean definition document through StAX instead of building a DOM for it.
+ *
+ * <p>Named top-level {@code <bean>} elements which only consist of "beans" markup
+ * (plus "p" and "c" namespace attributes) are registered as {@link DeferredXmlBeanDefinition
+ * deferred bean definitions}: indexed by id, name, aliases, class, scope, parent and
+ * factory settings, with their markup being parsed on first access only. All other
+ * elements - imports, aliases, anonymous beans and custom namespace elements - are
+ * parsed right away, each as a small standalone document.
+ *
+ * <p>Since deferred {@code <bean>} elements are not validated against the schema,
+ * the attribute defaults declared by the "spring-beans" XSD are applied explicitly.
+ *
+ * @since 5.1
+ * @see XmlBeanDefinitionReader#setDeferredParsing
+ */
+final class DeferredBeanDefinitionDocumentReader {
+
+	private static final String P_NAMESPACE_URI = "http://www.springframework.org/schema/p";
+
+	private static final String C_NAMESPACE_URI = "http://www.springframework.org/schema/c";
+
+	private static final QName SCHEMA_LOCATION_NAME =
+			new QName(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation");
+
+	/** Attribute defaults declared by the "spring-beans" XSD, keyed by element name */
+	private static final Map<String, Map<String, String>> schemaDefaults = new HashMap<>();
+
+	static {
+		Map<String, String> beansDefaults = new LinkedHashMap<>();
+		beansDefaults.put(BeanDefinitionParserDelegate.DEFAULT_LAZY_INIT_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		beansDefaults.put(BeanDefinitionParserDelegate.DEFAULT_MERGE_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		beansDefaults.put(BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		schemaDefaults.put(DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT, beansDefaults);
+
+		Map<String, String> beanDefaults = new LinkedHashMap<>();
+		beanDefaults.put(BeanDefinitionParserDelegate.LAZY_INIT_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		beanDefaults.put(BeanDefinitionParserDelegate.AUTOWIRE_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		beanDefaults.put(BeanDefinitionParserDelegate.AUTOWIRE_CANDIDATE_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		schemaDefaults.put(BeanDefinitionParserDelegate.BEAN_ELEMENT, beanDefaults);
+
+		Map<String, String> collectionDefaults = Collections.singletonMap(
+				BeanDefinitionParserDelegate.MERGE_ATTRIBUTE, BeanDefinitionParserDelegate.DEFAULT_VALUE);
+		schemaDefaults.put(BeanDefinitionParserDelegate.ARRAY_ELEMENT, collectionDefaults);
+		schemaDefaults.put(BeanDefinitionParserDelegate.LIST_ELEMENT, collectionDefaults);
+		schemaDefaults.put(BeanDefinitionParserDelegate.SET_ELEMENT, collectionDefaults);
+		schemaDefaults.put(BeanDefinitionParserDelegate.MAP_ELEMENT, collectionDefaults);
+		schemaDefaults.put(BeanDefinitionParserDelegate.PROPS_ELEMENT, collectionDefaults);
+
+		schemaDefaults.put(BeanDefinitionParserDelegate.QUALIFIER_ELEMENT, Collections.singletonMap(
+				BeanDefinitionParserDelegate.TYPE_ATTRIBUTE, "org.springframework.beans.factory.annotation.Qualifier"));
+	}
+
+
+	private static final Log logger = LogFactory.getLog(DeferredBeanDefinitionDocumentReader.class);
+
+	private final XmlBeanDefinitionReader reader;
+
+	private final XmlReaderContext readerContext;
+
+	private final int validationMode;
+
+	@Nullable
+	private String schemaLocation;
+
+	@Nullable
+	private DocumentBuilder documentBuilder;
+
+
+	/**
+	 * Create a new DeferredBeanDefinitionDocumentReader for the given resource.
+	 * @param reader the XmlBeanDefinitionReader to load standalone documents with
+	 * @param readerContext the reader context for the resource
+	 * @param validationMode the validation mode to apply to the resource
+	 */
+	DeferredBeanDefinitionDocumentReader(
+			XmlBeanDefinitionReader reader, XmlReaderContext readerContext, int validationMode) {
+
+		this.reader = reader;
+		this.readerContext = readerContext;
+		this.validationMode = validationMode;
+	}
+
+
+	/**
+	 * Read bean definitions from the given XML event stream and register them
+	 * with the registry of the reader context.
+	 * @param eventReader the event stream of the XML document
+	 * @throws XMLStreamException in case of XML parsing errors
+	 */
+	public void registerBeanDefinitions(XMLEventReader eventReader) throws XMLStreamException {
+		while (eventReader.hasNext()) {
+			XMLEvent event = eventReader.nextEvent();
+			if (event.isStartElement()) {
+				StartElement root = event.asStartElement();
+				Attribute schemaLocation = root.getAttributeByName(SCHEMA_LOCATION_NAME);
+				this.schemaLocation = (schemaLocation != null ? schemaLocation.getValue() : null);
+				if (isDefaultNamespace(root) && isElement(root, DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT)) {
+					processBeansElement(eventReader, root, null);
+				}
+				else {
+					registerEagerly(readElement(eventReader, root), null);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Process the content of a {@code <beans>} element, applying its profile
+	 * restriction and default-* attributes.
+	 */
+	private void processBeansElement(XMLEventReader eventReader, StartElement beans,
+			@Nullable BeanDefinitionParserDelegate parent) throws XMLStreamException {
+
+		String profileSpec = getAttribute(beans, DefaultBeanDefinitionDocumentReader.PROFILE_ATTRIBUTE);
+		if (StringUtils.hasText(profileSpec)) {
+			String[] specifiedProfiles = StringUtils.tokenizeToStringArray(
+					profileSpec, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+			if (!this.readerContext.getEnvironment().acceptsProfiles(specifiedProfiles)) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Skipped XML bean definition file due to specified profiles [" + profileSpec +
+							"] not matching: " + this.readerContext.getResource());
+				}
+				readElement(eventReader, beans);
+				return;
+			}
+		}
+
+		BeanDefinitionParserDelegate delegate = createDelegate(beans, parent);
+		Set<String> usedNames = new HashSet<>();
+		while (eventReader.hasNext()) {
+			XMLEvent event = eventReader.nextEvent();
+			if (event.isEndElement()) {
+				return;
+			}
+			if (event.isStartElement()) {
+				StartElement element = event.asStartElement();
+				if (!isDefaultNamespace(element)) {
+					registerEagerly(readElement(eventReader, element), delegate);
+				}
+				else if (isElement(element, DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT)) {
+					processBeansElement(eventReader, element, delegate);
+				}
+				else if (isElement(element, BeanDefinitionParserDelegate.BEAN_ELEMENT)) {
+					processBeanElement(readElement(eventReader, element), delegate, usedNames);
+				}
+				else if (isElement(element, DefaultBeanDefinitionDocumentReader.IMPORT_ELEMENT) ||
+						isElement(element, DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT)) {
+					registerEagerly(readElement(eventReader, element), delegate);
+				}
+				else {
+					// Other "beans" elements such as <description> do not define any beans.
+					readElement(eventReader, element);
+				}
+			}
+		}
+	}
+
+	private BeanDefinitionParserDelegate createDelegate(
+			StartElement beans, @Nullable BeanDefinitionParserDelegate parent) {
+
+		Element root = newDocument().createElementNS(
+				BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI, DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT);
+		for (Iterator<?> it = beans.getAttributes(); it.hasNext();) {
+			Attribute attribute = (Attribute) it.next();
+			if (!StringUtils.hasLength(attribute.getName().getNamespaceURI())) {
+				root.setAttribute(attribute.getName().getLocalPart(), attribute.getValue());
+			}
+		}
+		if (isSchemaValidated()) {
+			schemaDefaults.get(DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT).forEach((name, value) -> {
+				if (!root.hasAttribute(name)) {
+					root.setAttribute(name, value);
+				}
+			});
+		}
+		BeanDefinitionParserDelegate delegate = new BeanDefinitionParserDelegate(this.readerContext);
+		delegate.initDefaults(root, parent);
+		return delegate;
+	}
+
+	/**
+	 * Register a top-level {@code <bean>} element, deferring its parsing if possible.
+	 */
+	private void processBeanElement(List<XMLEvent> element, BeanDefinitionParserDelegate delegate,
+			Set<String> usedNames) {
+
+		StartElement bean = element.get(0).asStartElement();
+		String id = getAttribute(bean, BeanDefinitionParserDelegate.ID_ATTRIBUTE);
+		String nameAttr = getAttribute(bean, BeanDefinitionParserDelegate.NAME_ATTRIBUTE);
+
+		List<String> aliases = new ArrayList<>();
+		if (StringUtils.hasLength(nameAttr)) {
+			Collections.addAll(aliases, StringUtils.tokenizeToStringArray(
+					nameAttr, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS));
+		}
+		String beanName = id;
+		if (!StringUtils.hasText(beanName) && !aliases.isEmpty()) {
+			beanName = aliases.remove(0);
+		}
+		if (!StringUtils.hasText(beanName)) {
+			// Generated bean names depend on the registration order: parse right away.
+			registerEagerly(element, delegate);
+			return;
+		}
+
+		String foundName = (usedNames.contains(beanName) ? beanName : null);
+		if (foundName == null) {
+			foundName = aliases.stream().filter(usedNames::contains).findFirst().orElse(null);
+		}
+		if (foundName != null) {
+			this.readerContext.error("Bean name '" + foundName + "' is already used in this <beans> element", null);
+		}
+		usedNames.add(beanName);
+		usedNames.addAll(aliases);
+
+		if (!isPlainBeansMarkup(element)) {
+			registerEagerly(element, delegate);
+			return;
+		}
+
+		StringBuilder fragment = new StringBuilder(256);
+		appendElement(fragment, element, isSchemaValidated());
+		DeferredXmlBeanDefinition bd =
+				new DeferredXmlBeanDefinition(beanName, fragment.toString(), delegate, this);
+		String className = getAttribute(bean, BeanDefinitionParserDelegate.CLASS_ATTRIBUTE);
+		if (className != null) {
+			bd.setBeanClassName(className.trim());
+		}
+		String parent = getAttribute(bean, BeanDefinitionParserDelegate.PARENT_ATTRIBUTE);
+		if (parent != null) {
+			bd.setParentName(parent);
+		}
+		String scope = getAttribute(bean, BeanDefinitionParserDelegate.SCOPE_ATTRIBUTE);
+		if (scope != null) {
+			bd.setScope(scope);
+		}
+		String abstractFlag = getAttribute(bean, BeanDefinitionParserDelegate.ABSTRACT_ATTRIBUTE);
+		if (abstractFlag != null) {
+			bd.setAbstract(BeanDefinitionParserDelegate.TRUE_VALUE.equals(abstractFlag));
+		}
+		String lazyInit = getAttribute(bean, BeanDefinitionParserDelegate.LAZY_INIT_ATTRIBUTE);
+		if (lazyInit == null && isSchemaValidated()) {
+			lazyInit = BeanDefinitionParserDelegate.DEFAULT_VALUE;
+		}
+		if (BeanDefinitionParserDelegate.DEFAULT_VALUE.equals(lazyInit)) {
+			lazyInit = delegate.getDefaults().getLazyInit();
+		}
+		bd.setLazyInit(BeanDefinitionParserDelegate.TRUE_VALUE.equals(lazyInit));
+		String factoryBean = getAttribute(bean, BeanDefinitionParserDelegate.FACTORY_BEAN_ATTRIBUTE);
+		if (factoryBean != null) {
+			bd.setFactoryBeanName(factoryBean);
+		}
+		String factoryMethod = getAttribute(bean, BeanDefinitionParserDelegate.FACTORY_METHOD_ATTRIBUTE);
+		if (factoryMethod != null) {
+			bd.setFactoryMethodName(factoryMethod);
+		}
+		bd.setResource(this.readerContext.getResource());
+
+		BeanDefinitionHolder bdHolder = new BeanDefinitionHolder(bd, beanName, StringUtils.toStringArray(aliases));
+		try {
+			BeanDefinitionReaderUtils.registerBeanDefinition(bdHolder, this.readerContext.getRegistry());
+		}
+		catch (BeanDefinitionStoreException ex) {
+			this.readerContext.error("Failed to register bean definition with name '" + beanName + "'", null, ex);
+		}
+		this.readerContext.fireComponentRegistered(new BeanComponentDefinition(bdHolder));
+	}
+
+	/**
+	 * Parse the given element right away, as a standalone document within a
+	 * {@code <beans>} element carrying the effective defaults of the given delegate.
+	 */
+	private void registerEagerly(List<XMLEvent> element, @Nullable BeanDefinitionParserDelegate delegate) {
+		boolean plain = isPlainBeansMarkup(element);
+		StringBuilder xml = new StringBuilder(512);
+		if (delegate != null) {
+			xml.append("<beans xmlns=\"").append(BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI).append('"');
+			if (this.schemaLocation != null && !plain) {
+				xml.append(" xmlns:xsi=\"").append(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI).append('"');
+				appendAttribute(xml, "xsi:schemaLocation", this.schemaLocation);
+			}
+			DocumentDefaultsDefinition defaults = delegate.getDefaults();
+			appendDefaultAttribute(xml, BeanDefinitionParserDelegate.DEFAULT_LAZY_INIT_ATTRIBUTE, defaults.getLazyInit());
+			appendDefaultAttribute(xml, BeanDefinitionParserDelegate.DEFAULT_MERGE_ATTRIBUTE, defaults.getMerge());
+			appendDefaultAttribute(xml, BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_ATTRIBUTE, defaults.getAutowire());
+			appendDefaultAttribute(xml, BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_CANDIDATES_ATTRIBUTE, defaults.getAutowireCandidates());
+			appendDefaultAttribute(xml, BeanDefinitionParserDelegate.DEFAULT_INIT_METHOD_ATTRIBUTE, defaults.getInitMethod());
+			appendDefaultAttribute(xml, BeanDefinitionParserDelegate.DEFAULT_DESTROY_METHOD_ATTRIBUTE, defaults.getDestroyMethod());
+			xml.append('>');
+		}
+		// Plain "beans" markup does not need to be validated for its defaults to apply.
+		appendElement(xml, element, plain && isSchemaValidated());
+		if (delegate != null) {
+			xml.append("</beans>");
+		}
+
+		Document doc;
+		try {
+			doc = (plain ? parsePlainDocument(xml.toString()) :
+					this.reader.doLoadDocumentFragment(xml.toString(), this.validationMode));
+		}
+		catch (SAXException ex) {
+			throw new XmlBeanDefinitionStoreException(this.readerContext.getResource().getDescription(),
+					"Invalid <" + element.get(0).asStartElement().getName() + "> element in XML document from " +
+					this.readerContext.getResource(), ex);
+		}
+		catch (Exception ex) {
+			throw new BeanDefinitionStoreException(this.readerContext.getResource().getDescription(),
+					"Unexpected exception parsing XML document from " + this.readerContext.getResource(), ex);
+		}
+		this.reader.createBeanDefinitionDocumentReader().registerBeanDefinitions(doc, this.readerContext);
+	}
+
+	/**
+	 * Parse the given {@code <bean>} markup into a bean definition.
+	 * Called by {@link DeferredXmlBeanDefinition#resolve()}.
+	 * @param fragment the markup of the {@code <bean>} element
+	 * @param beanName the name of the bean
+	 * @param delegate the delegate holding the defaults of the enclosing {@code <beans>} element
+	 * @return the parsed bean definition
+	 * @throws BeanDefinitionStoreException in case of an invalid bean definition
+	 */
+	synchronized AbstractBeanDefinition parseBeanDefinition(
+			String fragment, String beanName, BeanDefinitionParserDelegate delegate) {
+
+		Element ele;
+		try {
+			ele = parsePlainDocument(fragment).getDocumentElement();
+		}
+		catch (Exception ex) {
+			throw new BeanDefinitionStoreException(this.readerContext.getResource().getDescription(), beanName,
+					"Failed to parse deferred bean definition", ex);
+		}
+		AbstractBeanDefinition bd = delegate.parseBeanDefinitionElement(ele, beanName, null);
+		if (bd == null) {
+			throw new BeanDefinitionStoreException(this.readerContext.getResource().getDescription(), beanName,
+					"Invalid bean definition");
+		}
+		// Applies "p" and "c" namespace attributes to the bean definition itself.
+		delegate.decorateBeanDefinitionIfRequired(ele, new BeanDefinitionHolder(bd, beanName));
+		return bd;
+	}
+
+	private synchronized Document parsePlainDocument(String xml) throws Exception {
+		return getDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+	}
+
+	private synchronized Document newDocument() {
+		try {
+			return getDocumentBuilder().newDocument();
+		}
+		catch (ParserConfigurationException ex) {
+			throw new BeanDefinitionStoreException(this.readerContext.getResource().getDescription(),
+					"Parser configuration exception parsing XML from " + this.readerContext.getResource(), ex);
+		}
+	}
+
+	private DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+		if (this.documentBuilder == null) {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			builder.setErrorHandler(new SimpleSaxErrorHandler(logger));
+			this.documentBuilder = builder;
+		}
+		return this.documentBuilder;
+	}
+
+	private boolean isSchemaValidated() {
+		return (this.validationMode == XmlBeanDefinitionReader.VALIDATION_XSD);
+	}
+
+
+	/**
+	 * Read the given element's content, up to and including its end tag.
+	 * @return all events of the element, starting with the given start event
+	 */
+	private static List<XMLEvent> readElement(XMLEventReader eventReader, StartElement start)
+			throws XMLStreamException {
+
+		List<XMLEvent> events = new ArrayList<>();
+		events.add(start);
+		int depth = 1;
+		while (depth > 0) {
+			XMLEvent event = eventReader.nextEvent();
+			if (event.isStartElement()) {
+				depth++;
+			}
+			else if (event.isEndElement()) {
+				depth--;
+			}
+			events.add(event);
+		}
+		return events;
+	}
+
+	/**
+	 * Determine whether the given element consists of "beans" markup only,
+	 * apart from "p" and "c" namespace attributes.
+	 */
+	private static boolean isPlainBeansMarkup(List<XMLEvent> element) {
+		for (XMLEvent event : element) {
+			if (event.isStartElement()) {
+				StartElement start = event.asStartElement();
+				if (!isDefaultNamespace(start)) {
+					return false;
+				}
+				for (Iterator<?> it = start.getAttributes(); it.hasNext();) {
+					String namespaceUri = ((Attribute) it.next()).getName().getNamespaceURI();
+					if (StringUtils.hasLength(namespaceUri) && !P_NAMESPACE_URI.equals(namespaceUri) &&
+							!C_NAMESPACE_URI.equals(namespaceUri) && !XMLConstants.XML_NS_URI.equals(namespaceUri)) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Append the markup of the given element, declaring all namespaces that it
+	 * uses on its root so that the markup can be parsed on its own.
+	 */
+	private static void appendElement(StringBuilder xml, List<XMLEvent> element, boolean applySchemaDefaults) {
+		Map<String, String> namespaces = new LinkedHashMap<>();
+		for (XMLEvent event : element) {
+			if (event.isStartElement()) {
+				StartElement start = event.asStartElement();
+				namespaces.putIfAbsent(start.getName().getPrefix(), start.getName().getNamespaceURI());
+				for (Iterator<?> it = start.getAttributes(); it.hasNext();) {
+					QName name = ((Attribute) it.next()).getName();
+					if (StringUtils.hasLength(name.getPrefix())) {
+						namespaces.putIfAbsent(name.getPrefix(), name.getNamespaceURI());
+					}
+				}
+			}
+		}
+
+		boolean root = true;
+		for (XMLEvent event : element) {
+			if (event.isStartElement()) {
+				StartElement start = event.asStartElement();
+				xml.append('<').append(qualifiedName(start.getName()));
+				if (root) {
+					namespaces.forEach((prefix, uri) -> appendNamespace(xml, prefix, uri));
+					root = false;
+				}
+				else {
+					for (Iterator<?> it = start.getNamespaces(); it.hasNext();) {
+						Namespace namespace = (Namespace) it.next();
+						appendNamespace(xml, namespace.getPrefix(), namespace.getNamespaceURI());
+					}
+				}
+				for (Iterator<?> it = start.getAttributes(); it.hasNext();) {
+					Attribute attribute = (Attribute) it.next();
+					appendAttribute(xml, qualifiedName(attribute.getName()), attribute.getValue());
+				}
+				if (applySchemaDefaults && isDefaultNamespace(start)) {
+					Map<String, String> defaults = schemaDefaults.get(start.getName().getLocalPart());
+					if (defaults != null) {
+						defaults.forEach((name, value) -> {
+							if (start.getAttributeByName(new QName(name)) == null) {
+								appendAttribute(xml, name, value);
+							}
+						});
+					}
+				}
+				xml.append('>');
+			}
+			else if (event.isEndElement()) {
+				xml.append("</").append(qualifiedName(event.asEndElement().getName())).append('>');
+			}
+			else if (event.isCharacters()) {
+				appendEscaped(xml, event.asCharacters().getData(), false);
+			}
+			// Comments and processing instructions do not contribute to bean definitions.
+		}
+	}
+
+	private static void appendNamespace(StringBuilder xml, String prefix, String namespaceUri) {
+		if (!XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+			appendAttribute(xml, (StringUtils.hasLength(prefix) ? "xmlns:" + prefix : "xmlns"), namespaceUri);
+		}
+	}
+
+	private static void appendDefaultAttribute(StringBuilder xml, String name, @Nullable String value) {
+		if (StringUtils.hasLength(value)) {
+			appendAttribute(xml, name, value);
+		}
+	}
+
+	private static void appendAttribute(StringBuilder xml, String name, String value) {
+		xml.append(' ').append(name).append("=\"");
+		appendEscaped(xml, value, true);
+		xml.append('"');
+	}
+
+	private static void appendEscaped(StringBuilder xml, String text, boolean attribute) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '&':
+					xml.append("&amp;");
+					break;
+				case '<':
+					xml.append("&lt;");
+					break;
+				case '>':
+					xml.append("&gt;");
+					break;
+				case '"':
+					xml.append(attribute ? "&quot;" : "\"");
+					break;
+				case '\n':
+					xml.append(attribute ? "&#10;" : "\n");
+					break;
+				case '\t':
+					xml.append(attribute ? "&#9;" : "\t");
+					break;
+				case '\r':
+					xml.append("&#13;");
+					break;
+				default:
+					xml.append(c);
+			}
+		}
+	}
+
+	private static String qualifiedName(QName name) {
+		return (StringUtils.hasLength(name.getPrefix()) ? name.getPrefix() + ":" + name.getLocalPart() :
+				name.getLocalPart());
+	}
+
+	private static boolean isDefaultNamespace(StartElement element) {
+		String namespaceUri = element.getName().getNamespaceURI();
+		return (!StringUtils.hasLength(namespaceUri) ||
+				BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI.equals(namespaceUri));
+	}
+
+	private static boolean isElement(StartElement element, String localName) {
+		return localName.equals(element.getName().getLocalPart());
+	}
+
+	@Nullable
+	private static String getAttribute(StartElement element, String localName) {
+		Attribute attribute = element.getAttributeByName(new QName(localName));
+		return (attribute != null ? attribute.getValue() : null);
+	}
+
+}
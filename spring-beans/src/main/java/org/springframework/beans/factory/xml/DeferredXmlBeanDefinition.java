@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionValidationException;
+import org.springframework.beans.factory.support.DeferredBeanDefinition;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link DeferredBeanDefinition} for a {@code <bean>} element which has only been
+ * indexed by the {@link DeferredBeanDefinitionDocumentReader} so far, keeping
+ * the element's markup until the full bean definition is actually needed.
+ *
+ * <p>Note that this includes any bean factory post-processor obtaining every bean
+ * definition from the factory, e.g. a placeholder configurer in its
+ * {@code doProcessProperties} step: resolving placeholders requires the full content
+ * of each bean definition, so all deferred bean definitions get resolved at that point.
+ *
+ * @since 5.1
+ * @see XmlBeanDefinitionReader#setDeferredParsing
+ */
+@SuppressWarnings("serial")
+class DeferredXmlBeanDefinition extends GenericBeanDefinition implements DeferredBeanDefinition {
+
+	private final String beanName;
+
+	@Nullable
+	private String fragment;
+
+	@Nullable
+	private BeanDefinitionParserDelegate delegate;
+
+	@Nullable
+	private DeferredBeanDefinitionDocumentReader documentReader;
+
+	private volatile boolean resolved;
+
+
+	/**
+	 * Create a new DeferredXmlBeanDefinition for the given {@code <bean>} markup.
+	 * @param beanName the name of the bean
+	 * @param fragment the self-contained markup of the {@code <bean>} element
+	 * @param delegate the delegate holding the defaults of the enclosing {@code <beans>} element
+	 * @param documentReader the reader to parse the markup with
+	 */
+	DeferredXmlBeanDefinition(String beanName, String fragment,
+			BeanDefinitionParserDelegate delegate, DeferredBeanDefinitionDocumentReader documentReader) {
+
+		this.beanName = beanName;
+		this.fragment = fragment;
+		this.delegate = delegate;
+		this.documentReader = documentReader;
+	}
+
+
+	@Override
+	public boolean isResolved() {
+		return this.resolved;
+	}
+
+	@Override
+	public void resolve() throws BeanDefinitionStoreException {
+		if (this.resolved) {
+			return;
+		}
+		synchronized (this) {
+			if (this.resolved) {
+				return;
+			}
+			if (this.fragment == null || this.delegate == null || this.documentReader == null) {
+				throw new BeanDefinitionStoreException(getResourceDescription(), this.beanName,
+						"Deferred bean definition has been discarded after an earlier resolution failure");
+			}
+			AbstractBeanDefinition parsed;
+			try {
+				parsed = this.documentReader.parseBeanDefinition(this.fragment, this.beanName, this.delegate);
+			}
+			catch (BeanDefinitionStoreException ex) {
+				discardMarkup();
+				throw ex;
+			}
+			setParentName(parsed.getParentName());
+			overrideFrom(parsed);
+			setDescription(parsed.getDescription());
+			discardMarkup();
+			try {
+				validate();
+			}
+			catch (BeanDefinitionValidationException ex) {
+				throw new BeanDefinitionStoreException(getResourceDescription(), this.beanName,
+						"Validation of bean definition failed", ex);
+			}
+			this.resolved = true;
+		}
+	}
+
+	private void discardMarkup() {
+		this.fragment = null;
+		this.delegate = null;
+		this.documentReader = null;
+	}
+
+	@Override
+	public AbstractBeanDefinition cloneBeanDefinition() {
+		resolve();
+		return super.cloneBeanDefinition();
+	}
+
+	@Override
+	public String toString() {
+		return (this.resolved ? super.toString() : "Deferred bean definition: " + super.toString());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,13 @@ package org.springframework.beans.factory.xml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.HashSet;
 import java.util.Set;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
 
 import org.w3c.dom.Document;
 import org.xml.sax.EntityResolver;
@@ -48,6 +52,7 @@ import org.springframework.core.io.support.EncodedResource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.xml.SimpleSaxErrorHandler;
+import org.springframework.util.xml.StaxUtils;
 import org.springframework.util.xml.XmlValidationModeDetector;
 
 /**
@@ -123,6 +128,8 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
 	private ErrorHandler errorHandler = new SimpleSaxErrorHandler(logger);
 
+	private boolean deferredParsing = false;
+
 	private final XmlValidationModeDetector validationModeDetector = new XmlValidationModeDetector();
 
 	private final ThreadLocal<Set<EncodedResource>> resourcesCurrentlyBeingLoaded =
@@ -291,6 +298,42 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		this.documentReaderClass = documentReaderClass;
 	}
 
+	/**
+	 * Set whether to defer the parsing of named {@code <bean>} elements until their
+	 * bean definitions are actually needed. Default is "false".
+	 * <p>Switch this flag to "true" for large XML configurations where many bean
+	 * definitions are never used or only late at runtime: The document will be read
+	 * through StAX, with each named top-level {@code <bean>} element which consists of
+	 * plain "beans" markup (and "p"/"c" namespace attributes) getting registered as a
+	 * {@link org.springframework.beans.factory.support.DeferredBeanDefinition} which
+	 * knows its class, scope, parent and lazy-init flag but parses its content on first
+	 * access only. Imports, aliases, anonymous beans and custom namespace elements are
+	 * parsed right away.
+	 * <p>Note that deferred {@code <bean>} elements are not validated against the XSD
+	 * at startup, reporting invalid content on first access instead. This mode applies
+	 * to XSD-based documents and the {@link DefaultBeanDefinitionDocumentReader} only;
+	 * DTD-based documents are always parsed as a whole.
+	 * <p>Bean factory post-processors which visit every bean definition resolve all
+	 * deferred bean definitions when they run: in particular, a placeholder configurer
+	 * such as {@code PropertySourcesPlaceholderConfigurer} parses the content of all
+	 * deferred {@code <bean>} elements during context startup. Deferred parsing still
+	 * avoids building the DOM for the entire document but does not save the parsing
+	 * of unused bean definitions in such a context.
+	 * @since 5.1
+	 * @see org.springframework.beans.factory.support.DeferredBeanDefinition
+	 */
+	public void setDeferredParsing(boolean deferredParsing) {
+		this.deferredParsing = deferredParsing;
+	}
+
+	/**
+	 * Return whether to defer the parsing of named {@code <bean>} elements.
+	 * @since 5.1
+	 */
+	public boolean isDeferredParsing() {
+		return this.deferredParsing;
+	}
+
 
 	/**
 	 * Load bean definitions from the specified XML file.
@@ -388,6 +431,15 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource)
 			throws BeanDefinitionStoreException {
 		try {
+			if (isDeferredParsing() && this.documentReaderClass == DefaultBeanDefinitionDocumentReader.class) {
+				int validationMode = getValidationModeForResource(resource);
+				if (validationMode != VALIDATION_DTD) {
+					XMLEventReader eventReader = createEventReader(inputSource);
+					if (eventReader != null) {
+						return registerDeferredBeanDefinitions(eventReader, resource, validationMode);
+					}
+				}
+			}
 			//获取Document，直接使用javax.xml包下的类实现的，具体获取过程略
 			Document doc = doLoadDocument(inputSource, resource);
 			return registerBeanDefinitions(doc, resource);
@@ -399,6 +451,11 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 			throw new XmlBeanDefinitionStoreException(resource.getDescription(),
 					"Line " + ex.getLineNumber() + " in XML document from " + resource + " is invalid", ex);
 		}
+		catch (XMLStreamException ex) {
+			String location = (ex.getLocation() != null ? "Line " + ex.getLocation().getLineNumber() + " in " : "");
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					location + "XML document from " + resource + " is invalid", ex);
+		}
 		catch (SAXException ex) {
 			throw new XmlBeanDefinitionStoreException(resource.getDescription(),
 					"XML document from " + resource + " is invalid", ex);
@@ -432,6 +489,62 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	}
 
 
+	/**
+	 * Load the given XML fragment as a standalone document, using the configured
+	 * DocumentLoader. Used for elements which are not subject to deferred parsing.
+	 * @param xml the XML markup of the document
+	 * @param validationMode the validation mode to apply
+	 * @return the DOM Document
+	 * @throws Exception when thrown from the DocumentLoader
+	 * @see #setDeferredParsing
+	 */
+	Document doLoadDocumentFragment(String xml, int validationMode) throws Exception {
+		return this.documentLoader.loadDocument(new InputSource(new StringReader(xml)), getEntityResolver(),
+				this.errorHandler, validationMode, isNamespaceAware());
+	}
+
+	/**
+	 * Create a StAX event reader for the given input source, if it provides a stream.
+	 */
+	@Nullable
+	private XMLEventReader createEventReader(InputSource inputSource) throws XMLStreamException {
+		XMLInputFactory inputFactory = StaxUtils.createDefensiveInputFactory();
+		if (inputSource.getCharacterStream() != null) {
+			return inputFactory.createXMLEventReader(inputSource.getCharacterStream());
+		}
+		if (inputSource.getByteStream() != null) {
+			return (inputSource.getEncoding() != null ?
+					inputFactory.createXMLEventReader(inputSource.getByteStream(), inputSource.getEncoding()) :
+					inputFactory.createXMLEventReader(inputSource.getByteStream()));
+		}
+		return null;
+	}
+
+	/**
+	 * Register the bean definitions contained in the given XML event stream,
+	 * deferring the parsing of named {@code <bean>} elements where possible.
+	 * @param eventReader the StAX event reader for the XML document
+	 * @param resource the resource descriptor for the XML file
+	 * @param validationMode the validation mode to apply to the document
+	 * @return the number of bean definitions found
+	 * @throws XMLStreamException in case of XML parsing errors
+	 * @see #setDeferredParsing
+	 */
+	private int registerDeferredBeanDefinitions(XMLEventReader eventReader, Resource resource, int validationMode)
+			throws XMLStreamException {
+
+		try {
+			int countBefore = getRegistry().getBeanDefinitionCount();
+			new DeferredBeanDefinitionDocumentReader(this, createReaderContext(resource), validationMode)
+					.registerBeanDefinitions(eventReader);
+			return getRegistry().getBeanDefinitionCount() - countBefore;
+		}
+		finally {
+			eventReader.close();
+		}
+	}
+
+
 	/**
 	 * Gets the validation mode for the specified {@link Resource}. If no explicit
 	 * validation mode has been configured then the validation mode is
@@ -19,6 +19,7 @@ package org.springframework.beans.factory;
 import java.io.Closeable;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -54,6 +55,7 @@ import org.springframework.beans.PropertyEditorRegistry;
 import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanExpressionContext;
@@ -1750,6 +1752,89 @@ public class DefaultListableBeanFactoryTests {
 		assertEquals("&factoryBean", beanNames[0]);
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfiguration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		RootBeanDefinition abstractBd = new RootBeanDefinition(TestBean.class);
+		abstractBd.setAbstract(true);
+		lbf.registerBeanDefinition("abstract", abstractBd);
+		lbf.registerBeanDefinition("ntb", new RootBeanDefinition(NestedTestBean.class));
+		lbf.freezeConfiguration();
+
+		assertArrayEquals(new String[] {"tb", "factory"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb", "factory", "ntb"}, lbf.getBeanNamesForType(Object.class));
+		assertArrayEquals(new String[] {"&factory"}, lbf.getBeanNamesForType(FactoryBean.class));
+		assertArrayEquals(new String[] {"&factory"},
+				lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(FactoryBean.class, Object.class)));
+		assertArrayEquals(new String[] {"ntb"}, lbf.getBeanNamesForType(ResolvableType.forClass(NestedTestBean.class)));
+		assertEquals(0, lbf.getBeanNamesForType(Runnable.class).length);
+
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"tb", "factory", "tb2"},
+				lbf.getBeanNamesForType(ResolvableType.forClass(ITestBean.class)));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndProxiedSingleton() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("ntb", new RootBeanDefinition(NestedTestBean.class));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof ITestBean) {
+					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ITestBean.class, Runnable.class},
+							(proxy, method, args) -> (method.getDeclaringClass() == Runnable.class ? null : method.invoke(bean, args)));
+				}
+				return bean;
+			}
+		});
+		lbf.freezeConfiguration();
+
+		ResolvableType runnableType = ResolvableType.forClass(Runnable.class);
+		ResolvableType testBeanType = ResolvableType.forClass(TestBean.class);
+		assertEquals(0, lbf.getBeanNamesForType(runnableType).length);
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(testBeanType));
+
+		lbf.getBean("tb");
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(runnableType));
+		assertEquals(0, lbf.getBeanNamesForType(testBeanType).length);
+	}
+
+	@Test
+	public void testGetBeanNamesForAnnotationWithAnnotationMetadata() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("high", new AnnotatedGenericBeanDefinition(HighPriorityTestBean.class));
+		lbf.registerBeanDefinition("derived", new AnnotatedGenericBeanDefinition(DerivedHighPriorityTestBean.class));
+		lbf.registerBeanDefinition("plain", new AnnotatedGenericBeanDefinition(PriorityTestBeanFactory.class));
+		lbf.registerBeanDefinition("low", new RootBeanDefinition(LowPriorityTestBean.class));
+
+		String[] expected = new String[] {"high", "derived", "low"};
+		assertArrayEquals(expected, lbf.getBeanNamesForAnnotation(Priority.class));
+		assertEquals(5, lbf.findAnnotationOnBean("derived", Priority.class).value());
+		assertNull(lbf.findAnnotationOnBean("plain", Priority.class));
+
+		lbf.freezeConfiguration();
+		assertArrayEquals(expected, lbf.getBeanNamesForAnnotation(Priority.class));
+		assertArrayEquals(expected, lbf.getBeanNamesForAnnotation(Priority.class));
+		assertEquals(0, lbf.getBeanNamesForAnnotation(Deprecated.class).length);
+	}
+
+	@Test
+	public void testGetBeanNamesForAnnotationWithFrozenConfigurationAndFactoryMethod() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(PriorityTestBeanFactory.class);
+		bd.setFactoryMethodName("createTestBean");
+		lbf.registerBeanDefinition("tb", bd);
+		lbf.freezeConfiguration();
+
+		assertEquals(0, lbf.getBeanNamesForAnnotation(Priority.class).length);
+		lbf.getBean("tb");
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForAnnotation(Priority.class));
+	}
+
 	/**
 	 * Verifies that a dependency on a {@link FactoryBean} can <strong>not</strong>
 	 * be autowired <em>by name</em>, as &amp; is an illegal character in
@@ -3275,6 +3360,18 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	private static class DerivedHighPriorityTestBean extends HighPriorityTestBean {
+	}
+
+
+	private static class PriorityTestBeanFactory {
+
+		public static TestBean createTestBean() {
+			return new HighPriorityTestBean();
+		}
+	}
+
+
 	private static class NullTestBeanFactoryBean<T> implements FactoryBean<TestBean> {
 
 		@Override
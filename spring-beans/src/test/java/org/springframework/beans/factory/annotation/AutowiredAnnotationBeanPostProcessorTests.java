@@ -530,6 +530,83 @@ public class AutowiredAnnotationBeanPostProcessorTests {
 		bf.destroySingletons();
 	}
 
+	@Test
+	public void testOrderedCollectionResourceInjectionWithInjectionPlan() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.setDependencyComparator(AnnotationAwareOrderComparator.INSTANCE);
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(bf);
+		bf.addBeanPostProcessor(bpp);
+		RootBeanDefinition rbd = new RootBeanDefinition(OptionalCollectionResourceInjectionBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("annotatedBean", rbd);
+		TestBean tb = new TestBean();
+		bf.registerSingleton("testBean", tb);
+		IndexedTestBean itb = new IndexedTestBean();
+		bf.registerSingleton("indexedTestBean", itb);
+		OrderedNestedTestBean ntb1 = new OrderedNestedTestBean();
+		ntb1.setOrder(2);
+		bf.registerSingleton("nestedTestBean1", ntb1);
+		OrderedNestedTestBean ntb2 = new OrderedNestedTestBean();
+		ntb2.setOrder(1);
+		bf.registerSingleton("nestedTestBean2", ntb2);
+		bf.freezeConfiguration();
+
+		OptionalCollectionResourceInjectionBean first = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+		assertEquals(0, bpp.getInjectionPlanHitCount());
+		assertEquals(8, bpp.getInjectionPlanMissCount());
+
+		for (int i = 0; i < 2; i++) {
+			OptionalCollectionResourceInjectionBean bean = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+			assertSame(tb, bean.getTestBean());
+			assertSame(tb, bean.getTestBean2());
+			assertSame(tb, bean.getTestBean3());
+			assertSame(tb, bean.getTestBean4());
+			assertSame(itb, bean.getIndexedTestBean());
+			assertEquals(2, bean.getNestedTestBeans().size());
+			assertSame(ntb2, bean.getNestedTestBeans().get(0));
+			assertSame(ntb1, bean.getNestedTestBeans().get(1));
+			assertEquals(2, bean.nestedTestBeansSetter.size());
+			assertSame(ntb2, bean.nestedTestBeansSetter.get(0));
+			assertSame(ntb1, bean.nestedTestBeansSetter.get(1));
+			assertEquals(2, bean.nestedTestBeansField.size());
+			assertSame(ntb2, bean.nestedTestBeansField.get(0));
+			assertSame(ntb1, bean.nestedTestBeansField.get(1));
+			assertNotSame(first.nestedTestBeansField, bean.nestedTestBeansField);
+		}
+		assertEquals(16, bpp.getInjectionPlanHitCount());
+		assertEquals(8, bpp.getInjectionPlanMissCount());
+		bf.destroySingletons();
+	}
+
+	@Test
+	public void testCollectionResourceInjectionWithoutFrozenConfiguration() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(bf);
+		bf.addBeanPostProcessor(bpp);
+		RootBeanDefinition rbd = new RootBeanDefinition(OptionalCollectionResourceInjectionBean.class);
+		rbd.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		bf.registerBeanDefinition("annotatedBean", rbd);
+		TestBean tb = new TestBean();
+		bf.registerSingleton("testBean", tb);
+		IndexedTestBean itb = new IndexedTestBean();
+		bf.registerSingleton("indexedTestBean", itb);
+		bf.registerSingleton("nestedTestBean1", new NestedTestBean());
+
+		OptionalCollectionResourceInjectionBean bean = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+		assertEquals(1, bean.nestedTestBeansField.size());
+		bf.registerSingleton("nestedTestBean2", new NestedTestBean());
+
+		bean = (OptionalCollectionResourceInjectionBean) bf.getBean("annotatedBean");
+		assertEquals(2, bean.getNestedTestBeans().size());
+		assertEquals(2, bean.nestedTestBeansSetter.size());
+		assertEquals(2, bean.nestedTestBeansField.size());
+		assertEquals(5, bpp.getInjectionPlanHitCount());
+		assertEquals(11, bpp.getInjectionPlanMissCount());
+		bf.destroySingletons();
+	}
+
 	@Test
 	public void testAnnotationOrderedCollectionResourceInjection() {
 		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
@@ -16,12 +16,25 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.StopWatch;
 
 import static org.junit.Assert.*;
 
@@ -101,4 +114,138 @@ public class DefaultSingletonBeanRegistryTests {
 		assertTrue(beanRegistry.isDependent("c", "c"));
 	}
 
+	@Test
+	public void testSingletonCreatedOnceForConcurrentRequests() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		AtomicInteger creationCount = new AtomicInteger();
+		CountDownLatch startLatch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				futures.add(executor.submit(() -> {
+					startLatch.await();
+					return beanRegistry.getSingleton("tb", () -> {
+						creationCount.incrementAndGet();
+						sleep(10);
+						return new TestBean();
+					});
+				}));
+			}
+			startLatch.countDown();
+			Object singleton = beanRegistry.getSingleton("tb");
+			for (Future<Object> future : futures) {
+				Object result = future.get(10, TimeUnit.SECONDS);
+				if (singleton == null) {
+					singleton = result;
+				}
+				assertSame(singleton, result);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, creationCount.get());
+		assertEquals(1, beanRegistry.getSingletonCount());
+	}
+
+	@Test
+	public void testUnrelatedSingletonsCreatedConcurrently() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch firstInCreation = new CountDownLatch(1);
+		CountDownLatch secondCreated = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> first = executor.submit(() -> beanRegistry.getSingleton("first", () -> {
+				firstInCreation.countDown();
+				try {
+					// Only completes if "second" can be created while "first" is still in creation
+					assertTrue(secondCreated.await(10, TimeUnit.SECONDS));
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return new TestBean("first");
+			}));
+			assertTrue(firstInCreation.await(10, TimeUnit.SECONDS));
+			assertTrue(beanRegistry.isSingletonCurrentlyInCreation("first"));
+			beanRegistry.getSingleton("second", () -> new TestBean("second"));
+			secondCreated.countDown();
+			assertEquals("first", ((TestBean) first.get(10, TimeUnit.SECONDS)).getName());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertArrayEquals(new String[] {"second", "first"}, beanRegistry.getSingletonNames());
+	}
+
+	@Test
+	public void testSingletonCreationUnderContention() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		StopWatch sw = new StopWatch();
+		sw.start("concurrent");
+		runContendedSingletonCreation(false);
+		sw.stop();
+		sw.start("serialized");
+		runContendedSingletonCreation(true);
+		sw.stop();
+		// System.out.println(sw.prettyPrint());
+		long concurrentTime = sw.getTaskInfo()[0].getTimeMillis();
+		long serializedTime = sw.getTaskInfo()[1].getTimeMillis();
+		assertTrue("Concurrent singleton creation took too long: " + concurrentTime + " vs " + serializedTime +
+				" ms with serialized creation", concurrentTime * 4 < serializedTime);
+	}
+
+	/**
+	 * Create 8 singletons on each of 64 threads, each singleton taking 2 ms to
+	 * initialize, either concurrently or serialized on the singleton mutex
+	 * (emulating the behavior before singleton creation locks).
+	 */
+	private void runContendedSingletonCreation(boolean serialized) throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		CountDownLatch startLatch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String prefix = "bean" + i + "_";
+				futures.add(executor.submit((Callable<Object>) () -> {
+					startLatch.await();
+					for (int j = 0; j < 8; j++) {
+						ObjectFactory<TestBean> singletonFactory = () -> {
+							sleep(2);
+							return new TestBean();
+						};
+						if (serialized) {
+							synchronized (beanRegistry.getSingletonMutex()) {
+								beanRegistry.getSingleton(prefix + j, singletonFactory);
+							}
+						}
+						else {
+							beanRegistry.getSingleton(prefix + j, singletonFactory);
+						}
+					}
+					return null;
+				}));
+			}
+			startLatch.countDown();
+			for (Future<Object> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(64 * 8, beanRegistry.getSingletonCount());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.MethodInvocationException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link GeneratedInstantiationStrategy}.
+ *
+ * @since 5.1
+ */
+public class GeneratedInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Before
+	public void setup() {
+		this.beanFactory.setInstantiationStrategy(new GeneratedInstantiationStrategy());
+	}
+
+
+	@Test
+	public void defaultConstructorAndSetterInjection() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "sample").add("age", "42").add("spouse", new RuntimeBeanReference("spouse"));
+		this.beanFactory.registerBeanDefinition("sample", bd);
+		this.beanFactory.registerBeanDefinition("spouse", new RootBeanDefinition(SampleBean.class));
+
+		for (int i = 0; i < 3; i++) {
+			SampleBean bean = this.beanFactory.getBean("sample", SampleBean.class);
+			assertEquals("sample", bean.getName());
+			assertEquals(42, bean.getAge());
+			assertSame(this.beanFactory.getBean("spouse"), bean.getSpouse());
+			assertTrue(bean.createdThroughAccessor);
+			assertTrue(bean.nameSetThroughAccessor);
+		}
+	}
+
+	@Test
+	public void constructorInjection() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("sample");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("42");
+		this.beanFactory.registerBeanDefinition("sample", bd);
+
+		SampleBean bean = this.beanFactory.getBean("sample", SampleBean.class);
+		assertEquals("sample", bean.getName());
+		assertEquals(42, bean.getAge());
+		assertTrue(bean.createdThroughAccessor);
+	}
+
+	@Test
+	public void staticFactoryMethod() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleFactory.class);
+		bd.setFactoryMethodName("createBean");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("sample");
+		this.beanFactory.registerBeanDefinition("sample", bd);
+
+		SampleBean bean = this.beanFactory.getBean("sample", SampleBean.class);
+		assertEquals("sample", bean.getName());
+		assertTrue(bean.createdThroughAccessor);
+	}
+
+	@Test
+	public void instanceFactoryMethod() {
+		this.beanFactory.registerBeanDefinition("factory", new RootBeanDefinition(SampleFactory.class));
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setFactoryBeanName("factory");
+		bd.setFactoryMethodName("createAge");
+		this.beanFactory.registerBeanDefinition("age", bd);
+		RootBeanDefinition nullBd = new RootBeanDefinition();
+		nullBd.setFactoryBeanName("factory");
+		nullBd.setFactoryMethodName("createNull");
+		this.beanFactory.registerBeanDefinition("null", nullBd);
+
+		assertEquals(7, this.beanFactory.getBean("age"));
+		assertTrue(this.beanFactory.getBean("null").equals(null));
+	}
+
+	@Test
+	public void privateClassFallsBackToReflection() {
+		RootBeanDefinition bd = new RootBeanDefinition(PrivateBean.class);
+		bd.getPropertyValues().add("name", "private");
+		this.beanFactory.registerBeanDefinition("private", bd);
+
+		PrivateBean bean = this.beanFactory.getBean("private", PrivateBean.class);
+		assertEquals("private", bean.name);
+	}
+
+	@Test
+	public void constructorException() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("fail");
+		bd.getConstructorArgumentValues().addGenericArgumentValue("-1");
+		this.beanFactory.registerBeanDefinition("sample", bd);
+		try {
+			this.beanFactory.getBean("sample");
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.getCause() instanceof BeanInstantiationException);
+			assertTrue(ex.getMostSpecificCause() instanceof IllegalArgumentException);
+			assertEquals("Negative age", ex.getMostSpecificCause().getMessage());
+		}
+	}
+
+	@Test
+	public void setterException() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.getPropertyValues().add("age", "-1");
+		this.beanFactory.registerBeanDefinition("sample", bd);
+		try {
+			this.beanFactory.getBean("sample");
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.contains(MethodInvocationException.class));
+			assertTrue(ex.getMessage().contains("Negative age"));
+		}
+	}
+
+	@Test
+	public void writeMethodWithUnsuitableValue() throws Exception {
+		GeneratedInstantiationStrategy strategy = new GeneratedInstantiationStrategy();
+		Method setAge = SampleBean.class.getMethod("setAge", int.class);
+		SampleBean bean = new SampleBean();
+		strategy.invoke(setAge, bean, 5);
+		assertEquals(5, bean.getAge());
+		try {
+			strategy.invoke(setAge, bean, null);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected, as with reflective invocation
+		}
+		try {
+			strategy.invoke(setAge, bean, -1);
+			fail("Should have thrown InvocationTargetException");
+		}
+		catch (InvocationTargetException ex) {
+			assertEquals("Negative age", ex.getTargetException().getMessage());
+		}
+	}
+
+
+	@Test
+	public void accessorIsSharedAcrossStrategies() throws Exception {
+		Method setName = SampleBean.class.getMethod("setName", String.class);
+		SampleBean bean = new SampleBean();
+		new GeneratedInstantiationStrategy().invoke(setName, bean, "first");
+		String accessorClassName = bean.nameSetterAccessorClassName;
+		assertNotNull(accessorClassName);
+		new GeneratedInstantiationStrategy().invoke(setName, bean, "second");
+		assertEquals("second", bean.getName());
+		assertEquals(accessorClassName, bean.nameSetterAccessorClassName);
+	}
+
+
+	private static boolean isCalledThroughAccessor() {
+		return (getAccessorClassName() != null);
+	}
+
+	private static String getAccessorClassName() {
+		for (StackTraceElement element : new Throwable().getStackTrace()) {
+			if (element.getClassName().contains("$$SpringAccessor$$")) {
+				return element.getClassName();
+			}
+		}
+		return null;
+	}
+
+
+	public static class SampleBean {
+
+		private String name;
+
+		private int age;
+
+		private SampleBean spouse;
+
+		final boolean createdThroughAccessor = isCalledThroughAccessor();
+
+		boolean nameSetThroughAccessor;
+
+		String nameSetterAccessorClassName;
+
+		public SampleBean() {
+		}
+
+		public SampleBean(String name, int age) {
+			this.name = name;
+			setAge(age);
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+			this.nameSetThroughAccessor = isCalledThroughAccessor();
+			this.nameSetterAccessorClassName = getAccessorClassName();
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			if (age < 0) {
+				throw new IllegalArgumentException("Negative age");
+			}
+			this.age = age;
+		}
+
+		public SampleBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(SampleBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+
+	public static class SampleFactory {
+
+		public static SampleBean createBean(String name) {
+			SampleBean bean = new SampleBean();
+			bean.name = name;
+			return bean;
+		}
+
+		public int createAge() {
+			return 7;
+		}
+
+		public SampleBean createNull() {
+			return null;
+		}
+	}
+
+
+	private static class PrivateBean {
+
+		String name;
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel singleton pre-instantiation through
+ * {@link DefaultListableBeanFactory#setBootstrapExecutor}.
+ *
+ * @since 5.1
+ */
+public class ParallelPreInstantiationTests {
+
+	private final ForkJoinPool executor = new ForkJoinPool(4);
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final List<String> creationOrder = new CopyOnWriteArrayList<>();
+
+
+	@Before
+	public void setup() {
+		this.beanFactory.setBootstrapExecutor(this.executor);
+	}
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void dependsOnAndBeanReferences() {
+		RootBeanDefinition first = recordingBeanDefinition("first");
+		first.setDependsOn("second");
+		this.beanFactory.registerBeanDefinition("first", first);
+		RootBeanDefinition second = recordingBeanDefinition("second");
+		second.getPropertyValues().add("spouse", new RuntimeBeanReference("third"));
+		this.beanFactory.registerBeanDefinition("second", second);
+		this.beanFactory.registerBeanDefinition("third", recordingBeanDefinition("third"));
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(3, this.creationOrder.size());
+		assertTrue(this.creationOrder.indexOf("second") < this.creationOrder.indexOf("first"));
+		assertTrue(this.creationOrder.indexOf("third") < this.creationOrder.indexOf("second"));
+		assertSame(this.beanFactory.getBean("third"), this.beanFactory.getBean("second", TestBean.class).getSpouse());
+	}
+
+	@Test
+	public void circularReference() {
+		RootBeanDefinition husband = new RootBeanDefinition(TestBean.class);
+		husband.getPropertyValues().add("spouse", new RuntimeBeanReference("wife"));
+		this.beanFactory.registerBeanDefinition("husband", husband);
+		RootBeanDefinition wife = new RootBeanDefinition(TestBean.class);
+		wife.getPropertyValues().add("spouse", new RuntimeBeanReference("husband"));
+		this.beanFactory.registerBeanDefinition("wife", wife);
+		this.beanFactory.preInstantiateSingletons();
+
+		TestBean husbandBean = this.beanFactory.getBean("husband", TestBean.class);
+		TestBean wifeBean = this.beanFactory.getBean("wife", TestBean.class);
+		assertSame(wifeBean, husbandBean.getSpouse());
+		assertSame(husbandBean, wifeBean.getSpouse());
+	}
+
+	@Test
+	public void singletonsCreatedOnBootstrapExecutor() {
+		List<Thread> threads = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			this.beanFactory.registerBeanDefinition("bean" + i, new RootBeanDefinition(TestBean.class, () -> {
+				threads.add(Thread.currentThread());
+				return new TestBean();
+			}));
+		}
+		this.beanFactory.preInstantiateSingletons();
+
+		assertEquals(8, threads.size());
+		for (Thread thread : threads) {
+			assertNotSame(Thread.currentThread(), thread);
+		}
+	}
+
+	@Test
+	public void creationFailurePropagated() {
+		this.beanFactory.registerBeanDefinition("ok", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("failing", new RootBeanDefinition(TestBean.class, () -> {
+			throw new IllegalStateException("boom");
+		}));
+		try {
+			this.beanFactory.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("failing", ex.getBeanName());
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+
+	private RootBeanDefinition recordingBeanDefinition(String name) {
+		return new RootBeanDefinition(TestBean.class, () -> {
+			this.creationOrder.add(name);
+			return new TestBean(name);
+		});
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DeferredBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link XmlBeanDefinitionReader#setDeferredParsing deferred parsing}
+ * of XML bean definitions.
+ *
+ * @since 5.1
+ */
+public class DeferredXmlBeanDefinitionTests {
+
+	private final Resource resource = new ClassPathResource("DeferredXmlBeanDefinitionTests-context.xml", getClass());
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(this.beanFactory);
+
+
+	@Before
+	public void setup() {
+		this.reader.setDeferredParsing(true);
+	}
+
+
+	@Test
+	public void invalidBeanDefinitionFailsWithoutDeferredParsing() {
+		this.reader.setDeferredParsing(false);
+		try {
+			this.reader.loadBeanDefinitions(this.resource);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage().contains("<property> element for property 'name'"));
+		}
+	}
+
+	@Test
+	public void invalidLazyBeanDefinitionIsNotParsedUpfront() {
+		assertEquals(11, this.reader.loadBeanDefinitions(this.resource));
+		this.beanFactory.preInstantiateSingletons();
+
+		List<String> names = Arrays.asList(this.beanFactory.getBeanNamesForType(TestBean.class));
+		assertTrue(names.contains("lazy"));
+		try {
+			this.beanFactory.getBean("lazy");
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage().contains("<property> element for property 'name'"));
+		}
+	}
+
+	@Test
+	public void deferredBeanDefinitionContent() {
+		this.reader.loadBeanDefinitions(this.resource);
+
+		BeanDefinition bd = this.beanFactory.getBeanDefinition("rod");
+		assertTrue(bd instanceof DeferredBeanDefinition);
+		assertTrue(((DeferredBeanDefinition) bd).isResolved());
+		assertEquals("Rod & his spouse", bd.getDescription());
+		assertEquals(this.resource.getDescription(), bd.getResourceDescription());
+
+		TestBean rod = this.beanFactory.getBean("rod", TestBean.class);
+		assertEquals("Rod \"<Johnson>\"", rod.getName());
+		assertEquals(31, rod.getAge());
+		assertSame(this.beanFactory.getBean("kerry"), rod.getSpouse());
+		assertEquals("Kerry", rod.getSpouse().getName());
+		assertEquals(34, rod.getSpouse().getAge());
+		assertEquals(2, rod.getSomeList().size());
+		assertEquals("a", rod.getSomeList().get(0));
+		assertEquals("inner", ((TestBean) rod.getSomeList().get(1)).getName());
+
+		assertSame(rod, this.beanFactory.getBean("roderick"));
+		assertSame(rod, this.beanFactory.getBean("rodney"));
+		assertSame(rod, this.beanFactory.getBean("johnson"));
+	}
+
+	@Test
+	public void parentAndScope() {
+		this.reader.loadBeanDefinitions(this.resource);
+
+		assertTrue(this.beanFactory.getBeanDefinition("template").isAbstract());
+		assertTrue(this.beanFactory.isPrototype("child"));
+		TestBean child = this.beanFactory.getBean("child", TestBean.class);
+		assertEquals("child", child.getName());
+		assertEquals(99, child.getAge());
+		assertNotSame(child, this.beanFactory.getBean("child"));
+	}
+
+	@Test
+	public void nestedBeansDefaults() {
+		this.reader.loadBeanDefinitions(this.resource);
+
+		assertFalse(this.beanFactory.getBeanDefinition("rod").isLazyInit());
+		assertTrue(this.beanFactory.getBeanDefinition("nestedLazy").isLazyInit());
+		assertTrue(this.beanFactory.getBeanDefinition("inheritedLazy").isLazyInit());
+		TestBean nestedLazy = this.beanFactory.getBean("nestedLazy", TestBean.class);
+		assertEquals(1, nestedLazy.getSomeList().size());
+		assertSame(this.beanFactory.getBean("kerry"), nestedLazy.getSomeList().get(0));
+	}
+
+	@Test
+	public void eagerlyParsedElements() {
+		this.reader.loadBeanDefinitions(this.resource);
+
+		TestBean imported = this.beanFactory.getBean("imported", TestBean.class);
+		assertEquals("imported", imported.getName());
+		assertEquals(42, imported.getAge());
+		assertEquals(Arrays.asList("Rod", "Kerry"), this.beanFactory.getBean("names"));
+		assertEquals("anonymous", this.beanFactory.getBean(TestBean.class.getName() + "#0", TestBean.class).getName());
+		assertTrue(Arrays.asList(this.beanFactory.getBeanNamesForType(TestBean.class)).contains("factoryBean"));
+		assertFalse(this.beanFactory.containsBeanDefinition("devOnly"));
+	}
+
+	@Test
+	public void profileSpecificBeans() {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("dev");
+		this.reader.setEnvironment(environment);
+		this.reader.loadBeanDefinitions(this.resource);
+
+		assertTrue(this.beanFactory.containsBeanDefinition("devOnly"));
+		assertNotNull(this.beanFactory.getBean("devOnly"));
+	}
+
+	@Test
+	public void duplicateBeanNameInSameBeansElement() {
+		Resource duplicate = new ClassPathResource("DuplicateBeanIdTests-sameLevel-context.xml", getClass());
+		try {
+			this.reader.loadBeanDefinitions(duplicate);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage().contains("is already used in this <beans> element"));
+		}
+	}
+
+}
@@ -24,6 +24,7 @@ import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ProtocolResolver;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 
 /**
@@ -147,6 +148,28 @@ public interface ConfigurableApplicationContext extends ApplicationContext, Life
 	 */
 	void addProtocolResolver(ProtocolResolver resolver);
 
+	/**
+	 * Set the {@link ApplicationStartup} for this application context.
+	 * <p>This allows the application context to record metrics
+	 * during startup, for example around bean factory post-processing,
+	 * bean creation and lifecycle start. The recorder gets propagated
+	 * to the internal bean factory on {@link #refresh()}.
+	 * <p>The default implementation ignores the given recorder.
+	 * @param applicationStartup the startup recorder to use
+	 * @since 5.1
+	 */
+	default void setApplicationStartup(ApplicationStartup applicationStartup) {
+	}
+
+	/**
+	 * Return the {@link ApplicationStartup} for this application context.
+	 * <p>The default implementation returns {@link ApplicationStartup#DEFAULT}.
+	 * @since 5.1
+	 */
+	default ApplicationStartup getApplicationStartup() {
+		return ApplicationStartup.DEFAULT;
+	}
+
 	/**
 	 * Load or refresh the persistent representation of the configuration,
 	 * which might an XML file, properties file, or relational database schema.
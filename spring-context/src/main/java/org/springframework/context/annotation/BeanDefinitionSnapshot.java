@@ -0,0 +1,1117 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.AttributeAccessor;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Pre-computed snapshot of the bean definitions that {@link ConfigurationClassPostProcessor}
+ * derives from the configuration classes of an application context, allowing subsequent
+ * startups to skip configuration class parsing and classpath scanning altogether.
+ *
+ * <p>A snapshot gets recorded when the {@value #SNAPSHOT_OUTPUT} property points to a
+ * file, typically as part of the build: start the application context once with the
+ * profiles of the target deployment and package the resulting file as
+ * {@value #SNAPSHOT_RESOURCE_LOCATION}. Once the {@value #USE_SNAPSHOT} property is
+ * set for the deployment, {@link ConfigurationClassPostProcessor} registers the
+ * recorded bean definitions instead of parsing the configuration model, as long as
+ * the snapshot is still current, i.e. with the same root bean definitions (e.g. the
+ * registered configuration classes), the same active profiles, unchanged bytecode for
+ * all configuration classes, the same set of class files in all packages scanned by
+ * {@link ComponentScan} and an unchanged candidate components index as written
+ * by {@code spring-context-indexer}. A stale snapshot is ignored, falling back to
+ * regular parsing.
+ *
+ * <p>Note that {@link Conditional} evaluation is baked into the snapshot: conditions
+ * depending on anything other than the active profiles, such as environment properties
+ * or the presence of classes on the classpath, are not evaluated again. This is why
+ * snapshots need to be enabled explicitly, for deployments whose environment matches
+ * the one that the snapshot has been recorded in.
+ *
+ * <p>The {@link PropertySource} declarations processed while recording are kept as
+ * well, adding the same property sources to the environment when the snapshot gets
+ * registered.
+ *
+ * <p>Only declarative bean definition state can be recorded: bean definitions with
+ * an instance supplier, method overrides or non-simple attribute values prevent a
+ * snapshot from being written in the first place.
+ *
+ * @since 5.1
+ * @see ConfigurationClassPostProcessor
+ * @see CandidateComponentsIndexLoader
+ */
+public final class BeanDefinitionSnapshot {
+
+	/**
+	 * The location to look for a bean definition snapshot.
+	 */
+	public static final String SNAPSHOT_RESOURCE_LOCATION = "META-INF/spring.beans.snapshot";
+
+	/**
+	 * System property that instructs Spring to record a snapshot into the given
+	 * file after the configuration classes of an application context have been parsed.
+	 */
+	public static final String SNAPSHOT_OUTPUT = "spring.snapshot.output";
+
+	/**
+	 * System property that instructs Spring to use the snapshot present at
+	 * {@value #SNAPSHOT_RESOURCE_LOCATION}, if current. By default, snapshots
+	 * are ignored, always parsing configuration classes.
+	 */
+	public static final String USE_SNAPSHOT = "spring.snapshot.enabled";
+
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 2;
+
+	private static final byte DEFINITION_GENERIC = 0;
+
+	private static final byte DEFINITION_ROOT = 1;
+
+	private static final byte DEFINITION_BEAN_METHOD = 2;
+
+	private static final byte VALUE_NULL = 0;
+
+	private static final byte VALUE_STRING = 1;
+
+	private static final byte VALUE_BOOLEAN = 2;
+
+	private static final byte VALUE_INTEGER = 3;
+
+	private static final byte VALUE_LONG = 4;
+
+	private static final byte VALUE_TYPED_STRING = 5;
+
+	private static final byte VALUE_BEAN_REFERENCE = 6;
+
+	private static final byte VALUE_BEAN_NAME_REFERENCE = 7;
+
+	private static final byte VALUE_INNER_BEAN = 8;
+
+	private static final byte VALUE_LIST = 9;
+
+	private static final byte VALUE_ARRAY = 10;
+
+	private static final byte VALUE_SET = 11;
+
+	private static final byte VALUE_MAP = 12;
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshot.class);
+
+
+	private final Map<String, String> rootBeans;
+
+	private final String[] profiles;
+
+	private final Set<String> configurationClasses;
+
+	private final Set<String> scanPatterns;
+
+	private final long fingerprint;
+
+	private final List<PropertySourceDeclaration> propertySources;
+
+	private final Map<String, String> imports;
+
+	private final List<BeanDefinitionHolder> beanDefinitions;
+
+
+	private BeanDefinitionSnapshot(Map<String, String> rootBeans, String[] profiles,
+			Set<String> configurationClasses, Set<String> scanPatterns, long fingerprint,
+			List<PropertySourceDeclaration> propertySources, Map<String, String> imports,
+			List<BeanDefinitionHolder> beanDefinitions) {
+
+		this.rootBeans = rootBeans;
+		this.profiles = profiles;
+		this.configurationClasses = configurationClasses;
+		this.scanPatterns = scanPatterns;
+		this.fingerprint = fingerprint;
+		this.propertySources = propertySources;
+		this.imports = imports;
+		this.beanDefinitions = beanDefinitions;
+	}
+
+
+	/**
+	 * Return whether this snapshot has been recorded for the given root bean
+	 * definitions and environment, with neither the configuration classes, the
+	 * contents of the scanned packages nor the candidate components index having
+	 * changed since.
+	 * @param rootBeans the bean names and bean class names of the bean definitions
+	 * present in the registry before configuration class processing
+	 * @param environment the environment to check active profiles against
+	 * @param classLoader the ClassLoader to read class files and indexes from
+	 */
+	public boolean isCurrent(Map<String, String> rootBeans, Environment environment,
+			@Nullable ClassLoader classLoader) {
+
+		if (!this.rootBeans.equals(rootBeans)) {
+			return false;
+		}
+		if (!Arrays.equals(this.profiles, getProfiles(environment))) {
+			return false;
+		}
+		try {
+			long fingerprint = computeFingerprint(this.configurationClasses, this.scanPatterns, classLoader);
+			return (this.fingerprint == fingerprint);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Unable to verify bean definition snapshot fingerprint", ex);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Register the recorded bean definitions and aliases with the given registry,
+	 * skipping bean names that are registered already.
+	 * @param registry the registry to register the bean definitions with
+	 * @return the number of bean definitions registered
+	 */
+	public int registerBeanDefinitions(BeanDefinitionRegistry registry) {
+		int count = 0;
+		for (BeanDefinitionHolder holder : this.beanDefinitions) {
+			String beanName = holder.getBeanName();
+			if (!registry.containsBeanDefinition(beanName)) {
+				// Registering a copy keeps this snapshot reusable across registries
+				registry.registerBeanDefinition(beanName, copy(holder.getBeanDefinition()));
+				count++;
+			}
+			for (String alias : holder.getAliases()) {
+				if (!registry.isAlias(alias)) {
+					registry.registerAlias(beanName, alias);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return the recorded {@link PropertySource} declarations, in processing order.
+	 * @param classLoader the ClassLoader to resolve property source factories with
+	 * @throws IllegalArgumentException if a property source factory cannot be resolved
+	 * @see ConfigurationClassParser#processPropertySources
+	 */
+	List<AnnotationAttributes> getPropertySources(@Nullable ClassLoader classLoader) {
+		if (this.propertySources.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<AnnotationAttributes> result = new ArrayList<>(this.propertySources.size());
+		for (PropertySourceDeclaration propertySource : this.propertySources) {
+			result.add(propertySource.toAttributes(classLoader));
+		}
+		return result;
+	}
+
+	/**
+	 * Return an {@link ImportRegistry} exposing the recorded import relationships,
+	 * reading importing class metadata on demand.
+	 */
+	ImportRegistry getImportRegistry(MetadataReaderFactory metadataReaderFactory) {
+		return new SnapshotImportRegistry(this.imports, metadataReaderFactory);
+	}
+
+	/**
+	 * Write this snapshot to the given stream.
+	 * @param out the stream to write to (left open)
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		writeStringMap(dos, this.rootBeans);
+		writeStrings(dos, this.profiles);
+		writeStrings(dos, this.configurationClasses.toArray(new String[0]));
+		writeStrings(dos, this.scanPatterns.toArray(new String[0]));
+		dos.writeLong(this.fingerprint);
+		dos.writeInt(this.propertySources.size());
+		for (PropertySourceDeclaration propertySource : this.propertySources) {
+			propertySource.writeTo(dos);
+		}
+		writeStringMap(dos, this.imports);
+		dos.writeInt(this.beanDefinitions.size());
+		for (BeanDefinitionHolder holder : this.beanDefinitions) {
+			writeHolder(dos, holder);
+		}
+		dos.flush();
+	}
+
+
+	/**
+	 * Capture a snapshot of the bean definitions in the given registry.
+	 * @param registry the registry after configuration class processing
+	 * @param rootBeans the bean names and bean class names of the bean definitions
+	 * present in the registry before configuration class processing, which are not
+	 * going to be recorded themselves
+	 * @param environment the environment to record active profiles from
+	 * @param scanPatterns the resource patterns scanned for candidate components
+	 * @param propertySources the processed {@code @PropertySource} declarations
+	 * @param importRegistry the import registry to record import relationships from
+	 * @param classLoader the ClassLoader to read class files and indexes from
+	 * @throws IllegalStateException if a bean definition cannot be recorded
+	 * @throws IOException if the fingerprint cannot be computed
+	 */
+	static BeanDefinitionSnapshot capture(BeanDefinitionRegistry registry, Map<String, String> rootBeans,
+			Environment environment, Collection<String> scanPatterns, List<AnnotationAttributes> propertySources,
+			ImportRegistry importRegistry, @Nullable ClassLoader classLoader) throws IOException {
+
+		Set<String> configurationClasses = new TreeSet<>();
+		Map<String, String> imports = new LinkedHashMap<>();
+		List<BeanDefinitionHolder> beanDefinitions = new ArrayList<>();
+		for (String beanName : registry.getBeanDefinitionNames()) {
+			BeanDefinition bd = registry.getBeanDefinition(beanName);
+			String className = bd.getBeanClassName();
+			if (className != null) {
+				if (ConfigurationClassUtils.isFullConfigurationClass(bd) ||
+						ConfigurationClassUtils.isLiteConfigurationClass(bd)) {
+					configurationClasses.add(className);
+				}
+				AnnotationMetadata importingClass = importRegistry.getImportingClassFor(className);
+				if (importingClass != null) {
+					imports.put(className, importingClass.getClassName());
+				}
+			}
+			if (!rootBeans.containsKey(beanName)) {
+				checkSupported(beanName, bd);
+				beanDefinitions.add(new BeanDefinitionHolder(bd, beanName, registry.getAliases(beanName)));
+			}
+		}
+		Set<String> patterns = new TreeSet<>(scanPatterns);
+		List<PropertySourceDeclaration> declarations = new ArrayList<>(propertySources.size());
+		for (AnnotationAttributes propertySource : propertySources) {
+			declarations.add(new PropertySourceDeclaration(propertySource));
+		}
+		long fingerprint = computeFingerprint(configurationClasses, patterns, classLoader);
+		return new BeanDefinitionSnapshot(rootBeans, getProfiles(environment), configurationClasses, patterns,
+				fingerprint, declarations, imports, beanDefinitions);
+	}
+
+	/**
+	 * Read a snapshot from the given stream.
+	 * @param in the stream to read from (left open)
+	 * @throws IOException if the stream does not contain a snapshot in a supported format
+	 */
+	public static BeanDefinitionSnapshot readFrom(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+		if (dis.readInt() != MAGIC) {
+			throw new IOException("Not a bean definition snapshot");
+		}
+		int version = dis.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported bean definition snapshot version " + version);
+		}
+		Map<String, String> rootBeans = readStringMap(dis);
+		String[] profiles = readStrings(dis);
+		Set<String> configurationClasses = new TreeSet<>(Arrays.asList(readStrings(dis)));
+		Set<String> scanPatterns = new TreeSet<>(Arrays.asList(readStrings(dis)));
+		long fingerprint = dis.readLong();
+		int propertySourceCount = dis.readInt();
+		List<PropertySourceDeclaration> propertySources = new ArrayList<>(propertySourceCount);
+		for (int i = 0; i < propertySourceCount; i++) {
+			propertySources.add(PropertySourceDeclaration.readFrom(dis));
+		}
+		Map<String, String> imports = readStringMap(dis);
+		int count = dis.readInt();
+		List<BeanDefinitionHolder> beanDefinitions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			beanDefinitions.add(readHolder(dis));
+		}
+		return new BeanDefinitionSnapshot(rootBeans, profiles, configurationClasses, scanPatterns,
+				fingerprint, propertySources, imports, beanDefinitions);
+	}
+
+	/**
+	 * Load the snapshot from {@value #SNAPSHOT_RESOURCE_LOCATION}, using the given
+	 * class loader. If snapshots are not enabled, no snapshot is available or it cannot
+	 * be read, return {@code null}.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null} to use the default)
+	 * @return the snapshot to use or {@code null} if none was found
+	 * @see #USE_SNAPSHOT
+	 */
+	@Nullable
+	public static BeanDefinitionSnapshot loadSnapshot(@Nullable ClassLoader classLoader) {
+		if (!SpringProperties.getFlag(USE_SNAPSHOT)) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		URL url = (classLoaderToUse != null ? classLoaderToUse.getResource(SNAPSHOT_RESOURCE_LOCATION) :
+				ClassLoader.getSystemResource(SNAPSHOT_RESOURCE_LOCATION));
+		if (url == null) {
+			return null;
+		}
+		try (InputStream is = url.openStream()) {
+			return readFrom(is);
+		}
+		catch (IOException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Ignoring unreadable bean definition snapshot [" + url + "]: " + ex);
+			}
+			return null;
+		}
+	}
+
+
+	private static String[] getProfiles(Environment environment) {
+		String[] profiles = environment.getActiveProfiles();
+		if (profiles.length == 0) {
+			profiles = environment.getDefaultProfiles();
+		}
+		return new TreeSet<>(Arrays.asList(profiles)).toArray(new String[0]);
+	}
+
+	private static long computeFingerprint(Collection<String> configurationClasses,
+			Collection<String> scanPatterns, @Nullable ClassLoader classLoader) throws IOException {
+
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ClassLoader.getSystemClassLoader();
+		}
+		CRC32 crc = new CRC32();
+		Enumeration<URL> indexes = classLoaderToUse.getResources(
+				CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+		while (indexes.hasMoreElements()) {
+			try (InputStream is = indexes.nextElement().openStream()) {
+				crc.update(StreamUtils.copyToByteArray(is));
+			}
+		}
+		// Class files in jars are checked against the CRC recorded for their jar entry,
+		// reading each jar's central directory only once rather than every class file
+		Map<String, JarFile> jarFiles = new HashMap<>();
+		try {
+			for (String className : configurationClasses) {
+				URL classFile = classLoaderToUse.getResource(ClassUtils.convertClassNameToResourcePath(className) +
+						ClassUtils.CLASS_FILE_SUFFIX);
+				if (classFile == null) {
+					throw new FileNotFoundException(
+							"Class file for configuration class [" + className + "] not found");
+				}
+				String entry = className + ':' + Long.toHexString(getChecksum(classFile, jarFiles));
+				crc.update(entry.getBytes(StandardCharsets.UTF_8));
+			}
+			if (!scanPatterns.isEmpty()) {
+				ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoaderToUse);
+				for (String pattern : scanPatterns) {
+					crc.update(pattern.getBytes(StandardCharsets.UTF_8));
+					// Class files identify their class by content, so file names and checksums
+					// suffice for an entry that does not depend on the classpath location
+					Resource[] resources = resolver.getResources(pattern);
+					List<String> entries = new ArrayList<>(resources.length);
+					for (Resource resource : resources) {
+						entries.add(resource.getFilename() + ':' +
+								Long.toHexString(getChecksum(resource.getURL(), jarFiles)));
+					}
+					Collections.sort(entries);
+					for (String entry : entries) {
+						crc.update(entry.getBytes(StandardCharsets.UTF_8));
+					}
+				}
+			}
+		}
+		finally {
+			for (JarFile jarFile : jarFiles.values()) {
+				try {
+					jarFile.close();
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Return the CRC-32 checksum of the content of the given file: as recorded
+	 * for the jar entry for a file in a jar in the file system, or computed
+	 * from the content otherwise.
+	 */
+	private static long getChecksum(URL url, Map<String, JarFile> jarFiles) throws IOException {
+		if (ResourceUtils.isJarURL(url)) {
+			// Only parses the URL, without opening the jar file
+			URLConnection con = url.openConnection();
+			if (con instanceof JarURLConnection) {
+				URL jarFileUrl = ((JarURLConnection) con).getJarFileURL();
+				String entryName = ((JarURLConnection) con).getEntryName();
+				if (entryName != null && ResourceUtils.URL_PROTOCOL_FILE.equals(jarFileUrl.getProtocol())) {
+					String key = jarFileUrl.toExternalForm();
+					JarFile jarFile = jarFiles.get(key);
+					if (jarFile == null) {
+						jarFile = new JarFile(ResourceUtils.getFile(jarFileUrl));
+						jarFiles.put(key, jarFile);
+					}
+					JarEntry jarEntry = jarFile.getJarEntry(entryName);
+					if (jarEntry != null && jarEntry.getCrc() != -1) {
+						return jarEntry.getCrc();
+					}
+				}
+			}
+		}
+		CRC32 crc = new CRC32();
+		URLConnection con = url.openConnection();
+		ResourceUtils.useCachesIfNecessary(con);
+		try (InputStream is = con.getInputStream()) {
+			crc.update(StreamUtils.copyToByteArray(is));
+		}
+		return crc.getValue();
+	}
+
+	private static void checkSupported(String beanName, BeanDefinition bd) {
+		if (!(bd instanceof AbstractBeanDefinition)) {
+			throw new IllegalStateException("Cannot record bean definition '" + beanName +
+					"' of type [" + bd.getClass().getName() + "] in snapshot");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		if (abd.getInstanceSupplier() != null) {
+			throw new IllegalStateException(
+					"Cannot record bean definition '" + beanName + "' with instance supplier in snapshot");
+		}
+		if (abd.hasMethodOverrides()) {
+			throw new IllegalStateException(
+					"Cannot record bean definition '" + beanName + "' with method overrides in snapshot");
+		}
+		if (abd instanceof RootBeanDefinition && ((RootBeanDefinition) abd).getDecoratedDefinition() != null) {
+			BeanDefinitionHolder decorated = ((RootBeanDefinition) abd).getDecoratedDefinition();
+			checkSupported(decorated.getBeanName(), decorated.getBeanDefinition());
+		}
+	}
+
+	private static AbstractBeanDefinition copy(BeanDefinition bd) {
+		AbstractBeanDefinition copy = ((AbstractBeanDefinition) bd).cloneBeanDefinition();
+		if (copy instanceof RootBeanDefinition) {
+			BeanDefinitionHolder decorated = ((RootBeanDefinition) copy).getDecoratedDefinition();
+			if (decorated != null) {
+				((RootBeanDefinition) copy).setDecoratedDefinition(new BeanDefinitionHolder(
+						copy(decorated.getBeanDefinition()), decorated.getBeanName(), decorated.getAliases()));
+			}
+		}
+		return copy;
+	}
+
+
+	// Binary encoding
+
+	private static void writeHolder(DataOutputStream dos, BeanDefinitionHolder holder) throws IOException {
+		writeString(dos, holder.getBeanName());
+		writeStrings(dos, holder.getAliases());
+		writeDefinition(dos, holder.getBeanName(), holder.getBeanDefinition());
+	}
+
+	private static BeanDefinitionHolder readHolder(DataInputStream dis) throws IOException {
+		String beanName = readString(dis);
+		String[] aliases = readStrings(dis);
+		return new BeanDefinitionHolder(readDefinition(dis), beanName, aliases);
+	}
+
+	private static void writeDefinition(DataOutputStream dos, String beanName, BeanDefinition bd)
+			throws IOException {
+
+		checkSupported(beanName, bd);
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		boolean beanMethod = (bd instanceof AnnotatedBeanDefinition &&
+				((AnnotatedBeanDefinition) bd).getFactoryMethodMetadata() != null);
+		if (beanMethod) {
+			dos.writeByte(DEFINITION_BEAN_METHOD);
+		}
+		else if (bd instanceof RootBeanDefinition) {
+			dos.writeByte(DEFINITION_ROOT);
+		}
+		else {
+			dos.writeByte(DEFINITION_GENERIC);
+			writeString(dos, abd.getParentName());
+		}
+		writeString(dos, abd.getBeanClassName());
+		writeString(dos, abd.getScope());
+		dos.writeBoolean(abd.isAbstract());
+		dos.writeBoolean(abd.isLazyInit());
+		dos.writeInt(abd.getAutowireMode());
+		dos.writeInt(abd.getDependencyCheck());
+		writeStrings(dos, abd.getDependsOn());
+		dos.writeBoolean(abd.isAutowireCandidate());
+		dos.writeBoolean(abd.isPrimary());
+		dos.writeInt(abd.getQualifiers().size());
+		for (AutowireCandidateQualifier qualifier : abd.getQualifiers()) {
+			writeString(dos, qualifier.getTypeName());
+			writeAttributes(dos, beanName, qualifier);
+		}
+		dos.writeBoolean(abd.isNonPublicAccessAllowed());
+		dos.writeBoolean(abd.isLenientConstructorResolution());
+		writeString(dos, abd.getFactoryBeanName());
+		writeString(dos, abd.getFactoryMethodName());
+		ConstructorArgumentValues cargs = abd.getConstructorArgumentValues();
+		dos.writeInt(cargs.getIndexedArgumentValues().size());
+		for (Map.Entry<Integer, ConstructorArgumentValues.ValueHolder> entry :
+				cargs.getIndexedArgumentValues().entrySet()) {
+			dos.writeInt(entry.getKey());
+			writeValueHolder(dos, beanName, entry.getValue());
+		}
+		dos.writeInt(cargs.getGenericArgumentValues().size());
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+			writeValueHolder(dos, beanName, valueHolder);
+		}
+		MutablePropertyValues pvs = abd.getPropertyValues();
+		dos.writeInt(pvs.size());
+		for (PropertyValue pv : pvs.getPropertyValueList()) {
+			writeString(dos, pv.getName());
+			writeValue(dos, beanName, pv.getValue());
+		}
+		writeString(dos, abd.getInitMethodName());
+		writeString(dos, abd.getDestroyMethodName());
+		dos.writeBoolean(abd.isEnforceInitMethod());
+		dos.writeBoolean(abd.isEnforceDestroyMethod());
+		dos.writeBoolean(abd.isSynthetic());
+		dos.writeInt(abd.getRole());
+		writeString(dos, abd.getDescription());
+		writeString(dos, abd.getResourceDescription());
+		writeAttributes(dos, beanName, abd);
+		if (bd instanceof RootBeanDefinition) {
+			BeanDefinitionHolder decorated = ((RootBeanDefinition) bd).getDecoratedDefinition();
+			dos.writeBoolean(decorated != null);
+			if (decorated != null) {
+				writeHolder(dos, decorated);
+			}
+		}
+	}
+
+	private static AbstractBeanDefinition readDefinition(DataInputStream dis) throws IOException {
+		byte kind = dis.readByte();
+		AbstractBeanDefinition abd;
+		if (kind == DEFINITION_BEAN_METHOD) {
+			abd = new BeanMethodDefinition();
+		}
+		else if (kind == DEFINITION_ROOT) {
+			abd = new RootBeanDefinition();
+		}
+		else if (kind == DEFINITION_GENERIC) {
+			GenericBeanDefinition gbd = new GenericBeanDefinition();
+			gbd.setParentName(readString(dis));
+			abd = gbd;
+		}
+		else {
+			throw new IOException("Unknown bean definition kind " + kind);
+		}
+		abd.setBeanClassName(readString(dis));
+		abd.setScope(readString(dis));
+		abd.setAbstract(dis.readBoolean());
+		abd.setLazyInit(dis.readBoolean());
+		abd.setAutowireMode(dis.readInt());
+		abd.setDependencyCheck(dis.readInt());
+		abd.setDependsOn(readStrings(dis));
+		abd.setAutowireCandidate(dis.readBoolean());
+		abd.setPrimary(dis.readBoolean());
+		int qualifierCount = dis.readInt();
+		for (int i = 0; i < qualifierCount; i++) {
+			AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(readString(dis));
+			readAttributes(dis, qualifier);
+			abd.addQualifier(qualifier);
+		}
+		abd.setNonPublicAccessAllowed(dis.readBoolean());
+		abd.setLenientConstructorResolution(dis.readBoolean());
+		abd.setFactoryBeanName(readString(dis));
+		String factoryMethodName = readString(dis);
+		if (factoryMethodName != null && abd.getFactoryBeanName() != null && abd instanceof BeanMethodDefinition) {
+			// Non-static @Bean methods are always unique by name within their configuration class
+			((BeanMethodDefinition) abd).setUniqueFactoryMethodName(factoryMethodName);
+		}
+		else {
+			abd.setFactoryMethodName(factoryMethodName);
+		}
+		ConstructorArgumentValues cargs = abd.getConstructorArgumentValues();
+		int indexedCount = dis.readInt();
+		for (int i = 0; i < indexedCount; i++) {
+			int index = dis.readInt();
+			cargs.addIndexedArgumentValue(index, readValueHolder(dis));
+		}
+		int genericCount = dis.readInt();
+		for (int i = 0; i < genericCount; i++) {
+			cargs.addGenericArgumentValue(readValueHolder(dis));
+		}
+		MutablePropertyValues pvs = abd.getPropertyValues();
+		int pvCount = dis.readInt();
+		for (int i = 0; i < pvCount; i++) {
+			String name = readString(dis);
+			pvs.addPropertyValue(new PropertyValue(name, readValue(dis)));
+		}
+		abd.setInitMethodName(readString(dis));
+		abd.setDestroyMethodName(readString(dis));
+		abd.setEnforceInitMethod(dis.readBoolean());
+		abd.setEnforceDestroyMethod(dis.readBoolean());
+		abd.setSynthetic(dis.readBoolean());
+		abd.setRole(dis.readInt());
+		abd.setDescription(readString(dis));
+		abd.setResourceDescription(readString(dis));
+		readAttributes(dis, abd);
+		if (abd instanceof RootBeanDefinition && dis.readBoolean()) {
+			((RootBeanDefinition) abd).setDecoratedDefinition(readHolder(dis));
+		}
+		return abd;
+	}
+
+	private static void writeValueHolder(DataOutputStream dos, String beanName,
+			ConstructorArgumentValues.ValueHolder valueHolder) throws IOException {
+
+		writeValue(dos, beanName, valueHolder.getValue());
+		writeString(dos, valueHolder.getType());
+		writeString(dos, valueHolder.getName());
+	}
+
+	private static ConstructorArgumentValues.ValueHolder readValueHolder(DataInputStream dis) throws IOException {
+		Object value = readValue(dis);
+		String type = readString(dis);
+		String name = readString(dis);
+		return new ConstructorArgumentValues.ValueHolder(value, type, name);
+	}
+
+	private static void writeValue(DataOutputStream dos, String beanName, @Nullable Object value)
+			throws IOException {
+
+		if (value == null) {
+			dos.writeByte(VALUE_NULL);
+		}
+		else if (value instanceof String) {
+			dos.writeByte(VALUE_STRING);
+			writeString(dos, (String) value);
+		}
+		else if (value instanceof Boolean) {
+			dos.writeByte(VALUE_BOOLEAN);
+			dos.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			dos.writeByte(VALUE_INTEGER);
+			dos.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			dos.writeByte(VALUE_LONG);
+			dos.writeLong((Long) value);
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue typedValue = (TypedStringValue) value;
+			dos.writeByte(VALUE_TYPED_STRING);
+			writeString(dos, typedValue.getValue());
+			writeString(dos, typedValue.getTargetTypeName());
+			dos.writeBoolean(typedValue.isDynamic());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			dos.writeByte(VALUE_BEAN_REFERENCE);
+			writeString(dos, reference.getBeanName());
+			dos.writeBoolean(reference.isToParent());
+		}
+		else if (value instanceof RuntimeBeanNameReference) {
+			dos.writeByte(VALUE_BEAN_NAME_REFERENCE);
+			writeString(dos, ((RuntimeBeanNameReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			dos.writeByte(VALUE_INNER_BEAN);
+			writeHolder(dos, (BeanDefinitionHolder) value);
+		}
+		else if (value instanceof ManagedList) {
+			ManagedList<?> list = (ManagedList<?>) value;
+			dos.writeByte(value instanceof ManagedArray ? VALUE_ARRAY : VALUE_LIST);
+			writeString(dos, list.getElementTypeName());
+			dos.writeBoolean(list.isMergeEnabled());
+			dos.writeInt(list.size());
+			for (Object element : list) {
+				writeValue(dos, beanName, element);
+			}
+		}
+		else if (value instanceof ManagedSet) {
+			ManagedSet<?> set = (ManagedSet<?>) value;
+			dos.writeByte(VALUE_SET);
+			writeString(dos, set.getElementTypeName());
+			dos.writeBoolean(set.isMergeEnabled());
+			dos.writeInt(set.size());
+			for (Object element : set) {
+				writeValue(dos, beanName, element);
+			}
+		}
+		else if (value instanceof ManagedMap) {
+			ManagedMap<?, ?> map = (ManagedMap<?, ?>) value;
+			dos.writeByte(VALUE_MAP);
+			writeString(dos, map.getKeyTypeName());
+			writeString(dos, map.getValueTypeName());
+			dos.writeBoolean(map.isMergeEnabled());
+			dos.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(dos, beanName, entry.getKey());
+				writeValue(dos, beanName, entry.getValue());
+			}
+		}
+		else {
+			throw new IllegalStateException("Cannot record value of type [" + value.getClass().getName() +
+					"] for bean definition '" + beanName + "' in snapshot");
+		}
+	}
+
+	@Nullable
+	private static Object readValue(DataInputStream dis) throws IOException {
+		byte type = dis.readByte();
+		switch (type) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_STRING:
+				return readString(dis);
+			case VALUE_BOOLEAN:
+				return dis.readBoolean();
+			case VALUE_INTEGER:
+				return dis.readInt();
+			case VALUE_LONG:
+				return dis.readLong();
+			case VALUE_TYPED_STRING: {
+				TypedStringValue typedValue = new TypedStringValue(readString(dis));
+				typedValue.setTargetTypeName(readString(dis));
+				if (dis.readBoolean()) {
+					typedValue.setDynamic();
+				}
+				return typedValue;
+			}
+			case VALUE_BEAN_REFERENCE: {
+				String beanName = readString(dis);
+				return new RuntimeBeanReference(beanName, dis.readBoolean());
+			}
+			case VALUE_BEAN_NAME_REFERENCE:
+				return new RuntimeBeanNameReference(readString(dis));
+			case VALUE_INNER_BEAN:
+				return readHolder(dis);
+			case VALUE_LIST:
+			case VALUE_ARRAY: {
+				String elementTypeName = readString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedList<Object> list = (type == VALUE_ARRAY ?
+						new ManagedArray(elementTypeName != null ? elementTypeName : Object.class.getName(), size) :
+						new ManagedList<>(size));
+				list.setElementTypeName(elementTypeName);
+				list.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(dis));
+				}
+				return list;
+			}
+			case VALUE_SET: {
+				String elementTypeName = readString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedSet<Object> set = new ManagedSet<>(size);
+				set.setElementTypeName(elementTypeName);
+				set.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					set.add(readValue(dis));
+				}
+				return set;
+			}
+			case VALUE_MAP: {
+				String keyTypeName = readString(dis);
+				String valueTypeName = readString(dis);
+				boolean mergeEnabled = dis.readBoolean();
+				int size = dis.readInt();
+				ManagedMap<Object, Object> map = new ManagedMap<>(size);
+				map.setKeyTypeName(keyTypeName);
+				map.setValueTypeName(valueTypeName);
+				map.setMergeEnabled(mergeEnabled);
+				for (int i = 0; i < size; i++) {
+					Object key = readValue(dis);
+					map.put(key, readValue(dis));
+				}
+				return map;
+			}
+			default:
+				throw new IOException("Unknown value type " + type);
+		}
+	}
+
+	private static void writeAttributes(DataOutputStream dos, String beanName, AttributeAccessor accessor)
+			throws IOException {
+
+		String[] names = accessor.attributeNames();
+		dos.writeInt(names.length);
+		for (String name : names) {
+			Object value = accessor.getAttribute(name);
+			if (value != null && !(value instanceof String || value instanceof Boolean ||
+					value instanceof Integer || value instanceof Long)) {
+				throw new IllegalStateException("Cannot record attribute '" + name + "' of type [" +
+						value.getClass().getName() + "] for bean definition '" + beanName + "' in snapshot");
+			}
+			writeString(dos, name);
+			writeValue(dos, beanName, value);
+		}
+	}
+
+	private static void readAttributes(DataInputStream dis, AttributeAccessor accessor) throws IOException {
+		int count = dis.readInt();
+		for (int i = 0; i < count; i++) {
+			String name = readString(dis);
+			accessor.setAttribute(name, readValue(dis));
+		}
+	}
+
+	private static void writeStringMap(DataOutputStream dos, Map<String, String> map) throws IOException {
+		dos.writeInt(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			writeString(dos, entry.getKey());
+			writeString(dos, entry.getValue());
+		}
+	}
+
+	private static Map<String, String> readStringMap(DataInputStream dis) throws IOException {
+		int size = dis.readInt();
+		Map<String, String> map = new LinkedHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			String key = readString(dis);
+			map.put(key, readString(dis));
+		}
+		return map;
+	}
+
+	private static void writeStrings(DataOutputStream dos, @Nullable String[] values) throws IOException {
+		if (values == null) {
+			dos.writeInt(-1);
+			return;
+		}
+		dos.writeInt(values.length);
+		for (String value : values) {
+			writeString(dos, value);
+		}
+	}
+
+	@Nullable
+	private static String[] readStrings(DataInputStream dis) throws IOException {
+		int length = dis.readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = readString(dis);
+		}
+		return values;
+	}
+
+	private static void writeString(DataOutputStream dos, @Nullable String value) throws IOException {
+		if (value == null) {
+			dos.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		dos.writeInt(bytes.length);
+		dos.write(bytes);
+	}
+
+	@Nullable
+	private static String readString(DataInputStream dis) throws IOException {
+		int length = dis.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		dis.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+
+	@Override
+	public String toString() {
+		return "BeanDefinitionSnapshot with " + this.beanDefinitions.size() + " bean definitions for profiles " +
+				ObjectUtils.nullSafeToString(this.profiles);
+	}
+
+
+	/**
+	 * Recorded {@link Bean} method definition, only accepting {@code @Bean}-annotated
+	 * factory methods just like the bean definitions derived from the configuration model.
+	 */
+	@SuppressWarnings("serial")
+	private static class BeanMethodDefinition extends RootBeanDefinition {
+
+		public BeanMethodDefinition() {
+			setLenientConstructorResolution(false);
+		}
+
+		private BeanMethodDefinition(BeanMethodDefinition original) {
+			super(original);
+		}
+
+		@Override
+		public boolean isFactoryMethod(Method candidate) {
+			return (super.isFactoryMethod(candidate) && BeanAnnotationHelper.isBeanAnnotated(candidate));
+		}
+
+		@Override
+		public BeanMethodDefinition cloneBeanDefinition() {
+			return new BeanMethodDefinition(this);
+		}
+	}
+
+
+	/**
+	 * Recorded {@link PropertySource} declaration, keeping the attributes that
+	 * {@link ConfigurationClassParser} needs for adding the property sources again.
+	 */
+	private static final class PropertySourceDeclaration {
+
+		private final String name;
+
+		private final String[] locations;
+
+		private final boolean ignoreResourceNotFound;
+
+		private final String encoding;
+
+		private final String factoryClassName;
+
+		public PropertySourceDeclaration(AnnotationAttributes attributes) {
+			this(attributes.getString("name"), attributes.getStringArray("value"),
+					attributes.getBoolean("ignoreResourceNotFound"), attributes.getString("encoding"),
+					attributes.getClass("factory").getName());
+		}
+
+		private PropertySourceDeclaration(String name, String[] locations, boolean ignoreResourceNotFound,
+				String encoding, String factoryClassName) {
+
+			this.name = name;
+			this.locations = locations;
+			this.ignoreResourceNotFound = ignoreResourceNotFound;
+			this.encoding = encoding;
+			this.factoryClassName = factoryClassName;
+		}
+
+		public AnnotationAttributes toAttributes(@Nullable ClassLoader classLoader) {
+			AnnotationAttributes attributes = new AnnotationAttributes(PropertySource.class);
+			attributes.put("name", this.name);
+			attributes.put("value", this.locations);
+			attributes.put("ignoreResourceNotFound", this.ignoreResourceNotFound);
+			attributes.put("encoding", this.encoding);
+			attributes.put("factory", ClassUtils.resolveClassName(this.factoryClassName, classLoader));
+			return attributes;
+		}
+
+		public void writeTo(DataOutputStream dos) throws IOException {
+			writeString(dos, this.name);
+			writeStrings(dos, this.locations);
+			dos.writeBoolean(this.ignoreResourceNotFound);
+			writeString(dos, this.encoding);
+			writeString(dos, this.factoryClassName);
+		}
+
+		public static PropertySourceDeclaration readFrom(DataInputStream dis) throws IOException {
+			return new PropertySourceDeclaration(readString(dis), readStrings(dis), dis.readBoolean(),
+					readString(dis), readString(dis));
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by recorded class names, reading the metadata
+	 * of importing classes on demand for {@link ImportAware} configuration classes.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> imports;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		public SnapshotImportRegistry(Map<String, String> imports, MetadataReaderFactory metadataReaderFactory) {
+			this.imports = new LinkedHashMap<>(imports);
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.imports.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClass).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read metadata for importing class " + importingClass, ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.imports.values().removeIf(importingClass::equals);
+		}
+	}
+
+}
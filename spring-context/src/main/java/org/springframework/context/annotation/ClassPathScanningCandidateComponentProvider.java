@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -113,6 +114,8 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	private boolean parallelScanning = false;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -303,6 +306,33 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	}
 
 
+	/**
+	 * Set whether to read the class files found during classpath scanning
+	 * in parallel, in the {@link java.util.concurrent.ForkJoinPool#commonPool()
+	 * common ForkJoinPool}.
+	 * <p>Default is "false". The candidate components are still determined and
+	 * returned in the order of the class files, so the resulting bean definitions
+	 * are the same as with sequential scanning. Note that the configured
+	 * {@link MetadataReaderFactory} needs to be thread-safe in this case,
+	 * as the default {@link CachingMetadataReaderFactory} is.
+	 * <p>For a parallel search of the classpath roots themselves, enable
+	 * {@link PathMatchingResourcePatternResolver#setParallelScanning parallel scanning}
+	 * on the resource pattern resolver used as {@link #setResourceLoader resource loader}.
+	 * @since 5.1
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether class files are read in parallel during classpath scanning.
+	 * @since 5.1
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
+
 	/**
 	 * Scan the class path for candidate components.
 	 * @param basePackage the package to check for annotated classes
@@ -419,15 +449,19 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
+			ScannedResource[] scannedResources = (this.parallelScanning ? readInParallel(resources) : null);
 			boolean traceEnabled = logger.isTraceEnabled();
 			boolean debugEnabled = logger.isDebugEnabled();
-			for (Resource resource : resources) {
+			for (int i = 0; i < resources.length; i++) {
+				Resource resource = resources[i];
 				if (traceEnabled) {
 					logger.trace("Scanning " + resource);
 				}
-				if (resource.isReadable()) {
+				if (scannedResources != null ? scannedResources[i].readable : resource.isReadable()) {
 					try {
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+						MetadataReader metadataReader = (scannedResources != null ?
+								scannedResources[i].getMetadataReader() :
+								getMetadataReaderFactory().getMetadataReader(resource));
 						if (isCandidateComponent(metadataReader)) {
 							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
 							sbd.setResource(resource);
@@ -468,6 +502,30 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Read the metadata of the given resources in parallel, keeping any
+	 * failure for the sequential evaluation of the candidate components.
+	 */
+	private ScannedResource[] readInParallel(Resource[] resources) {
+		MetadataReaderFactory metadataReaderFactory = getMetadataReaderFactory();
+		ScannedResource[] scannedResources = new ScannedResource[resources.length];
+		IntStream.range(0, resources.length).parallel().forEach(i -> {
+			ScannedResource scannedResource = new ScannedResource();
+			try {
+				scannedResource.readable = resources[i].isReadable();
+				if (scannedResource.readable) {
+					scannedResource.metadataReader = metadataReaderFactory.getMetadataReader(resources[i]);
+				}
+			}
+			catch (Throwable ex) {
+				scannedResource.readable = true;
+				scannedResource.failure = ex;
+			}
+			scannedResources[i] = scannedResource;
+		});
+		return scannedResources;
+	}
+
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
@@ -541,4 +599,27 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		}
 	}
 
+
+	/**
+	 * Outcome of reading a resource during parallel classpath scanning.
+	 */
+	private static class ScannedResource {
+
+		boolean readable;
+
+		@Nullable
+		MetadataReader metadataReader;
+
+		@Nullable
+		Throwable failure;
+
+		public MetadataReader getMetadataReader() throws Throwable {
+			if (this.failure != null) {
+				throw this.failure;
+			}
+			Assert.state(this.metadataReader != null, "No MetadataReader");
+			return this.metadataReader;
+		}
+	}
+
 }
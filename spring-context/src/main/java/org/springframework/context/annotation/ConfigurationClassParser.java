@@ -135,6 +135,8 @@ class ConfigurationClassParser {
 
 	private final List<String> propertySourceNames = new ArrayList<>();
 
+	private final List<AnnotationAttributes> propertySources = new ArrayList<>();
+
 	private final ImportStack importStack = new ImportStack();
 
 	@Nullable
@@ -437,6 +439,7 @@ class ConfigurationClassParser {
 	 * @throws IOException if loading a property source failed
 	 */
 	private void processPropertySource(AnnotationAttributes propertySource) throws IOException {
+		this.propertySources.add(propertySource);
 		String name = propertySource.getString("name");
 		if (!StringUtils.hasLength(name)) {
 			name = null;
@@ -678,6 +681,40 @@ class ConfigurationClassParser {
 		return this.importStack;
 	}
 
+	/**
+	 * Return the {@code @PropertySource} declarations processed so far, in the
+	 * order in which their property sources have been added to the environment.
+	 * @since 5.1
+	 */
+	List<AnnotationAttributes> getPropertySources() {
+		return this.propertySources;
+	}
+
+	/**
+	 * Process the given {@code @PropertySource} declarations, as previously returned
+	 * by {@link #getPropertySources()}, without parsing any configuration class.
+	 * @param propertySources the declarations to process, in their original order
+	 * @throws IOException if loading a property source failed
+	 * @since 5.1
+	 */
+	void processPropertySources(List<AnnotationAttributes> propertySources) throws IOException {
+		if (!(this.environment instanceof ConfigurableEnvironment)) {
+			logger.warn("Ignoring @PropertySource declarations: Environment must implement ConfigurableEnvironment");
+			return;
+		}
+		for (AnnotationAttributes propertySource : propertySources) {
+			processPropertySource(propertySource);
+		}
+	}
+
+	/**
+	 * Return the resource patterns scanned for candidate components so far.
+	 * @since 5.1
+	 */
+	Set<String> getComponentScanPatterns() {
+		return this.componentScanParser.getScanPatterns();
+	}
+
 
 	/**
 	 * Factory method to obtain a {@link SourceClass} from a {@link ConfigurationClass}.
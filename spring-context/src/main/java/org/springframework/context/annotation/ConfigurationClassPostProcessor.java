@@ -17,6 +17,10 @@
 package org.springframework.context.annotation;
 
 import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -53,6 +57,8 @@ import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ConfigurationClassEnhancer.EnhancedConfiguration;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
@@ -79,6 +85,10 @@ import static org.springframework.context.annotation.AnnotationConfigUtils.*;
  * respective bean definitions registered before any other BeanFactoryPostProcessor
  * executes.
  *
+ * <p>If a current {@link BeanDefinitionSnapshot} is found on the classpath, its
+ * pre-computed bean definitions get registered instead of parsing the configuration
+ * classes, skipping classpath scanning as well.
+ *
  * @author Chris Beams
  * @author Juergen Hoeller
  * @author Phillip Webb
@@ -314,6 +324,15 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			this.environment = new StandardEnvironment();
 		}
 
+		// Register a pre-computed snapshot of the configuration model instead, if still current
+		Map<String, String> rootBeans = new LinkedHashMap<>(candidateNames.length);
+		for (String beanName : candidateNames) {
+			rootBeans.put(beanName, registry.getBeanDefinition(beanName).getBeanClassName());
+		}
+		if (registerBeanDefinitionSnapshot(registry, rootBeans, sbr)) {
+			return;
+		}
+
 		// Parse each @Configuration class
 		ConfigurationClassParser parser = new ConfigurationClassParser(
 				this.metadataReaderFactory, this.problemReporter, this.environment,
@@ -365,6 +384,11 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, parser.getImportRegistry());
 		}
 
+		String snapshotOutput = SpringProperties.getProperty(BeanDefinitionSnapshot.SNAPSHOT_OUTPUT);
+		if (snapshotOutput != null) {
+			recordBeanDefinitionSnapshot(registry, rootBeans, parser, snapshotOutput);
+		}
+
 		if (this.metadataReaderFactory instanceof CachingMetadataReaderFactory) {
 			// Clear cache in externally provided MetadataReaderFactory; this is a no-op
 			// for a shared cache since it'll be cleared by the ApplicationContext.
@@ -372,6 +396,71 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		}
 	}
 
+	private boolean registerBeanDefinitionSnapshot(
+			BeanDefinitionRegistry registry, Map<String, String> rootBeans, @Nullable SingletonBeanRegistry sbr) {
+
+		Assert.state(this.environment != null, "No Environment set");
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.loadSnapshot(this.beanClassLoader);
+		if (snapshot == null) {
+			return false;
+		}
+		if (!snapshot.isCurrent(rootBeans, this.environment, this.beanClassLoader)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring stale " + snapshot + " - parsing configuration classes");
+			}
+			return false;
+		}
+		List<AnnotationAttributes> propertySources = snapshot.getPropertySources(this.beanClassLoader);
+		if (!propertySources.isEmpty()) {
+			// Add the property sources that parsing would have added to the environment
+			ConfigurationClassParser parser = new ConfigurationClassParser(
+					this.metadataReaderFactory, this.problemReporter, this.environment,
+					this.resourceLoader, this.componentScanBeanNameGenerator, registry);
+			try {
+				parser.processPropertySources(propertySources);
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to process @PropertySource declarations recorded in " + snapshot, ex);
+			}
+		}
+		int count = snapshot.registerBeanDefinitions(registry);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Registered " + count + " bean definitions from " + snapshot);
+		}
+		if (sbr != null && !sbr.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+			sbr.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, snapshot.getImportRegistry(this.metadataReaderFactory));
+		}
+		return true;
+	}
+
+	private void recordBeanDefinitionSnapshot(BeanDefinitionRegistry registry, Map<String, String> rootBeans,
+			ConfigurationClassParser parser, String location) {
+
+		Assert.state(this.environment != null, "No Environment set");
+		try {
+			BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(registry, rootBeans, this.environment,
+					parser.getComponentScanPatterns(), parser.getPropertySources(), parser.getImportRegistry(),
+					this.beanClassLoader);
+			File file = new File(location);
+			File parent = file.getParentFile();
+			if (parent != null && !parent.exists() && !parent.mkdirs()) {
+				throw new IOException("Unable to create directory " + parent);
+			}
+			try (OutputStream out = new FileOutputStream(file)) {
+				snapshot.writeTo(out);
+			}
+			if (logger.isInfoEnabled()) {
+				logger.info("Recorded " + snapshot + " to " + file.getAbsolutePath());
+			}
+		}
+		catch (IllegalStateException | IOException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Unable to record bean definition snapshot to [" + location + "]: " + ex.getMessage());
+			}
+		}
+	}
+
 	/**
 	 * Post-processes a BeanFactory in search of Configuration class BeanDefinitions;
 	 * any candidates are then enhanced by a {@link ConfigurationClassEnhancer}.
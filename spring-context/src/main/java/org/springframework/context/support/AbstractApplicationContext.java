@@ -76,6 +76,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -215,6 +217,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Nullable
 	private Set<ApplicationEvent> earlyApplicationEvents;
 
+	/** Recorder for the steps of the context startup */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
@@ -513,92 +518,115 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return this.applicationListeners;
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	@Override
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
-			// Prepare this context for refreshing.
-			// 初始化容器状态并对系统属性及环境变量进行验证
-			prepareRefresh();
+			StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
+			try {
+				// Prepare this context for refreshing.
+				// 初始化容器状态并对系统属性及环境变量进行验证
+				prepareRefresh();
 
-			// Tell the subclass to refresh the internal bean factory.
-			// 初始化BeanFactory，解析资源文件注册BeanDefinition到BeanFactory
-			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
+				// Tell the subclass to refresh the internal bean factory.
+				// 初始化BeanFactory，解析资源文件注册BeanDefinition到BeanFactory
+				ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
 
-			// Prepare the bean factory for use in this context.
-			// 初始化beanFactory的组件
-			prepareBeanFactory(beanFactory);
+				// Prepare the bean factory for use in this context.
+				// 初始化beanFactory的组件
+				prepareBeanFactory(beanFactory);
 
-			try {
-				// Allows post-processing of the bean factory in context subclasses.
-				// 供子类实现的方法，调用该方法时所有的bean definition都已经注册，但是所有的bean都还没有开始创建，此时可以添加自定义的BeanPostProcessor
-				postProcessBeanFactory(beanFactory);
-
-				// Invoke factory processors registered as beans in the context.
-				// 调用AbstractApplicationContext的成员变量beanFactoryPostProcessors中保存的所有实现了BeanFactoryPostProcessor接口的对象和BeanFactory中实现了
-				// BeanFactoryPostProcessor接口的bean的postProcessBeanFactory方法，该方法用于通知这些对象BeanFactory初始化完成，如果beanFactory是BeanDefinitionRegistry类型的，
-				// 还会调用beanFactoryPostProcessors成员变量和所有的bean中实现了BeanDefinitionRegistryPostProcessor接口对象的postProcessBeanDefinitionRegistry方法，
-				// 该方法用于通知这些对象BeanDefinitionRegistry初始化完成
-				invokeBeanFactoryPostProcessors(beanFactory);
-
-				// Register bean processors that intercept bean creation.
-				// 注册所有的BeanPostProcessor到beanFactory中，上面的invokeBeanFactoryPostProcessors只会初始化所有的BeanFactoryPostProcessor和
-				// BeanDefinitionRegistryPostProcessor类型的bean，这里查找所有的BeanPostProcessor类型的bean并初始化，同时也要注意如果一个BeanFactoryPostProcessor或
-				// BeanDefinitionRegistryPostProcessor类型的bean依赖了其他的bean，在invokeBeanFactoryPostProcessors初始化这个BeanFactoryPostProcessor或
-				// BeanDefinitionRegistryPostProcessor类型的bean时被依赖的bean会先于BeanFactoryPostProcessor或BeanDefinitionRegistryPostProcessor类型的bean
-				// 创建，而此时所有的BeanPostProcessor都还没有被注册到beanFactory的beanPostProcessors列表中，所以这种情况下的BeanPostProcessor类型的bean的两个监听方法在初始化其他bean的时候不会被调用，
-				// 如Bean A是BeanDefinitionRegistryPostProcessor类型的，Bean A有成员变量Bean B，Bean C是BeanPostProcessor，这种情况下Bean A在invokeBeanFactoryPostProcessors
-				// 方法中被初始化并调用postProcessBeanFactory和postProcessBeanDefinitionRegistry方法，并会在初始化Bean A的时候先初始化Bean B，Bean C监听不到Bean B的创建，
-				// 同样在registerBeanPostProcessors只是初始化了所有的BeanPostProcessor并添加到beanFactory中，所以BeanPostProcessor之间也是不会监听到创建，
-				// 只有在registerBeanPostProcessors调用后BeanPostProcessor才会生效
-				registerBeanPostProcessors(beanFactory);
-
-				// Initialize message source for this context.
-				// 初始化MessageSource，MessageSource用于实现国际化
-				initMessageSource();
-
-				// Initialize event multicaster for this context.
-				// 初始化ApplicationEventMulticaster，默认实现是SimpleApplicationEventMulticaster
-				initApplicationEventMulticaster();
-
-				// Initialize other special beans in specific context subclasses.
-				// 供子类实现，可用于初始化自定义的bean或执行其他初始化工作，注意该方法执行的时候普通的bean还没有初始化
-				onRefresh();
-
-				// Check for listener beans and register them.
-				// 初始化ApplicationListener类型的bean，并把保存在earlyApplicationEvents中的事件广播到所有的ApplicationListener，
-				// 之后清空earlyApplicationEvents以便事件广播能够正常工作，earlyApplicationEvents的目的是在调用initApplicationEventMulticaster
-				// 初始化ApplicationEventMulticaster之前保存被要求发布的事件
-				registerListeners();
-
-				// Instantiate all remaining (non-lazy-init) singletons.
-				// 初始化剩余的非lazy-init的单例bean及ConversionService、LoadTimeWeaverAware等类型的bean
-				finishBeanFactoryInitialization(beanFactory);
-
-				// Last step: publish corresponding event.
-				// 初始化lifecycleProcessor bean并调用lifecycleProcessor的onRefresh，发送ContextRefreshedEvent事件
-				finishRefresh();
-			}
+				try {
+					StartupStep beanPostProcess = this.applicationStartup.start("spring.context.beans.post-process");
+					try {
+						// Allows post-processing of the bean factory in context subclasses.
+						// 供子类实现的方法，调用该方法时所有的bean definition都已经注册，但是所有的bean都还没有开始创建，此时可以添加自定义的BeanPostProcessor
+						postProcessBeanFactory(beanFactory);
+
+						// Invoke factory processors registered as beans in the context.
+						// 调用AbstractApplicationContext的成员变量beanFactoryPostProcessors中保存的所有实现了BeanFactoryPostProcessor接口的对象和BeanFactory中实现了
+						// BeanFactoryPostProcessor接口的bean的postProcessBeanFactory方法，该方法用于通知这些对象BeanFactory初始化完成，如果beanFactory是BeanDefinitionRegistry类型的，
+						// 还会调用beanFactoryPostProcessors成员变量和所有的bean中实现了BeanDefinitionRegistryPostProcessor接口对象的postProcessBeanDefinitionRegistry方法，
+						// 该方法用于通知这些对象BeanDefinitionRegistry初始化完成
+						invokeBeanFactoryPostProcessors(beanFactory);
+
+						// Register bean processors that intercept bean creation.
+						// 注册所有的BeanPostProcessor到beanFactory中，上面的invokeBeanFactoryPostProcessors只会初始化所有的BeanFactoryPostProcessor和
+						// BeanDefinitionRegistryPostProcessor类型的bean，这里查找所有的BeanPostProcessor类型的bean并初始化，同时也要注意如果一个BeanFactoryPostProcessor或
+						// BeanDefinitionRegistryPostProcessor类型的bean依赖了其他的bean，在invokeBeanFactoryPostProcessors初始化这个BeanFactoryPostProcessor或
+						// BeanDefinitionRegistryPostProcessor类型的bean时被依赖的bean会先于BeanFactoryPostProcessor或BeanDefinitionRegistryPostProcessor类型的bean
+						// 创建，而此时所有的BeanPostProcessor都还没有被注册到beanFactory的beanPostProcessors列表中，所以这种情况下的BeanPostProcessor类型的bean的两个监听方法在初始化其他bean的时候不会被调用，
+						// 如Bean A是BeanDefinitionRegistryPostProcessor类型的，Bean A有成员变量Bean B，Bean C是BeanPostProcessor，这种情况下Bean A在invokeBeanFactoryPostProcessors
+						// 方法中被初始化并调用postProcessBeanFactory和postProcessBeanDefinitionRegistry方法，并会在初始化Bean A的时候先初始化Bean B，Bean C监听不到Bean B的创建，
+						// 同样在registerBeanPostProcessors只是初始化了所有的BeanPostProcessor并添加到beanFactory中，所以BeanPostProcessor之间也是不会监听到创建，
+						// 只有在registerBeanPostProcessors调用后BeanPostProcessor才会生效
+						registerBeanPostProcessors(beanFactory);
+					}
+					finally {
+						beanPostProcess.end();
+					}
 
-			catch (BeansException ex) {
-				if (logger.isWarnEnabled()) {
-					logger.warn("Exception encountered during context initialization - " +
-							"cancelling refresh attempt: " + ex);
+					// Initialize message source for this context.
+					// 初始化MessageSource，MessageSource用于实现国际化
+					initMessageSource();
+
+					// Initialize event multicaster for this context.
+					// 初始化ApplicationEventMulticaster，默认实现是SimpleApplicationEventMulticaster
+					initApplicationEventMulticaster();
+
+					// Initialize other special beans in specific context subclasses.
+					// 供子类实现，可用于初始化自定义的bean或执行其他初始化工作，注意该方法执行的时候普通的bean还没有初始化
+					onRefresh();
+
+					// Check for listener beans and register them.
+					// 初始化ApplicationListener类型的bean，并把保存在earlyApplicationEvents中的事件广播到所有的ApplicationListener，
+					// 之后清空earlyApplicationEvents以便事件广播能够正常工作，earlyApplicationEvents的目的是在调用initApplicationEventMulticaster
+					// 初始化ApplicationEventMulticaster之前保存被要求发布的事件
+					registerListeners();
+
+					// Instantiate all remaining (non-lazy-init) singletons.
+					// 初始化剩余的非lazy-init的单例bean及ConversionService、LoadTimeWeaverAware等类型的bean
+					finishBeanFactoryInitialization(beanFactory);
+
+					// Last step: publish corresponding event.
+					// 初始化lifecycleProcessor bean并调用lifecycleProcessor的onRefresh，发送ContextRefreshedEvent事件
+					finishRefresh();
 				}
 
-				// Destroy already created singletons to avoid dangling resources.
-				destroyBeans();
+				catch (BeansException ex) {
+					if (logger.isWarnEnabled()) {
+						logger.warn("Exception encountered during context initialization - " +
+								"cancelling refresh attempt: " + ex);
+					}
 
-				// Reset 'active' flag.
-				cancelRefresh(ex);
+					// Destroy already created singletons to avoid dangling resources.
+					destroyBeans();
 
-				// Propagate exception to caller.
-				throw ex;
-			}
+					// Reset 'active' flag.
+					cancelRefresh(ex);
 
+					// Propagate exception to caller.
+					throw ex;
+				}
+
+				finally {
+					// Reset common introspection caches in Spring's core, since we
+					// might not ever need metadata for singleton beans anymore...
+					resetCommonCaches();
+				}
+			}
 			finally {
-				// Reset common introspection caches in Spring's core, since we
-				// might not ever need metadata for singleton beans anymore...
-				resetCommonCaches();
+				contextRefresh.end();
 			}
 		}
 	}
@@ -667,6 +695,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	protected void prepareBeanFactory(ConfigurableListableBeanFactory beanFactory) {
 		// Tell the internal bean factory to use the context's class loader etc.
 		beanFactory.setBeanClassLoader(getClassLoader());
+		beanFactory.setApplicationStartup(getApplicationStartup());
 		// 用于支持#{bean.xxx}这样的SPEL表达式
 		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver(beanFactory.getBeanClassLoader()));
 		// 添加属性注册编辑器注册器，在创建Bean实例时初始化BeanWrapper的会调用这里的ResourceEditorRegistrar的registerCustomEditors方法为BeanWrapper添加
@@ -957,7 +986,13 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		initLifecycleProcessor();
 
 		// Propagate refresh to lifecycle processor first.
-		getLifecycleProcessor().onRefresh();
+		StartupStep lifecycleStart = this.applicationStartup.start("spring.context.lifecycle.start");
+		try {
+			getLifecycleProcessor().onRefresh();
+		}
+		finally {
+			lifecycleStart.end();
+		}
 
 		// Publish the final event.
 		// 通过ApplicationEventMulticaster分发事件
@@ -17,17 +17,21 @@
 package org.springframework.aop.framework;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.Test;
 import test.mixin.LockMixinAdvisor;
 
+import org.springframework.aop.Advisor;
 import org.springframework.aop.ClassFilter;
 import org.springframework.aop.MethodMatcher;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextException;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
@@ -214,6 +218,64 @@ public class CglibProxyTests extends AbstractAopProxyTests implements Serializab
 		return (ITestBean) pf.getProxy();
 	}
 
+	@Test
+	public void testMultipleProxiesWithDistinctButEquivalentPointcuts() {
+		ITestBean proxy1 = getNameMatchingProxy(new TestBean(), "getAge");
+		ITestBean proxy2 = getNameMatchingProxy(new TestBean(), "getAge");
+		ITestBean proxy3 = getNameMatchingProxy(new TestBean(), "getName");
+		assertSame(proxy1.getClass(), proxy2.getClass());
+		assertNotSame(proxy1.getClass(), proxy3.getClass());
+	}
+
+	private ITestBean getNameMatchingProxy(TestBean target, String methodName) {
+		ProxyFactory pf = new ProxyFactory(new Class<?>[]{ITestBean.class});
+		pf.setProxyTargetClass(true);
+
+		// Pointcut without equals implementation: never equal to the pointcut of another proxy
+		Pointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				return method.getName().equals(methodName);
+			}
+		};
+		pf.addAdvisor(new DefaultPointcutAdvisor(pointcut, new NopInterceptor()));
+
+		pf.setTarget(target);
+		pf.setFrozen(true);
+		pf.setExposeProxy(false);
+
+		return (ITestBean) pf.getProxy();
+	}
+
+	@Test
+	public void testMultipleProxiesWithSameAdvisorsDoNotMatchMethodsAgain() {
+		AtomicInteger matchCount = new AtomicInteger();
+		Pointcut pointcut = new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				matchCount.incrementAndGet();
+				return method.getName().equals("getAge");
+			}
+		};
+		Advisor advisor = new DefaultPointcutAdvisor(pointcut, new NopInterceptor());
+
+		// Dedicated target class: no other proxy configuration in the cache to compare against
+		ITestBean proxy1 = getAdvisedProxy(new SharedAdvisorsTestBean(), advisor);
+		assertTrue(matchCount.get() > 0);
+		matchCount.set(0);
+		ITestBean proxy2 = getAdvisedProxy(new SharedAdvisorsTestBean(), advisor);
+		assertSame(proxy1.getClass(), proxy2.getClass());
+		assertEquals(0, matchCount.get());
+	}
+
+	private ITestBean getAdvisedProxy(TestBean target, Advisor advisor) {
+		ProxyFactory pf = new ProxyFactory(new Class<?>[]{ITestBean.class});
+		pf.setProxyTargetClass(true);
+		pf.addAdvisor(advisor);
+		pf.setTarget(target);
+		return (ITestBean) pf.getProxy();
+	}
+
 	@Test
 	public void testMultipleProxiesForIntroductionAdvisor() {
 		TestBean target1 = new TestBean();
@@ -480,6 +542,10 @@ public class CglibProxyTests extends AbstractAopProxyTests implements Serializab
 			return this.value;
 		}
 	}
+
+
+	public static class SharedAdvisorsTestBean extends TestBean {
+	}
 }
 
 
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.ConfigurationClassEnhancer.EnhancedConfiguration;
+import org.springframework.context.annotation.componentscan.level3.Level3Component;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshot}.
+ *
+ * @since 5.1
+ */
+public class BeanDefinitionSnapshotTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private File snapshotFile;
+
+
+	@Before
+	public void recordSnapshot() throws Exception {
+		this.snapshotFile = new File(this.folder.getRoot(), BeanDefinitionSnapshot.SNAPSHOT_RESOURCE_LOCATION);
+		SpringProperties.setProperty(BeanDefinitionSnapshot.SNAPSHOT_OUTPUT, this.snapshotFile.getAbsolutePath());
+		try {
+			new AnnotationConfigApplicationContext(SnapshotConfig.class).close();
+		}
+		finally {
+			SpringProperties.setProperty(BeanDefinitionSnapshot.SNAPSHOT_OUTPUT, null);
+		}
+		CountingImportSelector.invocations = 0;
+		SpringProperties.setFlag(BeanDefinitionSnapshot.USE_SNAPSHOT);
+	}
+
+	@After
+	public void resetUseFlag() {
+		SpringProperties.setProperty(BeanDefinitionSnapshot.USE_SNAPSHOT, null);
+	}
+
+
+	@Test
+	public void snapshotRoundTrip() throws Exception {
+		assertTrue(this.snapshotFile.exists());
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		try (InputStream is = new FileInputStream(this.snapshotFile)) {
+			BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.readFrom(is);
+			assertEquals(4, snapshot.registerBeanDefinitions(beanFactory));
+		}
+		assertTrue(beanFactory.containsBeanDefinition("testBean"));
+		assertTrue(beanFactory.containsBeanDefinition("level3Component"));
+		assertTrue(beanFactory.containsBeanDefinition("spouse"));
+		assertTrue(beanFactory.isAlias("wife"));
+		assertTrue(beanFactory.containsBeanDefinition(ImportedConfig.class.getName()));
+	}
+
+	@Test
+	public void snapshotSkipsConfigurationClassParsing() throws Exception {
+		AnnotationConfigApplicationContext ctx = createContext();
+		ctx.refresh();
+
+		assertEquals(0, CountingImportSelector.invocations);
+		TestBean testBean = ctx.getBean("testBean", TestBean.class);
+		assertSame(ctx.getBean("wife"), testBean.getSpouse());
+		assertTrue(ctx.getBean(SnapshotConfig.class) instanceof EnhancedConfiguration);
+		AnnotationMetadata importMetadata = ctx.getBean(ImportedConfig.class).importMetadata;
+		assertNotNull(importMetadata);
+		assertEquals(SnapshotConfig.class.getName(), importMetadata.getClassName());
+		assertNotNull(ctx.getBean(Level3Component.class));
+		assertEquals("p2TestBean", ctx.getEnvironment().getProperty("testbean.name"));
+		ctx.close();
+	}
+
+	@Test
+	public void staleSnapshotForDifferentProfiles() throws Exception {
+		AnnotationConfigApplicationContext ctx = createContext();
+		ctx.getEnvironment().setActiveProfiles("other");
+		ctx.refresh();
+
+		assertEquals(1, CountingImportSelector.invocations);
+		assertNotNull(ctx.getBean("testBean"));
+		ctx.close();
+	}
+
+	@Test
+	public void staleSnapshotForDifferentRootBeans() throws Exception {
+		AnnotationConfigApplicationContext ctx = createContext();
+		ctx.register(OtherConfig.class);
+		ctx.refresh();
+
+		assertEquals(1, CountingImportSelector.invocations);
+		assertNotNull(ctx.getBean("otherBean"));
+		ctx.close();
+	}
+
+	@Test
+	public void staleSnapshotForAddedComponent() throws Exception {
+		File classFile = new File(this.folder.getRoot(),
+				ClassUtils.classPackageAsResourcePath(Level3Component.class) + "/OtherConfig.class");
+		assertTrue(classFile.getParentFile().mkdirs());
+		FileCopyUtils.copy(new ClassPathResource(ClassUtils.convertClassNameToResourcePath(
+				OtherConfig.class.getName()) + ClassUtils.CLASS_FILE_SUFFIX).getInputStream(),
+				new FileOutputStream(classFile));
+		AnnotationConfigApplicationContext ctx = createContext();
+		ctx.refresh();
+
+		assertEquals(1, CountingImportSelector.invocations);
+		assertNotNull(ctx.getBean("otherBean"));
+		assertEquals("p2TestBean", ctx.getEnvironment().getProperty("testbean.name"));
+		ctx.close();
+	}
+
+	@Test
+	public void snapshotNotEnabled() throws Exception {
+		SpringProperties.setProperty(BeanDefinitionSnapshot.USE_SNAPSHOT, null);
+		AnnotationConfigApplicationContext ctx = createContext();
+		ctx.refresh();
+
+		assertEquals(1, CountingImportSelector.invocations);
+		assertNotNull(ctx.getBean("testBean"));
+		ctx.close();
+	}
+
+
+	private AnnotationConfigApplicationContext createContext() throws Exception {
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+		ctx.setClassLoader(new URLClassLoader(
+				new URL[] {this.folder.getRoot().toURI().toURL()}, getClass().getClassLoader()));
+		ctx.register(SnapshotConfig.class);
+		return ctx;
+	}
+
+
+	@Configuration
+	@Import(CountingImportSelector.class)
+	@ComponentScan(basePackageClasses = Level3Component.class)
+	@PropertySource("classpath:org/springframework/context/annotation/p2.properties")
+	static class SnapshotConfig {
+
+		@Bean
+		public TestBean testBean() {
+			TestBean testBean = new TestBean("test");
+			testBean.setSpouse(spouse());
+			return testBean;
+		}
+
+		@Bean(name = {"spouse", "wife"})
+		public TestBean spouse() {
+			return new TestBean("spouse");
+		}
+	}
+
+
+	@Configuration
+	static class OtherConfig {
+
+		@Bean
+		public TestBean otherBean() {
+			return new TestBean("other");
+		}
+	}
+
+
+	static class CountingImportSelector implements ImportSelector {
+
+		static int invocations;
+
+		@Override
+		public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+			invocations++;
+			return new String[] {ImportedConfig.class.getName()};
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+}
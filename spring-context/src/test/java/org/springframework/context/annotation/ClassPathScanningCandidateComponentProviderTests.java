@@ -18,6 +18,8 @@ package org.springframework.context.annotation;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -83,6 +85,21 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testDefault(provider, ScannedGenericBeanDefinition.class);
 	}
 
+	@Test
+	public void defaultsWithParallelScan() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		provider.setParallelScanning(true);
+		testDefault(provider, ScannedGenericBeanDefinition.class);
+
+		ClassPathScanningCandidateComponentProvider sequentialProvider = new ClassPathScanningCandidateComponentProvider(true);
+		sequentialProvider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		assertEquals(getBeanClassNames(sequentialProvider.findCandidateComponents(TEST_BASE_PACKAGE)),
+				getBeanClassNames(provider.findCandidateComponents(TEST_BASE_PACKAGE)));
+	}
+
 	@Test
 	public void defaultsWithIndex() {
 		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
@@ -501,6 +518,14 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		}
 	}
 
+	private List<String> getBeanClassNames(Set<BeanDefinition> candidates) {
+		List<String> beanClassNames = new ArrayList<>();
+		for (BeanDefinition candidate : candidates) {
+			beanClassNames.add(candidate.getBeanClassName());
+		}
+		return beanClassNames;
+	}
+
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (BeanDefinition candidate : candidates) {
 			if (beanClass.getName().equals(candidate.getBeanClassName())) {
@@ -16,11 +16,17 @@
 
 package org.springframework.context.support;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.junit.Test;
 
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
 
 import static org.junit.Assert.*;
 
@@ -104,4 +110,49 @@ public class GenericApplicationContextTests {
 		}
 	}
 
+	@Test
+	public void refreshWithApplicationStartup() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+		GenericApplicationContext ac = new GenericApplicationContext();
+		ac.setApplicationStartup(applicationStartup);
+		ac.registerBeanDefinition("testBean", new RootBeanDefinition(String.class));
+		ac.refresh();
+
+		assertSame(applicationStartup, ac.getBeanFactory().getApplicationStartup());
+		List<BufferedStartupStep> steps = applicationStartup.getBufferedSteps();
+		List<String> names = steps.stream().map(BufferedStartupStep::getName).collect(Collectors.toList());
+		assertTrue(names.contains("spring.context.beans.post-process"));
+		assertTrue(names.contains("spring.context.lifecycle.start"));
+		BufferedStartupStep refresh = steps.get(names.indexOf("spring.context.refresh"));
+		assertNull(refresh.getParentId());
+		BufferedStartupStep instantiate = steps.stream()
+				.filter(step -> step.getName().equals("spring.beans.instantiate") &&
+						step.getTags().iterator().next().getValue().equals("testBean"))
+				.findFirst().orElseThrow(IllegalStateException::new);
+		assertEquals(Long.valueOf(refresh.getId()), instantiate.getParentId());
+		ac.close();
+	}
+
+	@Test
+	public void failedRefreshEndsApplicationStartupSteps() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+		GenericApplicationContext ac = new GenericApplicationContext();
+		ac.setApplicationStartup(applicationStartup);
+		ac.addBeanFactoryPostProcessor((BeanFactoryPostProcessor) beanFactory -> {
+			throw new IllegalStateException("failed");
+		});
+		try {
+			ac.refresh();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+
+		List<String> names = applicationStartup.getBufferedSteps().stream()
+				.map(BufferedStartupStep::getName).collect(Collectors.toList());
+		assertTrue(names.contains("spring.context.beans.post-process"));
+		assertTrue(names.contains("spring.context.refresh"));
+	}
+
 }
@@ -94,6 +94,10 @@ public class MethodParameter {
 	@Nullable
 	private volatile MethodParameter nestedMethodParameter;
 
+	/** Top-level ResolvableType, cached by {@link ResolvableType#forMethodParameter(MethodParameter)} */
+	@Nullable
+	volatile ResolvableType resolvableType;
+
 
 	/**
 	 * Create a new {@code MethodParameter} for the given method, with nesting level 1.
@@ -165,6 +169,7 @@ public class MethodParameter {
 		this.parameterAnnotations = original.parameterAnnotations;
 		this.parameterNameDiscoverer = original.parameterNameDiscoverer;
 		this.parameterName = original.parameterName;
+		this.resolvableType = original.resolvableType;
 	}
 
 
@@ -373,6 +378,7 @@ public class MethodParameter {
 	 */
 	void setContainingClass(Class<?> containingClass) {
 		this.containingClass = containingClass;
+		this.resolvableType = null;
 	}
 
 	public Class<?> getContainingClass() {
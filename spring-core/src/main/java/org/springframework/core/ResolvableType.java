@@ -93,6 +93,9 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final ConcurrentReferenceHashMap<Class<?>, ResolvableType> classCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -190,7 +193,7 @@ public class ResolvableType implements Serializable {
 		this.typeProvider = null;
 		this.variableResolver = null;
 		this.componentType = null;
-		this.hash = null;
+		this.hash = this.resolved.hashCode();
 	}
 
 
@@ -956,6 +959,8 @@ public class ResolvableType implements Serializable {
 	 * Return a {@link ResolvableType} for the specified {@link Class},
 	 * using the full generic type information for assignability checks.
 	 * For example: {@code ResolvableType.forClass(MyArrayList.class)}.
+	 * <p>As of 5.1, the returned instance is shared for each class, keeping the
+	 * lazily resolved super type, interfaces and generics for subsequent calls.
 	 * @param clazz the class to introspect ({@code null} is semantically
 	 * equivalent to {@code Object.class} for typical use cases here}
 	 * @return a {@link ResolvableType} for the specified class
@@ -963,7 +968,16 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		Class<?> key = (clazz != null ? clazz : Object.class);
+		ResolvableType resolvableType = classCache.get(key);
+		if (resolvableType == null) {
+			resolvableType = new ResolvableType(key);
+			ResolvableType existing = classCache.putIfAbsent(key, resolvableType);
+			if (existing != null) {
+				resolvableType = existing;
+			}
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1247,7 +1261,17 @@ public class ResolvableType implements Serializable {
 	 * @see #forMethodParameter(Method, int)
 	 */
 	public static ResolvableType forMethodParameter(MethodParameter methodParameter) {
-		return forMethodParameter(methodParameter, (Type) null);
+		Assert.notNull(methodParameter, "MethodParameter must not be null");
+		if (methodParameter.getNestingLevel() != 1) {
+			return forMethodParameter(methodParameter, (Type) null);
+		}
+		// The top-level type does not depend on any type indexes: resolve it once per parameter
+		ResolvableType resolvableType = methodParameter.resolvableType;
+		if (resolvableType == null) {
+			resolvableType = forMethodParameter(methodParameter, (Type) null);
+			methodParameter.resolvableType = resolvableType;
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1263,8 +1287,9 @@ public class ResolvableType implements Serializable {
 			@Nullable ResolvableType implementationType) {
 
 		Assert.notNull(methodParameter, "MethodParameter must not be null");
-		implementationType = (implementationType != null ? implementationType :
-				forType(methodParameter.getContainingClass()));
+		if (implementationType == null) {
+			return forMethodParameter(methodParameter);
+		}
 		ResolvableType owner = implementationType.as(methodParameter.getDeclaringClass());
 		return forType(null, new MethodParameterTypeProvider(methodParameter), owner.asVariableResolver()).
 				getNested(methodParameter.getNestingLevel(), methodParameter.typeIndexesPerLevel);
@@ -1389,6 +1414,9 @@ public class ResolvableType implements Serializable {
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
+			if (typeProvider == null && variableResolver == null) {
+				return forClass((Class<?>) type);
+			}
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
@@ -1412,6 +1440,7 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		classCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
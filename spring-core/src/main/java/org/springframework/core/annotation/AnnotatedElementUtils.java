@@ -18,6 +18,7 @@ package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,10 +28,13 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.springframework.core.BridgeMethodResolver;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
@@ -106,6 +110,15 @@ public class AnnotatedElementUtils {
 
 	private static final Processor<Boolean> alwaysTrueAnnotationProcessor = new AlwaysTrueBooleanAnnotationProcessor();
 
+	/** Cache marker for a merged annotation lookup without a result */
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Map<MergedAnnotationCacheKey, Object> mergedAnnotationCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	private static final Map<Class<? extends Annotation>, Set<String>> metaAnnotationTypesCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * Build an adapted {@link AnnotatedElement} for the given annotations,
@@ -385,6 +398,12 @@ public class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A getMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
+		return getCachedResult(element, annotationType, SearchMode.GET,
+				() -> doGetMergedAnnotation(element, annotationType));
+	}
+
+	@Nullable
+	private static <A extends Annotation> A doGetMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
 		// Shortcut: directly present on the element, with no merging needed?
 		if (!(element instanceof Class)) {
 			// Do not use this shortcut against a Class: Inherited annotations
@@ -421,9 +440,13 @@ public class AnnotatedElementUtils {
 	 * @see #findAllMergedAnnotations(AnnotatedElement, Class)
 	 */
 	public static <A extends Annotation> Set<A> getAllMergedAnnotations(AnnotatedElement element, Class<A> annotationType) {
-		MergedAnnotationAttributesProcessor processor = new MergedAnnotationAttributesProcessor(false, false, true);
-		searchWithGetSemantics(element, annotationType, null, processor);
-		return postProcessAndSynthesizeAggregatedResults(element, annotationType, processor.getAggregatedResults());
+		Set<A> annotations = getCachedResult(element, annotationType, SearchMode.GET_ALL, () -> {
+			MergedAnnotationAttributesProcessor processor = new MergedAnnotationAttributesProcessor(false, false, true);
+			searchWithGetSemantics(element, annotationType, null, processor);
+			return postProcessAndSynthesizeAggregatedResults(element, annotationType, processor.getAggregatedResults());
+		});
+		Assert.state(annotations != null, "No annotation set");
+		return new LinkedHashSet<>(annotations);
 	}
 
 	/**
@@ -672,6 +695,12 @@ public class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A findMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
+		return getCachedResult(element, annotationType, SearchMode.FIND,
+				() -> doFindMergedAnnotation(element, annotationType));
+	}
+
+	@Nullable
+	private static <A extends Annotation> A doFindMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
 		// Shortcut: directly present on the element, with no merging needed?
 		if (!(element instanceof Class)) {
 			// Do not use this shortcut against a Class: Inherited annotations
@@ -707,9 +736,13 @@ public class AnnotatedElementUtils {
 	 * @see #getAllMergedAnnotations(AnnotatedElement, Class)
 	 */
 	public static <A extends Annotation> Set<A> findAllMergedAnnotations(AnnotatedElement element, Class<A> annotationType) {
-		MergedAnnotationAttributesProcessor processor = new MergedAnnotationAttributesProcessor(false, false, true);
-		searchWithFindSemantics(element, annotationType, null, processor);
-		return postProcessAndSynthesizeAggregatedResults(element, annotationType, processor.getAggregatedResults());
+		Set<A> annotations = getCachedResult(element, annotationType, SearchMode.FIND_ALL, () -> {
+			MergedAnnotationAttributesProcessor processor = new MergedAnnotationAttributesProcessor(false, false, true);
+			searchWithFindSemantics(element, annotationType, null, processor);
+			return postProcessAndSynthesizeAggregatedResults(element, annotationType, processor.getAggregatedResults());
+		});
+		Assert.state(annotations != null, "No annotation set");
+		return new LinkedHashSet<>(annotations);
 	}
 
 	/**
@@ -950,7 +983,9 @@ public class AnnotatedElementUtils {
 		// Recursively search in meta-annotations
 		for (Annotation annotation : annotations) {
 			Class<? extends Annotation> currentAnnotationType = annotation.annotationType();
-			if (hasSearchableMetaAnnotations(currentAnnotationType, annotationType, annotationName)) {
+			if (hasSearchableMetaAnnotations(currentAnnotationType, annotationType, annotationName) &&
+					(processor.alwaysProcesses() ||
+							mayHaveMetaAnnotation(currentAnnotationType, annotationType, annotationName, containerType))) {
 				T result = searchWithGetSemantics(currentAnnotationType, annotationType,
 						annotationName, containerType, processor, visited, metaDepth + 1);
 				if (result != null) {
@@ -1087,7 +1122,9 @@ public class AnnotatedElementUtils {
 					// Recursively search in meta-annotations
 					for (Annotation annotation : annotations) {
 						Class<? extends Annotation> currentAnnotationType = annotation.annotationType();
-						if (hasSearchableMetaAnnotations(currentAnnotationType, annotationType, annotationName)) {
+						if (hasSearchableMetaAnnotations(currentAnnotationType, annotationType, annotationName) &&
+								(processor.alwaysProcesses() ||
+										mayHaveMetaAnnotation(currentAnnotationType, annotationType, annotationName, containerType))) {
 							T result = searchWithFindSemantics(currentAnnotationType, annotationType, annotationName,
 									containerType, processor, visited, metaDepth + 1);
 							if (result != null) {
@@ -1235,6 +1272,88 @@ public class AnnotatedElementUtils {
 		return true;
 	}
 
+	/**
+	 * Determine whether the current annotation type may have a meta-annotation
+	 * of the specified annotation type or container type at any meta-level,
+	 * based on the meta-annotation types that it transitively declares.
+	 * @since 5.1
+	 */
+	private static boolean mayHaveMetaAnnotation(Class<? extends Annotation> currentAnnotationType,
+			@Nullable Class<?> annotationType, @Nullable String annotationName,
+			@Nullable Class<? extends Annotation> containerType) {
+
+		Set<String> metaAnnotationTypes = metaAnnotationTypesCache.get(currentAnnotationType);
+		if (metaAnnotationTypes == null) {
+			metaAnnotationTypes = new HashSet<>();
+			try {
+				collectMetaAnnotationTypes(currentAnnotationType, metaAnnotationTypes);
+			}
+			catch (Throwable ex) {
+				// Cannot introspect the meta-annotations -> let the regular search handle it.
+				return true;
+			}
+			metaAnnotationTypesCache.put(currentAnnotationType, metaAnnotationTypes);
+		}
+		return ((annotationType != null && metaAnnotationTypes.contains(annotationType.getName())) ||
+				(annotationName != null && metaAnnotationTypes.contains(annotationName)) ||
+				(containerType != null && metaAnnotationTypes.contains(containerType.getName())));
+	}
+
+	private static void collectMetaAnnotationTypes(Class<? extends Annotation> annotationType, Set<String> result) {
+		for (Annotation metaAnnotation : annotationType.getDeclaredAnnotations()) {
+			Class<? extends Annotation> metaAnnotationType = metaAnnotation.annotationType();
+			if (!AnnotationUtils.isInJavaLangAnnotationPackage(metaAnnotationType) &&
+					result.add(metaAnnotationType.getName())) {
+				collectMetaAnnotationTypes(metaAnnotationType, result);
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the result of a merged annotation lookup from the cache,
+	 * computing and caching it if necessary.
+	 * <p>Only applies to classes and class members: other kinds of annotated
+	 * elements (such as adapters for a given set of annotations) are not
+	 * guaranteed to have stable identity and are therefore always searched.
+	 * @param element the annotated element
+	 * @param annotationType the annotation type to find
+	 * @param searchMode the kind of lookup
+	 * @param resultSupplier the actual search to perform on a cache miss
+	 * @return the (potentially cached) result of the search
+	 * @since 5.1
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private static <T> T getCachedResult(AnnotatedElement element, Class<? extends Annotation> annotationType,
+			SearchMode searchMode, Supplier<T> resultSupplier) {
+
+		if (!(element instanceof Class || element instanceof Member)) {
+			return resultSupplier.get();
+		}
+		MergedAnnotationCacheKey cacheKey = new MergedAnnotationCacheKey(element, annotationType, searchMode);
+		Object result = mergedAnnotationCache.get(cacheKey);
+		if (result == null) {
+			T searchResult = resultSupplier.get();
+			if (searchResult instanceof Set) {
+				searchResult = (T) Collections.unmodifiableSet((Set<?>) searchResult);
+			}
+			result = (searchResult != null ? searchResult : NOT_FOUND);
+			// Soft references: bounded by available memory rather than by a fixed size
+			mergedAnnotationCache.put(cacheKey, result);
+		}
+		return (result != NOT_FOUND ? (T) result : null);
+	}
+
+	/**
+	 * Clear the internal merged annotation and meta-annotation caches.
+	 * @since 5.1
+	 * @see AnnotationUtils#clearCache()
+	 */
+	static void clearCache() {
+		mergedAnnotationCache.clear();
+		metaAnnotationTypesCache.clear();
+	}
+
 	/**
 	 * Get the array of raw (unsynthesized) annotations from the {@code value}
 	 * attribute of the supplied repeatable annotation {@code container}.
@@ -1604,4 +1723,60 @@ public class AnnotatedElementUtils {
 		}
 	}
 
+
+
+	/**
+	 * The kinds of merged annotation lookups covered by the merged annotation cache.
+	 * @since 5.1
+	 */
+	private enum SearchMode {
+
+		GET, FIND, GET_ALL, FIND_ALL
+	}
+
+
+	/**
+	 * Cache key for the merged annotation cache.
+	 * @since 5.1
+	 */
+	private static final class MergedAnnotationCacheKey {
+
+		private final AnnotatedElement element;
+
+		private final Class<? extends Annotation> annotationType;
+
+		private final SearchMode searchMode;
+
+		public MergedAnnotationCacheKey(AnnotatedElement element, Class<? extends Annotation> annotationType,
+				SearchMode searchMode) {
+
+			this.element = element;
+			this.annotationType = annotationType;
+			this.searchMode = searchMode;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MergedAnnotationCacheKey)) {
+				return false;
+			}
+			MergedAnnotationCacheKey otherKey = (MergedAnnotationCacheKey) other;
+			return (this.element.equals(otherKey.element) && this.annotationType == otherKey.annotationType &&
+					this.searchMode == otherKey.searchMode);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((this.element.hashCode() * 29 + this.annotationType.hashCode()) * 29 + this.searchMode.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return "@" + this.annotationType + " on " + this.element + " (" + this.searchMode + ")";
+		}
+	}
+
 }
@@ -1916,6 +1916,7 @@ public abstract class AnnotationUtils {
 		attributeAliasesCache.clear();
 		attributeMethodsCache.clear();
 		aliasDescriptorCache.clear();
+		AnnotatedElementUtils.clearCache();
 	}
 
 
@@ -69,6 +69,11 @@ public abstract class AbstractDataBufferDecoder<T> extends AbstractDecoder<T> {
 
 	/**
 	 * How to decode a {@code DataBuffer} to the target element type.
+	 * <p>When invoked from {@link #decodeToMono}, the given buffer may be a
+	 * {@link org.springframework.core.io.buffer.CompositeDataBuffer} referring to
+	 * all received buffers. Reading it through {@link DataBuffer#asInputStream()}
+	 * or {@link DataBuffer#read(byte[])} avoids the copy which
+	 * {@link DataBuffer#asByteBuffer()} needs for content spanning several buffers.
 	 */
 	protected abstract T decodeDataBuffer(DataBuffer buffer, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints);
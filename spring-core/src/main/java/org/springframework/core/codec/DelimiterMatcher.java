@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.util.Assert;
+
+/**
+ * Matcher for a set of byte delimiters in a stream of {@link DataBuffer}s.
+ *
+ * <p>The delimiters are compiled into a deterministic automaton once
+ * (in the style of Aho-Corasick), so that each byte is inspected exactly once,
+ * regardless of the number of delimiters. A {@link Scanner} obtained from this
+ * matcher keeps the state of a partial match, so a delimiter may be split across
+ * consecutive data buffers.
+ *
+ * <p>Occurrences are reported as soon as a delimiter ends, and if several
+ * delimiters end at the same byte, the longest one is reported. After an
+ * occurrence, matching starts over, i.e. occurrences do not overlap.
+ *
+ * <p>A {@code DelimiterMatcher} is immutable and may be shared; a {@code Scanner}
+ * is not thread-safe and meant to be used for a single stream of data buffers.
+ *
+ * @since 5.1
+ * @see StringDecoder
+ */
+public final class DelimiterMatcher {
+
+	/** Next state for each state and byte value, at index {@code state * 256 + (b & 0xFF)} */
+	private final int[] transitions;
+
+	/** Length of the longest delimiter ending in each state, or 0 if none */
+	private final int[] matchLengths;
+
+
+	/**
+	 * Create a new {@code DelimiterMatcher} for the given delimiters.
+	 * @param delimiters the delimiters to match, none of which may be empty
+	 */
+	public DelimiterMatcher(List<byte[]> delimiters) {
+		Assert.notEmpty(delimiters, "'delimiters' must not be empty");
+		int maxStates = 1;
+		for (byte[] delimiter : delimiters) {
+			Assert.isTrue(delimiter.length > 0, "Delimiters must not be empty");
+			maxStates += delimiter.length;
+		}
+
+		// Build the trie of all delimiters...
+		int[] transitions = new int[maxStates * 256];
+		Arrays.fill(transitions, -1);
+		int[] matchLengths = new int[maxStates];
+		int stateCount = 1;
+		for (byte[] delimiter : delimiters) {
+			int state = 0;
+			for (byte b : delimiter) {
+				int index = state * 256 + (b & 0xFF);
+				if (transitions[index] < 0) {
+					transitions[index] = stateCount++;
+				}
+				state = transitions[index];
+			}
+			matchLengths[state] = delimiter.length;
+		}
+
+		// ... and turn it into an automaton, following the failure links breadth-first
+		int[] failures = new int[stateCount];
+		int[] queue = new int[stateCount];
+		int head = 0;
+		int tail = 0;
+		for (int b = 0; b < 256; b++) {
+			int next = transitions[b];
+			if (next < 0) {
+				transitions[b] = 0;
+			}
+			else {
+				queue[tail++] = next;
+			}
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			if (matchLengths[state] == 0) {
+				matchLengths[state] = matchLengths[failures[state]];
+			}
+			for (int b = 0; b < 256; b++) {
+				int index = state * 256 + b;
+				int fallback = transitions[failures[state] * 256 + b];
+				if (transitions[index] < 0) {
+					transitions[index] = fallback;
+				}
+				else {
+					failures[transitions[index]] = fallback;
+					queue[tail++] = transitions[index];
+				}
+			}
+		}
+
+		this.transitions = Arrays.copyOf(transitions, stateCount * 256);
+		this.matchLengths = Arrays.copyOf(matchLengths, stateCount);
+	}
+
+
+	/**
+	 * Create a new {@code DelimiterMatcher} for the given delimiter strings,
+	 * encoded with the given charset.
+	 * @param delimiters the delimiters to match
+	 * @param charset the charset to encode the delimiters with
+	 */
+	public static DelimiterMatcher forStrings(List<String> delimiters, Charset charset) {
+		Assert.notNull(delimiters, "'delimiters' must not be null");
+		Assert.notNull(charset, "'charset' must not be null");
+		return new DelimiterMatcher(delimiters.stream()
+				.map(delimiter -> delimiter.getBytes(charset))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Return a new {@link Scanner} for a stream of data buffers.
+	 */
+	public Scanner scanner() {
+		return new Scanner();
+	}
+
+
+	/**
+	 * Stateful scanner for the delimiters of a {@link DelimiterMatcher},
+	 * tracking a partial match across consecutive data buffers.
+	 */
+	public final class Scanner {
+
+		private int state;
+
+		private int matchLength;
+
+		private Scanner() {
+		}
+
+		/**
+		 * Find the end of the next delimiter in the given data buffer, starting
+		 * at the given index, and continuing a partial match from the previous
+		 * invocation if any.
+		 * @param dataBuffer the data buffer to scan
+		 * @param fromIndex the index to start scanning at
+		 * @return the index of the last byte of the delimiter found, or -1 if
+		 * no delimiter ends in the remainder of the buffer
+		 */
+		public int indexOfEnd(DataBuffer dataBuffer, int fromIndex) {
+			int length = dataBuffer.writePosition() - fromIndex;
+			if (length <= 0) {
+				return -1;
+			}
+			int[] transitions = DelimiterMatcher.this.transitions;
+			int[] matchLengths = DelimiterMatcher.this.matchLengths;
+			int state = this.state;
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer(fromIndex, length);
+			if (byteBuffer.hasArray()) {
+				byte[] array = byteBuffer.array();
+				int offset = byteBuffer.arrayOffset() + byteBuffer.position();
+				for (int i = 0; i < length; i++) {
+					state = transitions[(state << 8) | (array[offset + i] & 0xFF)];
+					if (matchLengths[state] != 0) {
+						return matched(state, fromIndex + i);
+					}
+				}
+			}
+			else {
+				int position = byteBuffer.position();
+				for (int i = 0; i < length; i++) {
+					state = transitions[(state << 8) | (byteBuffer.get(position + i) & 0xFF)];
+					if (matchLengths[state] != 0) {
+						return matched(state, fromIndex + i);
+					}
+				}
+			}
+			this.state = state;
+			return -1;
+		}
+
+		private int matched(int state, int index) {
+			this.matchLength = DelimiterMatcher.this.matchLengths[state];
+			this.state = 0;
+			return index;
+		}
+
+		/**
+		 * Return the length of the delimiter last found by {@link #indexOfEnd}.
+		 * Note that the delimiter may have started in a previous data buffer.
+		 */
+		public int getMatchLength() {
+			return this.matchLength;
+		}
+
+		/**
+		 * Return whether the scanner is in the middle of a partial match.
+		 */
+		public boolean isPartialMatch() {
+			return (this.state != 0);
+		}
+
+		/**
+		 * Discard any partial match.
+		 */
+		public void reset() {
+			this.state = 0;
+			this.matchLength = 0;
+		}
+	}
+
+}
@@ -36,6 +36,10 @@ import org.springframework.util.StreamUtils;
 /**
  * Encoder for {@link Resource}s.
  *
+ * <p>File resources are encoded as memory-mapped
+ * {@link org.springframework.core.io.buffer.FileRegionDataBuffer}s,
+ * see {@link DataBufferUtils#readRegion}.
+ *
  * @author Arjen Poutsma
  * @since 5.0
  */
@@ -67,6 +71,9 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 	protected Flux<DataBuffer> encode(Resource resource, DataBufferFactory dataBufferFactory,
 			ResolvableType type, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
+		if (resource.isFile()) {
+			return DataBufferUtils.readRegion(resource, 0, Long.MAX_VALUE, dataBufferFactory, this.bufferSize);
+		}
 		return DataBufferUtils.read(resource, dataBufferFactory, this.bufferSize);
 	}
 
@@ -42,6 +42,10 @@ import org.springframework.util.StreamUtils;
 /**
  * Encoder for {@link ResourceRegion}s.
  *
+ * <p>Regions of file resources are encoded as memory-mapped
+ * {@link org.springframework.core.io.buffer.FileRegionDataBuffer}s,
+ * see {@link DataBufferUtils#readRegion}.
+ *
  * @author Brian Clozel
  * @since 5.0
  */
@@ -113,10 +117,8 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 	}
 
 	private Flux<DataBuffer> writeResourceRegion(ResourceRegion region, DataBufferFactory bufferFactory) {
-		Resource resource = region.getResource();
-		long position = region.getPosition();
-		Flux<DataBuffer> in = DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize);
-		return DataBufferUtils.takeUntilByteCount(in, region.getCount());
+		return DataBufferUtils.readRegion(region.getResource(), region.getPosition(), region.getCount(),
+				bufferFactory, this.bufferSize);
 	}
 
 	private Flux<DataBuffer> getRegionSuffix(DataBufferFactory bufferFactory, String boundaryString) {
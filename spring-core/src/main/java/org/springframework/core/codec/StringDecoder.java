@@ -23,7 +23,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -32,7 +33,6 @@ import reactor.core.publisher.Mono;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
@@ -44,6 +44,10 @@ import org.springframework.util.MimeTypeUtils;
  * This is to make sure that multibyte characters are decoded properly, and do not cross buffer
  * boundaries. The default delimiters ({@code \n}, {@code \r\n})can be customized.
  *
+ * <p>Delimiters are found with a {@link DelimiterMatcher}, compiled once per charset,
+ * which also recognizes delimiters split across data buffers. Only lines spanning
+ * several data buffers need to be joined, without copying their content.
+ *
  * <p>Partially inspired by Netty's {@code DelimiterBasedFrameDecoder}.
  *
  * @author Sebastien Deleuze
@@ -55,8 +59,6 @@ import org.springframework.util.MimeTypeUtils;
  */
 public class StringDecoder extends AbstractDataBufferDecoder<String> {
 
-	private static final DataBuffer END_FRAME = new DefaultDataBufferFactory().wrap(new byte[0]);
-
 	/**
 	 * The default charset to use, i.e. "UTF-8".
 	 */
@@ -72,6 +74,8 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 
 	private final boolean stripDelimiter;
 
+	private final ConcurrentMap<Charset, DelimiterMatcher> delimiterMatchers = new ConcurrentHashMap<>(4);
+
 	private StringDecoder(List<String> delimiters, boolean stripDelimiter, MimeType... mimeTypes) {
 		super(mimeTypes);
 		Assert.notEmpty(delimiters, "'delimiters' must not be empty");
@@ -90,112 +94,21 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 	public Flux<String> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		List<byte[]> delimiterBytes = getDelimiterBytes(mimeType);
+		DelimiterMatcher matcher = getDelimiterMatcher(mimeType);
 
-		Flux<DataBuffer> inputFlux = Flux.from(inputStream)
-				.flatMap(dataBuffer -> splitOnDelimiter(dataBuffer, delimiterBytes))
-				.bufferUntil(StringDecoder::isEndFrame)
-				.flatMap(StringDecoder::joinUntilEndFrame);
+		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
+			LineSplitter splitter = new LineSplitter(matcher.scanner(), this.stripDelimiter);
+			return Flux.from(inputStream)
+					.flatMapIterable(splitter::split)
+					.concatWith(Mono.fromSupplier(splitter::flush))
+					.doFinally(signalType -> splitter.discard());
+		});
 		return super.decode(inputFlux, elementType, mimeType, hints);
 	}
 
-	private List<byte[]> getDelimiterBytes(@Nullable MimeType mimeType) {
-		Charset charset = getCharset(mimeType);
-		return this.delimiters.stream()
-				.map(s -> s.getBytes(charset))
-				.collect(Collectors.toList());
-	}
-
-	/**
-	 * Splits the given data buffer on delimiter boundaries. The returned Flux contains a
-	 * {@link #END_FRAME} buffer after each delimiter.
-	 */
-	private Flux<DataBuffer> splitOnDelimiter(DataBuffer dataBuffer, List<byte[]> delimiterBytes) {
-		List<DataBuffer> frames = new ArrayList<>();
-		do {
-			int length = Integer.MAX_VALUE;
-			byte[] matchingDelimiter = null;
-			for (byte[] delimiter : delimiterBytes) {
-				int idx = indexOf(dataBuffer, delimiter);
-				if (idx >= 0 && idx < length) {
-					length = idx;
-					matchingDelimiter = delimiter;
-				}
-			}
-			DataBuffer frame;
-			int readPosition = dataBuffer.readPosition();
-			if (matchingDelimiter != null) {
-				if (this.stripDelimiter) {
-					frame = dataBuffer.slice(readPosition, length);
-				}
-				else {
-					frame = dataBuffer.slice(readPosition, length + matchingDelimiter.length);
-				}
-				dataBuffer.readPosition(readPosition + length + matchingDelimiter.length);
-
-				frames.add(DataBufferUtils.retain(frame));
-				frames.add(END_FRAME);
-			}
-			else {
-				frame = dataBuffer.slice(readPosition, dataBuffer.readableByteCount());
-				dataBuffer.readPosition(readPosition + dataBuffer.readableByteCount());
-				frames.add(DataBufferUtils.retain(frame));
-			}
-		}
-		while (dataBuffer.readableByteCount() > 0);
-
-		DataBufferUtils.release(dataBuffer);
-		return Flux.fromIterable(frames);
-	}
-
-	/**
-	 * Finds the given delimiter in the given data buffer. Return the index of the delimiter, or
-	 * -1 if not found.
-	 */
-	private static int indexOf(DataBuffer dataBuffer, byte[] delimiter) {
-		for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-			int dataBufferPos = i;
-			int delimiterPos = 0;
-			while (delimiterPos < delimiter.length) {
-				if (dataBuffer.getByte(dataBufferPos) != delimiter[delimiterPos]) {
-					break;
-				}
-				else {
-					dataBufferPos++;
-					if (dataBufferPos == dataBuffer.writePosition() &&
-							delimiterPos != delimiter.length - 1) {
-						return -1;
-					}
-				}
-				delimiterPos++;
-			}
-
-			if (delimiterPos == delimiter.length) {
-				return i - dataBuffer.readPosition();
-			}
-		}
-		return -1;
-	}
-
-	/**
-	 * Checks whether the given buffer is {@link #END_FRAME}.
-	 */
-	private static boolean isEndFrame(DataBuffer dataBuffer) {
-		return dataBuffer == END_FRAME;
-	}
-
-	/**
-	 * Joins the given list of buffers into a single buffer.
-	 */
-	private static Mono<DataBuffer> joinUntilEndFrame(List<DataBuffer> dataBuffers) {
-		if (!dataBuffers.isEmpty()) {
-			int lastIdx = dataBuffers.size() - 1;
-			if (isEndFrame(dataBuffers.get(lastIdx))) {
-				dataBuffers.remove(lastIdx);
-			}
-		}
-		Flux<DataBuffer> flux = Flux.fromIterable(dataBuffers);
-		return DataBufferUtils.join(flux);
+	private DelimiterMatcher getDelimiterMatcher(@Nullable MimeType mimeType) {
+		return this.delimiterMatchers.computeIfAbsent(getCharset(mimeType),
+				charset -> DelimiterMatcher.forStrings(this.delimiters, charset));
 	}
 
 	@Override
@@ -271,4 +184,78 @@ public class StringDecoder extends AbstractDataBufferDecoder<String> {
 	}
 
 
+	/**
+	 * Splits the data buffers of a single stream on delimiter boundaries,
+	 * holding on to the parts of a line which spans several data buffers
+	 * until the end of the line has been found.
+	 */
+	private static class LineSplitter {
+
+		private final DelimiterMatcher.Scanner scanner;
+
+		private final boolean stripDelimiter;
+
+		private final List<DataBuffer> pending = new ArrayList<>();
+
+		public LineSplitter(DelimiterMatcher.Scanner scanner, boolean stripDelimiter) {
+			this.scanner = scanner;
+			this.stripDelimiter = stripDelimiter;
+		}
+
+		/**
+		 * Return the lines completed by the given data buffer, and keep its remainder.
+		 */
+		public List<DataBuffer> split(DataBuffer dataBuffer) {
+			List<DataBuffer> lines = new ArrayList<>();
+			int start = dataBuffer.readPosition();
+			int end;
+			while ((end = this.scanner.indexOfEnd(dataBuffer, start)) != -1) {
+				int delimiterLength = this.scanner.getMatchLength();
+				if (this.pending.isEmpty()) {
+					int length = end + 1 - start - (this.stripDelimiter ? delimiterLength : 0);
+					lines.add(DataBufferUtils.retain(dataBuffer.slice(start, length)));
+				}
+				else {
+					this.pending.add(DataBufferUtils.retain(dataBuffer.slice(start, end + 1 - start)));
+					lines.add(joinPending(this.stripDelimiter ? delimiterLength : 0));
+				}
+				start = end + 1;
+			}
+			if (start < dataBuffer.writePosition() || dataBuffer.readableByteCount() == 0) {
+				this.pending.add(DataBufferUtils.retain(dataBuffer.slice(start, dataBuffer.writePosition() - start)));
+			}
+			DataBufferUtils.release(dataBuffer);
+			return lines;
+		}
+
+		/**
+		 * Return the last line, not terminated by a delimiter, if any.
+		 */
+		@Nullable
+		public DataBuffer flush() {
+			return (!this.pending.isEmpty() ? joinPending(0) : null);
+		}
+
+		/**
+		 * Release the parts of an incomplete line, if any.
+		 */
+		public void discard() {
+			this.pending.forEach(DataBufferUtils::release);
+			this.pending.clear();
+		}
+
+		private DataBuffer joinPending(int trailingBytes) {
+			for (int i = this.pending.size() - 1; i >= 0 && trailingBytes > 0; i--) {
+				DataBuffer dataBuffer = this.pending.get(i);
+				int count = Math.min(trailingBytes, dataBuffer.readableByteCount());
+				dataBuffer.writePosition(dataBuffer.writePosition() - count);
+				trailingBytes -= count;
+			}
+			DataBuffer line = (this.pending.size() == 1 ? this.pending.get(0) :
+					this.pending.get(0).factory().join(new ArrayList<>(this.pending)));
+			this.pending.clear();
+			return line;
+		}
+	}
+
 }
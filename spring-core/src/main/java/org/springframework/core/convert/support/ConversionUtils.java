@@ -19,6 +19,7 @@ package org.springframework.core.convert.support;
 import org.springframework.core.convert.ConversionFailedException;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.Converter;
 import org.springframework.core.convert.converter.GenericConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -47,6 +48,21 @@ abstract class ConversionUtils {
 		}
 	}
 
+	@Nullable
+	public static Object invokeConverter(Converter<Object, Object> converter, Object source,
+			TypeDescriptor sourceType, TypeDescriptor targetType) {
+
+		try {
+			return converter.convert(source);
+		}
+		catch (ConversionFailedException ex) {
+			throw ex;
+		}
+		catch (Throwable ex) {
+			throw new ConversionFailedException(sourceType, targetType, source, ex);
+		}
+	}
+
 	public static boolean canConvertElements(@Nullable TypeDescriptor sourceElementType,
 			@Nullable TypeDescriptor targetElementType, ConversionService conversionService) {
 
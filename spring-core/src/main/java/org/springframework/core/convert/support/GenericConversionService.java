@@ -17,6 +17,7 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -27,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.core.DecoratingProxy;
 import org.springframework.core.ResolvableType;
@@ -46,6 +48,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -82,6 +85,15 @@ public class GenericConversionService implements ConfigurableConversionService {
 	// 缓存，ConverterCacheKey保存了source的TypeDescriptor和target的TypeDescriptor
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	/** Resolved conversions between plain classes, not requiring any TypeDescriptor per call */
+	private final Map<ConvertiblePair, ClassConversion> classConversionCache = new ConcurrentReferenceHashMap<>(64);
+
+	private final boolean classConversionCacheEnabled = !isTypeDescriptorConversionOverridden();
+
+	private final LongAdder cacheHits = new LongAdder();
+
+	private final LongAdder cacheMisses = new LongAdder();
+
 
 	// ConverterRegistry implementation
 
@@ -141,6 +153,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (sourceType != null && this.classConversionCacheEnabled) {
+			return (getClassConversion(sourceType, targetType).converter != null);
+		}
 		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
 				TypeDescriptor.valueOf(targetType));
 	}
@@ -180,6 +195,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (source != null && this.classConversionCacheEnabled) {
+			return (T) convert(source, getClassConversion(source.getClass(), targetType));
+		}
 		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
 	}
 
@@ -221,6 +239,36 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return convert(source, TypeDescriptor.forObject(source), targetType);
 	}
 
+	/**
+	 * Return the number of converter lookups served from the converter cache.
+	 * @since 5.1
+	 * @see #getCacheHitRatio()
+	 */
+	public long getCacheHitCount() {
+		return this.cacheHits.sum();
+	}
+
+	/**
+	 * Return the number of converter lookups which required a search
+	 * through the registered converters.
+	 * @since 5.1
+	 * @see #getCacheHitRatio()
+	 */
+	public long getCacheMissCount() {
+		return this.cacheMisses.sum();
+	}
+
+	/**
+	 * Return the ratio of converter lookups served from the converter cache,
+	 * or {@code 0} if no lookup happened yet.
+	 * @since 5.1
+	 */
+	public double getCacheHitRatio() {
+		long hits = getCacheHitCount();
+		long total = hits + getCacheMissCount();
+		return (total > 0 ? (double) hits / total : 0);
+	}
+
 	@Override
 	public String toString() {
 		return this.converters.toString();
@@ -263,8 +311,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
 		GenericConverter converter = this.converterCache.get(key);
 		if (converter != null) {
+			this.cacheHits.increment();
 			return (converter != NO_MATCH ? converter : null);
 		}
+		this.cacheMisses.increment();
 
 		converter = this.converters.find(sourceType, targetType);
 		if (converter == null) {
@@ -317,6 +367,88 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.classConversionCache.clear();
+	}
+
+	/**
+	 * Determine whether a subclass customizes the {@link TypeDescriptor} based
+	 * variants of {@code convert}, {@code canConvert} or {@code getConverter},
+	 * in which case the {@code Class} based variants must keep delegating to them.
+	 */
+	private boolean isTypeDescriptorConversionOverridden() {
+		if (getClass() == GenericConversionService.class) {
+			return false;
+		}
+		return (isOverridden("convert", Object.class, TypeDescriptor.class, TypeDescriptor.class) ||
+				isOverridden("canConvert", TypeDescriptor.class, TypeDescriptor.class) ||
+				isOverridden("getConverter", TypeDescriptor.class, TypeDescriptor.class));
+	}
+
+	private boolean isOverridden(String methodName, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != GenericConversionService.class);
+	}
+
+	/**
+	 * Return the resolved conversion between the given classes, looking up the
+	 * converter through {@link #getConverter(TypeDescriptor, TypeDescriptor)}
+	 * only once per pair of classes.
+	 */
+	private ClassConversion getClassConversion(Class<?> sourceType, Class<?> targetType) {
+		ConvertiblePair key = new ConvertiblePair(sourceType, targetType);
+		ClassConversion conversion = this.classConversionCache.get(key);
+		if (conversion != null) {
+			this.cacheHits.increment();
+			return conversion;
+		}
+		TypeDescriptor sourceDescriptor = TypeDescriptor.valueOf(sourceType);
+		TypeDescriptor targetDescriptor = TypeDescriptor.valueOf(targetType);
+		GenericConverter converter = getConverter(sourceDescriptor, targetDescriptor);
+		conversion = new ClassConversion(sourceDescriptor, targetDescriptor, converter,
+				getTargetConverter(converter, targetDescriptor));
+		this.classConversionCache.put(key, conversion);
+		return conversion;
+	}
+
+	/**
+	 * Unwrap the plain {@link Converter} behind the given adapter, if any,
+	 * so that it can be invoked for a non-null source without further indirection.
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private Converter<Object, Object> getTargetConverter(
+			@Nullable GenericConverter converter, TypeDescriptor targetType) {
+
+		if (converter instanceof ConverterAdapter) {
+			return ((ConverterAdapter) converter).converter;
+		}
+		if (converter instanceof ConverterFactoryAdapter) {
+			try {
+				return (Converter<Object, Object>) ((ConverterFactoryAdapter) converter).converterFactory
+						.getConverter(targetType.getObjectType());
+			}
+			catch (RuntimeException ex) {
+				// Leave it to the actual conversion attempt to report the failure
+				return null;
+			}
+		}
+		return null;
+	}
+
+	@Nullable
+	private Object convert(Object source, ClassConversion conversion) {
+		TypeDescriptor sourceType = conversion.sourceType;
+		TypeDescriptor targetType = conversion.targetType;
+		if (conversion.converter == null) {
+			return handleConverterNotFound(source, sourceType, targetType);
+		}
+		if (conversion.converter == NO_OP_CONVERTER) {
+			return source;
+		}
+		Object result = (conversion.targetConverter != null ?
+				ConversionUtils.invokeConverter(conversion.targetConverter, source, sourceType, targetType) :
+				ConversionUtils.invokeConverter(conversion.converter, source, sourceType, targetType));
+		return handleResult(sourceType, targetType, result);
 	}
 
 	@Nullable
@@ -510,6 +642,35 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Resolved conversion between two plain classes, as cached per
+	 * {@link ConvertiblePair}.
+	 */
+	private static final class ClassConversion {
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		/** The converter found, or {@code null} if none */
+		@Nullable
+		private final GenericConverter converter;
+
+		/** The plain converter behind the found converter, if any */
+		@Nullable
+		private final Converter<Object, Object> targetConverter;
+
+		public ClassConversion(TypeDescriptor sourceType, TypeDescriptor targetType,
+				@Nullable GenericConverter converter, @Nullable Converter<Object, Object> targetConverter) {
+
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.converter = converter;
+			this.targetConverter = targetConverter;
+		}
+	}
+
+
 	/**
 	 * Manages all converters registered with the service.
 	 */
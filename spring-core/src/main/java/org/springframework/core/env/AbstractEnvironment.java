@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -108,7 +108,7 @@ public abstract class AbstractEnvironment implements ConfigurableEnvironment {
 
 	private final MutablePropertySources propertySources = new MutablePropertySources(this.logger);
 
-	private final ConfigurablePropertyResolver propertyResolver =
+	private final PropertySourcesPropertyResolver propertyResolver =
 			new PropertySourcesPropertyResolver(this.propertySources);
 
 
@@ -515,6 +515,28 @@ public abstract class AbstractEnvironment implements ConfigurableEnvironment {
 		this.propertyResolver.validateRequiredProperties();
 	}
 
+	/**
+	 * Specify whether resolved property values should be cached until the
+	 * {@link #getPropertySources() property sources} of this environment change.
+	 * <p>The default is {@code false}. Only switch this on if the content of the
+	 * individual property sources does not change, or call {@link #clearPropertyCache()}
+	 * after it did.
+	 * @since 5.1
+	 * @see PropertySourcesPropertyResolver#setCachingEnabled
+	 */
+	public void setPropertyCachingEnabled(boolean propertyCachingEnabled) {
+		this.propertyResolver.setCachingEnabled(propertyCachingEnabled);
+	}
+
+	/**
+	 * Remove all cached property values, if any.
+	 * @since 5.1
+	 * @see #setPropertyCachingEnabled
+	 */
+	public void clearPropertyCache() {
+		this.propertyResolver.clearCache();
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of PropertyResolver interface
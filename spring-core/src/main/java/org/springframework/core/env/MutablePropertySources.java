@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.core.env;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -47,6 +48,8 @@ public class MutablePropertySources implements PropertySources {
 
 	private final List<PropertySource<?>> propertySourceList = new CopyOnWriteArrayList<>();
 
+	private final AtomicInteger modificationCount = new AtomicInteger();
+
 
 	/**
 	 * Create a new {@link MutablePropertySources} object.
@@ -101,6 +104,7 @@ public class MutablePropertySources implements PropertySources {
 		}
 		removeIfPresent(propertySource);
 		this.propertySourceList.add(0, propertySource);
+		this.modificationCount.incrementAndGet();
 	}
 
 	/**
@@ -112,6 +116,7 @@ public class MutablePropertySources implements PropertySources {
 		}
 		removeIfPresent(propertySource);
 		this.propertySourceList.add(propertySource);
+		this.modificationCount.incrementAndGet();
 	}
 
 	/**
@@ -127,6 +132,7 @@ public class MutablePropertySources implements PropertySources {
 		removeIfPresent(propertySource);
 		int index = assertPresentAndGetIndex(relativePropertySourceName);
 		addAtIndex(index, propertySource);
+		this.modificationCount.incrementAndGet();
 	}
 
 	/**
@@ -142,6 +148,7 @@ public class MutablePropertySources implements PropertySources {
 		removeIfPresent(propertySource);
 		int index = assertPresentAndGetIndex(relativePropertySourceName);
 		addAtIndex(index + 1, propertySource);
+		this.modificationCount.incrementAndGet();
 	}
 
 	/**
@@ -161,7 +168,12 @@ public class MutablePropertySources implements PropertySources {
 			logger.debug("Removing PropertySource '" + name + "'");
 		}
 		int index = this.propertySourceList.indexOf(PropertySource.named(name));
-		return (index != -1 ? this.propertySourceList.remove(index) : null);
+		if (index == -1) {
+			return null;
+		}
+		PropertySource<?> removed = this.propertySourceList.remove(index);
+		this.modificationCount.incrementAndGet();
+		return removed;
 	}
 
 	/**
@@ -177,6 +189,7 @@ public class MutablePropertySources implements PropertySources {
 		}
 		int index = assertPresentAndGetIndex(name);
 		this.propertySourceList.set(index, propertySource);
+		this.modificationCount.incrementAndGet();
 	}
 
 	/**
@@ -186,6 +199,15 @@ public class MutablePropertySources implements PropertySources {
 		return this.propertySourceList.size();
 	}
 
+	/**
+	 * Return a counter which is incremented on every change to the contained
+	 * property sources, allowing resolvers to invalidate cached values.
+	 * @since 5.1
+	 */
+	int getModificationCount() {
+		return this.modificationCount.get();
+	}
+
 	@Override
 	public String toString() {
 		return this.propertySourceList.toString();
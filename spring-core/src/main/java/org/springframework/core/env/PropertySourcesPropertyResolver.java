@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,18 @@
 
 package org.springframework.core.env;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.lang.Nullable;
 
 /**
  * {@link PropertyResolver} implementation that resolves property values against
  * an underlying set of {@link PropertySources}.
  *
+ * <p>Resolved property values may optionally be cached, see
+ * {@link #setCachingEnabled}.
+ *
  * @author Chris Beams
  * @author Juergen Hoeller
  * @since 3.1
@@ -31,9 +37,17 @@ import org.springframework.lang.Nullable;
  */
 public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
+	private static final Object NO_VALUE = new Object();
+
+
 	@Nullable
 	private final PropertySources propertySources;
 
+	private volatile boolean cachingEnabled = false;
+
+	@Nullable
+	private volatile PropertyCache propertyCache;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -44,6 +58,47 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Specify whether resolved property values and placeholder expansions
+	 * should be cached.
+	 * <p>The default is {@code false}. If switched on, the cache is invalidated
+	 * whenever the underlying {@link MutablePropertySources} are modified, e.g. when
+	 * a property source gets added or replaced. Changes to the content of individual
+	 * property sources are not detected; {@link #clearCache()} needs to be called
+	 * after such changes. Values are cached before type conversion, so the
+	 * configured {@link #setConversionService ConversionService} still applies.
+	 * @since 5.1
+	 * @see #clearCache()
+	 */
+	public void setCachingEnabled(boolean cachingEnabled) {
+		this.cachingEnabled = cachingEnabled;
+		clearCache();
+	}
+
+	/**
+	 * Return whether resolved property values are cached.
+	 * @since 5.1
+	 */
+	public boolean isCachingEnabled() {
+		return this.cachingEnabled;
+	}
+
+	/**
+	 * Remove all cached property values, if any.
+	 * @since 5.1
+	 * @see #setCachingEnabled
+	 */
+	public void clearCache() {
+		this.propertyCache = null;
+	}
+
+	@Override
+	public void setIgnoreUnresolvableNestedPlaceholders(boolean ignoreUnresolvableNestedPlaceholders) {
+		super.setIgnoreUnresolvableNestedPlaceholders(ignoreUnresolvableNestedPlaceholders);
+		clearCache();
+	}
+
+
 	@Override
 	public boolean containsProperty(String key) {
 		if (this.propertySources != null) {
@@ -76,6 +131,55 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+		Object value;
+		PropertyCache cache = getPropertyCache();
+		if (cache != null) {
+			Map<String, Object> values = (resolveNestedPlaceholders ? cache.resolvedValues : cache.rawValues);
+			value = values.get(key);
+			if (value == null) {
+				value = findPropertyValue(key, resolveNestedPlaceholders);
+				values.put(key, (value != null ? value : NO_VALUE));
+			}
+			else if (value == NO_VALUE) {
+				value = null;
+			}
+		}
+		else {
+			value = findPropertyValue(key, resolveNestedPlaceholders);
+		}
+		return (value != null ? convertValueIfNecessary(value, targetValueType) : null);
+	}
+
+	@Override
+	public String resolvePlaceholders(String text) {
+		PropertyCache cache = getPropertyCache();
+		if (cache == null) {
+			return super.resolvePlaceholders(text);
+		}
+		String result = cache.placeholders.get(text);
+		if (result == null) {
+			result = super.resolvePlaceholders(text);
+			cache.placeholders.put(text, result);
+		}
+		return result;
+	}
+
+	@Override
+	public String resolveRequiredPlaceholders(String text) throws IllegalArgumentException {
+		PropertyCache cache = getPropertyCache();
+		if (cache == null) {
+			return super.resolveRequiredPlaceholders(text);
+		}
+		String result = cache.requiredPlaceholders.get(text);
+		if (result == null) {
+			result = super.resolveRequiredPlaceholders(text);
+			cache.requiredPlaceholders.put(text, result);
+		}
+		return result;
+	}
+
+	@Nullable
+	private Object findPropertyValue(String key, boolean resolveNestedPlaceholders) {
 		if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (logger.isTraceEnabled()) {
@@ -88,7 +192,7 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 						value = resolveNestedPlaceholders((String) value);
 					}
 					logKeyFound(key, propertySource, value);
-					return convertValueIfNecessary(value, targetValueType);
+					return value;
 				}
 			}
 		}
@@ -98,6 +202,25 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	/**
+	 * Return the current property cache, or {@code null} if caching is disabled.
+	 * A new cache is started whenever the property sources have been modified.
+	 */
+	@Nullable
+	private PropertyCache getPropertyCache() {
+		if (!this.cachingEnabled) {
+			return null;
+		}
+		int version = (this.propertySources instanceof MutablePropertySources ?
+				((MutablePropertySources) this.propertySources).getModificationCount() : 0);
+		PropertyCache cache = this.propertyCache;
+		if (cache == null || cache.version != version) {
+			cache = new PropertyCache(version);
+			this.propertyCache = cache;
+		}
+		return cache;
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -117,4 +240,27 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+
+
+	/**
+	 * Cached property values and placeholder expansions for a specific state
+	 * of the underlying property sources.
+	 */
+	private static class PropertyCache {
+
+		final int version;
+
+		final Map<String, Object> rawValues = new ConcurrentHashMap<>(64);
+
+		final Map<String, Object> resolvedValues = new ConcurrentHashMap<>(64);
+
+		final Map<String, String> placeholders = new ConcurrentHashMap<>(64);
+
+		final Map<String, String> requiredPlaceholders = new ConcurrentHashMap<>(64);
+
+		PropertyCache(int version) {
+			this.version = version;
+		}
+	}
+
 }
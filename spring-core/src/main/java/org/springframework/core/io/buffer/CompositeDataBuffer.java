@@ -0,0 +1,549 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link DataBuffer} that presents a sequence of data buffers as a single buffer,
+ * without copying their content. Reading, searching, slicing and streaming all
+ * operate on the memory of the component buffers directly; only
+ * {@link #asByteBuffer(int, int)} has to copy if the requested range spans
+ * more than one component.
+ *
+ * <p>The readable bytes of each given buffer at construction time become the
+ * content of the composite. Writing beyond the current capacity appends new
+ * components obtained from the {@linkplain #factory() buffer factory}.
+ *
+ * <p>The composite takes ownership of the given buffers: they are released
+ * along with the composite, once its reference count drops to zero. Slices of
+ * a composite share its reference count.
+ *
+ * @since 5.1
+ * @see DataBufferFactory#join(List)
+ */
+public class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final AtomicIntegerFieldUpdater<CompositeDataBuffer> refCountUpdater =
+			AtomicIntegerFieldUpdater.newUpdater(CompositeDataBuffer.class, "refCount");
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	/** The buffers owned by this composite, released along with it */
+	private final List<DataBuffer> dataBuffers;
+
+	/** The composite that this buffer is a slice of, if any */
+	@Nullable
+	private final CompositeDataBuffer parent;
+
+	/** Views on the memory of the components, each starting at position 0 */
+	private ByteBuffer[] components;
+
+	/** The index of the first byte of each component within this buffer */
+	private int[] offsets;
+
+	private int componentCount;
+
+	private int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+	private volatile int refCount = 1;
+
+
+	/**
+	 * Create a new {@code CompositeDataBuffer} composed of the readable bytes
+	 * of the given data buffers, which will be released along with the composite.
+	 * @param dataBufferFactory the factory to allocate further components with
+	 * @param dataBuffers the data buffers to compose
+	 */
+	public CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "'dataBufferFactory' must not be null");
+		Assert.notNull(dataBuffers, "'dataBuffers' must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.dataBuffers = new ArrayList<>(dataBuffers);
+		this.parent = null;
+		this.components = new ByteBuffer[Math.max(dataBuffers.size(), 1)];
+		this.offsets = new int[this.components.length];
+		for (DataBuffer dataBuffer : dataBuffers) {
+			addComponent(dataBuffer.asByteBuffer());
+		}
+		this.writePosition = this.capacity;
+	}
+
+	private CompositeDataBuffer(CompositeDataBuffer parent, List<ByteBuffer> components) {
+		this.dataBufferFactory = parent.dataBufferFactory;
+		this.dataBuffers = parent.dataBuffers;
+		this.parent = (parent.parent != null ? parent.parent : parent);
+		this.components = new ByteBuffer[Math.max(components.size(), 1)];
+		this.offsets = new int[this.components.length];
+		components.forEach(this::addComponent);
+		this.writePosition = this.capacity;
+	}
+
+
+	private void addComponent(ByteBuffer component) {
+		int length = component.remaining();
+		if (length == 0) {
+			return;
+		}
+		if (this.componentCount == this.components.length) {
+			this.components = Arrays.copyOf(this.components, this.componentCount * 2);
+			this.offsets = Arrays.copyOf(this.offsets, this.componentCount * 2);
+		}
+		this.components[this.componentCount] = component.slice();
+		this.offsets[this.componentCount] = this.capacity;
+		this.componentCount++;
+		this.capacity += length;
+	}
+
+	/**
+	 * Return the number of component buffers this composite currently consists of.
+	 */
+	public int getComponentCount() {
+		return this.componentCount;
+	}
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		for (int i = componentIndex(fromIndex); i < this.componentCount; i++) {
+			ByteBuffer component = this.components[i];
+			int offset = this.offsets[i];
+			int end = Math.min(component.limit(), this.writePosition - offset);
+			for (int j = Math.max(fromIndex - offset, 0); j < end; j++) {
+				if (predicate.test(component.get(j))) {
+					return offset + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+		int index = Math.min(fromIndex, this.writePosition - 1);
+		if (index < 0) {
+			return -1;
+		}
+		for (int i = componentIndex(index); i >= 0; i--) {
+			ByteBuffer component = this.components[i];
+			int offset = this.offsets[i];
+			for (int j = Math.min(index - offset, component.limit() - 1); j >= 0; j--) {
+				if (predicate.test(component.get(j))) {
+					return offset + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.capacity - this.writePosition;
+	}
+
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>A composite can only grow, by appending a new component.
+	 * @throws UnsupportedOperationException when trying to shrink the buffer,
+	 * or when trying to change the capacity of a slice
+	 */
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		Assert.isTrue(newCapacity > 0,
+				String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		if (this.parent != null) {
+			throw new UnsupportedOperationException(
+					"Changing the capacity of a sliced buffer is not supported");
+		}
+		if (newCapacity < this.capacity) {
+			throw new UnsupportedOperationException(
+					"Shrinking the capacity of a composite buffer is not supported");
+		}
+		if (newCapacity > this.capacity) {
+			int length = newCapacity - this.capacity;
+			DataBuffer dataBuffer = this.dataBufferFactory.allocateBuffer(length);
+			this.dataBuffers.add(dataBuffer);
+			addComponent(dataBuffer.asByteBuffer(0, length));
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = componentIndex(index);
+		return this.components[i].get(index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		int i = componentIndex(this.readPosition);
+		byte b = this.components[i].get(this.readPosition - this.offsets[i]);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "'destination' must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "'destination' must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		copy(this.readPosition, destination, offset, length);
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureWritable(1);
+		int i = componentIndex(this.writePosition);
+		this.components[i].put(this.writePosition - this.offsets[i], b);
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "'source' must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "'source' must not be null");
+		return write(ByteBuffer.wrap(source, offset, length));
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			ByteBuffer[] byteBuffers = new ByteBuffer[buffers.length];
+			for (int i = 0; i < buffers.length; i++) {
+				byteBuffers[i] = buffers[i].asByteBuffer();
+			}
+			write(byteBuffers);
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... byteBuffers) {
+		Assert.notNull(byteBuffers, "'byteBuffers' must not be null");
+		int length = 0;
+		for (ByteBuffer byteBuffer : byteBuffers) {
+			length += byteBuffer.remaining();
+		}
+		ensureWritable(length);
+		for (ByteBuffer source : byteBuffers) {
+			while (source.hasRemaining()) {
+				int i = componentIndex(this.writePosition);
+				ByteBuffer target = this.components[i].duplicate();
+				int count = Math.min(source.remaining(), target.limit() - (this.writePosition - this.offsets[i]));
+				ByteBuffer chunk = source.duplicate();
+				// Explicit access via Buffer base type for compatibility
+				// with covariant return type on JDK 9's ByteBuffer...
+				((Buffer) chunk).limit(chunk.position() + count);
+				((Buffer) target).position(this.writePosition - this.offsets[i]);
+				target.put(chunk);
+				((Buffer) source).position(source.position() + count);
+				this.writePosition += count;
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		List<ByteBuffer> views = new ArrayList<>();
+		int end = index + length;
+		for (int i = (length > 0 ? componentIndex(index) : this.componentCount); i < this.componentCount; i++) {
+			int offset = this.offsets[i];
+			if (offset >= end) {
+				break;
+			}
+			views.add(view(i, Math.max(index - offset, 0), Math.min(end - offset, this.components[i].limit())));
+		}
+		return new CompositeDataBuffer(this, views);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The returned buffer shares the memory of this composite if the range
+	 * lies within a single component, and is a copy otherwise.
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		if (length > 0) {
+			int i = componentIndex(index);
+			int start = index - this.offsets[i];
+			if (start + length <= this.components[i].limit()) {
+				return view(i, start, start + length).slice();
+			}
+		}
+		byte[] bytes = new byte[length];
+		copy(index, bytes, 0, length);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		CompositeDataBuffer root = (this.parent != null ? this.parent : this);
+		while (true) {
+			int refCount = root.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("Cannot retain released buffer: refCount " + refCount);
+			}
+			if (refCountUpdater.compareAndSet(root, refCount, refCount + 1)) {
+				return this;
+			}
+		}
+	}
+
+	@Override
+	public boolean release() {
+		CompositeDataBuffer root = (this.parent != null ? this.parent : this);
+		while (true) {
+			int refCount = root.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("Cannot release released buffer: refCount " + refCount);
+			}
+			if (refCountUpdater.compareAndSet(root, refCount, refCount - 1)) {
+				if (refCount > 1) {
+					return false;
+				}
+				this.dataBuffers.forEach(DataBufferUtils::release);
+				return true;
+			}
+		}
+	}
+
+
+	/**
+	 * Return the index of the component containing the byte at the given index.
+	 */
+	private int componentIndex(int index) {
+		int i = Arrays.binarySearch(this.offsets, 0, this.componentCount, index);
+		return (i >= 0 ? i : -i - 2);
+	}
+
+	private ByteBuffer view(int componentIndex, int start, int end) {
+		ByteBuffer view = this.components[componentIndex].duplicate();
+		// Explicit access via Buffer base type for compatibility
+		// with covariant return type on JDK 9's ByteBuffer...
+		((Buffer) view).limit(end);
+		((Buffer) view).position(start);
+		return view;
+	}
+
+	private void copy(int index, byte[] destination, int offset, int length) {
+		while (length > 0) {
+			int i = componentIndex(index);
+			int start = index - this.offsets[i];
+			int count = Math.min(length, this.components[i].limit() - start);
+			view(i, start, start + count).get(destination, offset, count);
+			index += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void ensureWritable(int length) {
+		if (length > writableByteCount()) {
+			capacity(this.writePosition + Math.max(length, DefaultDataBufferFactory.DEFAULT_INITIAL_CAPACITY));
+		}
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= this.capacity, "index %d plus length %d must be <= %d",
+				index, length, this.capacity);
+	}
+
+	private static void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w %d, c %d, components %d)", this.readPosition,
+				this.writePosition, this.capacity, this.componentCount);
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return (available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				release();
+			}
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
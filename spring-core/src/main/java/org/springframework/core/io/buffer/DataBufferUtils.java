@@ -27,6 +27,8 @@ import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,6 +58,9 @@ public abstract class DataBufferUtils {
 
 	private static final Consumer<DataBuffer> RELEASE_CONSUMER = DataBufferUtils::release;
 
+	/** The maximum size of a single memory-mapped {@link FileRegionDataBuffer} */
+	private static final int MAX_FILE_REGION_SIZE = 16 * 1024 * 1024;
+
 
 	//---------------------------------------------------------------------
 	// Reading
@@ -283,6 +288,46 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Read the given region of a {@code Resource} into a {@code Flux} of {@code DataBuffer}s.
+	 * <p>If the resource is a file, the region is split into
+	 * {@link FileRegionDataBuffer}s of at most 16 MB each,
+	 * which server adapters can transfer to the network without reading them (zero-copy),
+	 * and which are only memory-mapped, rather than copied to the Java heap, once read.
+	 * Such buffers should be {@linkplain #release(DataBuffer) released} to unmap them. Other resources are
+	 * read via {@link #read(Resource, long, DataBufferFactory, int)}, limited to the
+	 * given count of bytes.
+	 * @param resource the resource to read from
+	 * @param position the position to start reading from
+	 * @param count the maximum number of bytes to read
+	 * @param dataBufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers when not memory-mapping
+	 * @return a flux of data buffers read from the given resource region
+	 * @since 5.1
+	 */
+	public static Flux<DataBuffer> readRegion(Resource resource, long position, long count,
+			DataBufferFactory dataBufferFactory, int bufferSize) {
+
+		Assert.notNull(resource, "'resource' must not be null");
+		Assert.notNull(dataBufferFactory, "'dataBufferFactory' must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(count >= 0, "'count' must be >= 0");
+
+		try {
+			if (resource.isFile()) {
+				Path file = resource.getFile().toPath();
+				DefaultDataBufferFactory factory = (dataBufferFactory instanceof DefaultDataBufferFactory ?
+						(DefaultDataBufferFactory) dataBufferFactory : new DefaultDataBufferFactory());
+				return Flux.generate(new FileRegionGenerator(file, position, count, factory));
+			}
+		}
+		catch (IOException ignore) {
+			// fallback to read(Resource...), below
+		}
+
+		return takeUntilByteCount(read(resource, position, dataBufferFactory, bufferSize), count);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -548,6 +593,44 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class FileRegionGenerator implements Consumer<SynchronousSink<DataBuffer>> {
+
+		private final Path file;
+
+		private final DefaultDataBufferFactory dataBufferFactory;
+
+		private long position;
+
+		private long remaining;
+
+		public FileRegionGenerator(Path file, long position, long count, DefaultDataBufferFactory dataBufferFactory) {
+			this.file = file;
+			this.position = position;
+			this.remaining = count;
+			this.dataBufferFactory = dataBufferFactory;
+		}
+
+		@Override
+		public void accept(SynchronousSink<DataBuffer> sink) {
+			try {
+				long available = Math.min(this.remaining, Files.size(this.file) - this.position);
+				if (available > 0) {
+					int size = (int) Math.min(available, MAX_FILE_REGION_SIZE);
+					sink.next(new FileRegionDataBuffer(this.dataBufferFactory, this.file, this.position, size));
+					this.position += size;
+					this.remaining -= size;
+				}
+				else {
+					sink.complete();
+				}
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+		}
+	}
+
+
 	private static class AsynchronousFileChannelReadCompletionHandler
 			implements CompletionHandler<Integer, DataBuffer> {
 
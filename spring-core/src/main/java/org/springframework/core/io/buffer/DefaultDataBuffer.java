@@ -58,7 +58,7 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	private int capacity;
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "'dataBufferFactory' must not be null");
 		Assert.notNull(byteBuffer, "'byteBuffer' must not be null");
 
@@ -90,7 +90,7 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this.byteBuffer;
 	}
 
-	private void setNativeBuffer(ByteBuffer byteBuffer) {
+	void setNativeBuffer(ByteBuffer byteBuffer) {
 		this.byteBuffer = byteBuffer;
 		this.capacity = byteBuffer.remaining();
 	}
@@ -218,7 +218,13 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this;
 	}
 
-	private static ByteBuffer allocate(int capacity, boolean direct) {
+	/**
+	 * Allocate the native buffer to switch to when changing the capacity.
+	 * @param capacity the new capacity
+	 * @param direct whether a direct buffer is required
+	 * @since 5.1
+	 */
+	ByteBuffer allocate(int capacity, boolean direct) {
 		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
 	}
 
@@ -335,13 +341,23 @@ public class DefaultDataBuffer implements DataBuffer {
 			ByteBuffer slice = this.byteBuffer.slice();
 			// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
 			((Buffer) slice).limit(length);
-			return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+			return slicedBuffer(slice, length);
 		}
 		finally {
 			buffer.position(oldPosition);
 		}
 	}
 
+	/**
+	 * Create a view on the given slice of this buffer's memory.
+	 * @param slice the native slice
+	 * @param length the length of the slice
+	 * @since 5.1
+	 */
+	DefaultDataBuffer slicedBuffer(ByteBuffer slice, int length) {
+		return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+	}
+
 	@Override
 	public ByteBuffer asByteBuffer() {
 		return asByteBuffer(this.readPosition, readableByteCount());
@@ -362,12 +378,12 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	@Override
 	public InputStream asInputStream() {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(false);
 	}
 
 	@Override
 	public InputStream asInputStream(boolean releaseOnClose) {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(releaseOnClose);
 	}
 
 	@Override
@@ -453,6 +469,14 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	private class DefaultDataBufferInputStream extends InputStream {
 
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		DefaultDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
 		@Override
 		public int available() {
 			return readableByteCount();
@@ -475,6 +499,14 @@ public class DefaultDataBuffer implements DataBuffer {
 				return -1;
 			}
 		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(DefaultDataBuffer.this);
+			}
+		}
 	}
 
 
@@ -493,7 +525,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	}
 
 
-	private static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
+	static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
 
 		SlicedDefaultDataBuffer(ByteBuffer byteBuffer, DefaultDataBufferFactory dataBufferFactory,
 				int length) {
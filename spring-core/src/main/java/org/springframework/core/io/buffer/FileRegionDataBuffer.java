@@ -0,0 +1,389 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Read-only {@link DataBuffer} for a region of a file, backed by a memory-mapped
+ * {@link MappedByteBuffer} rather than by memory on the Java heap.
+ *
+ * <p>Besides being readable like any other data buffer, a file region buffer
+ * exposes the {@linkplain #getFile() file}, {@linkplain #getPosition() position}
+ * and {@linkplain #getCount() count} of its readable bytes, allowing server
+ * adapters to transfer the region directly from the file to the network
+ * (e.g. through {@code FileChannel.transferTo}) without reading it at all.
+ *
+ * <p>The region is only mapped once its content is accessed, so a buffer that is
+ * transferred that way never maps the file. The mapping is unmapped when the buffer
+ * is {@linkplain #release() released}, unless a view of it was handed out through
+ * {@link #asByteBuffer()}, {@link #slice(int, int)} or {@link #asInputStream()}:
+ * since the buffer cannot tell when such a view is no longer used, it then leaves
+ * the mapping to the garbage collector.
+ *
+ * @since 5.1
+ * @see DataBufferUtils#readRegion(org.springframework.core.io.Resource, long, long, DataBufferFactory, int)
+ */
+public class FileRegionDataBuffer implements PooledDataBuffer {
+
+	private final DefaultDataBufferFactory dataBufferFactory;
+
+	private final Path file;
+
+	private final long position;
+
+	private final int count;
+
+	private int readPosition;
+
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+	@Nullable
+	private MappedByteBuffer mappedBuffer;
+
+	@Nullable
+	private DefaultDataBuffer mappedDataBuffer;
+
+	private boolean mappingExposed;
+
+
+	FileRegionDataBuffer(DefaultDataBufferFactory dataBufferFactory, Path file, long position, int count) {
+		this.dataBufferFactory = dataBufferFactory;
+		this.file = file;
+		this.position = position;
+		this.count = count;
+	}
+
+
+	/**
+	 * Return the file that this buffer is a region of.
+	 */
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Return the position within the file of the first readable byte of this buffer.
+	 */
+	public long getPosition() {
+		return this.position + readPosition();
+	}
+
+	/**
+	 * Return the number of readable bytes of this buffer.
+	 */
+	public long getCount() {
+		return readableByteCount();
+	}
+
+	@Override
+	public DefaultDataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		return mapped().indexOf(predicate, fromIndex);
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		return mapped().lastIndexOf(predicate, fromIndex);
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.count - readPosition();
+	}
+
+	@Override
+	public int writableByteCount() {
+		return 0;
+	}
+
+	@Override
+	public int capacity() {
+		return this.count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException since a file region cannot be resized
+	 */
+	@Override
+	public DataBuffer capacity(int newCapacity) {
+		throw new UnsupportedOperationException("Changing the capacity of a file region buffer is not supported");
+	}
+
+	@Override
+	public int readPosition() {
+		return (this.mappedDataBuffer != null ? this.mappedDataBuffer.readPosition() : this.readPosition);
+	}
+
+	@Override
+	public DataBuffer readPosition(int readPosition) {
+		if (this.mappedDataBuffer != null) {
+			this.mappedDataBuffer.readPosition(readPosition);
+		}
+		else {
+			Assert.isTrue(readPosition >= 0 && readPosition <= this.count,
+					() -> "'readPosition' " + readPosition + " must be >= 0 and <= " + this.count);
+			this.readPosition = readPosition;
+		}
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException since a file region is read-only
+	 */
+	@Override
+	public DataBuffer writePosition(int writePosition) {
+		throw readOnly();
+	}
+
+	@Override
+	public byte getByte(int index) {
+		return mapped().getByte(index);
+	}
+
+	@Override
+	public byte read() {
+		return mapped().read();
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination) {
+		mapped().read(destination);
+		return this;
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination, int offset, int length) {
+		mapped().read(destination, offset, length);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte b) {
+		throw readOnly();
+	}
+
+	@Override
+	public DataBuffer write(byte[] source) {
+		throw readOnly();
+	}
+
+	@Override
+	public DataBuffer write(byte[] source, int offset, int length) {
+		throw readOnly();
+	}
+
+	@Override
+	public DataBuffer write(DataBuffer... buffers) {
+		throw readOnly();
+	}
+
+	@Override
+	public DataBuffer write(ByteBuffer... buffers) {
+		throw readOnly();
+	}
+
+	@Override
+	public DataBuffer slice(int index, int length) {
+		DefaultDataBuffer mapped = mapped();
+		this.mappingExposed = true;
+		return mapped.slice(index, length);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		DefaultDataBuffer mapped = mapped();
+		this.mappingExposed = true;
+		return mapped.asByteBuffer();
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		DefaultDataBuffer mapped = mapped();
+		this.mappingExposed = true;
+		return mapped.asByteBuffer(index, length);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return asInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		DefaultDataBuffer mapped = mapped();
+		this.mappingExposed = true;
+		InputStream inputStream = mapped.asInputStream();
+		if (!releaseOnClose) {
+			return inputStream;
+		}
+		return new FilterInputStream(inputStream) {
+			private boolean closed;
+			@Override
+			public void close() throws IOException {
+				if (!this.closed) {
+					this.closed = true;
+					release();
+				}
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws UnsupportedOperationException since a file region is read-only
+	 */
+	@Override
+	public OutputStream asOutputStream() {
+		throw readOnly();
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		this.refCount.incrementAndGet();
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int refCount = this.refCount.decrementAndGet();
+		Assert.state(refCount >= 0, "FileRegionDataBuffer has already been released");
+		if (refCount > 0) {
+			return false;
+		}
+		MappedByteBuffer mappedBuffer = this.mappedBuffer;
+		if (mappedBuffer != null) {
+			this.readPosition = this.mappedDataBuffer.readPosition();
+			this.mappedBuffer = null;
+			this.mappedDataBuffer = null;
+			if (!this.mappingExposed) {
+				Unmapper.unmap(mappedBuffer);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the data buffer for the mapped region, mapping it on first access.
+	 */
+	private DefaultDataBuffer mapped() {
+		DefaultDataBuffer mappedDataBuffer = this.mappedDataBuffer;
+		if (mappedDataBuffer == null) {
+			Assert.state(this.refCount.get() > 0, "FileRegionDataBuffer has been released");
+			try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+				this.mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, this.position, this.count);
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException("Could not map region of file " + this.file, ex);
+			}
+			mappedDataBuffer = DefaultDataBuffer.fromFilledByteBuffer(this.dataBufferFactory, this.mappedBuffer);
+			mappedDataBuffer.readPosition(this.readPosition);
+			this.mappedDataBuffer = mappedDataBuffer;
+		}
+		return mappedDataBuffer;
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("A file region buffer is read-only");
+	}
+
+	@Override
+	public String toString() {
+		return String.format("FileRegionDataBuffer (file: %s, position %d, count %d)",
+				this.file, getPosition(), getCount());
+	}
+
+
+	/**
+	 * Inner class to avoid a hard dependency on the JDK-internal API for
+	 * unmapping a {@link MappedByteBuffer} before it is garbage collected.
+	 */
+	private static class Unmapper {
+
+		@Nullable
+		private static final Object unsafe;
+
+		@Nullable
+		private static final Method invokeCleaner;
+
+		static {
+			Object unsafeToUse = null;
+			Method invokeCleanerToUse = null;
+			try {
+				// JDK 9+: sun.misc.Unsafe.invokeCleaner(ByteBuffer)
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				invokeCleanerToUse = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				unsafeToUse = theUnsafe.get(null);
+			}
+			catch (Throwable ex) {
+				// JDK 8: fall back to the cleaner of the buffer itself, below
+				invokeCleanerToUse = null;
+			}
+			unsafe = unsafeToUse;
+			invokeCleaner = invokeCleanerToUse;
+		}
+
+		public static void unmap(MappedByteBuffer buffer) {
+			try {
+				if (invokeCleaner != null) {
+					invokeCleaner.invoke(unsafe, buffer);
+				}
+				else {
+					Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+					cleanerMethod.setAccessible(true);
+					Object cleaner = cleanerMethod.invoke(buffer);
+					if (cleaner != null) {
+						cleaner.getClass().getMethod("clean").invoke(cleaner);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				// leave the mapping to the garbage collector
+			}
+		}
+	}
+
+}
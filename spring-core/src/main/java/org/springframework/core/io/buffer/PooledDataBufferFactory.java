@@ -0,0 +1,356 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Pooling variant of the {@link DefaultDataBufferFactory}, handing out
+ * {@link PooledDataBuffer PooledDataBuffers} whose memory returns to the
+ * factory once their reference count drops to zero. Meant for non-Netty
+ * runtimes (i.e. Servlet) where request body chunks and encoder output
+ * would otherwise be allocated afresh every time.
+ *
+ * <p>Buffers are pooled in power-of-two size classes from 64 bytes up to the
+ * configured maximum pooled capacity; larger buffers are allocated on demand.
+ * Released memory is kept in a small per-thread cache first (for size classes
+ * up to 8 KB), falling back to a shared arena with a bounded number of buffers
+ * per size class. Heap or direct memory is used depending on {@code preferDirect}.
+ *
+ * <p>Buffers obtained through {@link #wrap} are not pooled, and buffers which
+ * are never released are simply garbage-collected. To track down the latter,
+ * {@linkplain #setLeakDetectionSamplingInterval leak detection} may be enabled
+ * for a sample of the allocated buffers, logging the allocation stack trace of
+ * each buffer that got garbage-collected without having been released.
+ *
+ * @since 5.1
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #PooledDataBufferFactory(boolean, int, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default number of buffers kept in the shared arena per size class.
+	 * @see #PooledDataBufferFactory(boolean, int, int, int)
+	 */
+	public static final int DEFAULT_ARENA_SIZE = 64;
+
+	private static final int MIN_POOLED_CAPACITY_SHIFT = 6;
+
+	private static final int MAX_THREAD_CACHED_CAPACITY = 8 * 1024;
+
+	private static final int THREAD_CACHE_SIZE = 8;
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final BlockingQueue<ByteBuffer>[] arena;
+
+	private final int threadCachedSizeClasses;
+
+	private final ThreadLocal<ThreadCache> threadCache;
+
+	private final LongAdder activeBuffers = new LongAdder();
+
+	private volatile int leakDetectionSamplingInterval;
+
+	private final ReferenceQueue<DataBuffer> leakQueue = new ReferenceQueue<>();
+
+	private final Set<LeakRecord> leakRecords = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong leakCount = new AtomicLong();
+
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory} with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled, and what the capacity is to be used for
+	 * {@link #allocateBuffer()}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity to use for {@link #allocateBuffer()}
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity) {
+		this(preferDirect, defaultInitialCapacity, DEFAULT_MAX_POOLED_CAPACITY, DEFAULT_ARENA_SIZE);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory} with the given pool settings.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity to use for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the capacity up to which buffers are pooled,
+	 * rounded up to the next power of two
+	 * @param arenaSize the number of buffers to keep in the shared arena per size class
+	 */
+	@SuppressWarnings("unchecked")
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity,
+			int maxPooledCapacity, int arenaSize) {
+
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity > 0 && maxPooledCapacity <= (1 << 30),
+				"'maxPooledCapacity' should be between 1 and 2^30");
+		Assert.isTrue(arenaSize > 0, "'arenaSize' should be larger than 0");
+		this.preferDirect = preferDirect;
+		int sizeClasses = sizeClassIndex(maxPooledCapacity) + 1;
+		this.arena = new BlockingQueue[sizeClasses];
+		for (int i = 0; i < sizeClasses; i++) {
+			this.arena[i] = new ArrayBlockingQueue<>(arenaSize);
+		}
+		int threadCachedSizeClasses = Math.min(sizeClasses, sizeClassIndex(MAX_THREAD_CACHED_CAPACITY) + 1);
+		this.threadCachedSizeClasses = threadCachedSizeClasses;
+		this.threadCache = new NamedThreadLocal<ThreadCache>("Pooled DataBuffer thread cache") {
+			@Override
+			protected ThreadCache initialValue() {
+				return new ThreadCache(threadCachedSizeClasses);
+			}
+		};
+	}
+
+
+	/**
+	 * Enable leak detection for a sample of the allocated buffers: for each sampled
+	 * buffer which gets garbage-collected without having been released, the stack
+	 * trace of its allocation is logged at error level.
+	 * <p>Default is 0, i.e. no leak detection. Note that recording allocation stack
+	 * traces is expensive, so a higher sampling interval is recommended in production.
+	 * @param samplingInterval the average number of allocations per tracked buffer
+	 * (1 for tracking every buffer, 0 for no leak detection)
+	 * @see #getLeakCount()
+	 */
+	public void setLeakDetectionSamplingInterval(int samplingInterval) {
+		Assert.isTrue(samplingInterval >= 0, "'samplingInterval' must not be negative");
+		this.leakDetectionSamplingInterval = samplingInterval;
+	}
+
+	/**
+	 * Return the sampling interval for leak detection (0 if disabled).
+	 */
+	public int getLeakDetectionSamplingInterval() {
+		return this.leakDetectionSamplingInterval;
+	}
+
+	/**
+	 * Return the number of buffers which have been allocated but not released yet.
+	 */
+	public long getActiveBufferCount() {
+		return this.activeBuffers.sum();
+	}
+
+	/**
+	 * Return the number of leaked buffers detected so far.
+	 * @see #setLeakDetectionSamplingInterval
+	 */
+	public long getLeakCount() {
+		return this.leakCount.get();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		int samplingInterval = this.leakDetectionSamplingInterval;
+		if (samplingInterval > 0) {
+			reportLeaks();
+		}
+		PooledDefaultDataBuffer dataBuffer =
+				new PooledDefaultDataBuffer(this, acquire(initialCapacity, this.preferDirect), initialCapacity);
+		if (samplingInterval > 0 &&
+				(samplingInterval == 1 || ThreadLocalRandom.current().nextInt(samplingInterval) == 0)) {
+			LeakRecord leakRecord = new LeakRecord(dataBuffer, this.leakQueue);
+			this.leakRecords.add(leakRecord);
+			dataBuffer.setLeakRecord(leakRecord);
+		}
+		this.activeBuffers.increment();
+		return dataBuffer;
+	}
+
+	/**
+	 * Obtain a native buffer with at least the given capacity, from the
+	 * pool if possible.
+	 */
+	ByteBuffer acquire(int capacity, boolean direct) {
+		int index = sizeClassIndex(capacity);
+		if (direct != this.preferDirect || index >= this.arena.length) {
+			return allocateNative(capacity, direct);
+		}
+		ByteBuffer byteBuffer = null;
+		if (index < this.threadCachedSizeClasses) {
+			byteBuffer = this.threadCache.get().poll(index);
+		}
+		if (byteBuffer == null) {
+			byteBuffer = this.arena[index].poll();
+		}
+		return (byteBuffer != null ? byteBuffer : allocateNative(sizeClassCapacity(index), direct));
+	}
+
+	/**
+	 * Return the given native buffer to the pool, if it fits in.
+	 */
+	private void recycle(ByteBuffer byteBuffer) {
+		int capacity = byteBuffer.capacity();
+		int index = sizeClassIndex(capacity);
+		if (byteBuffer.isDirect() != this.preferDirect || index >= this.arena.length ||
+				capacity != sizeClassCapacity(index)) {
+			return;
+		}
+		if (index >= this.threadCachedSizeClasses || !this.threadCache.get().offer(index, byteBuffer)) {
+			this.arena[index].offer(byteBuffer);
+		}
+	}
+
+	/**
+	 * Called once the given buffer has been released.
+	 */
+	void deallocate(PooledDefaultDataBuffer dataBuffer, ByteBuffer byteBuffer) {
+		LeakRecord leakRecord = dataBuffer.getLeakRecord();
+		if (leakRecord != null) {
+			this.leakRecords.remove(leakRecord);
+			leakRecord.clear();
+		}
+		this.activeBuffers.decrement();
+		recycle(byteBuffer);
+	}
+
+	private void reportLeaks() {
+		Reference<? extends DataBuffer> reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			LeakRecord leakRecord = (LeakRecord) reference;
+			if (this.leakRecords.remove(leakRecord)) {
+				this.leakCount.incrementAndGet();
+				this.activeBuffers.decrement();
+				logger.error("DataBuffer leak detected: a buffer allocated by " + this +
+						" was garbage-collected without having been released", leakRecord.allocationTrace);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect + ")";
+	}
+
+
+	private static ByteBuffer allocateNative(int capacity, boolean direct) {
+		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= (1 << MIN_POOLED_CAPACITY_SHIFT)) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_POOLED_CAPACITY_SHIFT;
+	}
+
+	private static int sizeClassCapacity(int index) {
+		return 1 << (index + MIN_POOLED_CAPACITY_SHIFT);
+	}
+
+
+	/**
+	 * Per-thread stacks of released native buffers, one per size class.
+	 */
+	private static final class ThreadCache {
+
+		private final ByteBuffer[][] buffers;
+
+		private final int[] counts;
+
+		ThreadCache(int sizeClasses) {
+			this.buffers = new ByteBuffer[sizeClasses][THREAD_CACHE_SIZE];
+			this.counts = new int[sizeClasses];
+		}
+
+		@Nullable
+		ByteBuffer poll(int index) {
+			int count = this.counts[index];
+			if (count == 0) {
+				return null;
+			}
+			count--;
+			ByteBuffer byteBuffer = this.buffers[index][count];
+			this.buffers[index][count] = null;
+			this.counts[index] = count;
+			return byteBuffer;
+		}
+
+		boolean offer(int index, ByteBuffer byteBuffer) {
+			int count = this.counts[index];
+			if (count == THREAD_CACHE_SIZE) {
+				return false;
+			}
+			this.buffers[index][count] = byteBuffer;
+			this.counts[index] = count + 1;
+			return true;
+		}
+	}
+
+
+	/**
+	 * Tracks a sampled buffer along with its allocation stack trace.
+	 */
+	static final class LeakRecord extends PhantomReference<DataBuffer> {
+
+		private final Throwable allocationTrace;
+
+		LeakRecord(DataBuffer dataBuffer, ReferenceQueue<DataBuffer> queue) {
+			super(dataBuffer, queue);
+			this.allocationTrace = new Throwable("Allocation stack trace of leaked DataBuffer");
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link DefaultDataBuffer} whose memory is obtained from and returned to a
+ * {@link PooledDataBufferFactory}, based on its reference count. Slices share
+ * the reference count of the buffer they have been created from.
+ *
+ * <p>When the buffer grows beyond its capacity, the memory it leaves behind is not
+ * returned to the pool but left to the garbage collector, since slices or
+ * {@link #asByteBuffer() ByteBuffer views} taken before may still refer to it.
+ *
+ * @since 5.1
+ * @see PooledDataBufferFactory
+ */
+class PooledDefaultDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final AtomicIntegerFieldUpdater<PooledDefaultDataBuffer> refCountUpdater =
+			AtomicIntegerFieldUpdater.newUpdater(PooledDefaultDataBuffer.class, "refCount");
+
+
+	private final PooledDataBufferFactory dataBufferFactory;
+
+	/** The pooled native buffer that the current native buffer is a slice of */
+	private ByteBuffer pooledBuffer;
+
+	private volatile int refCount = 1;
+
+	@Nullable
+	private PooledDataBufferFactory.LeakRecord leakRecord;
+
+
+	PooledDefaultDataBuffer(PooledDataBufferFactory dataBufferFactory, ByteBuffer pooledBuffer, int capacity) {
+		super(dataBufferFactory, limit(pooledBuffer, capacity));
+		this.dataBufferFactory = dataBufferFactory;
+		this.pooledBuffer = pooledBuffer;
+	}
+
+
+	void setLeakRecord(PooledDataBufferFactory.LeakRecord leakRecord) {
+		this.leakRecord = leakRecord;
+	}
+
+	@Nullable
+	PooledDataBufferFactory.LeakRecord getLeakRecord() {
+		return this.leakRecord;
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		while (true) {
+			int refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("Cannot retain released buffer: refCount " + refCount);
+			}
+			if (refCountUpdater.compareAndSet(this, refCount, refCount + 1)) {
+				return this;
+			}
+		}
+	}
+
+	@Override
+	public boolean release() {
+		while (true) {
+			int refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("Cannot release released buffer: refCount " + refCount);
+			}
+			if (refCountUpdater.compareAndSet(this, refCount, refCount - 1)) {
+				if (refCount > 1) {
+					return false;
+				}
+				ByteBuffer pooledBuffer = this.pooledBuffer;
+				// Prevent further access to memory which may get handed out again
+				setNativeBuffer(EMPTY_BUFFER);
+				this.dataBufferFactory.deallocate(this, pooledBuffer);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	ByteBuffer allocate(int capacity, boolean direct) {
+		ByteBuffer pooledBuffer = this.dataBufferFactory.acquire(capacity, direct);
+		this.pooledBuffer = pooledBuffer;
+		return limit(pooledBuffer, capacity).slice();
+	}
+
+	@Override
+	DefaultDataBuffer slicedBuffer(ByteBuffer slice, int length) {
+		return new PooledSlicedDataBuffer(slice, this, length);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PooledDefaultDataBuffer (r: %d, w %d, c %d, refCount %d)",
+				readPosition(), writePosition(), capacity(), this.refCount);
+	}
+
+
+	private static ByteBuffer limit(ByteBuffer byteBuffer, int capacity) {
+		// Explicit access via Buffer base type for compatibility
+		// with covariant return type on JDK 9's ByteBuffer...
+		Buffer buffer = byteBuffer;
+		buffer.clear();
+		buffer.limit(capacity);
+		return byteBuffer;
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing its reference count.
+	 */
+	private static class PooledSlicedDataBuffer extends SlicedDefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		PooledSlicedDataBuffer(ByteBuffer byteBuffer, PooledDefaultDataBuffer parent, int length) {
+			super(byteBuffer, parent.dataBufferFactory, length);
+			this.parent = parent;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		DefaultDataBuffer slicedBuffer(ByteBuffer slice, int length) {
+			return new PooledSlicedDataBuffer(slice, this.parent, length);
+		}
+	}
+
+}
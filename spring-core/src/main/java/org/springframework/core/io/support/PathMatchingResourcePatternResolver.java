@@ -26,11 +26,16 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipException;
@@ -203,6 +208,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	private boolean parallelScanning = false;
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -266,6 +273,29 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Set whether to search the root directories of a location pattern in
+	 * parallel, e.g. the many jar files matching a {@code classpath*:} pattern.
+	 * <p>Default is "false". The directories are searched in the
+	 * {@link ForkJoinPool#commonPool() common ForkJoinPool} then, while the
+	 * resulting resources remain in the same order as with a sequential search.
+	 * Note that the template methods for searching a root directory and the
+	 * configured {@link PathMatcher} need to be thread-safe in this case.
+	 * @since 5.1
+	 * @see #findPathMatchingResources(String)
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether root directories are searched in parallel.
+	 * @since 5.1
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -490,24 +520,20 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		String subPattern = locationPattern.substring(rootDirPath.length());
 		Resource[] rootDirResources = getResources(rootDirPath);
 		Set<Resource> result = new LinkedHashSet<>(16);
-		for (Resource rootDirResource : rootDirResources) {
-			rootDirResource = resolveRootDirResource(rootDirResource);
-			URL rootDirUrl = rootDirResource.getURL();
-			if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
-				URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
-				if (resolvedUrl != null) {
-					rootDirUrl = resolvedUrl;
-				}
-				rootDirResource = new UrlResource(rootDirUrl);
-			}
-			if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
-				result.addAll(VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher()));
+		if (this.parallelScanning && rootDirResources.length > 1) {
+			List<Future<Set<Resource>>> futures = new ArrayList<>(rootDirResources.length);
+			for (Resource rootDirResource : rootDirResources) {
+				futures.add(ForkJoinPool.commonPool().submit(
+						() -> findPathMatchingResources(rootDirResource, subPattern)));
 			}
-			else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
-				result.addAll(doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern));
+			// Collect in the order of the root directories, keeping the first of any duplicates
+			for (Future<Set<Resource>> future : futures) {
+				result.addAll(getScanResult(future));
 			}
-			else {
-				result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
+		}
+		else {
+			for (Resource rootDirResource : rootDirResources) {
+				result.addAll(findPathMatchingResources(rootDirResource, subPattern));
 			}
 		}
 		if (logger.isDebugEnabled()) {
@@ -516,6 +542,55 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return result.toArray(new Resource[0]);
 	}
 
+	/**
+	 * Find all resources in the given root directory that match the given sub pattern.
+	 */
+	private Set<Resource> findPathMatchingResources(Resource rootDirResource, String subPattern)
+			throws IOException {
+
+		rootDirResource = resolveRootDirResource(rootDirResource);
+		URL rootDirUrl = rootDirResource.getURL();
+		if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
+			URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
+			if (resolvedUrl != null) {
+				rootDirUrl = resolvedUrl;
+			}
+			rootDirResource = new UrlResource(rootDirUrl);
+		}
+		if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
+			return VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher());
+		}
+		else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
+			return doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern);
+		}
+		else {
+			return doFindPathMatchingFileResources(rootDirResource, subPattern);
+		}
+	}
+
+	private Set<Resource> getScanResult(Future<Set<Resource>> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while searching for matching resources", ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Failed to search for matching resources", cause);
+		}
+	}
+
 	/**
 	 * Determine the root directory for the given location.
 	 * <p>Used for determining the starting point for file matching,
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link ApplicationStartup} implementation that buffers {@link StartupStep steps}
+ * and records their start time, duration and - where supported by the JVM - the
+ * number of bytes allocated by the recording thread in the meantime.
+ *
+ * <p>Steps are buffered once they have {@link StartupStep#end() ended}, up to the
+ * given capacity; further steps are counted but dropped. The parent of a step is
+ * the step most recently started and not yet ended on the same thread.
+ *
+ * <p>Buffered steps can be retrieved through {@link #getBufferedSteps()} or
+ * written out as JSON through {@link #writeJson(Writer)}, e.g. once the
+ * application context has been refreshed.
+ *
+ * @since 5.1
+ * @see org.springframework.core.metrics.jfr.FlightRecorderApplicationStartup
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private static final boolean allocationTrackingAvailable =
+			ClassUtils.isPresent("com.sun.management.ThreadMXBean", BufferingApplicationStartup.class.getClassLoader());
+
+
+	private final int capacity;
+
+	private final AtomicLong idGenerator = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new NamedThreadLocal<>("Current startup step");
+
+	private final Queue<BufferedStartupStep> bufferedSteps = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger bufferedCount = new AtomicInteger();
+
+	private final AtomicInteger droppedCount = new AtomicInteger();
+
+
+	/**
+	 * Create a new buffered {@link ApplicationStartup} with a limited capacity.
+	 * @param capacity the maximum number of steps to buffer
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		Assert.notNull(name, "Step name must not be null");
+		BufferedStartupStep parent = this.currentStep.get();
+		BufferedStartupStep step = new BufferedStartupStep(this.idGenerator.incrementAndGet(), name, parent);
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step) {
+		if (this.currentStep.get() == step) {
+			if (step.parent != null) {
+				this.currentStep.set(step.parent);
+			}
+			else {
+				this.currentStep.remove();
+			}
+		}
+		if (this.bufferedCount.incrementAndGet() <= this.capacity) {
+			this.bufferedSteps.add(step);
+		}
+		else {
+			this.bufferedCount.decrementAndGet();
+			this.droppedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Return the steps buffered so far, ordered by step id, i.e. in the order
+	 * in which they have been started.
+	 */
+	public List<BufferedStartupStep> getBufferedSteps() {
+		List<BufferedStartupStep> steps = new ArrayList<>(this.bufferedSteps);
+		steps.sort(Comparator.comparingLong(BufferedStartupStep::getId));
+		return steps;
+	}
+
+	/**
+	 * Return the number of steps that have been dropped since the
+	 * buffer had reached its capacity.
+	 */
+	public int getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Write the buffered steps as a JSON document to the given {@link Writer}.
+	 * <p>The document contains a "steps" array, with an entry for each step
+	 * as returned by {@link #getBufferedSteps()}, and a "dropped" count.
+	 * Durations are given in nanoseconds, start times in ISO-8601 format.
+	 * @param writer the writer to write to (not closed by this method)
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		writer.write("{\"steps\":[");
+		boolean first = true;
+		for (BufferedStartupStep step : getBufferedSteps()) {
+			if (!first) {
+				writer.write(',');
+			}
+			first = false;
+			writer.write("\n{\"id\":" + step.getId());
+			writer.write(",\"parentId\":" + step.getParentId());
+			writer.write(",\"name\":");
+			writeJsonString(writer, step.getName());
+			writer.write(",\"thread\":");
+			writeJsonString(writer, step.getThreadName());
+			writer.write(",\"startTime\":");
+			writeJsonString(writer, step.getStartTime().toString());
+			writer.write(",\"duration\":" + step.getDuration().toNanos());
+			writer.write(",\"allocatedBytes\":" + step.getAllocatedBytes());
+			writer.write(",\"tags\":{");
+			boolean firstTag = true;
+			for (StartupStep.Tag tag : step.getTags()) {
+				if (!firstTag) {
+					writer.write(',');
+				}
+				firstTag = false;
+				writeJsonString(writer, tag.getKey());
+				writer.write(':');
+				writeJsonString(writer, tag.getValue());
+			}
+			writer.write("}}");
+		}
+		writer.write("],\n\"dropped\":" + getDroppedCount() + "}\n");
+		writer.flush();
+	}
+
+	private static void writeJsonString(Writer writer, @Nullable String value) throws IOException {
+		if (value == null) {
+			writer.write("null");
+			return;
+		}
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			if (ch == '"' || ch == '\\') {
+				writer.write('\\');
+				writer.write(ch);
+			}
+			else if (ch < 0x20) {
+				writer.write(String.format("\\u%04x", (int) ch));
+			}
+			else {
+				writer.write(ch);
+			}
+		}
+		writer.write('"');
+	}
+
+	private static long currentThreadAllocatedBytes() {
+		return (allocationTrackingAvailable ? AllocationTracker.currentThreadAllocatedBytes() : -1);
+	}
+
+
+	/**
+	 * {@link StartupStep} recorded by a {@link BufferingApplicationStartup}.
+	 */
+	public final class BufferedStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final Thread thread;
+
+		private final Instant startTime;
+
+		private final long startNanos;
+
+		private final long startAllocatedBytes;
+
+		private final BufferedTags tags = new BufferedTags();
+
+		private volatile long endNanos = -1;
+
+		private volatile long endAllocatedBytes = -1;
+
+		BufferedStartupStep(long id, String name, @Nullable BufferedStartupStep parent) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.thread = Thread.currentThread();
+			this.startTime = Instant.now();
+			this.startAllocatedBytes = currentThreadAllocatedBytes();
+			this.startNanos = System.nanoTime();
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(this.endNanos == -1, "StartupStep has already ended");
+			this.tags.add(key, value);
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			return this.tags;
+		}
+
+		@Override
+		public void end() {
+			Assert.state(this.endNanos == -1, "StartupStep has already ended");
+			this.endNanos = System.nanoTime();
+			if (this.startAllocatedBytes != -1 && Thread.currentThread() == this.thread) {
+				this.endAllocatedBytes = currentThreadAllocatedBytes();
+			}
+			record(this);
+		}
+
+		/**
+		 * Return the name of the thread that started this step.
+		 */
+		public String getThreadName() {
+			return this.thread.getName();
+		}
+
+		/**
+		 * Return the wall-clock time at which this step started.
+		 */
+		public Instant getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * Return the time elapsed between the start and the end of this step,
+		 * including the time spent in nested steps.
+		 */
+		public Duration getDuration() {
+			long end = this.endNanos;
+			return Duration.ofNanos((end != -1 ? end : System.nanoTime()) - this.startNanos);
+		}
+
+		/**
+		 * Return the number of bytes allocated by the thread that started this step
+		 * between its start and its end, including allocations in nested steps,
+		 * or {@code -1} if not supported by the JVM or if the step ended on
+		 * a different thread.
+		 */
+		public long getAllocatedBytes() {
+			long end = this.endAllocatedBytes;
+			return (end != -1 ? end - this.startAllocatedBytes : -1);
+		}
+
+		@Override
+		public String toString() {
+			return "StartupStep '" + this.name + "' [id=" + this.id + ", parentId=" + getParentId() + "]";
+		}
+	}
+
+
+	private static class BufferedTags implements StartupStep.Tags {
+
+		private final List<StartupStep.Tag> tags = new ArrayList<>(4);
+
+		void add(String key, String value) {
+			this.tags.add(new BufferedTag(key, value));
+		}
+
+		@Override
+		public Iterator<StartupStep.Tag> iterator() {
+			return Collections.unmodifiableList(this.tags).iterator();
+		}
+	}
+
+
+	private static class BufferedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		BufferedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+
+	/**
+	 * Inner class to avoid a hard dependency on the HotSpot-specific
+	 * {@code com.sun.management} API.
+	 */
+	private static class AllocationTracker {
+
+		public static long currentThreadAllocatedBytes() {
+			ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+			if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean hotSpotBean = (com.sun.management.ThreadMXBean) threadMXBean;
+				if (hotSpotBean.isThreadAllocatedMemorySupported() && hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+					return hotSpotBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+				}
+			}
+			return -1;
+		}
+	}
+
+}
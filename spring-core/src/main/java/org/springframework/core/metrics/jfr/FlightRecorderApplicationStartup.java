@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics.jfr;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link ApplicationStartup} implementation for the Java Flight Recorder.
+ *
+ * <p>This variant records {@link StartupStep} as Flight Recorder events; because
+ * such events only support base types, the {@link StartupStep.Tags} are serialized
+ * as a single String attribute. Events are only recorded while a flight recording
+ * with the "Spring Application / Startup Step" event enabled is active.
+ *
+ * <p>Requires a JVM that provides the {@code jdk.jfr} API at runtime, i.e. JDK 11
+ * or a JDK 8 update that includes the Flight Recorder backport. The API is accessed
+ * reflectively, so this class does not need it at compile time.
+ *
+ * @since 5.1
+ */
+public class FlightRecorderApplicationStartup implements ApplicationStartup {
+
+	private final FlightRecorderStartupEvent.Type eventType;
+
+	private final AtomicLong currentSequenceId = new AtomicLong();
+
+	private final ThreadLocal<Deque<Long>> currentSteps =
+			new NamedThreadLocal<Deque<Long>>("Current Flight Recorder steps") {
+				@Override
+				protected Deque<Long> initialValue() {
+					return new ArrayDeque<>();
+				}
+			};
+
+
+	/**
+	 * Create a new {@code FlightRecorderApplicationStartup}, registering the
+	 * startup step event type with Flight Recorder.
+	 * @throws IllegalStateException if the {@code jdk.jfr} API is not available
+	 */
+	public FlightRecorderApplicationStartup() {
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		this.eventType = new FlightRecorderStartupEvent.Type(
+				classLoader != null ? classLoader : ClassLoader.getSystemClassLoader());
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		long sequenceId = this.currentSequenceId.incrementAndGet();
+		Deque<Long> steps = this.currentSteps.get();
+		Long parentId = steps.peek();
+		steps.push(sequenceId);
+		FlightRecorderStartupEvent event =
+				this.eventType.newEvent(sequenceId, name, (parentId != null ? parentId : 0L));
+		return new FlightRecorderStartupStep(event, this::recordEnd);
+	}
+
+	private void recordEnd(FlightRecorderStartupStep step) {
+		Deque<Long> steps = this.currentSteps.get();
+		steps.remove(step.getId());
+		if (steps.isEmpty()) {
+			this.currentSteps.remove();
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics.jfr;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Java Flight Recorder event for recording a {@link FlightRecorderStartupStep}.
+ *
+ * <p>The event type is defined at runtime through {@code jdk.jfr.EventFactory}
+ * and accessed reflectively, since the {@code jdk.jfr} API is not available on
+ * all JDKs that Spring supports. {@link org.springframework.core.metrics.StartupStep.Tags}
+ * are serialized as a single {@code String}, since Flight Recorder events do not
+ * support complex types.
+ *
+ * @since 5.1
+ */
+final class FlightRecorderStartupEvent {
+
+	private static final int EVENT_ID_INDEX = 0;
+
+	private static final int PARENT_ID_INDEX = 1;
+
+	private static final int NAME_INDEX = 2;
+
+	private static final int TAGS_INDEX = 3;
+
+
+	private final Type type;
+
+	private final Object event;
+
+	final long eventId;
+
+	final long parentId;
+
+	final String name;
+
+
+	private FlightRecorderStartupEvent(Type type, long eventId, String name, long parentId) {
+		this.type = type;
+		this.event = type.invoke(type.newEvent, type.eventFactory);
+		this.eventId = eventId;
+		this.parentId = parentId;
+		this.name = name;
+		type.invoke(type.set, this.event, EVENT_ID_INDEX, eventId);
+		type.invoke(type.set, this.event, PARENT_ID_INDEX, parentId);
+		type.invoke(type.set, this.event, NAME_INDEX, name);
+	}
+
+
+	public void begin() {
+		this.type.invoke(this.type.begin, this.event);
+	}
+
+	public void end() {
+		this.type.invoke(this.type.end, this.event);
+	}
+
+	public boolean isEnabled() {
+		return Boolean.TRUE.equals(this.type.invoke(this.type.isEnabled, this.event));
+	}
+
+	public boolean shouldCommit() {
+		return Boolean.TRUE.equals(this.type.invoke(this.type.shouldCommit, this.event));
+	}
+
+	public void commit() {
+		this.type.invoke(this.type.commit, this.event);
+	}
+
+	public void setTags(String tags) {
+		this.type.invoke(this.type.set, this.event, TAGS_INDEX, tags);
+	}
+
+
+	/**
+	 * The "Spring Application / Startup Step" event type, registered with
+	 * Flight Recorder on creation.
+	 */
+	static final class Type {
+
+		private final Object eventFactory;
+
+		private final Method newEvent;
+
+		private final Method begin;
+
+		private final Method end;
+
+		private final Method isEnabled;
+
+		private final Method shouldCommit;
+
+		private final Method commit;
+
+		private final Method set;
+
+		/**
+		 * Define the event type through the {@code jdk.jfr} API of the given ClassLoader.
+		 * @throws IllegalStateException if the {@code jdk.jfr} API is not available
+		 */
+		Type(ClassLoader classLoader) {
+			try {
+				Class<?> annotationElementClass = ClassUtils.forName("jdk.jfr.AnnotationElement", classLoader);
+				Class<?> valueDescriptorClass = ClassUtils.forName("jdk.jfr.ValueDescriptor", classLoader);
+				Class<?> eventFactoryClass = ClassUtils.forName("jdk.jfr.EventFactory", classLoader);
+				Class<?> eventClass = ClassUtils.forName("jdk.jfr.Event", classLoader);
+				Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+				Constructor<?> valueDescriptor =
+						valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+				Class<?> nameType = ClassUtils.forName("jdk.jfr.Name", classLoader);
+				Class<?> labelType = ClassUtils.forName("jdk.jfr.Label", classLoader);
+				Class<?> categoryType = ClassUtils.forName("jdk.jfr.Category", classLoader);
+				Class<?> descriptionType = ClassUtils.forName("jdk.jfr.Description", classLoader);
+
+				List<Object> annotations = Arrays.asList(
+						annotationElement.newInstance(nameType, FlightRecorderStartupEvent.class.getName()),
+						annotationElement.newInstance(categoryType, new String[] {"Spring Application"}),
+						annotationElement.newInstance(labelType, "Startup Step"),
+						annotationElement.newInstance(descriptionType, "Spring Application Startup"));
+				List<Object> fields = new ArrayList<>(4);
+				fields.add(valueDescriptor.newInstance(long.class, "eventId",
+						Collections.singletonList(annotationElement.newInstance(labelType, "Event Id"))));
+				fields.add(valueDescriptor.newInstance(long.class, "parentId",
+						Collections.singletonList(annotationElement.newInstance(labelType, "Parent Id"))));
+				fields.add(valueDescriptor.newInstance(String.class, "name",
+						Collections.singletonList(annotationElement.newInstance(labelType, "Name"))));
+				fields.add(valueDescriptor.newInstance(String.class, "tags",
+						Collections.singletonList(annotationElement.newInstance(labelType, "Tags"))));
+
+				this.eventFactory = eventFactoryClass.getMethod("create", List.class, List.class)
+						.invoke(null, annotations, fields);
+				this.newEvent = eventFactoryClass.getMethod("newEvent");
+				this.begin = eventClass.getMethod("begin");
+				this.end = eventClass.getMethod("end");
+				this.isEnabled = eventClass.getMethod("isEnabled");
+				this.shouldCommit = eventClass.getMethod("shouldCommit");
+				this.commit = eventClass.getMethod("commit");
+				this.set = eventClass.getMethod("set", int.class, Object.class);
+			}
+			catch (Throwable ex) {
+				throw new IllegalStateException("Java Flight Recorder API (jdk.jfr) not available", ex);
+			}
+		}
+
+		public FlightRecorderStartupEvent newEvent(long eventId, String name, long parentId) {
+			return new FlightRecorderStartupEvent(this, eventId, name, parentId);
+		}
+
+		private Object invoke(Method method, Object target, Object... args) {
+			return ReflectionUtils.invokeMethod(method, target, args);
+		}
+	}
+
+}
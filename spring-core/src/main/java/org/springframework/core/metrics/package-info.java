@@ -0,0 +1,9 @@
+/**
+ * Support package for recording metrics during application startup.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.core.metrics;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -0,0 +1,594 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * Compact binary recording of the ASM visitor events which are relevant for
+ * class metadata: the class header, outer and inner classes, and the annotations
+ * on the class and on its methods. Replaying a recording against a metadata
+ * reading visitor yields the same metadata as visiting the original class file,
+ * without having to parse it again.
+ *
+ * <p>Method code and all other events are not recorded, since none of the
+ * metadata reading visitors in this package is interested in them.
+ *
+ * @since 5.1
+ * @see PersistentMetadataReaderFactory
+ */
+abstract class ClassVisitRecording {
+
+	private static final byte END = 0;
+
+	private static final byte VISIT = 1;
+
+	private static final byte OUTER_CLASS = 2;
+
+	private static final byte INNER_CLASS = 3;
+
+	private static final byte ANNOTATION = 4;
+
+	private static final byte METHOD = 5;
+
+	private static final byte VALUE = 6;
+
+	private static final byte ENUM = 7;
+
+	private static final byte ARRAY = 8;
+
+
+	/**
+	 * Let the given class visitor visit the given class, recording the events.
+	 * @param classReader the class to visit
+	 * @param classVisitor the visitor to delegate to
+	 * @return the recorded events
+	 */
+	public static byte[] record(ClassReader classReader, ClassVisitor classVisitor) {
+		Output output = new Output();
+		classReader.accept(new RecordingClassVisitor(classVisitor, output), ClassReader.SKIP_DEBUG);
+		return output.toByteArray();
+	}
+
+	/**
+	 * Let the given class visitor visit the recorded events.
+	 * @param recording the recorded events, starting at the current position
+	 * @param classVisitor the visitor to replay the events against
+	 * @throws IllegalArgumentException if the recording is corrupt
+	 */
+	public static void replay(ByteBuffer recording, ClassVisitor classVisitor) {
+		try {
+			byte tag;
+			while ((tag = recording.get()) != END) {
+				switch (tag) {
+					case VISIT:
+						classVisitor.visit(recording.getInt(), recording.getInt(), readString(recording),
+								readString(recording), readString(recording), readStrings(recording));
+						break;
+					case OUTER_CLASS:
+						classVisitor.visitOuterClass(
+								readString(recording), readString(recording), readString(recording));
+						break;
+					case INNER_CLASS:
+						classVisitor.visitInnerClass(readString(recording), readString(recording),
+								readString(recording), recording.getInt());
+						break;
+					case ANNOTATION:
+						replayAnnotation(recording,
+								classVisitor.visitAnnotation(readString(recording), recording.get() != 0));
+						break;
+					case METHOD:
+						replayMethod(recording, classVisitor.visitMethod(recording.getInt(), readString(recording),
+								readString(recording), readString(recording), readStrings(recording)));
+						break;
+					default:
+						throw new IllegalArgumentException("Unexpected class event [" + tag + "]");
+				}
+			}
+			classVisitor.visitEnd();
+		}
+		catch (RuntimeException ex) {
+			if (ex instanceof IllegalArgumentException) {
+				throw ex;
+			}
+			throw new IllegalArgumentException("Corrupt class visit recording", ex);
+		}
+	}
+
+	private static void replayMethod(ByteBuffer recording, @Nullable MethodVisitor methodVisitor) {
+		byte tag;
+		while ((tag = recording.get()) != END) {
+			if (tag != ANNOTATION) {
+				throw new IllegalArgumentException("Unexpected method event [" + tag + "]");
+			}
+			String desc = readString(recording);
+			boolean visible = (recording.get() != 0);
+			replayAnnotation(recording, (methodVisitor != null ? methodVisitor.visitAnnotation(desc, visible) : null));
+		}
+		if (methodVisitor != null) {
+			methodVisitor.visitEnd();
+		}
+	}
+
+	private static void replayAnnotation(ByteBuffer recording, @Nullable AnnotationVisitor annotationVisitor) {
+		byte tag;
+		while ((tag = recording.get()) != END) {
+			String name = readString(recording);
+			switch (tag) {
+				case VALUE:
+					Object value = readValue(recording);
+					if (annotationVisitor != null) {
+						annotationVisitor.visit(name, value);
+					}
+					break;
+				case ENUM:
+					String desc = readString(recording);
+					String enumValue = readString(recording);
+					if (annotationVisitor != null) {
+						annotationVisitor.visitEnum(name, desc, enumValue);
+					}
+					break;
+				case ANNOTATION:
+					String annotationDesc = readString(recording);
+					replayAnnotation(recording,
+							(annotationVisitor != null ? annotationVisitor.visitAnnotation(name, annotationDesc) : null));
+					break;
+				case ARRAY:
+					replayAnnotation(recording, (annotationVisitor != null ? annotationVisitor.visitArray(name) : null));
+					break;
+				default:
+					throw new IllegalArgumentException("Unexpected annotation event [" + tag + "]");
+			}
+		}
+		if (annotationVisitor != null) {
+			annotationVisitor.visitEnd();
+		}
+	}
+
+	@Nullable
+	private static String readString(ByteBuffer recording) {
+		int length = recording.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		recording.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Nullable
+	private static String[] readStrings(ByteBuffer recording) {
+		int length = recording.getInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = readString(recording);
+		}
+		return values;
+	}
+
+	private static Object readValue(ByteBuffer recording) {
+		char type = (char) recording.get();
+		switch (type) {
+			case 'B':
+				return recording.get();
+			case 'Z':
+				return (recording.get() != 0);
+			case 'C':
+				return recording.getChar();
+			case 'S':
+				return recording.getShort();
+			case 'I':
+				return recording.getInt();
+			case 'J':
+				return recording.getLong();
+			case 'F':
+				return recording.getFloat();
+			case 'D':
+				return recording.getDouble();
+			case 's':
+				return readString(recording);
+			case 'T':
+				return Type.getType(readString(recording));
+			case '[':
+				return readArray(recording);
+			default:
+				throw new IllegalArgumentException("Unexpected value type [" + type + "]");
+		}
+	}
+
+	private static Object readArray(ByteBuffer recording) {
+		char componentType = (char) recording.get();
+		int length = recording.getInt();
+		switch (componentType) {
+			case 'B':
+				byte[] bytes = new byte[length];
+				recording.get(bytes);
+				return bytes;
+			case 'Z':
+				boolean[] booleans = new boolean[length];
+				for (int i = 0; i < length; i++) {
+					booleans[i] = (recording.get() != 0);
+				}
+				return booleans;
+			case 'C':
+				char[] chars = new char[length];
+				for (int i = 0; i < length; i++) {
+					chars[i] = recording.getChar();
+				}
+				return chars;
+			case 'S':
+				short[] shorts = new short[length];
+				for (int i = 0; i < length; i++) {
+					shorts[i] = recording.getShort();
+				}
+				return shorts;
+			case 'I':
+				int[] ints = new int[length];
+				for (int i = 0; i < length; i++) {
+					ints[i] = recording.getInt();
+				}
+				return ints;
+			case 'J':
+				long[] longs = new long[length];
+				for (int i = 0; i < length; i++) {
+					longs[i] = recording.getLong();
+				}
+				return longs;
+			case 'F':
+				float[] floats = new float[length];
+				for (int i = 0; i < length; i++) {
+					floats[i] = recording.getFloat();
+				}
+				return floats;
+			case 'D':
+				double[] doubles = new double[length];
+				for (int i = 0; i < length; i++) {
+					doubles[i] = recording.getDouble();
+				}
+				return doubles;
+			default:
+				throw new IllegalArgumentException("Unexpected array component type [" + componentType + "]");
+		}
+	}
+
+
+	/**
+	 * Growable big-endian output for recorded events, as read by a {@link ByteBuffer}.
+	 */
+	private static final class Output extends ByteArrayOutputStream {
+
+		public Output() {
+			super(256);
+		}
+
+		public void writeBoolean(boolean value) {
+			write(value ? 1 : 0);
+		}
+
+		public void writeShort(int value) {
+			write(value >>> 8);
+			write(value);
+		}
+
+		public void writeInt(int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		public void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		public void writeString(@Nullable String value) {
+			if (value == null) {
+				writeInt(-1);
+			}
+			else {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				writeInt(bytes.length);
+				write(bytes, 0, bytes.length);
+			}
+		}
+
+		public void writeStrings(@Nullable String[] values) {
+			if (values == null) {
+				writeInt(-1);
+			}
+			else {
+				writeInt(values.length);
+				for (String value : values) {
+					writeString(value);
+				}
+			}
+		}
+
+		public void writeValue(Object value) {
+			if (value instanceof Byte) {
+				write('B');
+				write((Byte) value);
+			}
+			else if (value instanceof Boolean) {
+				write('Z');
+				writeBoolean((Boolean) value);
+			}
+			else if (value instanceof Character) {
+				write('C');
+				writeShort((Character) value);
+			}
+			else if (value instanceof Short) {
+				write('S');
+				writeShort((Short) value);
+			}
+			else if (value instanceof Integer) {
+				write('I');
+				writeInt((Integer) value);
+			}
+			else if (value instanceof Long) {
+				write('J');
+				writeLong((Long) value);
+			}
+			else if (value instanceof Float) {
+				write('F');
+				writeInt(Float.floatToRawIntBits((Float) value));
+			}
+			else if (value instanceof Double) {
+				write('D');
+				writeLong(Double.doubleToRawLongBits((Double) value));
+			}
+			else if (value instanceof String) {
+				write('s');
+				writeString((String) value);
+			}
+			else if (value instanceof Type) {
+				write('T');
+				writeString(((Type) value).getDescriptor());
+			}
+			else {
+				write('[');
+				writeArray(value);
+			}
+		}
+
+		private void writeArray(Object array) {
+			if (array instanceof byte[]) {
+				byte[] bytes = (byte[]) array;
+				write('B');
+				writeInt(bytes.length);
+				write(bytes, 0, bytes.length);
+			}
+			else if (array instanceof boolean[]) {
+				boolean[] booleans = (boolean[]) array;
+				write('Z');
+				writeInt(booleans.length);
+				for (boolean value : booleans) {
+					writeBoolean(value);
+				}
+			}
+			else if (array instanceof char[]) {
+				char[] chars = (char[]) array;
+				write('C');
+				writeInt(chars.length);
+				for (char value : chars) {
+					writeShort(value);
+				}
+			}
+			else if (array instanceof short[]) {
+				short[] shorts = (short[]) array;
+				write('S');
+				writeInt(shorts.length);
+				for (short value : shorts) {
+					writeShort(value);
+				}
+			}
+			else if (array instanceof int[]) {
+				int[] ints = (int[]) array;
+				write('I');
+				writeInt(ints.length);
+				for (int value : ints) {
+					writeInt(value);
+				}
+			}
+			else if (array instanceof long[]) {
+				long[] longs = (long[]) array;
+				write('J');
+				writeInt(longs.length);
+				for (long value : longs) {
+					writeLong(value);
+				}
+			}
+			else if (array instanceof float[]) {
+				float[] floats = (float[]) array;
+				write('F');
+				writeInt(floats.length);
+				for (float value : floats) {
+					writeInt(Float.floatToRawIntBits(value));
+				}
+			}
+			else if (array instanceof double[]) {
+				double[] doubles = (double[]) array;
+				write('D');
+				writeInt(doubles.length);
+				for (double value : doubles) {
+					writeLong(Double.doubleToRawLongBits(value));
+				}
+			}
+			else {
+				throw new IllegalArgumentException("Unsupported annotation value: " + array);
+			}
+		}
+	}
+
+
+	private static final class RecordingClassVisitor extends ClassVisitor {
+
+		private final Output output;
+
+		public RecordingClassVisitor(ClassVisitor classVisitor, Output output) {
+			super(SpringAsmInfo.ASM_VERSION, classVisitor);
+			this.output = output;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature,
+				String superName, String[] interfaces) {
+
+			this.output.write(VISIT);
+			this.output.writeInt(version);
+			this.output.writeInt(access);
+			this.output.writeString(name);
+			this.output.writeString(signature);
+			this.output.writeString(superName);
+			this.output.writeStrings(interfaces);
+			super.visit(version, access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public void visitOuterClass(String owner, String name, String desc) {
+			this.output.write(OUTER_CLASS);
+			this.output.writeString(owner);
+			this.output.writeString(name);
+			this.output.writeString(desc);
+			super.visitOuterClass(owner, name, desc);
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			this.output.write(INNER_CLASS);
+			this.output.writeString(name);
+			this.output.writeString(outerName);
+			this.output.writeString(innerName);
+			this.output.writeInt(access);
+			super.visitInnerClass(name, outerName, innerName, access);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			this.output.write(ANNOTATION);
+			this.output.writeString(desc);
+			this.output.writeBoolean(visible);
+			return new RecordingAnnotationVisitor(super.visitAnnotation(desc, visible), this.output);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+			this.output.write(METHOD);
+			this.output.writeInt(access);
+			this.output.writeString(name);
+			this.output.writeString(desc);
+			this.output.writeString(signature);
+			this.output.writeStrings(exceptions);
+			return new RecordingMethodVisitor(super.visitMethod(access, name, desc, signature, exceptions), this.output);
+		}
+
+		@Override
+		public void visitEnd() {
+			this.output.write(END);
+			super.visitEnd();
+		}
+	}
+
+
+	private static final class RecordingMethodVisitor extends MethodVisitor {
+
+		private final Output output;
+
+		public RecordingMethodVisitor(@Nullable MethodVisitor methodVisitor, Output output) {
+			super(SpringAsmInfo.ASM_VERSION, methodVisitor);
+			this.output = output;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			this.output.write(ANNOTATION);
+			this.output.writeString(desc);
+			this.output.writeBoolean(visible);
+			return new RecordingAnnotationVisitor(super.visitAnnotation(desc, visible), this.output);
+		}
+
+		@Override
+		public void visitEnd() {
+			this.output.write(END);
+			super.visitEnd();
+		}
+	}
+
+
+	private static final class RecordingAnnotationVisitor extends AnnotationVisitor {
+
+		private final Output output;
+
+		public RecordingAnnotationVisitor(@Nullable AnnotationVisitor annotationVisitor, Output output) {
+			super(SpringAsmInfo.ASM_VERSION, annotationVisitor);
+			this.output = output;
+		}
+
+		@Override
+		public void visit(String name, Object value) {
+			this.output.write(VALUE);
+			this.output.writeString(name);
+			this.output.writeValue(value);
+			super.visit(name, value);
+		}
+
+		@Override
+		public void visitEnum(String name, String desc, String value) {
+			this.output.write(ENUM);
+			this.output.writeString(name);
+			this.output.writeString(desc);
+			this.output.writeString(value);
+			super.visitEnum(name, desc, value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String name, String desc) {
+			this.output.write(ANNOTATION);
+			this.output.writeString(name);
+			this.output.writeString(desc);
+			return new RecordingAnnotationVisitor(super.visitAnnotation(name, desc), this.output);
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			this.output.write(ARRAY);
+			this.output.writeString(name);
+			return new RecordingAnnotationVisitor(super.visitArray(name), this.output);
+		}
+
+		@Override
+		public void visitEnd() {
+			this.output.write(END);
+			super.visitEnd();
+		}
+	}
+
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * {@link MetadataReaderFactory} implementation which keeps the metadata of
+ * every class it has read in a compact binary cache file, allowing subsequent
+ * runs to skip parsing class files which did not change in the meantime.
+ *
+ * <p>The cache file is read on first access. Each entry is keyed by the URL of
+ * the class file resource and validated against the CRC-32 checksum of the class
+ * file: for a class file in a jar, this is the CRC recorded for the jar entry,
+ * otherwise it is computed from the content of the resource. Classes without a
+ * valid entry are parsed as usual, with the extracted metadata being added to
+ * the cache. Call {@link #save()} to write an updated cache file.
+ *
+ * <p>Each jar file is opened once for reading the checksums of its entries and
+ * kept open for subsequent class files in the same jar; call {@link #closeJarFiles()}
+ * once scanning is complete.
+ *
+ * @since 5.1
+ * @see #save()
+ * @see #closeJarFiles()
+ */
+public class PersistentMetadataReaderFactory extends SimpleMetadataReaderFactory {
+
+	private static final int MAGIC = 0x534d5243;  // "SMRC"
+
+	private static final int FORMAT_VERSION = 2;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderFactory.class);
+
+
+	private final File cacheFile;
+
+	@Nullable
+	private volatile Map<String, Entry> entries;
+
+	private volatile boolean modified;
+
+	private final Map<String, JarFile> jarFiles = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given cache file
+	 * and {@link ResourceLoader}.
+	 * @param cacheFile the cache file to read and write (does not need to exist)
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile, @Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given cache file
+	 * and {@link ClassLoader}.
+	 * @param cacheFile the cache file to read and write (does not need to exist)
+	 * @param classLoader the ClassLoader to use
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile, @Nullable ClassLoader classLoader) {
+		super(classLoader);
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+
+	/**
+	 * Return the cache file that this factory reads from and writes to.
+	 */
+	public final File getCacheFile() {
+		return this.cacheFile;
+	}
+
+	/**
+	 * Return whether metadata has been added to the cache since it was loaded
+	 * or last saved.
+	 */
+	public boolean isModified() {
+		return this.modified;
+	}
+
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		String key;
+		byte[] classFile = null;
+		long checksum;
+		try {
+			URL url = resource.getURL();
+			key = url.toExternalForm();
+			checksum = getJarEntryChecksum(url);
+			if (checksum == -1) {
+				classFile = FileCopyUtils.copyToByteArray(resource.getInputStream());
+				checksum = getChecksum(classFile);
+			}
+		}
+		catch (IOException ex) {
+			// Not a resource that can be validated -> no caching
+			return super.getMetadataReader(resource);
+		}
+
+		Map<String, Entry> entries = getEntries();
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		Entry entry = entries.get(key);
+		if (entry != null && entry.checksum == checksum) {
+			AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+			try {
+				ClassVisitRecording.replay(entry.getRecording(), visitor);
+				return new SimpleMetadataReader(resource, visitor);
+			}
+			catch (IllegalArgumentException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring corrupt metadata cache entry for " + resource, ex);
+				}
+			}
+		}
+
+		ClassReader classReader = (classFile != null ? SimpleMetadataReader.getClassReader(classFile, resource) :
+				SimpleMetadataReader.getClassReader(resource));
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		byte[] recording = ClassVisitRecording.record(classReader, visitor);
+		entries.put(key, new Entry(checksum, ByteBuffer.wrap(recording)));
+		this.modified = true;
+		return new SimpleMetadataReader(resource, visitor);
+	}
+
+	/**
+	 * Write all cached metadata to the cache file, replacing the previous content.
+	 * <p>The new content is written to a temporary file next to the cache file
+	 * first, which is then moved into place (atomically, where supported).
+	 * @throws IOException if the cache file could not be written
+	 */
+	public synchronized void save() throws IOException {
+		Map<String, Entry> entries = getEntries();
+		Path target = this.cacheFile.getAbsoluteFile().toPath();
+		Path parent = target.getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Path tempFile = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream os = Files.newOutputStream(tempFile);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+					Entry entry = mapEntry.getValue();
+					byte[] key = mapEntry.getKey().getBytes(StandardCharsets.UTF_8);
+					ByteBuffer recording = entry.getRecording();
+					out.writeInt(key.length);
+					out.write(key);
+					out.writeLong(entry.checksum);
+					out.writeInt(recording.remaining());
+					while (recording.hasRemaining()) {
+						out.write(recording.get());
+					}
+				}
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+		this.modified = false;
+	}
+
+	/**
+	 * Close the jar files which have been opened for reading checksums of class
+	 * files in jars, typically once scanning is complete. Jar files get opened
+	 * again if further class files in them are read afterwards.
+	 */
+	public void closeJarFiles() {
+		for (String jarFileUrl : this.jarFiles.keySet()) {
+			JarFile jarFile = this.jarFiles.remove(jarFileUrl);
+			if (jarFile != null) {
+				try {
+					jarFile.close();
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Return the CRC-32 checksum recorded for the given jar entry URL,
+	 * or -1 if the URL does not point into a jar file in the file system
+	 * or the checksum is unknown.
+	 */
+	private long getJarEntryChecksum(URL url) throws IOException {
+		if (!ResourceUtils.isJarURL(url)) {
+			return -1;
+		}
+		// Only parses the URL, without opening the jar file
+		URLConnection con = url.openConnection();
+		if (!(con instanceof JarURLConnection)) {
+			return -1;
+		}
+		JarURLConnection jarCon = (JarURLConnection) con;
+		URL jarFileUrl = jarCon.getJarFileURL();
+		String entryName = jarCon.getEntryName();
+		if (entryName == null || !ResourceUtils.URL_PROTOCOL_FILE.equals(jarFileUrl.getProtocol())) {
+			return -1;
+		}
+		JarEntry jarEntry = getJarFile(jarFileUrl).getJarEntry(entryName);
+		return (jarEntry != null ? jarEntry.getCrc() : -1);
+	}
+
+	private JarFile getJarFile(URL jarFileUrl) throws IOException {
+		String key = jarFileUrl.toExternalForm();
+		JarFile jarFile = this.jarFiles.get(key);
+		if (jarFile == null) {
+			synchronized (this.jarFiles) {
+				jarFile = this.jarFiles.get(key);
+				if (jarFile == null) {
+					jarFile = new JarFile(ResourceUtils.getFile(jarFileUrl));
+					this.jarFiles.put(key, jarFile);
+				}
+			}
+		}
+		return jarFile;
+	}
+
+	private long getChecksum(byte[] classFile) {
+		CRC32 crc = new CRC32();
+		crc.update(classFile, 0, classFile.length);
+		return crc.getValue();
+	}
+
+	private Map<String, Entry> getEntries() {
+		Map<String, Entry> entries = this.entries;
+		if (entries == null) {
+			synchronized (this) {
+				entries = this.entries;
+				if (entries == null) {
+					entries = new ConcurrentHashMap<>(256);
+					if (this.cacheFile.isFile()) {
+						try {
+							loadEntries(entries);
+						}
+						catch (IOException | RuntimeException ex) {
+							entries.clear();
+							if (logger.isInfoEnabled()) {
+								logger.info("Ignoring unreadable metadata cache file [" + this.cacheFile + "]", ex);
+							}
+						}
+					}
+					this.entries = entries;
+				}
+			}
+		}
+		return entries;
+	}
+
+	private void loadEntries(Map<String, Entry> entries) throws IOException {
+		// Read into the heap rather than mapping the file, so that save() can replace it
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.cacheFile.toPath()));
+		if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring metadata cache file [" + this.cacheFile + "] in unknown format");
+			}
+			return;
+		}
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			byte[] key = new byte[buffer.getInt()];
+			buffer.get(key);
+			long checksum = buffer.getLong();
+			int length = buffer.getInt();
+			ByteBuffer recording = buffer.slice();
+			recording.limit(length);
+			buffer.position(buffer.position() + length);
+			entries.put(new String(key, StandardCharsets.UTF_8), new Entry(checksum, recording));
+		}
+	}
+
+
+	/**
+	 * Cached metadata for a single class file, along with the CRC-32 checksum
+	 * of the class file that it has been extracted from.
+	 */
+	private static final class Entry {
+
+		final long checksum;
+
+		private final ByteBuffer recording;
+
+		public Entry(long checksum, ByteBuffer recording) {
+			this.checksum = checksum;
+			this.recording = recording;
+		}
+
+		public ByteBuffer getRecording() {
+			return this.recording.duplicate();
+		}
+	}
+
+}
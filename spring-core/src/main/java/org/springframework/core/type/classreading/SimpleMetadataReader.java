@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,26 +48,60 @@ final class SimpleMetadataReader implements MetadataReader {
 
 
 	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		getClassReader(resource).accept(visitor, ClassReader.SKIP_DEBUG);
+
+		this.annotationMetadata = visitor;
+		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
+		this.classMetadata = visitor;
+		this.resource = resource;
+	}
+
+	/**
+	 * Create a reader for the given resource, based on an
+	 * {@link AnnotationMetadataReadingVisitor} which has visited the class already.
+	 * @since 5.1
+	 */
+	SimpleMetadataReader(Resource resource, AnnotationMetadataReadingVisitor visitor) {
+		this.annotationMetadata = visitor;
+		this.classMetadata = visitor;
+		this.resource = resource;
+	}
+
+
+	/**
+	 * Read the class file of the given resource into an ASM {@link ClassReader}.
+	 * @since 5.1
+	 */
+	static ClassReader getClassReader(Resource resource) throws IOException {
 		InputStream is = new BufferedInputStream(resource.getInputStream());
-		ClassReader classReader;
 		try {
-			classReader = new ClassReader(is);
+			return new ClassReader(is);
 		}
 		catch (IllegalArgumentException ex) {
-			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
-					"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+			throw unsupportedClassFile(resource, ex);
 		}
 		finally {
 			is.close();
 		}
+	}
 
-		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
-		classReader.accept(visitor, ClassReader.SKIP_DEBUG);
+	/**
+	 * Create an ASM {@link ClassReader} for the given, already read class file content.
+	 * @since 5.1
+	 */
+	static ClassReader getClassReader(byte[] classFile, Resource resource) throws IOException {
+		try {
+			return new ClassReader(classFile);
+		}
+		catch (IllegalArgumentException ex) {
+			throw unsupportedClassFile(resource, ex);
+		}
+	}
 
-		this.annotationMetadata = visitor;
-		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
-		this.classMetadata = visitor;
-		this.resource = resource;
+	private static IOException unsupportedClassFile(Resource resource, IllegalArgumentException ex) {
+		return new NestedIOException("ASM ClassReader failed to parse class file - " +
+				"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
 	}
 
 
@@ -108,6 +108,17 @@ public class ResolvableTypeTests {
 		assertFalse(type.isAssignableFrom(ArrayList.class));
 	}
 
+	@Test
+	public void forClassIsShared() throws Exception {
+		ResolvableType type = ResolvableType.forClass(ExtendsList.class);
+		assertSame(type, ResolvableType.forClass(ExtendsList.class));
+		assertSame(type, ResolvableType.forType(ExtendsList.class));
+		assertSame(ResolvableType.forClass(Object.class), ResolvableType.forClass(null));
+		assertSame(type.getSuperType(), ResolvableType.forClass(ExtendsList.class).getSuperType());
+		assertEquals(ExtendsList.class.hashCode(), type.hashCode());
+		assertNotSame(type, ResolvableType.forRawClass(ExtendsList.class));
+	}
+
 	@Test
 	public void forClassWithNull() throws Exception {
 		ResolvableType type = ResolvableType.forClass(null);
@@ -242,6 +253,22 @@ public class ResolvableTypeTests {
 		assertThat(type.getGeneric(1).resolve(), equalTo((Class) Long.class));
 	}
 
+	@Test
+	public void forMethodParameterIsResolvedOnce() throws Exception {
+		Method method = Methods.class.getMethod("nested", Map.class);
+		MethodParameter methodParameter = MethodParameter.forExecutable(method, 0);
+		ResolvableType type = ResolvableType.forMethodParameter(methodParameter);
+		assertSame(type, ResolvableType.forMethodParameter(methodParameter));
+		assertSame(type, ResolvableType.forMethodParameter(methodParameter, (ResolvableType) null));
+		assertSame(type, ResolvableType.forMethodParameter(new MethodParameter(methodParameter)));
+		methodParameter.increaseNestingLevel();
+		ResolvableType nestedType = ResolvableType.forMethodParameter(methodParameter);
+		assertThat(nestedType.resolve(), equalTo((Class) Map.class));
+		assertNotSame(nestedType, ResolvableType.forMethodParameter(methodParameter));
+		methodParameter.decreaseNestingLevel();
+		assertSame(type, ResolvableType.forMethodParameter(methodParameter));
+	}
+
 	@Test
 	public void forMethodParameterWithNestingAndLevels() throws Exception {
 		Method method = Methods.class.getMethod("nested", Map.class);
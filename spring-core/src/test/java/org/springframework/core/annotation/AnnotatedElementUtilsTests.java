@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,8 +38,11 @@ import org.junit.rules.ExpectedException;
 
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Indexed;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
 import org.springframework.util.Assert;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StopWatch;
 
 import static java.util.Arrays.*;
 import static java.util.stream.Collectors.*;
@@ -733,6 +736,63 @@ public class AnnotatedElementUtilsTests {
 		assertEquals(1, allMergedAnnotations.size());
 	}
 
+	@Test
+	public void mergedAnnotationLookupsAreCached() {
+		AnnotationUtils.clearCache();
+		Class<?> element = TransitiveImplicitAliasesContextConfigClass.class;
+		ContextConfig contextConfig = findMergedAnnotation(element, ContextConfig.class);
+		assertNotNull(contextConfig);
+		assertSame(contextConfig, findMergedAnnotation(element, ContextConfig.class));
+		assertNull(findMergedAnnotation(element, Transactional.class));
+		assertNull(findMergedAnnotation(element, Transactional.class));
+
+		AnnotationUtils.clearCache();
+		ContextConfig recomputed = findMergedAnnotation(element, ContextConfig.class);
+		assertNotSame(contextConfig, recomputed);
+		assertEquals(contextConfig, recomputed);
+	}
+
+	@Test
+	public void mergedAnnotationSetsAreIndependentOfCache() throws Exception {
+		Method m = TransactionalServiceImpl.class.getMethod("doIt");
+		findAllMergedAnnotations(m, Transactional.class).clear();
+		assertEquals(1, findAllMergedAnnotations(m, Transactional.class).size());
+	}
+
+	@Test
+	public void mergedAnnotationOnAdaptedElementIsNotCached() {
+		AnnotatedElement element = forAnnotations(TransitiveImplicitAliasesContextConfigClass.class.getAnnotations());
+		ContextConfig contextConfig = getMergedAnnotation(element, ContextConfig.class);
+		assertNotNull(contextConfig);
+		assertNotSame(contextConfig, getMergedAnnotation(element, ContextConfig.class));
+		assertEquals(contextConfig, getMergedAnnotation(element, ContextConfig.class));
+	}
+
+	@Test
+	public void mergedAnnotationLookupPerformance() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		Method method = WebController.class.getMethod("getMappedWithPathAttribute");
+		Class<?> clazz = TransitiveImplicitAliasesContextConfigClass.class;
+		StopWatch watch = new StopWatch("merged annotation lookups");
+		watch.start("cold lookups");
+		for (int i = 0; i < 10000; i++) {
+			AnnotationUtils.clearCache();
+			findMergedAnnotation(method, WebMapping.class);
+			findMergedAnnotation(clazz, ContextConfig.class);
+			findMergedAnnotation(clazz, Transactional.class);
+		}
+		watch.stop();
+		watch.start("warm lookups");
+		for (int i = 0; i < 10000; i++) {
+			findMergedAnnotation(method, WebMapping.class);
+			findMergedAnnotation(clazz, ContextConfig.class);
+			findMergedAnnotation(clazz, Transactional.class);
+		}
+		watch.stop();
+		assertTrue(watch.getTaskInfo()[1].getTimeMillis() <= watch.getTaskInfo()[0].getTimeMillis());
+		// System.out.println(watch.prettyPrint());
+	}
+
 
 	// -------------------------------------------------------------------------
 
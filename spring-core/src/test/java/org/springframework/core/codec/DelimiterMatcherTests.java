@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DelimiterMatcher}.
+ *
+ * @since 5.1
+ */
+public class DelimiterMatcherTests {
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private final DelimiterMatcher matcher =
+			DelimiterMatcher.forStrings(Arrays.asList("\r\n", "\n"), StandardCharsets.UTF_8);
+
+
+	@Test
+	public void singleDelimiter() {
+		DelimiterMatcher.Scanner scanner = this.matcher.scanner();
+		DataBuffer buffer = stringBuffer("foo\nbar");
+		assertEquals(3, scanner.indexOfEnd(buffer, 0));
+		assertEquals(1, scanner.getMatchLength());
+		assertEquals(-1, scanner.indexOfEnd(buffer, 4));
+		assertFalse(scanner.isPartialMatch());
+	}
+
+	@Test
+	public void longestDelimiter() {
+		DelimiterMatcher.Scanner scanner = this.matcher.scanner();
+		DataBuffer buffer = stringBuffer("foo\r\nbar\rbaz\n");
+		assertEquals(4, scanner.indexOfEnd(buffer, 0));
+		assertEquals(2, scanner.getMatchLength());
+		assertEquals(12, scanner.indexOfEnd(buffer, 5));
+		assertEquals(1, scanner.getMatchLength());
+	}
+
+	@Test
+	public void consecutiveDelimiters() {
+		DelimiterMatcher.Scanner scanner = this.matcher.scanner();
+		DataBuffer buffer = stringBuffer("\n\r\n");
+		assertEquals(0, scanner.indexOfEnd(buffer, 0));
+		assertEquals(2, scanner.indexOfEnd(buffer, 1));
+		assertEquals(2, scanner.getMatchLength());
+	}
+
+	@Test
+	public void delimiterAcrossBuffers() {
+		DelimiterMatcher.Scanner scanner = this.matcher.scanner();
+		assertEquals(-1, scanner.indexOfEnd(stringBuffer("foo\r"), 0));
+		assertTrue(scanner.isPartialMatch());
+		assertEquals(0, scanner.indexOfEnd(stringBuffer("\nbar"), 0));
+		assertEquals(2, scanner.getMatchLength());
+		assertFalse(scanner.isPartialMatch());
+	}
+
+	@Test
+	public void overlappingDelimiters() {
+		DelimiterMatcher matcher = DelimiterMatcher.forStrings(Arrays.asList("abab", "bac"), StandardCharsets.UTF_8);
+		DelimiterMatcher.Scanner scanner = matcher.scanner();
+		DataBuffer buffer = stringBuffer("xabacab");
+		assertEquals(4, scanner.indexOfEnd(buffer, 0));
+		assertEquals(3, scanner.getMatchLength());
+		assertEquals(-1, scanner.indexOfEnd(buffer, 5));
+		assertTrue(scanner.isPartialMatch());
+		assertEquals(1, scanner.indexOfEnd(stringBuffer("ab"), 0));
+		assertEquals(4, scanner.getMatchLength());
+	}
+
+	@Test
+	public void multibyteDelimiter() {
+		DelimiterMatcher matcher = DelimiterMatcher.forStrings(Collections.singletonList("§"), StandardCharsets.UTF_8);
+		DelimiterMatcher.Scanner scanner = matcher.scanner();
+		DataBuffer buffer = stringBuffer("a§b");
+		assertEquals(2, scanner.indexOfEnd(buffer, 0));
+		assertEquals(2, scanner.getMatchLength());
+	}
+
+	@Test
+	public void readOnlyBuffer() {
+		DelimiterMatcher.Scanner scanner = this.matcher.scanner();
+		DataBuffer buffer = this.bufferFactory.wrap(
+				StandardCharsets.UTF_8.encode("foo\nbar").asReadOnlyBuffer());
+		assertEquals(3, scanner.indexOfEnd(buffer, 0));
+	}
+
+	@Test
+	public void reset() {
+		DelimiterMatcher.Scanner scanner = this.matcher.scanner();
+		assertEquals(-1, scanner.indexOfEnd(stringBuffer("foo\r"), 0));
+		scanner.reset();
+		assertFalse(scanner.isPartialMatch());
+		assertEquals(0, scanner.indexOfEnd(stringBuffer("\nbar"), 0));
+		assertEquals(1, scanner.getMatchLength());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void emptyDelimiter() {
+		DelimiterMatcher.forStrings(Collections.singletonList(""), StandardCharsets.UTF_8);
+	}
+
+
+	private DataBuffer stringBuffer(String value) {
+		return this.bufferFactory.wrap(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
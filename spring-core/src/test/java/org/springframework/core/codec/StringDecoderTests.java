@@ -148,6 +148,27 @@ public class StringDecoderTests extends AbstractDataBufferAllocatingTestCase {
 				.verify();
 	}
 
+	@Test
+	public void decodeDelimiterAcrossBuffers() {
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef\r"),
+				stringBuffer("\n\r"),
+				stringBuffer("\nghi")
+		);
+
+		Flux<String> output = this.decoder.decode(source, ResolvableType.forClass(String.class),
+				null, Collections.emptyMap());
+
+		StepVerifier.create(output)
+				.expectNext("abc")
+				.expectNext("def")
+				.expectNext("")
+				.expectNext("ghi")
+				.expectComplete()
+				.verify();
+	}
+
 	@Test
 	public void decodeEmptyFlux() {
 		Flux<DataBuffer> source = Flux.empty();
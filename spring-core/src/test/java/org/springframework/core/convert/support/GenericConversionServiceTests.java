@@ -456,6 +456,59 @@ public class GenericConversionServiceTests {
 		assertFalse(conversionService.canConvert(String.class, Color.class));
 	}
 
+	@Test
+	public void convertWithCachedConverter() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		assertEquals(Integer.valueOf(4), conversionService.convert("4", int.class));
+		assertEquals(Long.valueOf(5), conversionService.convert("5", Long.class));
+		assertEquals(Integer.valueOf(6), conversionService.convert("6", Integer.class));
+		assertEquals(1, conversionService.getCacheHitCount());
+		assertEquals(3, conversionService.getCacheMissCount());
+		assertEquals(0.25, conversionService.getCacheHitRatio(), 0);
+	}
+
+	@Test
+	public void convertWithCachedConverterAfterChange() {
+		assertEquals("#000000", conversionService.convert("#000000", Object.class));
+		try {
+			conversionService.convert("#000000", Color.class);
+			fail("Should have thrown ConverterNotFoundException");
+		}
+		catch (ConverterNotFoundException ex) {
+			// expected
+		}
+		conversionService.addConverter(new ColorConverter());
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		conversionService.removeConvertible(String.class, Color.class);
+		assertFalse(conversionService.canConvert(String.class, Color.class));
+	}
+
+	@Test
+	public void convertWithCachedConverterFailure() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		try {
+			conversionService.convert("foo", Integer.class);
+			fail("Should have thrown ConversionFailedException");
+		}
+		catch (ConversionFailedException ex) {
+			assertEquals(TypeDescriptor.valueOf(Integer.class), ex.getTargetType());
+			assertTrue(ex.getCause() instanceof NumberFormatException);
+		}
+	}
+
+	@Test
+	public void convertWithCustomTypeDescriptorConversion() {
+		GenericConversionService conversionService = new GenericConversionService() {
+			@Override
+			public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+				return "custom";
+			}
+		};
+		assertEquals("custom", conversionService.convert("foo", String.class));
+		assertEquals(0, conversionService.getCacheMissCount());
+	}
+
 	@Test
 	public void conditionalConverter() {
 		MyConditionalConverter converter = new MyConditionalConverter();
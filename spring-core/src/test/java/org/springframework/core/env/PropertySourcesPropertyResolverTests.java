@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -367,4 +367,49 @@ public class PropertySourcesPropertyResolverTests {
 		}
 	}
 
+	@Test
+	public void cachingInvalidatedOnPropertySourceChange() {
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addFirst(new MockPropertySource("ps1").withProperty("pName", "ps1Value").withProperty("num", "1"));
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setCachingEnabled(true);
+		assertThat(pr.getProperty("pName"), equalTo("ps1Value"));
+		assertThat(pr.getProperty("num", Integer.class), equalTo(1));
+		assertThat(pr.getProperty("num", Long.class), equalTo(1L));
+		assertThat(pr.getProperty("bogus"), nullValue());
+
+		ps.addFirst(new MockPropertySource("ps2").withProperty("pName", "ps2Value").withProperty("bogus", "x"));
+		assertThat(pr.getProperty("pName"), equalTo("ps2Value"));
+		assertThat(pr.getProperty("bogus"), equalTo("x"));
+		ps.remove("ps2");
+		assertThat(pr.getProperty("pName"), equalTo("ps1Value"));
+		assertThat(pr.getProperty("bogus"), nullValue());
+		ps.replace("ps1", new MockPropertySource("ps1").withProperty("pName", "replaced"));
+		assertThat(pr.getProperty("pName"), equalTo("replaced"));
+	}
+
+	@Test
+	public void cachingRequiresClearCacheForContentChanges() {
+		MockPropertySource source = new MockPropertySource().withProperty("p1", "v1").withProperty("p2", "${p1}");
+		MutablePropertySources ps = new MutablePropertySources();
+		ps.addFirst(source);
+		PropertySourcesPropertyResolver pr = new PropertySourcesPropertyResolver(ps);
+		pr.setCachingEnabled(true);
+		assertThat(pr.getProperty("p2"), equalTo("v1"));
+		assertThat(pr.resolvePlaceholders("${p1}:${p2}:${bogus}"), equalTo("v1:v1:${bogus}"));
+		assertThat(pr.resolveRequiredPlaceholders("${p1}"), equalTo("v1"));
+
+		source.setProperty("p1", "v2");
+		assertThat(pr.getProperty("p2"), equalTo("v1"));
+		assertThat(pr.resolvePlaceholders("${p1}:${p2}:${bogus}"), equalTo("v1:v1:${bogus}"));
+		pr.clearCache();
+		assertThat(pr.getProperty("p2"), equalTo("v2"));
+		assertThat(pr.resolvePlaceholders("${p1}:${p2}:${bogus}"), equalTo("v2:v2:${bogus}"));
+		assertThat(pr.resolveRequiredPlaceholders("${p1}"), equalTo("v2"));
+
+		pr.setCachingEnabled(false);
+		source.setProperty("p1", "v3");
+		assertThat(pr.getProperty("p2"), equalTo("v3"));
+	}
+
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @since 5.1
+ */
+public class CompositeDataBufferTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@After
+	public void checkForLeaks() {
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+
+	@Test
+	public void joinDoesNotCopy() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer composite = this.bufferFactory.join(Arrays.asList(foo, stringBuffer("bar")));
+		assertTrue(composite instanceof CompositeDataBuffer);
+		assertEquals(2, ((CompositeDataBuffer) composite).getComponentCount());
+		assertEquals(6, composite.readableByteCount());
+
+		foo.asByteBuffer().put(0, (byte) 'g');
+		assertEquals("goobar", readString(composite));
+		release(composite);
+	}
+
+	@Test
+	public void joinSkipsReadBytesAndEmptyBuffers() {
+		DataBuffer foo = stringBuffer("xfoo");
+		foo.read();
+		DataBuffer composite = join(foo, this.bufferFactory.allocateBuffer(4), stringBuffer("bar"));
+		assertEquals(2, ((CompositeDataBuffer) composite).getComponentCount());
+		assertEquals("foobar", readString(composite));
+		release(composite);
+	}
+
+	@Test
+	public void getByteAndIndexOf() {
+		DataBuffer composite = join(stringBuffer("ab"), stringBuffer("c"), stringBuffer("db"));
+		assertEquals((byte) 'c', composite.getByte(2));
+		assertEquals((byte) 'b', composite.getByte(4));
+		assertEquals(1, composite.indexOf(b -> b == 'b', 0));
+		assertEquals(4, composite.indexOf(b -> b == 'b', 2));
+		assertEquals(-1, composite.indexOf(b -> b == 'x', 0));
+		assertEquals(4, composite.lastIndexOf(b -> b == 'b', 4));
+		assertEquals(1, composite.lastIndexOf(b -> b == 'b', 3));
+		assertEquals(-1, composite.lastIndexOf(b -> b == 'd', 2));
+		release(composite);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void getByteOutOfBounds() {
+		DataBuffer composite = join(stringBuffer("ab"), stringBuffer("c"));
+		try {
+			composite.getByte(3);
+		}
+		finally {
+			release(composite);
+		}
+	}
+
+	@Test
+	public void readAcrossComponents() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"), stringBuffer("baz"));
+		assertEquals((byte) 'f', composite.read());
+
+		byte[] bytes = new byte[6];
+		composite.read(bytes);
+		assertEquals("oobarb", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals(2, composite.readableByteCount());
+		release(composite);
+	}
+
+	@Test
+	public void asByteBuffer() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"));
+		composite.read();
+
+		ByteBuffer within = composite.asByteBuffer(3, 3);
+		assertEquals("bar", StandardCharsets.UTF_8.decode(within).toString());
+		ByteBuffer spanning = composite.asByteBuffer();
+		assertEquals("oobar", StandardCharsets.UTF_8.decode(spanning).toString());
+		release(composite);
+	}
+
+	@Test
+	public void slice() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"), stringBuffer("baz"));
+		DataBuffer slice = composite.slice(2, 5);
+		assertEquals(5, slice.readableByteCount());
+		assertEquals("obarb", readString(slice));
+
+		((PooledDataBuffer) slice).retain();
+		release(composite);
+		assertEquals(3, this.bufferFactory.getActiveBufferCount());
+		release(slice);
+	}
+
+	@Test
+	public void writeAppendsComponent() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"));
+		assertEquals(0, composite.writableByteCount());
+
+		composite.write("baz".getBytes(StandardCharsets.UTF_8));
+		DataBuffer qux = stringBuffer("qux");
+		composite.write(qux);
+		release(qux);
+		assertEquals(3, ((CompositeDataBuffer) composite).getComponentCount());
+		assertEquals("foobarbazqux", readString(composite));
+		release(composite);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shrinkCapacity() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"));
+		try {
+			composite.capacity(4);
+		}
+		finally {
+			release(composite);
+		}
+	}
+
+	@Test
+	public void inputStream() throws Exception {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"));
+		try (InputStream inputStream = composite.asInputStream(true)) {
+			assertEquals(6, inputStream.available());
+			assertEquals('f', inputStream.read());
+			assertEquals("oobar", StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8));
+			assertEquals(-1, inputStream.read());
+		}
+	}
+
+	@Test
+	public void releaseReleasesComponents() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"));
+		assertEquals(2, this.bufferFactory.getActiveBufferCount());
+		assertTrue(DataBufferUtils.release(composite));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void tooManyReleases() {
+		DataBuffer composite = join(stringBuffer("foo"), stringBuffer("bar"));
+		release(composite);
+		release(composite);
+	}
+
+
+	private DataBuffer join(DataBuffer... dataBuffers) {
+		return this.bufferFactory.join(Arrays.asList(dataBuffers));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
+		buffer.write(bytes);
+		return buffer;
+	}
+
+	private static String readString(DataBuffer buffer) {
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void release(DataBuffer buffer) {
+		DataBufferUtils.release(buffer);
+	}
+
+}
@@ -37,6 +37,7 @@ import org.mockito.stubbing.Answer;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.buffer.support.DataBufferTestUtils;
@@ -139,6 +140,40 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 				.verify(Duration.ofSeconds(5));
 	}
 
+	@Test
+	public void readRegionFileResource() throws Exception {
+		Resource resource = new ClassPathResource("DataBufferUtilsTests.txt", getClass());
+		Flux<DataBuffer> flux = DataBufferUtils.readRegion(resource, 3, 6, this.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(dataBuffer -> {
+					assertTrue(dataBuffer instanceof FileRegionDataBuffer);
+					FileRegionDataBuffer region = (FileRegionDataBuffer) dataBuffer;
+					assertEquals(3, region.getPosition());
+					assertEquals(6, region.getCount());
+					byte[] bytes = new byte[6];
+					dataBuffer.read(bytes);
+					assertEquals("barbaz", new String(bytes, StandardCharsets.UTF_8));
+					assertEquals(9, region.getPosition());
+					assertEquals(0, region.getCount());
+					assertTrue(DataBufferUtils.release(dataBuffer));
+				})
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void readRegionByteArrayResource() throws Exception {
+		Resource resource = new ByteArrayResource("foobarbazqux".getBytes(StandardCharsets.UTF_8));
+		Flux<DataBuffer> flux = DataBufferUtils.readRegion(resource, 3, 6, this.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("bar"))
+				.consumeNextWith(stringConsumer("baz"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
 	@Test
 	public void writeOutputStream() throws Exception {
 		DataBuffer foo = stringBuffer("foo");
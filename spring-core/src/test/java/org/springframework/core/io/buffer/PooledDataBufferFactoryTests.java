@@ -0,0 +1,175 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @since 5.1
+ */
+public class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@Test
+	public void allocateWithExactCapacity() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		assertTrue(buffer instanceof PooledDataBuffer);
+		assertEquals(100, buffer.capacity());
+		assertEquals(1, this.bufferFactory.getActiveBufferCount());
+
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void releasedMemoryIsReused() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		buffer.write((byte) 'a');
+		DataBufferUtils.release(buffer);
+
+		DataBuffer reused = this.bufferFactory.allocateBuffer(120);
+		assertEquals(120, reused.capacity());
+		reused.writePosition(1);
+		assertEquals((byte) 'a', reused.getByte(0));
+		DataBufferUtils.release(reused);
+	}
+
+	@Test
+	public void directBuffers() {
+		PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(true);
+		DefaultDataBuffer buffer = bufferFactory.allocateBuffer();
+		assertTrue(buffer.getNativeBuffer().isDirect());
+		assertEquals(PooledDataBufferFactory.DEFAULT_INITIAL_CAPACITY, buffer.capacity());
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	public void growBeyondCapacity() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		byte[] bytes = new byte[1000];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		buffer.write(bytes);
+
+		byte[] result = new byte[1000];
+		buffer.read(result);
+		assertArrayEquals(bytes, result);
+		assertEquals(1, this.bufferFactory.getActiveBufferCount());
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void sliceKeepsContentWhenBufferGrows() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(0, 3);
+		buffer.write(new byte[1000]);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(10);
+		other.write("bazbaz".getBytes(StandardCharsets.UTF_8));
+		byte[] result = new byte[3];
+		slice.read(result);
+		assertEquals("foo", new String(result, StandardCharsets.UTF_8));
+		DataBufferUtils.release(other);
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	public void unpooledCapacity() {
+		PooledDataBufferFactory bufferFactory =
+				new PooledDataBufferFactory(false, 256, 1024, PooledDataBufferFactory.DEFAULT_ARENA_SIZE);
+		DataBuffer buffer = bufferFactory.allocateBuffer(4096);
+		assertEquals(4096, buffer.capacity());
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foobar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		byte[] result = new byte[3];
+		slice.read(result);
+		assertEquals("bar", new String(result, StandardCharsets.UTF_8));
+		assertTrue(DataBufferUtils.release(slice));
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test
+	public void joinReleasesSources() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+
+		byte[] bytes = new byte[result.readableByteCount()];
+		result.read(bytes);
+		assertEquals("foobar", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals(2, this.bufferFactory.getActiveBufferCount());
+		DataBufferUtils.release(result);
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void tooManyReleases() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(1);
+		buffer.release();
+		buffer.release();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void retainAfterRelease() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(1);
+		buffer.release();
+		buffer.retain();
+	}
+
+	@Test
+	public void leakDetection() throws Exception {
+		this.bufferFactory.setLeakDetectionSamplingInterval(1);
+		DataBufferUtils.release(this.bufferFactory.allocateBuffer(10));
+		allocateWithoutRelease();
+
+		for (int i = 0; i < 100 && this.bufferFactory.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+			DataBufferUtils.release(this.bufferFactory.allocateBuffer(10));
+		}
+		assertEquals(1, this.bufferFactory.getLeakCount());
+		assertEquals(0, this.bufferFactory.getActiveBufferCount());
+	}
+
+	private void allocateWithoutRelease() {
+		this.bufferFactory.allocateBuffer(10).write((byte) 'a');
+	}
+
+}
@@ -118,6 +118,17 @@ public class PathMatchingResourcePatternResolverTests {
 		assertTrue("Could not find aspectj_1_5_0.dtd in the root of the aspectjweaver jar", found);
 	}
 
+	@Test
+	public void parallelScanning() throws IOException {
+		String locationPattern = "classpath*:org/springframework/core/io/sup*/*.class";
+		Resource[] resources = resolver.getResources(locationPattern);
+		assertTrue(resources.length > 0);
+		resolver.setParallelScanning(true);
+		assertArrayEquals(resources, resolver.getResources(locationPattern));
+		assertArrayEquals(resolver.getResources("classpath*:*.dtd"),
+				new PathMatchingResourcePatternResolver().getResources("classpath*:*.dtd"));
+	}
+
 
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BufferingApplicationStartup}.
+ *
+ * @since 5.1
+ */
+public class BufferingApplicationStartupTests {
+
+	@Test
+	public void nestedSteps() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10);
+		StartupStep outer = applicationStartup.start("outer");
+		StartupStep first = applicationStartup.start("first").tag("key", "value");
+		first.end();
+		StartupStep second = applicationStartup.start("second").tag("key", () -> "other");
+		second.end();
+		outer.end();
+		StartupStep next = applicationStartup.start("next");
+		next.end();
+
+		List<BufferedStartupStep> steps = applicationStartup.getBufferedSteps();
+		assertEquals(4, steps.size());
+		assertEquals("outer", steps.get(0).getName());
+		assertNull(steps.get(0).getParentId());
+		assertEquals(Long.valueOf(outer.getId()), steps.get(1).getParentId());
+		assertEquals(Long.valueOf(outer.getId()), steps.get(2).getParentId());
+		assertNull(steps.get(3).getParentId());
+		Iterator<StartupStep.Tag> tags = steps.get(2).getTags().iterator();
+		StartupStep.Tag tag = tags.next();
+		assertEquals("key", tag.getKey());
+		assertEquals("other", tag.getValue());
+		assertFalse(tags.hasNext());
+		assertEquals(Thread.currentThread().getName(), steps.get(0).getThreadName());
+		assertTrue(steps.get(0).getDuration().compareTo(steps.get(1).getDuration()) >= 0);
+	}
+
+	@Test
+	public void stepsDroppedBeyondCapacity() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			applicationStartup.start("step" + i).end();
+		}
+		assertEquals(2, applicationStartup.getBufferedSteps().size());
+		assertEquals(3, applicationStartup.getDroppedCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void stepEndedTwice() {
+		StartupStep step = new BufferingApplicationStartup(10).start("step");
+		step.end();
+		step.end();
+	}
+
+	@Test
+	public void writeJson() throws Exception {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(1);
+		StartupStep outer = applicationStartup.start("outer");
+		applicationStartup.start("inner").end();
+		outer.end();
+
+		StringWriter writer = new StringWriter();
+		applicationStartup.writeJson(writer);
+		String json = writer.toString();
+		assertTrue(json.startsWith("{\"steps\":[\n{\"id\":2,\"parentId\":1,\"name\":\"inner\""));
+		assertFalse(json.contains("\"outer\""));
+		assertTrue(json.endsWith("\"dropped\":1}\n"));
+
+		applicationStartup = new BufferingApplicationStartup(1);
+		applicationStartup.start("step").tag("name", "a \"quoted\" value").end();
+		writer = new StringWriter();
+		applicationStartup.writeJson(writer);
+		assertTrue(writer.toString().contains(",\"tags\":{\"name\":\"a \\\"quoted\\\" value\"}}"));
+	}
+
+}
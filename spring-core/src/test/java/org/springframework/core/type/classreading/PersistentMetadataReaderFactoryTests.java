@@ -0,0 +1,317 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.Scope;
+import org.springframework.core.type.TestAutowired;
+import org.springframework.lang.Nullable;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PersistentMetadataReaderFactory}.
+ */
+public class PersistentMetadataReaderFactoryTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+
+	@Test
+	public void cachedMetadataMatchesParsedMetadata() throws Exception {
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		SimpleMetadataReaderFactory simpleFactory = new SimpleMetadataReaderFactory(getClass().getClassLoader());
+
+		for (Class<?> clazz : Arrays.asList(AnnotatedComponent.class, AnnotatedComponent.Member.class, Values.class)) {
+			MetadataReader expected = simpleFactory.getMetadataReader(clazz.getName());
+			MetadataReader recorded = factory.getMetadataReader(clazz.getName());
+			assertMetadataEquals(expected.getAnnotationMetadata(), recorded.getAnnotationMetadata());
+		}
+		assertTrue(factory.isModified());
+		factory.save();
+		assertFalse(factory.isModified());
+		assertTrue(cacheFile.isFile());
+
+		PersistentMetadataReaderFactory newFactory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		for (Class<?> clazz : Arrays.asList(AnnotatedComponent.class, AnnotatedComponent.Member.class, Values.class)) {
+			MetadataReader expected = simpleFactory.getMetadataReader(clazz.getName());
+			MetadataReader replayed = newFactory.getMetadataReader(clazz.getName());
+			assertMetadataEquals(expected.getAnnotationMetadata(), replayed.getAnnotationMetadata());
+		}
+		assertFalse(newFactory.isModified());
+	}
+
+	@Test
+	public void changedClassFileIsReadAgain() throws Exception {
+		File classFile = this.folder.newFile("AnnotatedComponent.class");
+		copyClassFile(AnnotatedComponent.class, classFile);
+		Resource resource = new FileSystemResource(classFile);
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		assertEquals(AnnotatedComponent.class.getName(), factory.getMetadataReader(resource).getClassMetadata().getClassName());
+		factory.save();
+
+		copyClassFile(Values.class, classFile);
+		PersistentMetadataReaderFactory newFactory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		assertEquals(Values.class.getName(), newFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+		assertTrue(newFactory.isModified());
+	}
+
+	@Test
+	public void changedClassFileWithSameTimestampIsReadAgain() throws Exception {
+		File classFile = this.folder.newFile("AnnotatedComponent.class");
+		copyClassFile(AnnotatedComponent.class, classFile);
+		long lastModified = classFile.lastModified();
+		Resource resource = new FileSystemResource(classFile);
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		factory.getMetadataReader(resource);
+		factory.save();
+
+		copyClassFile(Values.class, classFile);
+		classFile.setLastModified(lastModified);
+		PersistentMetadataReaderFactory newFactory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		assertEquals(Values.class.getName(), newFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+		assertTrue(newFactory.isModified());
+	}
+
+	@Test
+	public void jarEntryIsValidatedByCrc() throws Exception {
+		File jarFile = new File(this.folder.getRoot(), "classes.jar");
+		writeJar(jarFile, AnnotatedComponent.class);
+		Resource resource = new UrlResource("jar:" + jarFile.toURI() + "!/Component.class");
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		assertEquals(AnnotatedComponent.class.getName(), factory.getMetadataReader(resource).getClassMetadata().getClassName());
+		factory.save();
+		factory.closeJarFiles();
+
+		PersistentMetadataReaderFactory newFactory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		assertEquals(AnnotatedComponent.class.getName(), newFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+		assertFalse(newFactory.isModified());
+		newFactory.closeJarFiles();
+	}
+
+	@Test
+	public void changedJarEntryIsReadAgain() throws Exception {
+		File jarFile = new File(this.folder.getRoot(), "classes.jar");
+		writeJar(jarFile, AnnotatedComponent.class);
+		Resource resource = new UrlResource("jar:" + jarFile.toURI() + "!/Component.class");
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		factory.getMetadataReader(resource);
+		factory.save();
+		factory.closeJarFiles();
+
+		writeJar(jarFile, Values.class);
+		PersistentMetadataReaderFactory newFactory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		assertEquals(Values.class.getName(), newFactory.getMetadataReader(resource).getClassMetadata().getClassName());
+		assertTrue(newFactory.isModified());
+		newFactory.closeJarFiles();
+	}
+
+	@Test
+	public void saveReplacesLoadedCacheFile() throws Exception {
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		factory.getMetadataReader(AnnotatedComponent.class.getName());
+		factory.save();
+		long length = cacheFile.length();
+
+		PersistentMetadataReaderFactory newFactory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		newFactory.getMetadataReader(AnnotatedComponent.class.getName());
+		newFactory.getMetadataReader(Values.class.getName());
+		newFactory.save();
+		assertTrue(cacheFile.length() > length);
+		assertArrayEquals(new String[] {"metadata.cache"}, this.folder.getRoot().list());
+	}
+
+	@Test
+	public void unreadableCacheFileIsIgnored() throws Exception {
+		File cacheFile = this.folder.newFile("metadata.cache");
+		Files.write(cacheFile.toPath(), new byte[] {1, 2, 3});
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		MetadataReader reader = factory.getMetadataReader(AnnotatedComponent.class.getName());
+		assertTrue(reader.getAnnotationMetadata().hasAnnotation(Scope.class.getName()));
+		factory.save();
+		assertTrue(cacheFile.length() > 3);
+	}
+
+	@Test
+	public void resourceWithoutUrlIsNotCached() throws Exception {
+		File cacheFile = new File(this.folder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile, getClass().getClassLoader());
+		byte[] bytes = FileCopyUtils.copyToByteArray(classResource(Values.class).getInputStream());
+		MetadataReader reader = factory.getMetadataReader(new ByteArrayResource(bytes));
+		assertEquals(Values.class.getName(), reader.getClassMetadata().getClassName());
+		assertFalse(factory.isModified());
+	}
+
+
+	private static Resource classResource(Class<?> clazz) {
+		return new ClassPathResource(clazz.getName().replace('.', '/') + ".class", clazz.getClassLoader());
+	}
+
+	private static void copyClassFile(Class<?> clazz, File target) throws IOException {
+		FileCopyUtils.copy(classResource(clazz).getInputStream(), Files.newOutputStream(target.toPath()));
+		// make sure that the modification is detected even on coarse file system timestamps
+		target.setLastModified(target.lastModified() + 2000);
+	}
+
+	private static void writeJar(File jarFile, Class<?> clazz) throws IOException {
+		try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarFile.toPath()))) {
+			jar.putNextEntry(new JarEntry("Component.class"));
+			FileCopyUtils.copy(classResource(clazz).getInputStream(), StreamUtils.nonClosing(jar));
+			jar.closeEntry();
+		}
+	}
+
+	private static void assertMetadataEquals(AnnotationMetadata expected, AnnotationMetadata actual) {
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertArrayEquals(expected.getMemberClassNames(), actual.getMemberClassNames());
+		assertEquals(expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertEquals(expected.isInterface(), actual.isInterface());
+		assertEquals(expected.isAbstract(), actual.isAbstract());
+		assertEquals(expected.isFinal(), actual.isFinal());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType), actual.getMetaAnnotationTypes(annotationType));
+			assertAttributesEquals(expected.getAnnotationAttributes(annotationType),
+					actual.getAnnotationAttributes(annotationType));
+			assertAttributesEquals(expected.getAnnotationAttributes(annotationType, true),
+					actual.getAnnotationAttributes(annotationType, true));
+		}
+		Set<String> expectedMethods = methodNames(expected.getAnnotatedMethods(TestAutowired.class.getName()));
+		assertEquals(expectedMethods, methodNames(actual.getAnnotatedMethods(TestAutowired.class.getName())));
+		assertEquals(methodNames(expected.getAnnotatedMethods(Scope.class.getName())),
+				methodNames(actual.getAnnotatedMethods(Scope.class.getName())));
+	}
+
+	private static void assertAttributesEquals(
+			@Nullable Map<String, Object> expected, @Nullable Map<String, Object> actual) {
+
+		assertEquals(expected == null, actual == null);
+		if (expected != null) {
+			assertEquals(expected.keySet(), actual.keySet());
+			for (Map.Entry<String, Object> entry : expected.entrySet()) {
+				assertTrue(entry.getKey(), ObjectUtils.nullSafeEquals(entry.getValue(), actual.get(entry.getKey())));
+			}
+		}
+	}
+
+	private static Set<String> methodNames(Set<MethodMetadata> methods) {
+		Set<String> names = new TreeSet<>();
+		for (MethodMetadata method : methods) {
+			names.add(method.getMethodName() + ":" + method.getAnnotationAttributes(TestAutowired.class.getName()));
+		}
+		return names;
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	public @interface Values {
+
+		boolean flag() default false;
+
+		byte b() default 0;
+
+		char c() default 'c';
+
+		short s() default 0;
+
+		int i() default 0;
+
+		long l() default 0;
+
+		float f() default 0;
+
+		double d() default 0;
+
+		int[] ints() default {};
+
+		String text() default "";
+
+		Class<?>[] classes() default {};
+
+		Thread.State state() default Thread.State.NEW;
+
+		Scope[] scopes() default {};
+	}
+
+
+	@Scope("prototype")
+	@Values(flag = true, b = 1, c = 'x', s = 2, i = 3, l = 4L, f = 5.5f, d = 6.5, ints = {7, 8},
+			text = "téxt", classes = {String.class, int[].class}, state = Thread.State.BLOCKED,
+			scopes = {@Scope("a"), @Scope("b")})
+	@SuppressWarnings("serial")
+	public abstract static class AnnotatedComponent implements Serializable {
+
+		@TestAutowired(required = false)
+		public void setValue(String value) {
+		}
+
+		@Scope("request")
+		public abstract Object getValue();
+
+		@TestAutowired
+		public final void init() {
+		}
+
+		public class Member {
+		}
+	}
+
+}
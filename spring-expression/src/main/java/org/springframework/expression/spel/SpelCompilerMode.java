@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,18 @@ public enum SpelCompilerMode {
 	 * type information changing) then that will be caught internally and the system switches back to
 	 * interpreted mode. It may subsequently compile it again later.
 	 */
-	MIXED
+	MIXED,
+
+	/**
+	 * In adaptive mode, expressions are compiled in a background thread once they have been
+	 * interpreted a number of times, with evaluation continuing in interpreted mode in the meantime.
+	 * If the expression as a whole cannot be compiled, its compilable subexpressions get compiled
+	 * individually. If a compiled expression or subexpression later fails (typically with a
+	 * {@link ClassCastException} due to inferred type information changing), that will be caught
+	 * internally and the system switches back to interpreted mode, waiting increasingly longer
+	 * before compiling it again.
+	 * @since 5.1
+	 */
+	ADAPTIVE
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.ast;
+
+import org.springframework.asm.MethodVisitor;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompiledExpression;
+import org.springframework.expression.spel.ExpressionState;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.lang.Nullable;
+
+/**
+ * Represents a subexpression that has been compiled on its own, as part of an
+ * expression which cannot be compiled as a whole. Takes the place of the original
+ * node in the AST and evaluates the compiled form of it, until the compiled form
+ * fails: for example with a {@link ClassCastException} since the type of a value
+ * has changed since compilation. The original node is put back into place then,
+ * with the subexpression being interpreted from there on.
+ *
+ * <p>Compiled subexpressions are only installed at positions where the active
+ * context object is the root object of the expression, which the compiled form
+ * of an expression operates on.
+ *
+ * @since 5.1
+ * @see org.springframework.expression.spel.SpelCompilerMode#ADAPTIVE
+ */
+public class CompiledSubexpression extends SpelNodeImpl {
+
+	// All state is final, so that threads evaluating the expression see a fully
+	// initialized instance once it has been put in place of the original node
+	private final SpelNodeImpl parent;
+
+	private final SpelNodeImpl node;
+
+	private final CompiledExpression compiledExpression;
+
+	@Nullable
+	private final Runnable revertCallback;
+
+
+	private CompiledSubexpression(SpelNodeImpl parent, SpelNodeImpl node,
+			CompiledExpression compiledExpression, @Nullable Runnable revertCallback) {
+
+		super(node.pos);
+		this.parent = parent;
+		this.node = node;
+		this.compiledExpression = compiledExpression;
+		this.revertCallback = revertCallback;
+		this.exitTypeDescriptor = node.exitTypeDescriptor;
+	}
+
+
+	/**
+	 * Return the original node that this compiled subexpression stands in for.
+	 */
+	public SpelNodeImpl getNode() {
+		return this.node;
+	}
+
+	@Override
+	public TypedValue getValueInternal(ExpressionState state) throws EvaluationException {
+		Object result;
+		try {
+			result = this.compiledExpression.getValue(
+					state.getActiveContextObject().getValue(), state.getEvaluationContext());
+		}
+		catch (ClassCastException | IllegalStateException ex) {
+			// Compiled form not applicable anymore -> revert to interpreted
+			if (revert() && this.revertCallback != null) {
+				this.revertCallback.run();
+			}
+			return this.node.getValueInternal(state);
+		}
+		return new TypedValue(result);
+	}
+
+	/**
+	 * Put the original node back into place, reverting to interpreting this
+	 * subexpression.
+	 * @return {@code true} if the original node has been put back into place,
+	 * {@code false} if this compiled subexpression had already been reverted
+	 */
+	public boolean revert() {
+		return this.parent.replaceChild(this, this.node);
+	}
+
+	@Override
+	public boolean isWritable(ExpressionState expressionState) throws EvaluationException {
+		return this.node.isWritable(expressionState);
+	}
+
+	@Override
+	public void setValue(ExpressionState expressionState, @Nullable Object newValue) throws EvaluationException {
+		this.node.setValue(expressionState, newValue);
+	}
+
+	@Override
+	protected ValueRef getValueRef(ExpressionState state) throws EvaluationException {
+		return this.node.getValueRef(state);
+	}
+
+	@Override
+	public SpelNode getChild(int index) {
+		return this.node.getChild(index);
+	}
+
+	@Override
+	public int getChildCount() {
+		return this.node.getChildCount();
+	}
+
+	@Override
+	public String toStringAST() {
+		return this.node.toStringAST();
+	}
+
+	@Override
+	public boolean isCompilable() {
+		return this.node.isCompilable();
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		this.node.generateCode(mv, cf);
+	}
+
+
+	/**
+	 * Replace the given node with the given compiled form of it.
+	 * @param node the node representing the subexpression
+	 * @param compiledExpression the compiled form of the subexpression
+	 * @param revertCallback callback to invoke when the compiled form fails and the
+	 * node is put back into place (may be {@code null})
+	 * @return the compiled subexpression that has been put in place of the node,
+	 * or {@code null} if the node is the root of the expression
+	 */
+	@Nullable
+	public static CompiledSubexpression replace(SpelNodeImpl node, CompiledExpression compiledExpression,
+			@Nullable Runnable revertCallback) {
+
+		SpelNodeImpl parent = node.getParent();
+		if (parent == null) {
+			return null;
+		}
+		CompiledSubexpression compiledSubexpression =
+				new CompiledSubexpression(parent, node, compiledExpression, revertCallback);
+		return (parent.replaceChild(node, compiledSubexpression) ? compiledSubexpression : null);
+	}
+
+}
@@ -50,6 +50,12 @@ import org.springframework.util.ReflectionUtils;
  */
 public class PropertyOrFieldReference extends SpelNodeImpl {
 
+	// Maximum number of target types to keep resolved read accessors for
+	private static final int READ_ACCESSOR_CACHE_SIZE = 4;
+
+	private static final CachedReadAccessor[] NO_CACHED_READ_ACCESSORS = new CachedReadAccessor[0];
+
+
 	private final boolean nullSafe;
 
 	private final String name;
@@ -63,6 +69,9 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 	@Nullable
 	private volatile PropertyAccessor cachedWriteAccessor;
 
+	// Read accessors resolved per type of target object, most recently resolved last
+	private volatile CachedReadAccessor[] cachedReadAccessors = NO_CACHED_READ_ACCESSORS;
+
 
 	public PropertyOrFieldReference(boolean nullSafe, String propertyOrFieldName, int pos) {
 		super(pos);
@@ -174,34 +183,40 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 			return TypedValue.NULL;
 		}
 
-		PropertyAccessor accessorToUse = this.cachedReadAccessor;
-		if (accessorToUse != null) {
-			if (evalContext.getPropertyAccessors().contains(accessorToUse)) {
-				try {
-					return accessorToUse.read(evalContext, contextObject.getValue(), name);
-				}
-				catch (Exception ex) {
-					// This is OK - it may have gone stale due to a class change,
-					// let's try to get a new one and call it before giving up...
+		List<PropertyAccessor> contextAccessors = evalContext.getPropertyAccessors();
+		CachedReadAccessor cached = getCachedReadAccessor(targetObject, contextAccessors);
+		if (cached != null) {
+			try {
+				TypedValue result = cached.accessor.read(evalContext, targetObject, name);
+				if (this.cachedReadAccessor != cached.accessor) {
+					this.cachedReadAccessor = cached.accessor;
 				}
+				return result;
+			}
+			catch (Exception ex) {
+				// This is OK - it may have gone stale due to a class change,
+				// let's try to get a new one and call it before giving up...
+				removeCachedReadAccessor(cached);
 			}
-			this.cachedReadAccessor = null;
 		}
 
-		List<PropertyAccessor> accessorsToTry =
-				getPropertyAccessorsToTry(contextObject.getValue(), evalContext.getPropertyAccessors());
+		List<PropertyAccessor> accessorsToTry = getPropertyAccessorsToTry(targetObject, contextAccessors);
 		// Go through the accessors that may be able to resolve it. If they are a cacheable accessor then
 		// get the accessor and use it. If they are not cacheable but report they can read the property
 		// then ask them to read it
 		try {
 			for (PropertyAccessor accessor : accessorsToTry) {
-				if (accessor.canRead(evalContext, contextObject.getValue(), name)) {
+				if (accessor.canRead(evalContext, targetObject, name)) {
+					PropertyAccessor accessorToUse = accessor;
 					if (accessor instanceof ReflectivePropertyAccessor) {
-						accessor = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
-								evalContext, contextObject.getValue(), name);
+						accessorToUse = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
+								evalContext, targetObject, name);
+					}
+					this.cachedReadAccessor = accessorToUse;
+					if (targetObject != null) {
+						addCachedReadAccessor(new CachedReadAccessor(targetObject, accessor, accessorToUse));
 					}
-					this.cachedReadAccessor = accessor;
-					return accessor.read(evalContext, contextObject.getValue(), name);
+					return accessorToUse.read(evalContext, targetObject, name);
 				}
 			}
 		}
@@ -218,6 +233,59 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		}
 	}
 
+	/**
+	 * Find the read accessor resolved before for the type of the given target object,
+	 * as long as it is applicable to the given property accessors of the current context.
+	 */
+	@Nullable
+	private CachedReadAccessor getCachedReadAccessor(
+			@Nullable Object targetObject, List<PropertyAccessor> contextAccessors) {
+
+		if (targetObject == null) {
+			return null;
+		}
+		Class<?> targetType = getObjectClass(targetObject);
+		boolean targetIsClass = (targetObject instanceof Class);
+		CachedReadAccessor[] cachedAccessors = this.cachedReadAccessors;
+		for (int i = cachedAccessors.length - 1; i >= 0; i--) {
+			CachedReadAccessor cached = cachedAccessors[i];
+			if (cached.targetType == targetType && cached.targetIsClass == targetIsClass) {
+				return (cached.isApplicable(contextAccessors) ? cached : null);
+			}
+		}
+		return null;
+	}
+
+	private synchronized void addCachedReadAccessor(CachedReadAccessor cached) {
+		CachedReadAccessor[] cachedAccessors = this.cachedReadAccessors;
+		List<CachedReadAccessor> newAccessors = new ArrayList<>(cachedAccessors.length + 1);
+		for (CachedReadAccessor existing : cachedAccessors) {
+			if (existing.targetType != cached.targetType || existing.targetIsClass != cached.targetIsClass) {
+				newAccessors.add(existing);
+			}
+		}
+		newAccessors.add(cached);
+		if (newAccessors.size() > READ_ACCESSOR_CACHE_SIZE) {
+			// Megamorphic access: evict the least recently resolved entry
+			newAccessors.remove(0);
+		}
+		this.cachedReadAccessors = newAccessors.toArray(NO_CACHED_READ_ACCESSORS);
+	}
+
+	private synchronized void removeCachedReadAccessor(CachedReadAccessor cached) {
+		CachedReadAccessor[] cachedAccessors = this.cachedReadAccessors;
+		List<CachedReadAccessor> newAccessors = new ArrayList<>(cachedAccessors.length);
+		for (CachedReadAccessor existing : cachedAccessors) {
+			if (existing != cached) {
+				newAccessors.add(existing);
+			}
+		}
+		this.cachedReadAccessors = newAccessors.toArray(NO_CACHED_READ_ACCESSORS);
+		if (this.cachedReadAccessor == cached.accessor) {
+			this.cachedReadAccessor = null;
+		}
+	}
+
 	private void writeProperty(
 			TypedValue contextObject, EvaluationContext evalContext, String name, @Nullable Object newValue)
 			throws EvaluationException {
@@ -382,6 +450,45 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 	}
 
 
+	/**
+	 * A read accessor resolved for a particular type of target object,
+	 * along with the context accessor that it has been resolved from.
+	 */
+	private static final class CachedReadAccessor {
+
+		final Class<?> targetType;
+
+		final boolean targetIsClass;
+
+		final PropertyAccessor resolvedFrom;
+
+		final PropertyAccessor accessor;
+
+		public CachedReadAccessor(Object targetObject, PropertyAccessor resolvedFrom, PropertyAccessor accessor) {
+			this.targetIsClass = (targetObject instanceof Class);
+			this.targetType = (this.targetIsClass ? (Class<?>) targetObject : targetObject.getClass());
+			this.resolvedFrom = resolvedFrom;
+			this.accessor = accessor;
+		}
+
+		/**
+		 * Check whether this accessor may be used with the given accessors of the current
+		 * context: either if the accessor that it has been resolved from is one of them,
+		 * or if both come with a single default {@link ReflectivePropertyAccessor}, as is
+		 * the case for a fresh evaluation context per evaluation.
+		 */
+		public boolean isApplicable(List<PropertyAccessor> contextAccessors) {
+			if (contextAccessors.size() == 1) {
+				PropertyAccessor contextAccessor = contextAccessors.get(0);
+				return (contextAccessor == this.resolvedFrom ||
+						(contextAccessor.getClass() == ReflectivePropertyAccessor.class &&
+								this.resolvedFrom.getClass() == ReflectivePropertyAccessor.class));
+			}
+			return contextAccessors.contains(this.resolvedFrom);
+		}
+	}
+
+
 	private static class AccessorLValue implements ValueRef {
 
 		private final PropertyOrFieldReference ref;
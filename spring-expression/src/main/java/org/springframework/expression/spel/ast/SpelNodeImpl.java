@@ -192,6 +192,34 @@ public abstract class SpelNodeImpl implements SpelNode, Opcodes {
 		return this.exitTypeDescriptor;
 	}
 
+	/**
+	 * Return the parent of this node, or {@code null} for the root node of an expression.
+	 */
+	@Nullable
+	final SpelNodeImpl getParent() {
+		return this.parent;
+	}
+
+	/**
+	 * Replace the given child of this node with the given node, as an atomic
+	 * compare-and-set with respect to concurrent replacements of children.
+	 * @param child the current child node
+	 * @param replacement the node to take its place
+	 * @return {@code true} if the child was found and replaced,
+	 * {@code false} if it is not a child of this node (anymore)
+	 */
+	final synchronized boolean replaceChild(SpelNodeImpl child, SpelNodeImpl replacement) {
+		SpelNodeImpl[] children = this.children;
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] == child) {
+				replacement.parent = this;
+				children[i] = replacement;
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public abstract TypedValue getValueInternal(ExpressionState expressionState) throws EvaluationException;
 
 	
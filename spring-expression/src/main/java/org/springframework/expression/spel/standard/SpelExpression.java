@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,17 @@
 
 package org.springframework.expression.spel.standard;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
@@ -29,10 +40,20 @@ import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.SpelNode;
 import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.CompiledSubexpression;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Elvis;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.OpDec;
+import org.springframework.expression.spel.ast.OpInc;
+import org.springframework.expression.spel.ast.Operator;
+import org.springframework.expression.spel.ast.OperatorNot;
 import org.springframework.expression.spel.ast.SpelNodeImpl;
+import org.springframework.expression.spel.ast.Ternary;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 
 /**
  * A {@code SpelExpression} represents a parsed (valid) expression that is ready to be
@@ -52,6 +73,12 @@ public class SpelExpression implements Expression {
 	// Number of times to try compiling an expression before giving up
 	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
 
+	// Maximum exponent for backing off from compiling an expression again after it failed
+	// in compiled form, multiplying INTERPRETED_COUNT_THRESHOLD by up to 2^10
+	private static final int MAX_DEOPTIMIZATION_BACKOFF = 10;
+
+	private static final Log logger = LogFactory.getLog(SpelExpression.class);
+
 
 	private final String expression;
 
@@ -65,7 +92,7 @@ public class SpelExpression implements Expression {
 
 	// Holds the compiled form of the expression (if it has been compiled)
 	@Nullable
-	private CompiledExpression compiledAst;
+	private volatile CompiledExpression compiledAst;
 
 	// Count of many times as the expression been interpreted - can trigger compilation
 	// when certain limit reached
@@ -75,6 +102,17 @@ public class SpelExpression implements Expression {
 	// give up trying to compile it when it just doesn't seem to be possible.
 	private volatile int failedAttempts = 0;
 
+	// The number of times the compiled form of the expression or of one of its
+	// subexpressions failed and had to be discarded
+	private volatile int deoptimizationCount = 0;
+
+	// Whether a background compilation of the expression is pending (adaptive mode only)
+	private final AtomicBoolean compilationScheduled = new AtomicBoolean();
+
+	private final LongAdder compiledEvaluationCount = new LongAdder();
+
+	private final LongAdder interpretedEvaluationCount = new LongAdder();
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -120,19 +158,13 @@ public class SpelExpression implements Expression {
 			try {
 				TypedValue contextRoot =
 						(this.evaluationContext != null ? this.evaluationContext.getRootObject() : null);
-				return this.compiledAst.getValue(
+				Object result = this.compiledAst.getValue(
 						(contextRoot != null ? contextRoot.getValue() : null), this.evaluationContext);
+				this.compiledEvaluationCount.increment();
+				return result;
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -152,6 +184,7 @@ public class SpelExpression implements Expression {
 						(this.evaluationContext != null ? this.evaluationContext.getRootObject() : null);
 				Object result = this.compiledAst.getValue(
 						(contextRoot != null ? contextRoot.getValue() : null), this.evaluationContext);
+				this.compiledEvaluationCount.increment();
 				if (expectedResultType == null) {
 					return (T) result;
 				}
@@ -161,15 +194,7 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -185,18 +210,12 @@ public class SpelExpression implements Expression {
 	public Object getValue(Object rootObject) throws EvaluationException {
 		if (this.compiledAst != null) {
 			try {
-				return this.compiledAst.getValue(rootObject, evaluationContext);
+				Object result = this.compiledAst.getValue(rootObject, this.evaluationContext);
+				this.compiledEvaluationCount.increment();
+				return result;
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -214,6 +233,7 @@ public class SpelExpression implements Expression {
 		if (this.compiledAst != null) {
 			try {
 				Object result = this.compiledAst.getValue(rootObject, null);
+				this.compiledEvaluationCount.increment();
 				if (expectedResultType == null) {
 					return (T)result;
 				}
@@ -223,15 +243,7 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -251,18 +263,12 @@ public class SpelExpression implements Expression {
 		if (this.compiledAst != null) {
 			try {
 				TypedValue contextRoot = context.getRootObject();
-				return this.compiledAst.getValue(contextRoot.getValue(), context);
+				Object result = this.compiledAst.getValue(contextRoot.getValue(), context);
+				this.compiledEvaluationCount.increment();
+				return result;
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -282,6 +288,7 @@ public class SpelExpression implements Expression {
 			try {
 				TypedValue contextRoot = context.getRootObject();
 				Object result = this.compiledAst.getValue(contextRoot.getValue(), context);
+				this.compiledEvaluationCount.increment();
 				if (expectedResultType != null) {
 					return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
 				}
@@ -290,15 +297,7 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -315,18 +314,12 @@ public class SpelExpression implements Expression {
 
 		if (this.compiledAst != null) {
 			try {
-				return this.compiledAst.getValue(rootObject,context);
+				Object result = this.compiledAst.getValue(rootObject, context);
+				this.compiledEvaluationCount.increment();
+				return result;
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -347,6 +340,7 @@ public class SpelExpression implements Expression {
 		if (this.compiledAst != null) {
 			try {
 				Object result = this.compiledAst.getValue(rootObject, context);
+				this.compiledEvaluationCount.increment();
 				if (expectedResultType != null) {
 					return ExpressionUtils.convertTypedValue(context, new TypedValue(result), expectedResultType);
 				}
@@ -355,15 +349,7 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.interpretedCount = 0;
-					this.compiledAst = null;
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				handleCompiledEvaluationFailure(ex);
 			}
 		}
 
@@ -480,6 +466,7 @@ public class SpelExpression implements Expression {
 	 */
 	private void checkCompile(ExpressionState expressionState) {
 		this.interpretedCount++;
+		this.interpretedEvaluationCount.increment();
 		SpelCompilerMode compilerMode = expressionState.getConfiguration().getCompilerMode();
 		if (compilerMode != SpelCompilerMode.OFF) {
 			if (compilerMode == SpelCompilerMode.IMMEDIATE) {
@@ -487,6 +474,12 @@ public class SpelExpression implements Expression {
 					compileExpression();
 				}
 			}
+			else if (compilerMode == SpelCompilerMode.ADAPTIVE) {
+				int backoff = Math.min(this.deoptimizationCount, MAX_DEOPTIMIZATION_BACKOFF);
+				if (this.interpretedCount > (INTERPRETED_COUNT_THRESHOLD << backoff)) {
+					scheduleCompilation();
+				}
+			}
 			else {
 				// compilerMode = SpelCompilerMode.MIXED
 				if (this.interpretedCount > INTERPRETED_COUNT_THRESHOLD) {
@@ -497,12 +490,121 @@ public class SpelExpression implements Expression {
 	}
 
 
+	/**
+	 * Handle the failure of an evaluation in compiled form: in mixed or adaptive mode,
+	 * revert to interpreted, otherwise propagate the exception to the caller.
+	 * @param ex the exception thrown by the compiled expression
+	 */
+	private void handleCompiledEvaluationFailure(Throwable ex) {
+		SpelCompilerMode compilerMode = this.configuration.getCompilerMode();
+		if (compilerMode == SpelCompilerMode.MIXED || compilerMode == SpelCompilerMode.ADAPTIVE) {
+			this.compiledAst = null;
+			deoptimize();
+		}
+		else {
+			// Running in SpelCompilerMode.immediate mode - propagate exception to caller
+			throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+		}
+	}
+
+	/**
+	 * Request compilation of the expression in a background thread, unless there is
+	 * already a compilation pending or compilation has been given up on.
+	 * Interpretation continues until the compiled form is available.
+	 */
+	private void scheduleCompilation() {
+		if (this.failedAttempts > FAILED_ATTEMPTS_THRESHOLD || !this.compilationScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		// Wait for another round of evaluations before trying again in case of failure
+		this.interpretedCount = 0;
+		// Determine the ClassLoader on the calling thread rather than on the background thread
+		ClassLoader classLoader = this.configuration.getCompilerClassLoader();
+		if (classLoader == null) {
+			classLoader = ClassUtils.getDefaultClassLoader();
+		}
+		ClassLoader classLoaderToUse = classLoader;
+		try {
+			BackgroundCompiler.executor.execute(() -> compileAdaptively(classLoaderToUse));
+		}
+		catch (RejectedExecutionException ex) {
+			this.compilationScheduled.set(false);
+		}
+	}
+
+	/**
+	 * Compile the expression as a whole if possible, otherwise compile all of its
+	 * subexpressions which can be compiled on their own.
+	 * @param classLoader the ClassLoader to use as the basis for compilation
+	 */
+	private void compileAdaptively(@Nullable ClassLoader classLoader) {
+		try {
+			if (!compileExpression(classLoader)) {
+				compileSubexpressions(this.ast, classLoader);
+			}
+		}
+		catch (Throwable ex) {
+			this.failedAttempts++;
+			if (logger.isDebugEnabled()) {
+				logger.debug("SpEL: failed to compile expression [" + this.expression + "]", ex);
+			}
+		}
+		finally {
+			this.compilationScheduled.set(false);
+		}
+	}
+
+	/**
+	 * Compile the subexpressions of the given node which are evaluated against the same
+	 * context object as the node itself, i.e. the operands of operators and the first
+	 * element of a compound expression.
+	 */
+	private void compileSubexpressions(SpelNodeImpl node, @Nullable ClassLoader classLoader) {
+		if ((node instanceof Operator && !(node instanceof OpInc || node instanceof OpDec)) ||
+				node instanceof OperatorNot || node instanceof Ternary || node instanceof Elvis) {
+			for (int i = 0; i < node.getChildCount(); i++) {
+				compileSubexpression((SpelNodeImpl) node.getChild(i), classLoader);
+			}
+		}
+		else if (node instanceof CompoundExpression) {
+			compileSubexpression((SpelNodeImpl) node.getChild(0), classLoader);
+		}
+	}
+
+	private void compileSubexpression(SpelNodeImpl node, @Nullable ClassLoader classLoader) {
+		if (node instanceof CompiledSubexpression || node instanceof Literal) {
+			// Already compiled, or nothing to gain from compiling it
+			return;
+		}
+		if (node.isCompilable()) {
+			SpelCompiler compiler = SpelCompiler.getCompiler(classLoader);
+			CompiledExpression compiledExpression = compiler.compile(node);
+			if (compiledExpression != null &&
+					CompiledSubexpression.replace(node, compiledExpression, this::deoptimize) != null) {
+				return;
+			}
+		}
+		compileSubexpressions(node, classLoader);
+	}
+
+	/**
+	 * Record that a compiled form failed, backing off from compiling again.
+	 */
+	private synchronized void deoptimize() {
+		this.interpretedCount = 0;
+		this.deoptimizationCount++;
+	}
+
 	/**
 	 * Perform expression compilation. This will only succeed once exit descriptors for all nodes have
 	 * been determined. If the compilation fails and has failed more than 100 times the expression is
 	 * no longer considered suitable for compilation.
 	 */
 	public boolean compileExpression() {
+		return compileExpression(this.configuration.getCompilerClassLoader());
+	}
+
+	private boolean compileExpression(@Nullable ClassLoader classLoader) {
 		if (this.failedAttempts > FAILED_ATTEMPTS_THRESHOLD) {
 			// Don't try again
 			return false;
@@ -513,11 +615,12 @@ public class SpelExpression implements Expression {
 				if (this.compiledAst != null) {
 					return true;
 				}
-				SpelCompiler compiler = SpelCompiler.getCompiler(this.configuration.getCompilerClassLoader());
-				this.compiledAst = compiler.compile(this.ast);
-				if (this.compiledAst == null) {
+				SpelCompiler compiler = SpelCompiler.getCompiler(classLoader);
+				CompiledExpression compiledAst = compiler.compile(this.ast);
+				if (compiledAst == null) {
 					this.failedAttempts++;
 				}
+				this.compiledAst = compiledAst;
 			}
 		}
 		return (this.compiledAst != null);
@@ -532,6 +635,44 @@ public class SpelExpression implements Expression {
 		this.compiledAst = null;
 		this.interpretedCount = 0;
 		this.failedAttempts = 0;
+		this.deoptimizationCount = 0;
+		revertSubexpressions(this.ast);
+	}
+
+	private void revertSubexpressions(SpelNode node) {
+		for (int i = 0; i < node.getChildCount(); i++) {
+			SpelNode child = node.getChild(i);
+			if (child instanceof CompiledSubexpression) {
+				((CompiledSubexpression) child).revert();
+			}
+			revertSubexpressions(child);
+		}
+	}
+
+	/**
+	 * Return the number of evaluations of this expression in compiled form.
+	 * @since 5.1
+	 */
+	public long getCompiledEvaluationCount() {
+		return this.compiledEvaluationCount.sum();
+	}
+
+	/**
+	 * Return the number of evaluations of this expression in interpreted form,
+	 * including evaluations with some of its subexpressions in compiled form.
+	 * @since 5.1
+	 */
+	public long getInterpretedEvaluationCount() {
+		return this.interpretedEvaluationCount.sum();
+	}
+
+	/**
+	 * Return the number of times that the compiled form of this expression failed
+	 * and has been discarded in favor of interpreting the expression again.
+	 * @since 5.1
+	 */
+	public int getDeoptimizationCount() {
+		return this.deoptimizationCount;
 	}
 
 	/**
@@ -555,4 +696,25 @@ public class SpelExpression implements Expression {
 		return (object != null ? new TypedValue(object) : TypedValue.NULL);
 	}
 
+
+	/**
+	 * Holder for the executor which compiles expressions in adaptive mode,
+	 * using a single daemon thread that is only created on demand.
+	 */
+	private static class BackgroundCompiler {
+
+		static final Executor executor;
+
+		static {
+			ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), runnable -> {
+						Thread thread = new Thread(runnable, "SpelCompiler");
+						thread.setDaemon(true);
+						return thread;
+					});
+			threadPoolExecutor.allowCoreThreadTimeOut(true);
+			executor = threadPoolExecutor;
+		}
+	}
+
 }
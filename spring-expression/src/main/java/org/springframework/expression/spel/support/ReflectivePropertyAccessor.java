@@ -186,7 +186,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(method);
 					Object value = method.invoke(target);
-					return new TypedValue(value, invoker.typeDescriptor.narrow(value));
+					return new TypedValue(value, invoker.narrow(value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access property '" + name + "' through getter method", ex);
@@ -208,7 +208,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(field);
 					Object value = field.get(target);
-					return new TypedValue(value, invoker.typeDescriptor.narrow(value));
+					return new TypedValue(value, invoker.narrow(value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access field '" + name + "'", ex);
@@ -569,10 +569,33 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		final TypeDescriptor typeDescriptor;
 
+		// The type descriptor narrowed to the type of the most recently returned value
+		@Nullable
+		private volatile TypeDescriptor narrowedTypeDescriptor;
+
 		public InvokerPair(Member member, TypeDescriptor typeDescriptor) {
 			this.member = member;
 			this.typeDescriptor = typeDescriptor;
 		}
+
+		/**
+		 * Narrow the type descriptor to the type of the given value, reusing the
+		 * previously narrowed descriptor if the value is of the same type: since
+		 * the narrowed descriptor only depends on the type of the value, there is
+		 * no need to create a new one for every value returned.
+		 * @see TypeDescriptor#narrow(Object)
+		 */
+		public TypeDescriptor narrow(@Nullable Object value) {
+			if (value == null) {
+				return this.typeDescriptor;
+			}
+			TypeDescriptor narrowed = this.narrowedTypeDescriptor;
+			if (narrowed == null || narrowed.getType() != value.getClass()) {
+				narrowed = this.typeDescriptor.narrow(value);
+				this.narrowedTypeDescriptor = narrowed;
+			}
+			return narrowed;
+		}
 	}
 
 
@@ -637,11 +660,11 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		public final Member member;
 
-		private final TypeDescriptor typeDescriptor;
+		private final InvokerPair invoker;
 
 		OptimalPropertyAccessor(InvokerPair target) {
 			this.member = target.member;
-			this.typeDescriptor = target.typeDescriptor;
+			this.invoker = target;
 		}
 
 		@Override
@@ -682,7 +705,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(method);
 					Object value = method.invoke(target);
-					return new TypedValue(value, this.typeDescriptor.narrow(value));
+					return new TypedValue(value, this.invoker.narrow(value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access property '" + name + "' through getter method", ex);
@@ -693,7 +716,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(field);
 					Object value = field.get(target);
-					return new TypedValue(value, this.typeDescriptor.narrow(value));
+					return new TypedValue(value, this.invoker.narrow(value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access field '" + name + "'", ex);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,6 +94,43 @@ public class PerformanceTests {
 		}
 	}
 
+	@Test
+	public void testPerformanceOfPolymorphicPropertyAccess() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		Expression expr = parser.parseExpression("name");
+		Object[] targets = {eContext.getRootObject().getValue(), new Named("a"), new OtherNamed("b")};
+
+		// warmup
+		for (int i = 0; i < ITERATIONS; i++) {
+			expr.getValue(eContext, targets[i % targets.length]);
+		}
+
+		long starttime = System.currentTimeMillis();
+		for (int i = 0; i < ITERATIONS * 10; i++) {
+			expr.getValue(eContext, targets[0]);
+		}
+		long monomorphicTime = System.currentTimeMillis() - starttime;
+		if (DEBUG) {
+			System.out.println("PropertyAccess: Time for monomorphic evaluation x 100000: "+monomorphicTime+"ms");
+		}
+
+		starttime = System.currentTimeMillis();
+		for (int i = 0; i < ITERATIONS * 10; i++) {
+			expr.getValue(eContext, targets[i % targets.length]);
+		}
+		long polymorphicTime = System.currentTimeMillis() - starttime;
+		if (DEBUG) {
+			System.out.println("PropertyAccess: Time for polymorphic evaluation x 100000: "+polymorphicTime+"ms");
+		}
+
+		if (polymorphicTime > Math.max(monomorphicTime, 10) * 3) {
+			System.out.println("Monomorphic property access, ITERATIONS * 10 iterations = " + monomorphicTime + "ms");
+			System.out.println("Polymorphic property access, ITERATIONS * 10 iterations = " + polymorphicTime + "ms");
+			fail("Polymorphic property access should not be significantly slower!");
+		}
+	}
+
 	@Test
 	public void testPerformanceOfMethodAccess() throws Exception {
 		Assume.group(TestGroup.PERFORMANCE);
@@ -145,4 +182,28 @@ public class PerformanceTests {
 		}
 	}
 
+
+	public static class Named {
+
+		private final String name;
+
+		public Named(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+
+	public static class OtherNamed {
+
+		public final String name;
+
+		public OtherNamed(String name) {
+			this.name = name;
+		}
+	}
+
 }
@@ -285,6 +285,43 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 		assertSame(Object.class, context.getRootObject().getTypeDescriptor().getType());
 	}
 
+	@Test
+	public void polymorphicPropertyAccess() {
+		Expression expression = parser.parseExpression("name");
+		StandardEvaluationContext sharedContext = new StandardEvaluationContext();
+		Object[] targets = {new Person("p1"), new Named("n1"), new NamedField("f1"), new Person("p2"), new NamedField("f2")};
+		String[] names = {"p1", "n1", "f1", "p2", "f2"};
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < targets.length; j++) {
+				assertEquals(names[j], expression.getValue(sharedContext, targets[j]));
+				assertEquals(names[j], expression.getValue(new StandardEvaluationContext(), targets[j]));
+				assertEquals(names[j], expression.getValue(new StandardEvaluationContext(targets[j])));
+			}
+		}
+	}
+
+	@Test
+	public void polymorphicPropertyAccessOnTypes() {
+		Expression expression = parser.parseExpression("MAX_VALUE");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(Integer.MAX_VALUE, expression.getValue(context, (Object) Integer.class));
+			assertEquals(Long.MAX_VALUE, expression.getValue(context, (Object) Long.class));
+		}
+	}
+
+	@Test
+	public void propertyAccessWithAccessorsSpecificToContext() {
+		Expression expression = parser.parseExpression("name");
+		Person target = new Person("p1");
+		StandardEvaluationContext customContext = new StandardEvaluationContext();
+		customContext.addPropertyAccessor(new ConfigurablePropertyAccessor(Collections.singletonMap("name", "c1")));
+		for (int i = 0; i < 3; i++) {
+			assertEquals("c1", expression.getValue(customContext, target));
+			assertEquals("p1", expression.getValue(new StandardEvaluationContext(), target));
+		}
+	}
+
 
 	// This can resolve the property 'flibbles' on any String (very useful...)
 	private static class StringyPropertyAccessor implements PropertyAccessor {
@@ -336,6 +373,30 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 	}
 
 
+	public static class Named {
+
+		private final String name;
+
+		public Named(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+
+	public static class NamedField {
+
+		public final String name;
+
+		public NamedField(String name) {
+			this.name = name;
+		}
+	}
+
+
 	private static class ConfigurablePropertyAccessor implements PropertyAccessor {
 
 		private final Map<String, Object> values;
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.BooleanSupplier;
 
 import org.junit.Test;
 
@@ -35,7 +36,9 @@ import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.ast.CompiledSubexpression;
 import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.OpGT;
 import org.springframework.expression.spel.ast.OpLT;
 import org.springframework.expression.spel.ast.SpelNodeImpl;
 import org.springframework.expression.spel.ast.Ternary;
@@ -1811,6 +1814,50 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertTrue(expression.getValue(context, Boolean.class));
 	}
 
+	@Test
+	public void adaptiveMode() throws Exception {
+		SpelParserConfiguration configuration =
+				new SpelParserConfiguration(SpelCompilerMode.ADAPTIVE, getClass().getClassLoader());
+		SpelExpression expression = (SpelExpression)
+				new SpelExpressionParser(configuration).parseExpression("toString().length()");
+
+		awaitCompilation(expression, "abc", () -> expression.getCompiledEvaluationCount() > 0);
+		assertEquals(3, expression.getValue("abc"));
+		assertEquals(0, expression.getDeoptimizationCount());
+
+		// Compiled form casts the root object to String -> revert to interpreted
+		assertEquals(2, expression.getValue(42));
+		assertEquals(1, expression.getDeoptimizationCount());
+		long interpretedCount = expression.getInterpretedEvaluationCount();
+		assertEquals(3, expression.getValue("abc"));
+		assertEquals(interpretedCount + 1, expression.getInterpretedEvaluationCount());
+	}
+
+	@Test
+	public void adaptiveModeWithSubexpressions() throws Exception {
+		SpelParserConfiguration configuration =
+				new SpelParserConfiguration(SpelCompilerMode.ADAPTIVE, getClass().getClassLoader());
+		SpelExpression expression = (SpelExpression) new SpelExpressionParser(configuration).parseExpression(
+				"toString().length() > 2 and {1,2,3}.?[#this > 1].size() == 2");
+		assertCantCompile(expression);
+
+		awaitCompilation(expression, "abc", () -> expression.getAST().getChild(0) instanceof CompiledSubexpression);
+		assertEquals(true, expression.getValue("abc"));
+		assertEquals(false, expression.getValue("ab"));
+		assertEquals(0, expression.getCompiledEvaluationCount());
+		assertEquals("((toString().length() > 2) and ({1,2,3}.?[(#this > 1)].size() == 2))", expression.toStringAST());
+
+		// Compiled subexpression casts the root object to String -> revert to interpreted
+		assertEquals(true, expression.getValue(4711));
+		assertTrue(expression.getAST().getChild(0) instanceof OpGT);
+		assertEquals(1, expression.getDeoptimizationCount());
+
+		expression.revertToInterpreted();
+		for (int i = 0; i < expression.getAST().getChildCount(); i++) {
+			assertFalse(expression.getAST().getChild(i) instanceof CompiledSubexpression);
+		}
+	}
+
 	@Test
 	public void opEq_SPR14863() throws Exception {
 		// Exercise the comparator invocation code that runs in
@@ -5051,6 +5098,18 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		}
 	}
 
+	private void awaitCompilation(Expression expression, Object rootObject, BooleanSupplier compiled)
+			throws InterruptedException {
+
+		for (int i = 0; i < 500 && !compiled.getAsBoolean(); i++) {
+			for (int j = 0; j < 200; j++) {
+				expression.getValue(rootObject);
+			}
+			Thread.sleep(10);
+		}
+		assertTrue("Expression not compiled in time", compiled.getAsBoolean());
+	}
+
 	private void assertIsCompiled(Expression expression) {
 		try {
 			Field field = SpelExpression.class.getDeclaredField("compiledAst");
@@ -19,16 +19,23 @@ package org.springframework.http.server.reactive;
 import java.io.File;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.handler.ssl.SslHandler;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.ipc.netty.NettyPipeline;
 import reactor.ipc.netty.http.server.HttpServerResponse;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.FileRegionDataBuffer;
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ZeroCopyHttpOutputMessage;
@@ -70,10 +77,23 @@ class ReactorServerHttpResponse extends AbstractServerHttpResponse implements Ze
 
 	@Override
 	protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> publisher) {
+		if (isZeroCopySupported()) {
+			Publisher<Object> body = Flux.from(publisher).map(ReactorServerHttpResponse::toMessage);
+			return this.response.sendObject(body).then();
+		}
 		Publisher<ByteBuf> body = toByteBufs(publisher);
 		return this.response.send(body).then();
 	}
 
+	/**
+	 * Whether {@link FileRegionDataBuffer}s can be sent as a {@link FileRegion},
+	 * i.e. unless the content is encrypted or compressed on its way out.
+	 */
+	private boolean isZeroCopySupported() {
+		ChannelPipeline pipeline = this.response.context().channel().pipeline();
+		return (pipeline.get(SslHandler.class) == null && pipeline.get(NettyPipeline.CompressionHandler) == null);
+	}
+
 	@Override
 	protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> publisher) {
 		Publisher<Publisher<ByteBuf>> body = Flux.from(publisher)
@@ -120,4 +140,15 @@ class ReactorServerHttpResponse extends AbstractServerHttpResponse implements Ze
 		return Flux.from(dataBuffers).map(NettyDataBufferFactory::toByteBuf);
 	}
 
+	private static Object toMessage(DataBuffer dataBuffer) {
+		if (dataBuffer instanceof FileRegionDataBuffer) {
+			FileRegionDataBuffer region = (FileRegionDataBuffer) dataBuffer;
+			FileRegion fileRegion =
+					new DefaultFileRegion(region.getFile().toFile(), region.getPosition(), region.getCount());
+			DataBufferUtils.release(region);
+			return fileRegion;
+		}
+		return NettyDataBufferFactory.toByteBuf(dataBuffer);
+	}
+
 }
@@ -17,7 +17,6 @@
 package org.springframework.http.server.reactive;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.Charset;
 import javax.servlet.AsyncContext;
 import javax.servlet.AsyncEvent;
@@ -148,11 +147,13 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 	 */
 	protected int writeToOutputStream(DataBuffer dataBuffer) throws IOException {
 		ServletOutputStream outputStream = this.outputStream;
-		InputStream input = dataBuffer.asInputStream();
 		int bytesWritten = 0;
 		byte[] buffer = new byte[this.bufferSize];
-		int bytesRead;
-		while (outputStream.isReady() && (bytesRead = input.read(buffer)) != -1) {
+		// Read from the DataBuffer directly rather than through a view of its memory,
+		// so that a FileRegionDataBuffer can still unmap its region when released
+		while (outputStream.isReady() && dataBuffer.readableByteCount() > 0) {
+			int bytesRead = Math.min(dataBuffer.readableByteCount(), buffer.length);
+			dataBuffer.read(buffer, 0, bytesRead);
 			outputStream.write(buffer, 0, bytesRead);
 			bytesWritten += bytesRead;
 		}
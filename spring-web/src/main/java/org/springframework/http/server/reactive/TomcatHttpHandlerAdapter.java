@@ -31,6 +31,7 @@ import org.apache.catalina.connector.CoyoteOutputStream;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.FileRegionDataBuffer;
 import org.springframework.util.Assert;
 
 /**
@@ -120,6 +121,10 @@ public class TomcatHttpHandlerAdapter extends ServletHttpHandlerAdapter {
 
 		@Override
 		protected int writeToOutputStream(DataBuffer dataBuffer) throws IOException {
+			if (dataBuffer instanceof FileRegionDataBuffer) {
+				// Copy rather than expose the mapped region, which then cannot be unmapped on release
+				return super.writeToOutputStream(dataBuffer);
+			}
 			ByteBuffer input = dataBuffer.asByteBuffer();
 			int len = input.remaining();
 			ServletResponse response = getNativeResponse();
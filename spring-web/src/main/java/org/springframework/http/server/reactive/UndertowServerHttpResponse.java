@@ -35,6 +35,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.FileRegionDataBuffer;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ZeroCopyHttpOutputMessage;
 import org.springframework.lang.Nullable;
@@ -164,7 +165,7 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 		@Override
 		protected boolean write(DataBuffer dataBuffer) throws IOException {
 			ByteBuffer buffer = this.byteBuffer;
-			if (buffer == null) {
+			if (buffer == null && !(dataBuffer instanceof FileRegionDataBuffer)) {
 				return false;
 			}
 			if (logger.isTraceEnabled()) {
@@ -174,8 +175,9 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 			// Track write listener calls from here on..
 			this.writePossible = false;
 
-			int total = buffer.remaining();
-			int written = writeByteBuffer(buffer);
+			int total = (buffer != null ? buffer.remaining() : dataBuffer.readableByteCount());
+			int written = (buffer != null ? writeByteBuffer(buffer) :
+					writeFileRegion((FileRegionDataBuffer) dataBuffer));
 
 			if (logger.isTraceEnabled()) {
 				logger.trace("written: " + written + " total: " + total);
@@ -206,10 +208,27 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 			return totalWritten;
 		}
 
+		/**
+		 * Transfer the region straight from the file, without mapping it.
+		 */
+		private int writeFileRegion(FileRegionDataBuffer region) throws IOException {
+			long written;
+			int totalWritten = 0;
+			try (FileChannel source = FileChannel.open(region.getFile(), StandardOpenOption.READ)) {
+				do {
+					written = this.channel.transferFrom(source, region.getPosition(), region.getCount());
+					region.readPosition(region.readPosition() + (int) written);
+					totalWritten += written;
+				}
+				while (region.readableByteCount() > 0 && written > 0);
+			}
+			return totalWritten;
+		}
+
 		@Override
 		protected void dataReceived(DataBuffer dataBuffer) {
 			super.dataReceived(dataBuffer);
-			this.byteBuffer = dataBuffer.asByteBuffer();
+			this.byteBuffer = (dataBuffer instanceof FileRegionDataBuffer ? null : dataBuffer.asByteBuffer());
 		}
 
 		@Override
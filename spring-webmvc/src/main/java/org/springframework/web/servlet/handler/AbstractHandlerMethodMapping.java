@@ -93,6 +93,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	private HandlerMethodMappingNamingStrategy<T> namingStrategy;
 
+	private boolean usePatternIndex = false;
+
 	// 保存解析到的mapping配置
 	private final MappingRegistry mappingRegistry = new MappingRegistry();
 
@@ -120,6 +122,30 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.namingStrategy = namingStrategy;
 	}
 
+	/**
+	 * Whether to narrow down the mappings to match a request against through an
+	 * index over the literal leading segments of their path patterns, when there
+	 * is no direct match for the lookup path. This makes the lookup cost depend
+	 * on the depth of the path rather than on the number of mappings.
+	 * <p>Default is "false": All mappings are matched against the request if there
+	 * is no direct match. Switch this flag on only if literal pattern segments
+	 * match equal path segments only, as with a default {@code AntPathMatcher},
+	 * i.e. not with case-insensitive matching or trimmed tokens.
+	 * @since 5.1
+	 * @see #getMappingPathPatterns
+	 */
+	public void setUsePatternIndex(boolean usePatternIndex) {
+		this.usePatternIndex = usePatternIndex;
+	}
+
+	/**
+	 * Return whether to narrow down the mappings through a pattern index.
+	 * @since 5.1
+	 */
+	public boolean isUsePatternIndex() {
+		return this.usePatternIndex;
+	}
+
 	/**
 	 * Return the configured naming strategy or {@code null}.
 	 */
@@ -364,8 +390,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 		// 如果没有找到符合条件的则在所有的mapping中再找一次
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			if (this.usePatternIndex) {
+				addMatchingMappings(this.mappingRegistry.getMappingsByPathPrefix(lookupPath), matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...
+				addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -511,6 +542,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final PatternPrefixIndex<T> patternIndex = new PatternPrefixIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -534,6 +567,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings which might match the given URL path according
+		 * to the literal leading segments of their patterns. Not thread-safe.
+		 * @since 5.1
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByPathPrefix(String urlPath) {
+			return this.patternIndex.getCandidates(urlPath);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -583,6 +626,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					// 维护了一个直接请求路径和mapping的映射
 					this.urlLookup.add(url, mapping);
 				}
+				this.patternIndex.add(mapping, getMappingPathPatterns(mapping));
 
 				String name = null;
 				if (getNamingStrategy() != null) {
@@ -677,6 +721,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 						}
 					}
 				}
+				this.patternIndex.remove(definition.getMapping(), getMappingPathPatterns(definition.getMapping()));
 
 				removeMappingName(definition);
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Prefix trie over the literal leading segments of the path patterns of
+ * request mappings, narrowing down the candidate mappings for a lookup path
+ * without matching it against every single pattern.
+ *
+ * <p>Each mapping is stored at the node of every one of its patterns which
+ * corresponds to the literal segments before the first segment with a
+ * wildcard or URI variable, and mappings without patterns are stored at the
+ * root. The candidates for a lookup path are the mappings stored along its
+ * segments, so the lookup cost depends on the depth of the path rather than
+ * on the number of mappings. The last path segment is also looked up without
+ * its extension(s), in order to cover suffix pattern matches.
+ *
+ * <p>This assumes that a literal pattern segment only ever matches an equal
+ * path segment, as with a default {@link org.springframework.util.AntPathMatcher}.
+ * Not thread-safe; guarded by the read-write lock of the mapping registry.
+ *
+ * @since 5.1
+ * @see AbstractHandlerMethodMapping#setUsePatternIndex
+ */
+final class PatternPrefixIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+
+	private final Node<T> root = new Node<>();
+
+
+	/**
+	 * Add the given mapping for the given patterns.
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		if (patterns.isEmpty()) {
+			this.root.mappings.add(mapping);
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			for (String segment : tokenize(pattern)) {
+				if (!isLiteral(segment)) {
+					break;
+				}
+				node = node.children.computeIfAbsent(segment, key -> new Node<>());
+			}
+			node.mappings.add(mapping);
+		}
+	}
+
+	/**
+	 * Remove the given mapping, previously added for the given patterns.
+	 */
+	public void remove(T mapping, Collection<String> patterns) {
+		if (patterns.isEmpty()) {
+			this.root.mappings.remove(mapping);
+		}
+		for (String pattern : patterns) {
+			remove(this.root, mapping, tokenize(pattern), 0);
+		}
+	}
+
+	private void remove(Node<T> node, T mapping, String[] segments, int index) {
+		if (index < segments.length && isLiteral(segments[index])) {
+			Node<T> child = node.children.get(segments[index]);
+			if (child != null) {
+				remove(child, mapping, segments, index + 1);
+				if (child.isEmpty()) {
+					node.children.remove(segments[index]);
+				}
+			}
+		}
+		else {
+			node.mappings.remove(mapping);
+		}
+	}
+
+	/**
+	 * Return the candidate mappings for the given lookup path, i.e. all mappings
+	 * which might match the path, in no particular order of specificity.
+	 */
+	public Collection<T> getCandidates(String lookupPath) {
+		Set<T> candidates = new LinkedHashSet<>(this.root.mappings);
+		String[] segments = tokenize(lookupPath);
+		Node<T> node = this.root;
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			if (i == segments.length - 1) {
+				addSuffixCandidates(node, segment, candidates);
+			}
+			node = node.children.get(segment);
+			if (node == null) {
+				break;
+			}
+			candidates.addAll(node.mappings);
+		}
+		return candidates;
+	}
+
+	private void addSuffixCandidates(Node<T> node, String segment, Set<T> candidates) {
+		int index = segment.indexOf('.');
+		while (index != -1) {
+			Node<T> child = node.children.get(segment.substring(0, index));
+			if (child != null) {
+				candidates.addAll(child.mappings);
+			}
+			index = segment.indexOf('.', index + 1);
+		}
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+	}
+
+	private static boolean isLiteral(String segment) {
+		return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+	}
+
+
+	private static final class Node<T> {
+
+		private final Map<String, Node<T>> children = new HashMap<>(4);
+
+		private final List<T> mappings = new ArrayList<>(1);
+
+		public boolean isEmpty() {
+			return (this.children.isEmpty() && this.mappings.isEmpty());
+		}
+	}
+
+}
@@ -94,6 +94,16 @@ public class HandlerMethodMappingTests {
 		assertEquals(method1, result.getMethod());
 	}
 
+	@Test
+	public void patternMatchWithPatternIndex() throws Exception {
+		this.mapping.setUsePatternIndex(true);
+		this.mapping.registerMapping("/fo*", this.handler, this.method1);
+		this.mapping.registerMapping("/f*", this.handler, this.method2);
+
+		HandlerMethod result = this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo"));
+		assertEquals(method1, result.getMethod());
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void ambiguousMatch() throws Exception {
 		this.mapping.registerMapping("/f?o", this.handler, this.method1);
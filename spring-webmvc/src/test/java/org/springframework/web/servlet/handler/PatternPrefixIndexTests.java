@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PatternPrefixIndex}.
+ *
+ * @since 5.1
+ */
+public class PatternPrefixIndexTests {
+
+	private final PatternPrefixIndex<String> index = new PatternPrefixIndex<>();
+
+
+	@Before
+	public void setUp() {
+		add("all");
+		add("/users");
+		add("/users/{id}");
+		add("/users/{id}/orders");
+		add("/users/admin/**");
+		add("/orders/*.json");
+		add("/**/*.css");
+		add("/files/report.pdf");
+		add("admin", "/users/admin", "/admins");
+	}
+
+
+	@Test
+	public void literalPrefix() {
+		assertCandidates("/users/42", "all", "/**/*.css", "/users", "/users/{id}", "/users/{id}/orders");
+		assertCandidates("/users/admin/settings", "all", "/**/*.css", "/users", "/users/{id}", "/users/{id}/orders",
+				"/users/admin/**", "admin");
+		assertCandidates("/admins", "all", "/**/*.css", "admin");
+	}
+
+	@Test
+	public void noLiteralMatch() {
+		assertCandidates("/products/1", "all", "/**/*.css");
+		assertCandidates("/", "all", "/**/*.css");
+	}
+
+	@Test
+	public void emptySegmentsAndTrailingSlash() {
+		assertCandidates("//users/", "all", "/**/*.css", "/users", "/users/{id}", "/users/{id}/orders");
+	}
+
+	@Test
+	public void suffixPattern() {
+		assertCandidates("/users.json", "all", "/**/*.css", "/users", "/users/{id}", "/users/{id}/orders");
+		assertCandidates("/files/report.pdf.zip", "all", "/**/*.css", "/files/report.pdf");
+		assertCandidates("/orders/42.json", "all", "/**/*.css", "/orders/*.json");
+	}
+
+	@Test
+	public void remove() {
+		this.index.remove("/users/{id}", Collections.singleton("/users/{id}"));
+		this.index.remove("admin", Arrays.asList("/users/admin", "/admins"));
+		this.index.remove("all", Collections.emptySet());
+		assertCandidates("/users/42", "/**/*.css", "/users", "/users/{id}/orders");
+		assertCandidates("/admins", "/**/*.css");
+	}
+
+
+	private void add(String mapping, String... patterns) {
+		this.index.add(mapping, patterns.length > 0 ? Arrays.asList(patterns) :
+				(mapping.startsWith("/") ? Collections.singleton(mapping) : Collections.emptySet()));
+	}
+
+	private void assertCandidates(String lookupPath, String... expected) {
+		Collection<String> candidates = this.index.getCandidates(lookupPath);
+		assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(candidates));
+	}
+
+}